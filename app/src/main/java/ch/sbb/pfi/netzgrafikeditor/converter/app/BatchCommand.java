@@ -0,0 +1,131 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.app;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+@Slf4j
+@Component
+@CommandLine.Command(name = "batch", mixinStandardHelpOptions = true, description = "Converts many network graphics concurrently, sharing the stop facilities, track graph and rolling stock between the conversions.", footer = {""})
+@RequiredArgsConstructor
+public class BatchCommand implements Callable<Integer> {
+
+    private static final String JSON_EXTENSION = ".json";
+    private static final String COMMENT = "#";
+
+    private final ConversionService conversionService;
+
+    // positional arguments
+    @CommandLine.Parameters(index = "0", description = "The output directory, with a subdirectory per network graphic named after its file.")
+    private Path outputDirectory;
+    @CommandLine.Parameters(index = "1..*", arity = "0..*", description = "The network graphic files to convert, or glob patterns of their file names (e.g. graphics/*.json).")
+    private List<String> networkGraphicFiles = new ArrayList<>();
+
+    // batch configuration
+    @CommandLine.Option(names = {"-m", "--manifest"}, description = "File listing the network graphic files to convert, one per line and relative to the manifest. Lines starting with # are ignored.")
+    private Path manifestFile;
+    @CommandLine.Option(names = {"-w", "--workers"}, description = "Number of network graphics converted concurrently.", defaultValue = "4")
+    private int workers;
+
+    @CommandLine.Mixin
+    private ConversionOptions options;
+
+    private static String baseName(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(JSON_EXTENSION) ? name.substring(0, name.length() - JSON_EXTENSION.length()) : name;
+    }
+
+    private static List<Path> readManifest(Path manifestFile) throws IOException {
+        Path baseDirectory = manifestFile.toAbsolutePath().getParent();
+        List<Path> files = new ArrayList<>();
+        for (String line : Files.readAllLines(manifestFile)) {
+            String entry = line.strip();
+            if (!entry.isEmpty() && !entry.startsWith(COMMENT)) {
+                files.add(baseDirectory.resolve(entry));
+            }
+        }
+
+        return files;
+    }
+
+    // a pattern is matched against the files of its parent directory, in order of their names
+    private static List<Path> expand(String pattern) throws IOException {
+        Path path = Path.of(pattern);
+        if (!pattern.contains("*") && !pattern.contains("?") && !pattern.contains("[") && !pattern.contains("{")) {
+            return List.of(path);
+        }
+
+        Path directory = path.getParent() == null ? Path.of(".") : path.getParent();
+        Set<Path> files = new TreeSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, path.getFileName().toString())) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No network graphic files match " + pattern);
+        }
+
+        return new ArrayList<>(files);
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        List<Path> files = new ArrayList<>();
+        if (manifestFile != null) {
+            files.addAll(readManifest(manifestFile));
+        }
+        for (String networkGraphicFile : networkGraphicFiles) {
+            files.addAll(expand(networkGraphicFile));
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No network graphic files to convert, pass files or a manifest");
+        }
+
+        List<ConversionService.Request> requests = new ArrayList<>(files.size());
+        Set<String> names = new HashSet<>();
+        for (Path file : files) {
+            String name = baseName(file);
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Network graphic files with the same name " + name);
+            }
+            Path jobOutputDirectory = outputDirectory.resolve(name);
+            Path validationReportFile = options.getValidationReportFile() == null ? null : jobOutputDirectory.resolve(
+                    options.getValidationReportFile().getFileName());
+            requests.add(options.deriveConversionServiceRequest(file, jobOutputDirectory, validationReportFile));
+        }
+
+        long start = System.nanoTime();
+        List<ConversionService.Result> results = conversionService.convertAll(requests, workers);
+        long duration = (System.nanoTime() - start) / 1_000_000;
+
+        int failed = 0;
+        StringBuilder summary = new StringBuilder();
+        for (ConversionService.Result result : results) {
+            summary.append(String.format("%n  %-7s %8d ms  %s", result.isSuccess() ? "OK" : "FAILED",
+                    result.getDuration().toMillis(), result.getNetworkGraphicFile()));
+            if (!result.isSuccess()) {
+                failed++;
+                summary.append(": ").append(result.getMessage());
+            }
+        }
+        log.info("Converted {} of {} network graphics in {} ms on {} workers:{}", results.size() - failed,
+                results.size(), duration, Math.min(workers, results.size()), summary);
+
+        return failed == 0 ? 0 : 1;
+    }
+}
@@ -6,18 +6,26 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import picocli.CommandLine;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class CommandLineConverter implements CommandLineRunner, ExitCodeGenerator {
 
     private static final String FOOTER_KEY = "footer";
+    private static final String BATCH_COMMAND = "batch";
+    private static final String SERVE_COMMAND = "serve";
 
     private final CommandLine.IFactory factory;
     private final ConvertCommand convertCommand;
+    private final BatchCommand batchCommand;
+    private final ServeCommand serveCommand;
     private int exitCode;
 
-    CommandLineConverter(CommandLine.IFactory factory, ConvertCommand convertCommand) {
+    CommandLineConverter(CommandLine.IFactory factory, ConvertCommand convertCommand, BatchCommand batchCommand, ServeCommand serveCommand) {
         this.factory = factory;
         this.convertCommand = convertCommand;
+        this.batchCommand = batchCommand;
+        this.serveCommand = serveCommand;
     }
 
     public static void main(String[] args) {
@@ -26,9 +34,16 @@ public class CommandLineConverter implements CommandLineRunner, ExitCodeGenerato
 
     @Override
     public void run(String... args) {
-        CommandLine commandLine = new CommandLine(convertCommand, factory);
+        // the batch and serve commands are selected by their name, convert stays the default command without a name
+        String name = args.length > 0 ? args[0] : "";
+        Object command = switch (name) {
+            case BATCH_COMMAND -> batchCommand;
+            case SERVE_COMMAND -> serveCommand;
+            default -> convertCommand;
+        };
+        CommandLine commandLine = new CommandLine(command, factory);
         commandLine.getHelpSectionMap().put(FOOTER_KEY, convertCommand.new FooterProvider());
-        exitCode = commandLine.execute(args);
+        exitCode = commandLine.execute(command == convertCommand ? args : Arrays.copyOfRange(args, 1, args.length));
     }
 
     @Override
@@ -0,0 +1,90 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.app;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverterConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.validation.ValidationStrategy;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+
+/**
+ * Options of a conversion, shared by the convert and batch commands.
+ */
+public class ConversionOptions {
+
+    // converter configuration
+    @CommandLine.Option(names = {"-v", "--validation"}, description = "Validation strategy (SKIP_VALIDATION, WARN_ON_ISSUES, FAIL_ON_ISSUES, REPLACE_WHITESPACE, REMOVE_SPECIAL_CHARACTERS).", defaultValue = "WARN_ON_ISSUES")
+    private ValidationStrategy validationStrategy;
+    @CommandLine.Option(names = {"-o", "--validation-report"}, description = "File to write the validation report to, as CSV if the name ends with .csv, else as JSON.")
+    private Path validationReportFile;
+    @CommandLine.Option(names = {"-t", "--train-names"}, description = "Use train names as route or line IDs (true/false).", defaultValue = "false")
+    private boolean useTrainNamesAsIds;
+    @CommandLine.Option(names = {"-s", "--service-day-start"}, description = "Service day start time (HH:mm).", converter = ServiceDayTimeConverter.class, defaultValue = "04:00")
+    private ServiceDayTime serviceDayStart;
+    @CommandLine.Option(names = {"-e", "--service-day-end"}, description = "Service day end time (HH:mm).", converter = ServiceDayTimeConverter.class, defaultValue = "25:00")
+    private ServiceDayTime serviceDayEnd;
+    @CommandLine.Option(names = {"-j", "--parallelism"}, description = "Number of threads to validate the network graphic and expand the trainruns on.", defaultValue = "1")
+    private int parallelism;
+
+    // format and repositories
+    @CommandLine.Option(names = {"-f", "--format"}, description = "Output format (GTFS or MATSim).", defaultValue = "GTFS")
+    private OutputFormat outputFormat;
+    @CommandLine.Option(names = {"-i", "--stop-facility-csv"}, description = "File which contains the coordinates of the stop facilities.")
+    private Path stopFacilityCsv;
+    @CommandLine.Option(names = {"-n", "--track-node-csv"}, description = "File which contains the nodes of the track graph, to route the tracks between the stop facilities on.")
+    private Path trackNodeCsv;
+    @CommandLine.Option(names = {"-g", "--track-segment-csv"}, description = "File which contains the directed segments of the track graph between its nodes.")
+    private Path trackSegmentCsv;
+    @CommandLine.Option(names = {"-x", "--track-hierarchy"}, description = "File with the contraction hierarchy of the track graph, which is built if missing or outdated and memory-mapped otherwise.")
+    private Path trackHierarchyFile;
+    @CommandLine.Option(names = {"-r", "--rolling-stock-csv"}, description = "File which contains the vehicle types to be mapped to network graphic categories.")
+    private Path rollingStockCsv;
+    @CommandLine.Option(names = {"-c", "--compression-level"}, description = "GTFS zip and MATSim gzip compression level (0-9, 0 stores the files uncompressed, -1 for the default level).", defaultValue = "-1")
+    private int compressionLevel;
+    @CommandLine.Option(names = {"-q", "--frequencies"}, description = "Write periodic GTFS departures as frequencies of template trips (true/false).", defaultValue = "false")
+    private boolean gtfsFrequencies;
+    @CommandLine.Option(names = {"-p", "--vehicle-circuits"}, description = "Chain departures into vehicle circuits with turnaround at the terminal stops, instead of one vehicle per departure (true/false).", defaultValue = "false")
+    private boolean vehicleCircuits;
+    @CommandLine.Option(names = {"-k", "--track-cache"}, description = "File to cache the tracks between stops in, so that the next conversion starts warm.")
+    private Path trackCacheFile;
+    @CommandLine.Option(names = {"-d", "--snapshot-dir"}, description = "Directory for binary snapshots of the stop facility and rolling stock CSV files, which are written if missing or outdated and memory-mapped otherwise.")
+    private Path snapshotDirectory;
+
+    ConversionService.Request deriveConversionServiceRequest(Path networkGraphicFile, Path outputDirectory) {
+        return deriveConversionServiceRequest(networkGraphicFile, outputDirectory, validationReportFile);
+    }
+
+    ConversionService.Request deriveConversionServiceRequest(Path networkGraphicFile, Path outputDirectory, Path validationReportFile) {
+        return ConversionService.Request.builder()
+                .networkGraphicFile(networkGraphicFile)
+                .outputDirectory(outputDirectory)
+                .converterConfig(deriveNetworkGraphicConfig(validationReportFile))
+                .outputFormat(outputFormat)
+                .stopFacilityCsv(stopFacilityCsv)
+                .trackNodeCsv(trackNodeCsv)
+                .trackSegmentCsv(trackSegmentCsv)
+                .trackHierarchyFile(trackHierarchyFile)
+                .rollingStockCsv(rollingStockCsv)
+                .compressionLevel(compressionLevel)
+                .gtfsFrequencies(gtfsFrequencies)
+                .trackCacheFile(trackCacheFile)
+                .snapshotDirectory(snapshotDirectory)
+                .vehicleCircuits(vehicleCircuits)
+                .build();
+    }
+
+    Path getValidationReportFile() {
+        return validationReportFile;
+    }
+
+    private NetworkGraphicConverterConfig deriveNetworkGraphicConfig(Path validationReportFile) {
+        return NetworkGraphicConverterConfig.builder()
+                .validationStrategy(validationStrategy)
+                .validationReportFile(validationReportFile)
+                .useTrainNamesAsIds(useTrainNamesAsIds)
+                .serviceDayStart(serviceDayStart)
+                .serviceDayEnd(serviceDayEnd)
+                .parallelism(parallelism)
+                .build();
+    }
+}
@@ -0,0 +1,311 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.app;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.validation.NetworkGraphicValidationException;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.GtfsScheduleWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * HTTP server which converts network graphics posted to {@value #CONTEXT} and streams back the timetable as zip file:
+ * the GTFS feed, or the MATSim files stored uncompressed in a zip since they are gzipped already.
+ * <p>
+ * The repositories are loaded once and shared by all conversions, which run on virtual threads. At most a fixed number
+ * of conversions run concurrently; further requests wait for a slot up to the queue timeout and are then rejected with
+ * 503 and a Retry-After header, so that clients back off instead of piling up conversions. The request body is
+ * received into a temporary file before waiting for a slot, so that a slow upload does not hold a slot, and a body
+ * larger than the maximum request size is rejected with 413.
+ * <p>
+ * When the server is stopped, new requests are rejected with 503, while the running conversions finish and send their
+ * responses before the connections are closed.
+ * <p>
+ * A body which is not network graphic JSON is rejected with 400 and the parse message, a network graphic which fails
+ * the validation with 422 and the validation message; any other failure is answered with 500 and a generic message,
+ * the details are only logged.
+ */
+@Slf4j
+class ConversionServer {
+
+    static final String CONTEXT = "/convert";
+    private static final String FORMAT_PARAMETER = "format=";
+    private static final String MATSIM_ZIP = "matsim.zip";
+    private static final String INPUT_FILE = "network-graphic.json";
+    private static final String OUTPUT_DIRECTORY = "output";
+    private static final String TEMP_DIRECTORY_PREFIX = "conversion-";
+    private static final int DRAIN_TIMEOUT_SECONDS = 60;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ConversionService conversionService;
+    private final ConversionService.Repositories repositories;
+    private final ConversionService.Request template;
+    private final Semaphore slots;
+    private final int maxConcurrentConversions;
+    private final long queueTimeoutMillis;
+    private final long maxRequestBytes;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    private volatile boolean stopping;
+
+    /**
+     * @param template                 request with the options of all conversions, the network graphic, output
+     *                                 directory and format are set per conversion.
+     * @param maxConcurrentConversions maximum number of conversions running concurrently.
+     * @param queueTimeoutMillis       maximum time a request waits for a conversion slot before it is rejected.
+     * @param maxRequestBytes          maximum size of the posted network graphic, larger requests are rejected.
+     */
+    ConversionServer(ConversionService conversionService, ConversionService.Request template, InetSocketAddress address, int maxConcurrentConversions, long queueTimeoutMillis, long maxRequestBytes) throws IOException {
+        if (maxConcurrentConversions < 1) {
+            throw new IllegalArgumentException("Maximum concurrent conversions must be at least 1");
+        }
+        if (maxRequestBytes < 1) {
+            throw new IllegalArgumentException("Maximum request size must be at least 1 byte");
+        }
+
+        this.conversionService = conversionService;
+        this.repositories = conversionService.loadRepositories(template);
+        this.template = template;
+        this.slots = new Semaphore(maxConcurrentConversions, true);
+        this.maxConcurrentConversions = maxConcurrentConversions;
+        this.queueTimeoutMillis = queueTimeoutMillis;
+        this.maxRequestBytes = maxRequestBytes;
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext(CONTEXT, this::handle);
+    }
+
+    private static OutputFormat parseFormat(URI uri, OutputFormat defaultFormat) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return defaultFormat;
+        }
+
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith(FORMAT_PARAMETER)) {
+                return OutputFormat.valueOf(parameter.substring(FORMAT_PARAMETER.length()).toUpperCase(Locale.ROOT));
+            }
+        }
+
+        return defaultFormat;
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    // the MATSim files are gzipped, so they are stored in the zip without compressing them again
+    private static void zipFiles(Path directory, OutputStream os) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(Files::isRegularFile).sorted().toList();
+        }
+
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(os)) {
+            zipOutputStream.setLevel(0);
+            for (Path file : files) {
+                zipOutputStream.putNextEntry(new ZipEntry(file.getFileName().toString()));
+                Files.copy(file, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path path : stream.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete temporary directory {}", directory, e);
+        }
+    }
+
+    void start() {
+        server.start();
+        log.info("Listening on http://{}:{}{} with at most {} concurrent conversions",
+                server.getAddress().getHostString(), server.getAddress().getPort(), CONTEXT, maxConcurrentConversions);
+    }
+
+    /**
+     * Reject new requests, wait for the running conversions to send their responses, close the connections and persist
+     * the track cache, if any.
+     * <p>
+     * The conversions hold their slot until their response is sent, so they are done once all slots are acquired. If
+     * they do not finish within the drain timeout, their connections are closed, they are interrupted and the track
+     * cache is not persisted, since it might still be written to.
+     */
+    void stop() throws IOException {
+        stopping = true;
+
+        boolean drained;
+        try {
+            drained = slots.tryAcquire(maxConcurrentConversions, DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            drained = false;
+        }
+        // the drained conversions have sent their responses; the JDK server waits the full delay if given one
+        server.stop(0);
+
+        if (!drained) {
+            executor.shutdownNow();
+            log.warn("Conversions still running after {} s, not persisting the track cache", DRAIN_TIMEOUT_SECONDS);
+            return;
+        }
+
+        executor.shutdown();
+        repositories.persist();
+    }
+
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendText(exchange, 405, "Post the network graphic JSON to convert");
+                return;
+            }
+
+            OutputFormat outputFormat;
+            try {
+                outputFormat = parseFormat(exchange.getRequestURI(), template.getOutputFormat());
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, "Unknown output format, expected GTFS or MATSIM");
+                return;
+            }
+
+            if (stopping) {
+                sendText(exchange, 503, "Server is stopping");
+                return;
+            }
+
+            Path directory = Files.createTempDirectory(TEMP_DIRECTORY_PREFIX);
+            try {
+                Path networkGraphicFile = directory.resolve(INPUT_FILE);
+                if (!receive(exchange, networkGraphicFile)) {
+                    sendText(exchange, 413, "Network graphic larger than " + maxRequestBytes + " bytes");
+                    return;
+                }
+
+                if (!acquire()) {
+                    exchange.getResponseHeaders().set("Retry-After", String.valueOf(
+                            Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMillis))));
+                    sendText(exchange, 503, "Too many concurrent conversions");
+                    return;
+                }
+
+                try {
+                    // a request waiting for a slot while the server stopped must not start a conversion
+                    if (stopping) {
+                        sendText(exchange, 503, "Server is stopping");
+                        return;
+                    }
+
+                    convert(exchange, outputFormat, networkGraphicFile, directory.resolve(OUTPUT_DIRECTORY));
+                } finally {
+                    slots.release();
+                }
+
+            } finally {
+                deleteRecursively(directory);
+            }
+        }
+    }
+
+    // false if the body exceeds the maximum request size, the rest of it is not read
+    private boolean receive(HttpExchange exchange, Path file) throws IOException {
+        try (InputStream is = exchange.getRequestBody(); OutputStream os = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            int read;
+            while ((read = is.read(buffer)) >= 0) {
+                size += read;
+                if (size > maxRequestBytes) {
+                    return false;
+                }
+                os.write(buffer, 0, read);
+            }
+        }
+
+        return true;
+    }
+
+    private boolean acquire() {
+        try {
+            return slots.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void convert(HttpExchange exchange, OutputFormat outputFormat, Path networkGraphicFile, Path outputDirectory) throws IOException {
+        ConversionService.Request request = template.toBuilder()
+                .networkGraphicFile(networkGraphicFile)
+                .outputDirectory(outputDirectory)
+                .outputFormat(outputFormat)
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            conversionService.convert(request, repositories);
+        } catch (JsonProcessingException e) {
+            log.warn("Rejected malformed network graphic from {}: {}", exchange.getRemoteAddress(),
+                    e.getOriginalMessage());
+            sendText(exchange, 400, "Malformed network graphic JSON: " + e.getOriginalMessage());
+            return;
+        } catch (NetworkGraphicValidationException e) {
+            log.warn("Rejected invalid network graphic from {}: {}", exchange.getRemoteAddress(), e.getMessage());
+            sendText(exchange, 422, "Invalid network graphic: " + e.getMessage());
+            return;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to convert network graphic from {}", exchange.getRemoteAddress(), e);
+            sendText(exchange, 500, "Conversion failed");
+            return;
+        }
+        log.info("Converted network graphic from {} to {} in {} ms", exchange.getRemoteAddress(), outputFormat,
+                (System.nanoTime() - start) / 1_000_000);
+
+        // stream the response chunked, its length is not known for the MATSim zip
+        String fileName = outputFormat == OutputFormat.GTFS ? GtfsScheduleWriter.GTFS_ZIP : MATSIM_ZIP;
+        exchange.getResponseHeaders().set("Content-Type", "application/zip");
+        exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream os = exchange.getResponseBody()) {
+            if (outputFormat == OutputFormat.GTFS) {
+                Files.copy(outputDirectory.resolve(GtfsScheduleWriter.GTFS_ZIP), os);
+            } else {
+                zipFiles(outputDirectory, os);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.app;
 
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.FrequencyGtfsSupplyBuilder;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.GtfsSupplyBuilder;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim.MatsimSupplyBuilder;
@@ -11,48 +12,145 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepositor
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.SupplyBuilder;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache.CachingInfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache.TrackCacheConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.circuits.PartitionedVehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.circuits.TurnaroundVehicleCircuitsPlanner;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoInfrastructureRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoRollingStockRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoVehicleCircuitsPlanner;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.csv.CsvInfrastructureRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.csv.CsvRollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.csv.CsvTrackGraphInfrastructureRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.GtfsScheduleWriter;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.matsim.TransitScheduleXmlWriter;
-import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonFileReader;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonStreamReader;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipConfig;
+import lombok.AccessLevel;
 import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
 import org.matsim.api.core.v01.Scenario;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 
 @Service
+@Slf4j
 public class ConversionService {
 
-    private static InfrastructureRepository configureInfrastructureRepository(Path stopFacilityCsv) throws IOException {
-        return stopFacilityCsv == null ? new NoInfrastructureRepository() : new CsvInfrastructureRepository(
-                stopFacilityCsv);
+    private static final String SNAPSHOT_FILE_SUFFIX = ".snapshot";
+
+    private static Path snapshotFile(Path snapshotDirectory, Path csvFile) {
+        return snapshotDirectory == null ? null : snapshotDirectory.resolve(
+                csvFile.getFileName().toString() + SNAPSHOT_FILE_SUFFIX);
     }
 
-    private static RollingStockRepository configureRollingStockRepository(Path rollingStockCsv) throws IOException {
+    // null if there are no repository files, then each conversion uses the fallback on the network graphic coordinates
+    private static InfrastructureRepository configureInfrastructureRepository(Path stopFacilityCsv, Path trackNodeCsv, Path trackSegmentCsv, Path trackHierarchyFile, Path trackCacheFile, Path snapshotDirectory) throws IOException {
+        InfrastructureRepository repository;
+        if (trackNodeCsv != null || trackSegmentCsv != null || trackHierarchyFile != null) {
+            if (stopFacilityCsv == null || trackNodeCsv == null || trackSegmentCsv == null) {
+                throw new IllegalArgumentException(
+                        "Routing on the track graph requires the stop facility, track node and track segment files");
+            }
+            repository = new CsvTrackGraphInfrastructureRepository(stopFacilityCsv,
+                    snapshotFile(snapshotDirectory, stopFacilityCsv), trackNodeCsv, trackSegmentCsv,
+                    CsvTrackGraphInfrastructureRepository.DEFAULT_MAX_SNAPPING_DISTANCE, trackHierarchyFile);
+        } else if (stopFacilityCsv != null) {
+            repository = new CsvInfrastructureRepository(stopFacilityCsv,
+                    snapshotFile(snapshotDirectory, stopFacilityCsv));
+        } else {
+            return null;
+        }
+
+        if (trackCacheFile == null) {
+            return repository;
+        }
+
+        return new CachingInfrastructureRepository(repository,
+                TrackCacheConfig.builder().cacheFile(trackCacheFile).build());
+    }
+
+    private static RollingStockRepository configureRollingStockRepository(Path rollingStockCsv, Path snapshotDirectory) throws IOException {
         return rollingStockCsv == null ? new NoRollingStockRepository() : new CsvRollingStockRepository(
-                rollingStockCsv);
+                rollingStockCsv, snapshotFile(snapshotDirectory, rollingStockCsv));
+    }
+
+    private static ParallelZipConfig configureParallelZip(int compressionLevel) {
+        return ParallelZipConfig.builder()
+                .compressionLevel(compressionLevel)
+                .stored(compressionLevel == 0)
+                .build();
+    }
+
+    private static SupplyBuilder<GtfsSchedule> configureGtfsSupplyBuilder(boolean frequencies, InfrastructureRepository infrastructureRepository, RollingStockRepository rollingStockRepository, VehicleCircuitsPlanner vehicleCircuitsPlanner) {
+        return frequencies ? new FrequencyGtfsSupplyBuilder(infrastructureRepository, rollingStockRepository,
+                vehicleCircuitsPlanner) : new GtfsSupplyBuilder(infrastructureRepository, rollingStockRepository,
+                vehicleCircuitsPlanner);
+    }
+
+    private static Result await(Future<Result> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for conversion", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Load the repositories of the request, which can be shared by the conversions of requests with the same
+     * repository files.
+     */
+    public Repositories loadRepositories(Request request) throws IOException {
+        return new Repositories(
+                configureInfrastructureRepository(request.stopFacilityCsv, request.trackNodeCsv,
+                        request.trackSegmentCsv, request.trackHierarchyFile, request.trackCacheFile,
+                        request.snapshotDirectory),
+                configureRollingStockRepository(request.rollingStockCsv, request.snapshotDirectory));
     }
 
     public void convert(Request request) throws IOException {
-        NetworkGraphicSource source = new JsonFileReader(request.networkGraphicFile);
+        Repositories repositories = loadRepositories(request);
+        convert(request, repositories);
+        repositories.persist();
+    }
 
-        InfrastructureRepository infrastructureRepository = configureInfrastructureRepository(request.stopFacilityCsv);
-        RollingStockRepository rollingStockRepository = configureRollingStockRepository(request.rollingStockCsv);
-        VehicleCircuitsPlanner vehicleCircuitsPlanner = new NoVehicleCircuitsPlanner(rollingStockRepository);
+    public void convert(Request request, Repositories repositories) throws IOException {
+        NetworkGraphicSource source = new JsonStreamReader(request.networkGraphicFile);
 
+        InfrastructureRepository infrastructureRepository = repositories.getInfrastructureRepository();
+        RollingStockRepository rollingStockRepository = repositories.getRollingStockRepository();
+        VehicleCircuitsPlanner vehicleCircuitsPlanner = request.vehicleCircuits ? new PartitionedVehicleCircuitsPlanner(
+                rollingStockRepository,
+                () -> new TurnaroundVehicleCircuitsPlanner(rollingStockRepository)) : new NoVehicleCircuitsPlanner(
+                rollingStockRepository);
         NetworkGraphicConverter<?> converter = switch (request.outputFormat) {
 
             case GTFS -> {
-                SupplyBuilder<GtfsSchedule> builder = new GtfsSupplyBuilder(infrastructureRepository,
-                        rollingStockRepository, vehicleCircuitsPlanner);
-                ConverterSink<GtfsSchedule> sink = new GtfsScheduleWriter(request.outputDirectory, true);
+                SupplyBuilder<GtfsSchedule> builder = configureGtfsSupplyBuilder(request.gtfsFrequencies,
+                        infrastructureRepository, rollingStockRepository, vehicleCircuitsPlanner);
+                ConverterSink<GtfsSchedule> sink = new GtfsScheduleWriter(request.outputDirectory,
+                        configureParallelZip(request.compressionLevel));
 
                 yield new NetworkGraphicConverter<>(request.converterConfig, source, builder, sink);
             }
@@ -60,7 +158,8 @@ public class ConversionService {
             case MATSIM -> {
                 SupplyBuilder<Scenario> builder = new MatsimSupplyBuilder(infrastructureRepository,
                         rollingStockRepository, vehicleCircuitsPlanner);
-                ConverterSink<Scenario> sink = new TransitScheduleXmlWriter(request.outputDirectory);
+                ConverterSink<Scenario> sink = new TransitScheduleXmlWriter(request.outputDirectory, "",
+                        configureParallelZip(request.compressionLevel));
 
                 yield new NetworkGraphicConverter<>(request.converterConfig, source, builder, sink);
             }
@@ -70,14 +169,107 @@ public class ConversionService {
         converter.run();
     }
 
+    /**
+     * Convert the requests concurrently, with the repositories loaded once from the files of the first request and
+     * shared read-only by all conversions. A failed conversion does not stop the others.
+     *
+     * @param concurrency maximum number of concurrent conversions.
+     * @return the result of each request, in the order of the requests.
+     */
+    public List<Result> convertAll(List<Request> requests, int concurrency) throws IOException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1");
+        }
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+
+        Repositories repositories = loadRepositories(requests.getFirst());
+        List<Result> results = new ArrayList<>(requests.size());
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, requests.size()));
+        try {
+            List<Future<Result>> futures = new ArrayList<>(requests.size());
+            for (Request request : requests) {
+                futures.add(executor.submit(() -> convertAndMeasure(request, repositories)));
+            }
+            for (Future<Result> future : futures) {
+                results.add(await(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        repositories.persist();
+
+        return results;
+    }
+
+    private Result convertAndMeasure(Request request, Repositories repositories) {
+        long start = System.nanoTime();
+        try {
+            convert(request, repositories);
+            return new Result(request.networkGraphicFile, true, Duration.ofNanos(System.nanoTime() - start), null);
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to convert {}", request.networkGraphicFile, e);
+            return new Result(request.networkGraphicFile, false, Duration.ofNanos(System.nanoTime() - start),
+                    e.getMessage());
+        }
+    }
+
     @Value
-    @Builder
+    @Builder(toBuilder = true)
     public static class Request {
         Path networkGraphicFile;
         Path outputDirectory;
         NetworkGraphicConverterConfig converterConfig;
         OutputFormat outputFormat;
         Path stopFacilityCsv;
+        Path trackNodeCsv;
+        Path trackSegmentCsv;
+        Path trackHierarchyFile;
         Path rollingStockCsv;
+        @Builder.Default
+        int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        boolean gtfsFrequencies;
+        Path trackCacheFile;
+        Path snapshotDirectory;
+        boolean vehicleCircuits;
+    }
+
+    /**
+     * Repositories loaded from the repository files of a request. The CSV repositories are read-only and the track
+     * cache is synchronized, so that they can be shared by concurrent conversions.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Repositories {
+
+        private final InfrastructureRepository infrastructureRepository;
+        @Getter
+        private final RollingStockRepository rollingStockRepository;
+
+        InfrastructureRepository getInfrastructureRepository() {
+            // the fallback keeps the coordinates of the nodes of one network graphic, it cannot be shared
+            return infrastructureRepository == null ? new NoInfrastructureRepository() : infrastructureRepository;
+        }
+
+        /**
+         * Persist the track cache, if any.
+         */
+        public void persist() throws IOException {
+            if (infrastructureRepository instanceof CachingInfrastructureRepository cachingInfrastructureRepository) {
+                cachingInfrastructureRepository.persist();
+            }
+        }
+    }
+
+    @Value
+    public static class Result {
+        Path networkGraphicFile;
+        boolean success;
+        Duration duration;
+        /**
+         * The message of the exception if the conversion failed.
+         */
+        String message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.app;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+@Slf4j
+@Component
+@CommandLine.Command(name = "serve", mixinStandardHelpOptions = true, description = "Runs an HTTP server which converts posted network graphics, keeping the repositories loaded between the conversions.", footer = {""})
+@RequiredArgsConstructor
+public class ServeCommand implements Callable<Integer> {
+
+    private final ConversionService conversionService;
+
+    // server configuration
+    @CommandLine.Option(names = {"-a", "--address"}, description = "Address to listen on.", defaultValue = "localhost")
+    private String address;
+    @CommandLine.Option(names = {"-l", "--port"}, description = "Port to listen on.", defaultValue = "8080")
+    private int port;
+    @CommandLine.Option(names = {"-w", "--workers"}, description = "Number of network graphics converted concurrently.", defaultValue = "4")
+    private int workers;
+    @CommandLine.Option(names = {"-u", "--queue-timeout"}, description = "Seconds a request waits for a worker before it is rejected with 503.", defaultValue = "30")
+    private int queueTimeout;
+    @CommandLine.Option(names = {"-m", "--max-request-size"}, description = "Maximum size in megabytes of a posted network graphic, larger requests are rejected with 413.", defaultValue = "256")
+    private int maxRequestSize;
+
+    @CommandLine.Mixin
+    private ConversionOptions options;
+
+    @Override
+    public Integer call() throws Exception {
+        // the network graphic and output directory are set per request, a shared validation report would be overwritten
+        ConversionService.Request template = options.deriveConversionServiceRequest(null, null, null);
+        ConversionServer server = new ConversionServer(conversionService, template,
+                new InetSocketAddress(address, port), workers, queueTimeout * 1000L, maxRequestSize * 1024L * 1024L);
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (IOException e) {
+                log.error("Failed to persist the track cache", e);
+            } finally {
+                stopped.countDown();
+            }
+        }));
+
+        server.start();
+        stopped.await();
+
+        return 0;
+    }
+}
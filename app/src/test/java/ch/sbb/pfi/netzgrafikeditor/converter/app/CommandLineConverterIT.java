@@ -94,7 +94,10 @@ class CommandLineConverterIT {
         VALIDATION_REMOVE_SPECIAL_CHARACTERS(new String[]{"-v", "REMOVE_SPECIAL_CHARACTERS"}, true, ""),
         TRAIN_NAMES(new String[]{"-t"}, true, ""),
         SERVICE_DAY_START(new String[]{"-s", "03:30"}, true, ""),
-        SERVICE_DAY_END(new String[]{"-s", "24:15"}, true, "");
+        SERVICE_DAY_END(new String[]{"-s", "24:15"}, true, ""),
+        COMPRESSION_STORED(new String[]{"-c", "0"}, true, ""),
+        COMPRESSION_BEST(new String[]{"-c", "9"}, true, ""),
+        FREQUENCIES(new String[]{"-q"}, true, "");
 
         private final String[] args;
         private final boolean success;
@@ -0,0 +1,255 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.app;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverterConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.validation.ValidationStrategy;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionServerTest {
+
+    private static final TestScenario TEST_SCENARIO = TestScenario.REALISTIC_SCENARIO;
+    private static final long MAX_REQUEST_BYTES = 64L * 1024 * 1024;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private ConversionServer server;
+
+    private static ConversionService.Request template(ValidationStrategy validationStrategy) {
+        return ConversionService.Request.builder()
+                .converterConfig(NetworkGraphicConverterConfig.builder().validationStrategy(validationStrategy).build())
+                .outputFormat(OutputFormat.GTFS)
+                .build();
+    }
+
+    private static List<String> zipEntries(byte[] zip) throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = zipInputStream.getNextEntry(); entry != null; entry = zipInputStream.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+
+        return entries;
+    }
+
+    private static ConversionService blockingService(CountDownLatch converting, CountDownLatch release) {
+        return new ConversionService() {
+            @Override
+            public void convert(Request request, Repositories repositories) throws IOException {
+                converting.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+                super.convert(request, repositories);
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    void post_gtfs() throws Exception {
+        start(new ConversionService(), template(ValidationStrategy.WARN_ON_ISSUES), 1, 1000);
+
+        HttpResponse<byte[]> response = client.send(post("", HttpRequest.BodyPublishers.ofFile(
+                TEST_SCENARIO.getNetworkGraphicFilePath())), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValue("application/zip");
+        assertThat(zipEntries(response.body())).contains("agency.txt", "stops.txt", "routes.txt", "trips.txt",
+                "stop_times.txt");
+    }
+
+    @Test
+    void get_methodNotAllowed() throws Exception {
+        start(new ConversionService(), template(ValidationStrategy.WARN_ON_ISSUES), 1, 1000);
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(405);
+        assertThat(response.headers().firstValue("Allow")).hasValue("POST");
+    }
+
+    @Test
+    void post_unknownFormat() throws Exception {
+        start(new ConversionService(), template(ValidationStrategy.WARN_ON_ISSUES), 1, 1000);
+
+        HttpResponse<String> response = client.send(post("?format=xml", HttpRequest.BodyPublishers.ofFile(
+                TEST_SCENARIO.getNetworkGraphicFilePath())), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void post_invalidNetworkGraphic() throws Exception {
+        start(new ConversionService(), template(ValidationStrategy.FAIL_ON_ISSUES), 1, 1000);
+
+        HttpResponse<String> response = client.send(post("", HttpRequest.BodyPublishers.ofFile(
+                TEST_SCENARIO.getNetworkGraphicFilePath())), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(422);
+        assertThat(response.body()).contains("Found issues during network graphic validation");
+    }
+
+    @Test
+    void post_malformedJson() throws Exception {
+        start(new ConversionService(), template(ValidationStrategy.WARN_ON_ISSUES), 1, 1000);
+
+        HttpResponse<String> response = client.send(post("", HttpRequest.BodyPublishers.ofString("{\"nodes\": [")),
+                HttpResponse.BodyHandlers.ofString());
+
+        // a request error, distinguishable from a failure of the server
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).startsWith("Malformed network graphic JSON: ");
+    }
+
+    @Test
+    void post_tooLarge() throws Exception {
+        start(new ConversionService(), template(ValidationStrategy.WARN_ON_ISSUES), 1, 1000, 16);
+
+        HttpResponse<String> response = client.send(post("", HttpRequest.BodyPublishers.ofString(
+                "{\"nodes\": [], \"trainrunSections\": [], \"trainruns\": []}")), HttpResponse.BodyHandlers.ofString());
+
+        assertThat(response.statusCode()).isEqualTo(413);
+    }
+
+    @Test
+    void post_slowUploadDoesNotHoldSlot() throws Exception {
+        CountDownLatch uploading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(new ConversionService(), template(ValidationStrategy.WARN_ON_ISSUES), 1, 100);
+
+        // the body of the first request stalls until it is released
+        CompletableFuture<HttpResponse<String>> stalled = client.sendAsync(post("",
+                HttpRequest.BodyPublishers.ofInputStream(() -> new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        uploading.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException();
+                        }
+                        return -1;
+                    }
+                })), HttpResponse.BodyHandlers.ofString());
+        uploading.await();
+
+        HttpResponse<byte[]> response = client.send(post("", HttpRequest.BodyPublishers.ofFile(
+                TEST_SCENARIO.getNetworkGraphicFilePath())), HttpResponse.BodyHandlers.ofByteArray());
+        release.countDown();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        stalled.get();
+    }
+
+    @Test
+    void post_tooManyConversions() throws Exception {
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(blockingService(converting, release), template(ValidationStrategy.WARN_ON_ISSUES), 1, 100);
+
+        // the first conversion holds the only slot until it is released
+        CompletableFuture<HttpResponse<byte[]>> first = client.sendAsync(post("",
+                        HttpRequest.BodyPublishers.ofFile(TEST_SCENARIO.getNetworkGraphicFilePath())),
+                HttpResponse.BodyHandlers.ofByteArray());
+        converting.await();
+
+        HttpResponse<String> rejected = client.send(post("", HttpRequest.BodyPublishers.ofString("{}")),
+                HttpResponse.BodyHandlers.ofString());
+        release.countDown();
+
+        assertThat(rejected.statusCode()).isEqualTo(503);
+        assertThat(rejected.headers().firstValue("Retry-After")).hasValue("1");
+        assertThat(first.get().statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void stop_drainsRunningConversions() throws Exception {
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        start(blockingService(converting, release), template(ValidationStrategy.WARN_ON_ISSUES), 1, 100);
+
+        CompletableFuture<HttpResponse<byte[]>> running = client.sendAsync(post("",
+                        HttpRequest.BodyPublishers.ofFile(TEST_SCENARIO.getNetworkGraphicFilePath())),
+                HttpResponse.BodyHandlers.ofByteArray());
+        converting.await();
+
+        ConversionServer stoppingServer = server;
+        server = null;
+        CompletableFuture<Void> stopped = CompletableFuture.runAsync(() -> {
+            try {
+                stoppingServer.stop();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        // new requests are rejected while the server waits for the running conversion
+        HttpResponse<String> rejected;
+        do {
+            rejected = client.send(post("", HttpRequest.BodyPublishers.ofString("{}")),
+                    HttpResponse.BodyHandlers.ofString());
+        } while (!rejected.body().contains("stopping"));
+        assertThat(rejected.statusCode()).isEqualTo(503);
+
+        // the running conversion still sends its response before the connections are closed
+        release.countDown();
+        assertThat(running.get().statusCode()).isEqualTo(200);
+        stopped.get();
+    }
+
+    private void start(ConversionService conversionService, ConversionService.Request template, int maxConcurrentConversions, long queueTimeoutMillis) throws IOException {
+        start(conversionService, template, maxConcurrentConversions, queueTimeoutMillis, MAX_REQUEST_BYTES);
+    }
+
+    private void start(ConversionService conversionService, ConversionService.Request template, int maxConcurrentConversions, long queueTimeoutMillis, long maxRequestBytes) throws IOException {
+        server = new ConversionServer(conversionService, template,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), maxConcurrentConversions,
+                queueTimeoutMillis, maxRequestBytes);
+        server.start();
+    }
+
+    private URI uri(String query) {
+        return URI.create(String.format("http://%s:%d%s%s", server.getAddress().getHostString(),
+                server.getAddress().getPort(), ConversionServer.CONTEXT, query));
+    }
+
+    private HttpRequest post(String query, HttpRequest.BodyPublisher body) {
+        return HttpRequest.newBuilder(uri(query))
+                .header("Content-Type", "application/json; charset=" + StandardCharsets.UTF_8.name())
+                .POST(body)
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.app;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverterConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.GtfsScheduleWriter;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ConversionService.Request request(Path networkGraphicFile, Path outputDirectory) {
+        return ConversionService.Request.builder()
+                .networkGraphicFile(networkGraphicFile)
+                .outputDirectory(outputDirectory)
+                .converterConfig(NetworkGraphicConverterConfig.builder().build())
+                .outputFormat(OutputFormat.GTFS)
+                .build();
+    }
+
+    @Test
+    void convertAll() throws IOException {
+        Path invalidFile = Files.writeString(tempDir.resolve("invalid.json"), "{\"nodes\": [");
+        List<Path> files = List.of(TestScenario.ALL_TEST_CASES.getNetworkGraphicFilePath(), invalidFile,
+                TestScenario.REALISTIC_SCENARIO.getNetworkGraphicFilePath());
+        List<ConversionService.Request> requests = List.of(request(files.get(0), tempDir.resolve("first")),
+                request(files.get(1), tempDir.resolve("invalid")), request(files.get(2), tempDir.resolve("second")));
+
+        List<ConversionService.Result> results = new ConversionService().convertAll(requests, 2);
+
+        // the results are in the order of the requests, the failed conversion does not stop the others
+        assertThat(results.stream().map(ConversionService.Result::getNetworkGraphicFile).toList()).isEqualTo(files);
+        assertThat(results.stream().map(ConversionService.Result::isSuccess).toList()).isEqualTo(
+                List.of(true, false, true));
+        assertThat(results.get(1).getMessage()).isNotNull();
+        assertThat(Files.exists(tempDir.resolve("first").resolve(GtfsScheduleWriter.GTFS_ZIP))).isTrue();
+        assertThat(Files.exists(tempDir.resolve("second").resolve(GtfsScheduleWriter.GTFS_ZIP))).isTrue();
+    }
+
+}
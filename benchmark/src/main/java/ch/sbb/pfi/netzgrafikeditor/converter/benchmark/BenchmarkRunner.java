@@ -0,0 +1,29 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, which reports the allocation rate next to the throughput.
+ * <p>
+ * Accepts the JMH command line options, e.g. a benchmark name pattern or parameter overrides:
+ * <pre>
+ * java -jar benchmark/target/benchmarks.jar Converter -p scale=1,10,100
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder().parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,146 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverter;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverterConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Metadata;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Port;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Time;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Trainrun;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunCategory;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunCategoryHaltezeit;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunFrequency;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunTimeCategory;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Transition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Conversion of trainruns which all pass one hub node without stopping, so that the hub has one nonstop transition per
+ * trainrun. The pass check at the hub runs once per route; looking it up in the transitions of the hub instead of the
+ * index of nonstop transits by section makes the conversion quadratic in the number of trainruns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HubPassBenchmark {
+
+    private static final String FACH_CATEGORY = "HaltezeitIPV";
+    private static final int HUB = 0;
+
+    @Param({"100", "1000"})
+    public int trainruns;
+
+    private NetworkGraphic networkGraphic;
+
+    private static Time time(double minutes) {
+        return Time.builder().time(minutes).build();
+    }
+
+    private static TrainrunSection section(int id, int sourceNodeId, int targetNodeId, int trainrunId, double departure) {
+        return TrainrunSection.builder()
+                .id(id)
+                .sourceNodeId(sourceNodeId)
+                .targetNodeId(targetNodeId)
+                .trainrunId(trainrunId)
+                .sourceDeparture(time(departure))
+                .travelTime(time(5))
+                .targetArrival(time(departure + 5))
+                .targetDeparture(time(55 - departure))
+                .sourceArrival(time(60 - departure))
+                .build();
+    }
+
+    private static Node node(int id, String name, List<Port> ports, List<Transition> transitions) {
+        return Node.builder()
+                .id(id)
+                .betriebspunktName(name)
+                .fullName(name)
+                .ports(ports)
+                .transitions(transitions)
+                .trainrunCategoryHaltezeiten(
+                        Map.of(FACH_CATEGORY, TrainrunCategoryHaltezeit.builder().haltezeit(2).build()))
+                .build();
+    }
+
+    // trainrun i runs from node A_i through the hub to node B_i; sections 2i and 2i + 1 are attached to hub ports
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Node> nodes = new ArrayList<>(2 * trainruns + 1);
+        List<TrainrunSection> sections = new ArrayList<>(2 * trainruns);
+        List<Trainrun> trainrunList = new ArrayList<>(trainruns);
+        List<Port> hubPorts = new ArrayList<>(2 * trainruns);
+        List<Transition> hubTransitions = new ArrayList<>(trainruns);
+
+        for (int i = 0; i < trainruns; i++) {
+            int origin = 1 + i;
+            int destination = 1 + trainruns + i;
+            int inbound = 2 * i;
+            int outbound = 2 * i + 1;
+
+            trainrunList.add(Trainrun.builder().id(i).name("T" + i).build());
+            sections.add(section(inbound, origin, HUB, i, 0));
+            sections.add(section(outbound, HUB, destination, i, 5));
+
+            hubPorts.add(Port.builder().id(inbound).trainrunSectionId(inbound).build());
+            hubPorts.add(Port.builder().id(outbound).trainrunSectionId(outbound).build());
+            hubTransitions.add(Transition.builder().id(i).port1Id(inbound).port2Id(outbound).isNonStopTransit(true)
+                    .build());
+
+            nodes.add(node(origin, "A" + i,
+                    List.of(Port.builder().id(2 * trainruns + i).trainrunSectionId(inbound).build()), List.of()));
+            nodes.add(node(destination, "B" + i,
+                    List.of(Port.builder().id(3 * trainruns + i).trainrunSectionId(outbound).build()), List.of()));
+        }
+        nodes.add(node(HUB, "HUB", hubPorts, hubTransitions));
+
+        Metadata metadata = Metadata.builder()
+                .trainrunCategories(List.of(
+                        TrainrunCategory.builder().id(0).name("InterCity").shortName("IC").fachCategory(FACH_CATEGORY)
+                                .build()))
+                .trainrunFrequencies(List.of(TrainrunFrequency.builder().id(0).frequency(60).build()))
+                .trainrunTimeCategories(List.of(TrainrunTimeCategory.builder().id(0).dayTimeIntervals(List.of())
+                        .build()))
+                .build();
+
+        networkGraphic = NetworkGraphic.builder()
+                .nodes(nodes)
+                .trainrunSections(sections)
+                .trainruns(trainrunList)
+                .metadata(metadata)
+                .build();
+    }
+
+    @Benchmark
+    public GtfsSchedule convert() throws IOException {
+        AtomicReference<GtfsSchedule> result = new AtomicReference<>();
+        new NetworkGraphicConverter<>(NetworkGraphicConverterConfig.builder().build(), () -> networkGraphic,
+                NetworkGraphicState.createGtfsSupplyBuilder(), result::set).run();
+
+        return result.get();
+    }
+
+}
@@ -0,0 +1,37 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonDeserializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of the network graphic JSON, read from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDeserializerBenchmark {
+
+    private final JsonDeserializer deserializer = new JsonDeserializer();
+
+    @Benchmark
+    public NetworkGraphic read(NetworkGraphicState state) throws IOException {
+        return deserializer.read(new ByteArrayInputStream(state.getJson()));
+    }
+
+}
@@ -0,0 +1,51 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverterConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full conversion of the network graphic (validation, expansion and supply building), without writing the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetworkGraphicConverterBenchmark {
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private NetworkGraphicConverterConfig config;
+
+    @Setup
+    public void setUp() {
+        config = NetworkGraphicConverterConfig.builder().parallelism(parallelism).build();
+    }
+
+    @Benchmark
+    public void gtfs(NetworkGraphicState state, Blackhole blackhole) throws IOException {
+        state.convert(config, NetworkGraphicState.createGtfsSupplyBuilder(), blackhole::consume);
+    }
+
+    @Benchmark
+    public void matsim(NetworkGraphicState state, Blackhole blackhole) throws IOException {
+        state.convert(config, NetworkGraphicState.createMatsimSupplyBuilder(), blackhole::consume);
+    }
+
+}
@@ -0,0 +1,150 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Scales up a network graphic by placing copies of its nodes, trainrun sections and trainruns side by side.
+ * <p>
+ * Operates on the JSON tree, so that the scaled network graphic can also be used to benchmark the deserialization. The
+ * ids of each copy are shifted by the maximum id of the original, node and trainrun names get the index of the copy as
+ * suffix. The metadata (categories, frequencies and time categories) is shared by all copies.
+ */
+final class NetworkGraphicScaler {
+
+    private static final String ID = "id";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private int nodeOffset;
+    private int portOffset;
+    private int transitionOffset;
+    private int sectionOffset;
+    private int trainrunOffset;
+
+    private static int maxId(Iterable<JsonNode> elements) {
+        int max = 0;
+        for (JsonNode element : elements) {
+            max = Math.max(max, element.get(ID).asInt());
+        }
+
+        return max;
+    }
+
+    private static void shift(ObjectNode element, String field, int offset) {
+        element.put(field, element.get(field).asInt() + offset);
+    }
+
+    private static void suffix(ObjectNode element, String field, int copy) {
+        JsonNode value = element.get(field);
+        if (value != null && !value.isNull()) {
+            element.put(field, String.format("%s_%d", value.asText(), copy));
+        }
+    }
+
+    /**
+     * @param networkGraphicFile the network graphic JSON file.
+     * @param factor             the number of copies, 1 returns the original content.
+     * @return the scaled network graphic as JSON.
+     */
+    byte[] scale(Path networkGraphicFile, int factor) throws IOException {
+        if (factor < 1) {
+            throw new IllegalArgumentException("Scale factor must be positive: " + factor);
+        }
+        if (factor == 1) {
+            return Files.readAllBytes(networkGraphicFile);
+        }
+
+        ObjectNode root = (ObjectNode) objectMapper.readTree(networkGraphicFile.toFile());
+        JsonNode nodes = root.get("nodes");
+        JsonNode sections = root.get("trainrunSections");
+        JsonNode trainruns = root.get("trainruns");
+
+        // offsets are the maximum ids plus one, so that the copies never collide
+        nodeOffset = maxId(nodes) + 1;
+        sectionOffset = maxId(sections) + 1;
+        trainrunOffset = maxId(trainruns) + 1;
+        portOffset = 0;
+        transitionOffset = 0;
+        for (JsonNode node : nodes) {
+            portOffset = Math.max(portOffset, maxId(node.get("ports")) + 1);
+            if (node.hasNonNull("transitions")) {
+                transitionOffset = Math.max(transitionOffset, maxId(node.get("transitions")) + 1);
+            }
+        }
+
+        ArrayNode scaledNodes = objectMapper.createArrayNode();
+        ArrayNode scaledSections = objectMapper.createArrayNode();
+        ArrayNode scaledTrainruns = objectMapper.createArrayNode();
+        for (int copy = 0; copy < factor; copy++) {
+            for (JsonNode node : nodes) {
+                scaledNodes.add(copyNode((ObjectNode) node, copy));
+            }
+            for (JsonNode section : sections) {
+                scaledSections.add(copySection((ObjectNode) section, copy));
+            }
+            for (JsonNode trainrun : trainruns) {
+                scaledTrainruns.add(copyTrainrun((ObjectNode) trainrun, copy));
+            }
+        }
+
+        root.set("nodes", scaledNodes);
+        root.set("trainrunSections", scaledSections);
+        root.set("trainruns", scaledTrainruns);
+
+        return objectMapper.writeValueAsBytes(root);
+    }
+
+    private ObjectNode copyNode(ObjectNode original, int copy) {
+        ObjectNode node = original.deepCopy();
+        if (copy == 0) {
+            return node;
+        }
+
+        shift(node, ID, copy * nodeOffset);
+        suffix(node, "betriebspunktName", copy);
+        suffix(node, "fullName", copy);
+
+        for (JsonNode port : node.get("ports")) {
+            shift((ObjectNode) port, ID, copy * portOffset);
+            shift((ObjectNode) port, "trainrunSectionId", copy * sectionOffset);
+        }
+
+        if (node.hasNonNull("transitions")) {
+            for (JsonNode transition : node.get("transitions")) {
+                shift((ObjectNode) transition, ID, copy * transitionOffset);
+                shift((ObjectNode) transition, "port1Id", copy * portOffset);
+                shift((ObjectNode) transition, "port2Id", copy * portOffset);
+            }
+        }
+
+        return node;
+    }
+
+    private ObjectNode copySection(ObjectNode original, int copy) {
+        ObjectNode section = original.deepCopy();
+        shift(section, ID, copy * sectionOffset);
+        shift(section, "sourceNodeId", copy * nodeOffset);
+        shift(section, "targetNodeId", copy * nodeOffset);
+        shift(section, "trainrunId", copy * trainrunOffset);
+
+        return section;
+    }
+
+    private ObjectNode copyTrainrun(ObjectNode original, int copy) {
+        ObjectNode trainrun = original.deepCopy();
+        if (copy > 0) {
+            shift(trainrun, ID, copy * trainrunOffset);
+            suffix(trainrun, "name", copy);
+        }
+
+        return trainrun;
+    }
+
+}
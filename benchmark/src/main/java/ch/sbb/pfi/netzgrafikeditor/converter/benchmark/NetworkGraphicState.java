@@ -0,0 +1,86 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.GtfsSupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim.MatsimSupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.ConverterSink;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverter;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicConverterConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.SupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoInfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoRollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoVehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonDeserializer;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
+import lombok.Getter;
+import org.matsim.api.core.v01.Scenario;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Network graphic of a test scenario, scaled up by placing copies side by side. Shared by all benchmarks.
+ * <p>
+ * The supply builders use the fallback repositories, since the stop facility and rolling stock CSV files of the test
+ * scenarios do not cover the copies.
+ */
+@State(Scope.Benchmark)
+public class NetworkGraphicState {
+
+    @Param({"ALL_TEST_CASES", "REALISTIC_SCENARIO"})
+    public TestScenario scenario;
+
+    @Param({"1", "10"})
+    public int scale;
+
+    @Getter
+    private byte[] json;
+
+    @Getter
+    private NetworkGraphic networkGraphic;
+
+    public static SupplyBuilder<GtfsSchedule> createGtfsSupplyBuilder() {
+        RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+        return new GtfsSupplyBuilder(new NoInfrastructureRepository(), rollingStockRepository,
+                new NoVehicleCircuitsPlanner(rollingStockRepository));
+    }
+
+    public static SupplyBuilder<Scenario> createMatsimSupplyBuilder() {
+        RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+        return new MatsimSupplyBuilder(new NoInfrastructureRepository(), rollingStockRepository,
+                new NoVehicleCircuitsPlanner(rollingStockRepository));
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        json = new NetworkGraphicScaler().scale(scenario.getNetworkGraphicFilePath(), scale);
+        networkGraphic = new JsonDeserializer().read(new ByteArrayInputStream(json));
+    }
+
+    /**
+     * Run the converter on the network graphic.
+     */
+    public <T> void convert(NetworkGraphicConverterConfig config, SupplyBuilder<T> builder,
+                            ConverterSink<T> sink) throws IOException {
+        new NetworkGraphicConverter<>(config, () -> networkGraphic, builder, sink).run();
+    }
+
+    /**
+     * Run the converter on the network graphic and return the result instead of writing it.
+     */
+    public <T> T convert(SupplyBuilder<T> builder) throws IOException {
+        AtomicReference<T> result = new AtomicReference<>();
+        convert(NetworkGraphicConverterConfig.builder().build(), builder, result::set);
+
+        return result.get();
+    }
+
+}
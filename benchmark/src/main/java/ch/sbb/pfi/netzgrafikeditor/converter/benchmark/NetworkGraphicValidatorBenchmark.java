@@ -0,0 +1,41 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.validation.NetworkGraphicValidator;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.validation.ValidationStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation of the node and trainrun ids, with and without sanitizing the network graphic, on one and more threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NetworkGraphicValidatorBenchmark {
+
+    @Param({"WARN_ON_ISSUES", "REMOVE_SPECIAL_CHARACTERS"})
+    public ValidationStrategy strategy;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Benchmark
+    public NetworkGraphic run(NetworkGraphicState state) {
+        return new NetworkGraphicValidator(strategy, true, parallelism, state.getNetworkGraphic()).run();
+    }
+
+}
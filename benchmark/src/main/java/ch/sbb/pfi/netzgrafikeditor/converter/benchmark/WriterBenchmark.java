@@ -0,0 +1,79 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.benchmark;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.GtfsScheduleWriter;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.matsim.TransitScheduleXmlWriter;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipConfig;
+import org.matsim.api.core.v01.Scenario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writing the converted GTFS schedule and MATSim scenario to a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    private GtfsSchedule gtfsSchedule;
+    private Scenario scenario;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp(NetworkGraphicState state) throws IOException {
+        gtfsSchedule = state.convert(NetworkGraphicState.createGtfsSupplyBuilder());
+        scenario = state.convert(NetworkGraphicState.createMatsimSupplyBuilder());
+        directory = Files.createTempDirectory("benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public void gtfsFiles() throws IOException {
+        new GtfsScheduleWriter(directory.resolve("gtfs"), false).save(gtfsSchedule);
+    }
+
+    @Benchmark
+    public void gtfsZip() throws IOException {
+        new GtfsScheduleWriter(directory, true).save(gtfsSchedule);
+    }
+
+    @Benchmark
+    public void gtfsParallelZip() throws IOException {
+        new GtfsScheduleWriter(directory, ParallelZipConfig.builder().build()).save(gtfsSchedule);
+    }
+
+    @Benchmark
+    public void matsim() throws IOException {
+        new TransitScheduleXmlWriter(directory).save(scenario);
+    }
+
+}
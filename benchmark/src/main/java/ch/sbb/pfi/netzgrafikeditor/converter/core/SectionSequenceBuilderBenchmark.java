@@ -0,0 +1,75 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.benchmark.NetworkGraphicState;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Port;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordering and aligning the trainrun sections of all trainruns.
+ * <p>
+ * Placed in the core package, since the section sequence builder and the section adjacency are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SectionSequenceBuilderBenchmark {
+
+    private List<Node> nodes;
+    private Map<Integer, Port> ports;
+    private Map<Integer, TrainrunSection> sections;
+    private List<SectionSequenceBuilder> sequences;
+
+    @Setup(Level.Trial)
+    public void setUp(NetworkGraphicState state) {
+        NetworkGraphic networkGraphic = state.getNetworkGraphic();
+        nodes = networkGraphic.getNodes();
+        ports = new HashMap<>();
+        nodes.forEach(node -> node.getPorts().forEach(port -> ports.put(port.getId(), port)));
+        sections = new HashMap<>();
+        networkGraphic.getTrainrunSections().forEach(section -> sections.put(section.getId(), section));
+
+        SectionAdjacency adjacency = new SectionAdjacency(nodes, ports, sections);
+        Map<Integer, SectionSequenceBuilder> sequencesByTrain = new HashMap<>();
+        for (TrainrunSection section : sections.values()) {
+            sequencesByTrain.computeIfAbsent(section.getTrainrunId(), k -> new SectionSequenceBuilder(adjacency))
+                    .add(section);
+        }
+        sequences = new ArrayList<>(sequencesByTrain.values());
+    }
+
+    @Benchmark
+    public SectionAdjacency adjacency() {
+        return new SectionAdjacency(nodes, ports, sections);
+    }
+
+    @Benchmark
+    public void build(Blackhole blackhole) {
+        for (SectionSequenceBuilder sequence : sequences) {
+            blackhole.consume(sequence.build());
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Frequency;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GTFS supply builder which writes the periodic departures of a transit route as frequencies of a single template trip
+ * (frequencies.txt with exact times), instead of one trip with stop times per departure.
+ * <p>
+ * The departures of each route are sorted and split into runs with a constant headway. Each run of at least two
+ * departures becomes a frequency entry of the template trip of the route, whose stop times start at the first
+ * departure of the first run. Departures which do not belong to any run (and duplicated departure times) are added as
+ * regular trips.
+ */
+@Slf4j
+public class FrequencyGtfsSupplyBuilder extends GtfsSupplyBuilder {
+
+    private static final int MIN_RUN_LENGTH = 2;
+
+    private final Map<String, RouteDepartures> routeDepartures = new LinkedHashMap<>();
+
+    public FrequencyGtfsSupplyBuilder(InfrastructureRepository infrastructureRepository, RollingStockRepository rollingStockRepository, VehicleCircuitsPlanner vehicleCircuitsPlanner) {
+        super(infrastructureRepository, rollingStockRepository, vehicleCircuitsPlanner);
+    }
+
+    /**
+     * @return the exclusive end index of the run with a constant headway starting at the start index.
+     */
+    private static int findRunEnd(List<ServiceDayTime> times, int start) {
+        if (start + 1 >= times.size()) {
+            return start + 1;
+        }
+
+        int headway = headway(times, start);
+        int end = start + 2;
+        while (end < times.size() && headway(times, end - 1) == headway) {
+            end++;
+        }
+
+        return end;
+    }
+
+    private static int headway(List<ServiceDayTime> times, int index) {
+        return times.get(index + 1).toSecondOfDay() - times.get(index).toSecondOfDay();
+    }
+
+    @Override
+    protected void buildDeparture(VehicleAllocation vehicleAllocation) {
+        TransitRouteInfo transitRouteInfo = vehicleAllocation.getDepartureInfo().getTransitRouteInfo();
+        RouteDepartures departures = routeDepartures.computeIfAbsent(transitRouteInfo.getId(),
+                k -> new RouteDepartures(transitRouteInfo, new ArrayList<>()));
+        departures.times.add(vehicleAllocation.getDepartureInfo().getTime());
+    }
+
+    @Override
+    protected GtfsSchedule getResult() {
+        for (RouteDepartures departures : routeDepartures.values()) {
+            buildRouteDepartures(departures);
+        }
+
+        return super.getResult();
+    }
+
+    private void buildRouteDepartures(RouteDepartures departures) {
+
+        // separate duplicated departure times, since frequencies of the same trip must not overlap
+        List<ServiceDayTime> sorted = departures.times.stream().sorted().toList();
+        List<ServiceDayTime> times = new ArrayList<>(sorted.size());
+        List<ServiceDayTime> singles = new ArrayList<>();
+        for (ServiceDayTime time : sorted) {
+            if (!times.isEmpty() && times.getLast().equals(time)) {
+                singles.add(time);
+            } else {
+                times.add(time);
+            }
+        }
+
+        // split into runs with constant headway
+        String templateTripId = null;
+        int start = 0;
+        while (start < times.size()) {
+            int end = findRunEnd(times, start);
+
+            if (end - start < MIN_RUN_LENGTH) {
+                singles.add(times.get(start));
+            } else {
+                if (templateTripId == null) {
+                    templateTripId = buildTrip(departures.transitRouteInfo, times.get(start));
+                }
+
+                // the end time is exclusive; clip it to the start of the next run
+                int headway = headway(times, start);
+                ServiceDayTime endTime = times.get(end - 1).plusSeconds(headway);
+                if (end < times.size() && times.get(end).compareTo(endTime) < 0) {
+                    endTime = times.get(end);
+                }
+
+                addFrequency(Frequency.builder()
+                        .tripId(templateTripId)
+                        .startTime(times.get(start))
+                        .endTime(endTime)
+                        .headwaySecs(headway)
+                        .build());
+            }
+
+            start = end;
+        }
+
+        // regular trips for departures which are not part of a run
+        for (ServiceDayTime time : singles) {
+            buildTrip(departures.transitRouteInfo, time);
+        }
+
+        log.debug("Built {} departures of route {} with {} regular trips", departures.times.size(),
+                departures.transitRouteInfo.getId(), singles.size());
+    }
+
+    private record RouteDepartures(TransitRouteInfo transitRouteInfo, List<ServiceDayTime> times) {
+    }
+
+}
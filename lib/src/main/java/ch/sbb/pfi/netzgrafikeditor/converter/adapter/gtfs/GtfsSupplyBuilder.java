@@ -2,6 +2,7 @@ package ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs;
 
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Agency;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Calendar;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Frequency;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Route;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.RouteType;
@@ -16,12 +17,12 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RouteElementVisitor;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RoutePass;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RouteStop;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransportMode;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
 import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
 
-import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,6 +38,7 @@ public class GtfsSupplyBuilder extends BaseSupplyBuilder<GtfsSchedule> {
     private final List<Route> routes = new ArrayList<>();
     private final List<Trip> trips = new ArrayList<>();
     private final List<StopTime> stopTimes = new ArrayList<>();
+    private final List<Frequency> frequencies = new ArrayList<>();
 
     private final Set<String> createdRoutes = new HashSet<>();
     private final Map<String, Integer> tripCounts = new HashMap<>();
@@ -81,63 +83,99 @@ public class GtfsSupplyBuilder extends BaseSupplyBuilder<GtfsSchedule> {
 
     @Override
     protected void buildDeparture(VehicleAllocation vehicleAllocation) {
+        buildTrip(vehicleAllocation.getDepartureInfo().getTransitRouteInfo(),
+                vehicleAllocation.getDepartureInfo().getTime());
+    }
+
+    /**
+     * Build a trip with its stop times on a transit route, departing at the given time from the origin.
+     *
+     * @return the id of the trip.
+     */
+    protected String buildTrip(TransitRouteInfo transitRouteInfo, ServiceDayTime departureTime) {
 
-        String routeId = vehicleAllocation.getDepartureInfo().getTransitRouteInfo().getId();
+        String routeId = transitRouteInfo.getId();
         String tripId = String.format("%s_%d", routeId, tripCounts.merge(routeId, 1, Integer::sum));
         List<RouteElement> currentRouteElements = routeElements.get(routeId);
 
-        // create and add trip
-        trips.add(Trip.builder()
-                .routeId(vehicleAllocation.getDepartureInfo().getTransitRouteInfo().getTransitLineInfo().getId())
+        // create trip
+        Trip trip = Trip.builder()
+                .routeId(transitRouteInfo.getTransitLineInfo().getId())
                 .serviceId(Calendar.DEFAULT_ID)
                 .tripId(tripId)
                 .tripHeadsign(currentRouteElements.getLast().getStopFacilityInfo().getId())
-                .build());
+                .build();
 
-        // create and add stop times: gtfs stop time sequence starts with 1 not 0
+        // create stop times: gtfs stop time sequence starts with 1 not 0; time in seconds to avoid intermediate objects
+        List<StopTime> tripStopTimes = new ArrayList<>(currentRouteElements.size());
         final int[] count = {1};
-        final ServiceDayTime[] time = {vehicleAllocation.getDepartureInfo().getTime()};
+        final int[] time = {departureTime.toSecondOfDay()};
 
-        for (RouteElement routeElement : currentRouteElements) {
-            routeElement.accept(new RouteElementVisitor() {
-
-                @Override
-                public void visit(RouteStop routeStop) {
-                    Duration travelTime = routeStop.getTravelTime();
-                    Duration dwellTime = routeStop.getDwellTime();
-
-                    // set time to arrival time if at start of stop time sequence
-                    if (count[0] == 1) {
-                        time[0] = time[0].minus(dwellTime);
-                    }
-
-                    time[0] = time[0].plus(travelTime);
-                    ServiceDayTime arrivalTime = time[0];
-                    time[0] = time[0].plus(dwellTime);
-                    ServiceDayTime departureTime = time[0];
-
-                    stopTimes.add(StopTime.builder()
-                            .tripId(tripId)
-                            .arrivalTime(arrivalTime)
-                            .departureTime(departureTime)
-                            .stopId(routeStop.getStopFacilityInfo().getId())
-                            .stopSequence(count[0]++)
-                            .build());
-                }
+        RouteElementVisitor visitor = new RouteElementVisitor() {
+
+            @Override
+            public void visit(RouteStop routeStop) {
+                int travelTime = Math.toIntExact(routeStop.getTravelTime().getSeconds());
+                int dwellTime = Math.toIntExact(routeStop.getDwellTime().getSeconds());
 
-                @Override
-                public void visit(RoutePass routePass) {
-                    // nothing to do
+                // set time to arrival time if at start of stop time sequence
+                if (count[0] == 1) {
+                    time[0] -= dwellTime;
                 }
-            });
 
+                time[0] += travelTime;
+                ServiceDayTime arrivalTime = ServiceDayTime.ofSeconds(time[0]);
+                time[0] += dwellTime;
+                ServiceDayTime stopDepartureTime = ServiceDayTime.ofSeconds(time[0]);
+
+                tripStopTimes.add(StopTime.builder()
+                        .tripId(tripId)
+                        .arrivalTime(arrivalTime)
+                        .departureTime(stopDepartureTime)
+                        .stopId(routeStop.getStopFacilityInfo().getId())
+                        .stopSequence(count[0]++)
+                        .build());
+            }
+
+            @Override
+            public void visit(RoutePass routePass) {
+                // nothing to do
+            }
+        };
+
+        for (RouteElement routeElement : currentRouteElements) {
+            routeElement.accept(visitor);
         }
 
+        addTrip(trip, tripStopTimes);
+
+        return tripId;
+    }
+
+    /**
+     * Add a frequency based service of a trip to the schedule.
+     */
+    protected void addFrequency(Frequency frequency) {
+        frequencies.add(frequency);
+    }
+
+    /**
+     * Add a built trip with its stop times to the schedule.
+     */
+    protected void addTrip(Trip trip, List<StopTime> tripStopTimes) {
+        trips.add(trip);
+        stopTimes.addAll(tripStopTimes);
     }
 
     @Override
     protected GtfsSchedule getResult() {
-        return GtfsSchedule.builder().stops(stops).routes(routes).trips(trips).stopTimes(stopTimes).build();
+        return GtfsSchedule.builder()
+                .stops(stops)
+                .routes(routes)
+                .trips(trips)
+                .stopTimes(stopTimes)
+                .frequencies(frequencies)
+                .build();
     }
 
     @Override
@@ -0,0 +1,16 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Trip;
+
+import java.util.List;
+
+/**
+ * Receives the trips of a GTFS schedule with their stop times, in the order they are built.
+ */
+@FunctionalInterface
+public interface GtfsTripConsumer {
+
+    void accept(Trip trip, List<StopTime> stopTimes);
+
+}
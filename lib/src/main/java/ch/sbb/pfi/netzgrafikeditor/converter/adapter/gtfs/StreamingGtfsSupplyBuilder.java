@@ -0,0 +1,32 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Trip;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+
+import java.util.List;
+
+/**
+ * GTFS supply builder which hands each trip with its stop times to a consumer as soon as it is built, instead of
+ * collecting them in the schedule. The resulting schedule contains no trips and stop times, so the heap usage does not
+ * grow with the number of departures.
+ * <p>
+ * Use together with a sink which is also the trip consumer, e.g. the streaming GTFS schedule writer.
+ */
+public class StreamingGtfsSupplyBuilder extends GtfsSupplyBuilder {
+
+    private final GtfsTripConsumer tripConsumer;
+
+    public StreamingGtfsSupplyBuilder(InfrastructureRepository infrastructureRepository, RollingStockRepository rollingStockRepository, VehicleCircuitsPlanner vehicleCircuitsPlanner, GtfsTripConsumer tripConsumer) {
+        super(infrastructureRepository, rollingStockRepository, vehicleCircuitsPlanner);
+        this.tripConsumer = tripConsumer;
+    }
+
+    @Override
+    protected void addTrip(Trip trip, List<StopTime> tripStopTimes) {
+        tripConsumer.accept(trip, tripStopTimes);
+    }
+
+}
@@ -0,0 +1,30 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Periodic service of a (template) trip, the trip starts at the start time and every headway thereafter, as long as the
+ * start is before the end time.
+ *
+ * @see <a href="https://gtfs.org/schedule/reference/#frequenciestxt">GTFS frequencies.txt Documentation</a>
+ */
+@Value
+@Builder
+public class Frequency {
+
+    public static final int EXACT_TIMES = 1;
+
+    String tripId;
+
+    ServiceDayTime startTime;
+
+    ServiceDayTime endTime;
+
+    int headwaySecs;
+
+    @Builder.Default
+    int exactTimes = EXACT_TIMES;
+
+}
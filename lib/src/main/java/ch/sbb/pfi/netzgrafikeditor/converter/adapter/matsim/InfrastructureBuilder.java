@@ -8,6 +8,7 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RouteStop;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.matsim.api.core.v01.Coord;
@@ -38,6 +39,7 @@ class InfrastructureBuilder {
 
     private final Map<String, TransitStopFacility> stopFacilities = new HashMap<>();
     private final Map<String, Id<Link>> addedSegments = new HashMap<>();
+    private final Map<Coordinate, Node> trackNodes = new HashMap<>();
 
     TransitStopFacility buildTransitStopFacility(StopFacilityInfo stopFacilityInfo) {
         String stopId = stopFacilityInfo.getId();
@@ -118,6 +120,10 @@ class InfrastructureBuilder {
         List<TrackSegmentInfo> segments = infrastructureRepository.getTrack(from.getStopFacilityInfo(),
                 to.getStopFacilityInfo(), transitRouteInfo);
 
+        // start at the stop link of the from stop, each segment continues from the end of the previous one
+        TransitStopFacility fromStop = stopFacilities.get(from.getStopFacilityInfo().getId());
+        Node previousNode = scenario.getNetwork().getLinks().get(fromStop.getLinkId()).getToNode();
+
         List<Id<Link>> linkIds = new ArrayList<>();
         int count = 0;
         for (TrackSegmentInfo segment : segments) {
@@ -126,40 +132,32 @@ class InfrastructureBuilder {
             if (addedSegments.containsKey(segment.getSegmentId())) {
 
                 log.debug("Track segment {} already added, skipping", segment.getSegmentId());
-                linkIds.add(addedSegments.get(segment.getSegmentId()));
+                Id<Link> segmentLink = addedSegments.get(segment.getSegmentId());
+                linkIds.add(segmentLink);
+                previousNode = scenario.getNetwork().getLinks().get(segmentLink).getToNode();
 
             } else { // segment is new, create link with nodes
 
                 log.debug("Adding track segment {}", segment.getSegmentId());
-                Node fromNode;
                 Node toNode;
 
-                // if first segment
-                if (count == 0) {
-                    TransitStopFacility fromStop = stopFacilities.get(from.getStopFacilityInfo().getId());
-                    Link fromLink = scenario.getNetwork().getLinks().get(fromStop.getLinkId());
-                    fromNode = fromLink.getToNode();
-                } else {
-                    fromNode = factory.createNode(String.format("%s_from_node", segment.getSegmentId()),
-                            new Coord(segment.getFromCoordinate().getLongitude(),
-                                    segment.getFromCoordinate().getLatitude()));
-                }
-
                 // if last segment
                 if (count == segments.size() - 1) {
                     TransitStopFacility toStop = stopFacilities.get(to.getStopFacilityInfo().getId());
                     Link toLink = scenario.getNetwork().getLinks().get(toStop.getLinkId());
                     toNode = toLink.getFromNode();
                 } else {
-                    toNode = factory.createNode(String.format("%s_to_node", segment.getSegmentId()),
-                            new Coord(segment.getToCoordinate().getLongitude(),
-                                    segment.getToCoordinate().getLatitude()));
+                    // segments of different tracks meeting at the same coordinate share their node
+                    toNode = trackNodes.computeIfAbsent(segment.getToCoordinate(),
+                            coordinate -> factory.createNode(String.format("%s_to_node", segment.getSegmentId()),
+                                    new Coord(coordinate.getLongitude(), coordinate.getLatitude())));
                 }
 
-                Id<Link> segmentLink = factory.createLink(LinkType.ROUTE, fromNode, toNode, segment.getLength(),
+                Id<Link> segmentLink = factory.createLink(LinkType.ROUTE, previousNode, toNode, segment.getLength(),
                         segment.getLinkAttributes()).getId();
                 addedSegments.put(segment.getSegmentId(), segmentLink);
                 linkIds.add(segmentLink);
+                previousNode = toNode;
 
             }
 
@@ -0,0 +1,15 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.vehicles.VehicleType;
+
+/**
+ * Receives the departures of a MATSim transit schedule with their vehicles, in the order they are built.
+ */
+@FunctionalInterface
+public interface MatsimDepartureConsumer {
+
+    void accept(TransitRoute transitRoute, String departureId, ServiceDayTime time, String vehicleId, VehicleType vehicleType);
+
+}
@@ -61,6 +61,16 @@ public class MatsimSupplyBuilder extends BaseSupplyBuilder<Scenario> {
         VehicleType vehicleType = factory.getOrCreateVehicleType(vehicleTypeInfo.getId(), vehicleTypeInfo.getLength(),
                 vehicleTypeInfo.getMaxVelocity(), vehicleTypeInfo.getSeats(), vehicleTypeInfo.getStandingRoom(),
                 vehicleTypeInfo.getAttributes());
+
+        // add departure to the corresponding transit route
+        addDeparture(transitRoutes.get(vehicleAllocation.getDepartureInfo().getTransitRouteInfo().getId()),
+                vehicleType, vehicleAllocation);
+    }
+
+    /**
+     * Add a departure with its vehicle to the transit route in the scenario.
+     */
+    protected void addDeparture(TransitRoute transitRoute, VehicleType vehicleType, VehicleAllocation vehicleAllocation) {
         Vehicle vehicle = factory.getOrCreateVehicle(vehicleType, vehicleAllocation.getVehicleInfo().getId());
 
         DepartureInfo departureInfo = vehicleAllocation.getDepartureInfo();
@@ -68,8 +78,7 @@ public class MatsimSupplyBuilder extends BaseSupplyBuilder<Scenario> {
                 departureInfo.getTime().toSecondOfDay());
         departure.setVehicleId(vehicle.getId());
 
-        // add departure to the corresponding transit route
-        transitRoutes.get(departureInfo.getTransitRouteInfo().getId()).addDeparture(departure);
+        transitRoute.addDeparture(departure);
     }
 
     @Override
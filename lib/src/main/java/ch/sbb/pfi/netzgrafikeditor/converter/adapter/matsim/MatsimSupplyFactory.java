@@ -54,8 +54,16 @@ class MatsimSupplyFactory {
         }
     }
 
+    static String departureId(String id) {
+        return String.format(IdPattern.DEPARTURE, id);
+    }
+
+    static String vehicleId(String id) {
+        return String.format(IdPattern.VEHICLE, id);
+    }
+
     Departure createDeparture(String id, double time) {
-        Id<Departure> departureId = Id.create(String.format(IdPattern.DEPARTURE, id), Departure.class);
+        Id<Departure> departureId = Id.create(departureId(id), Departure.class);
         log.debug("Creating Departure {}", departureId);
 
         return sf.createDeparture(departureId, time);
@@ -187,7 +195,7 @@ class MatsimSupplyFactory {
     }
 
     Vehicle getOrCreateVehicle(VehicleType vehicleType, String id) {
-        Id<Vehicle> vehicleId = Id.create(String.format(IdPattern.VEHICLE, id), Vehicle.class);
+        Id<Vehicle> vehicleId = Id.create(vehicleId(id), Vehicle.class);
         Vehicle vehicle = vehicles.getVehicles().get(vehicleId);
 
         if (vehicle != null) {
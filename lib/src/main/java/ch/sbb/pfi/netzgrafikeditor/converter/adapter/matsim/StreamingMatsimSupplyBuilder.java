@@ -0,0 +1,33 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.vehicles.VehicleType;
+
+/**
+ * MATSim supply builder which hands each departure with its vehicle to a consumer, instead of creating departure and
+ * vehicle objects in the scenario. The resulting scenario contains the network, stop facilities, transit routes and
+ * vehicle types, but no departures and vehicles, so the heap usage does not grow with the number of departures.
+ * <p>
+ * Use together with a sink which is also the departure consumer, e.g. the streaming transit schedule XML writer.
+ */
+public class StreamingMatsimSupplyBuilder extends MatsimSupplyBuilder {
+
+    private final MatsimDepartureConsumer departureConsumer;
+
+    public StreamingMatsimSupplyBuilder(InfrastructureRepository infrastructureRepository, RollingStockRepository rollingStockRepository, VehicleCircuitsPlanner vehicleCircuitsPlanner, MatsimDepartureConsumer departureConsumer) {
+        super(infrastructureRepository, rollingStockRepository, vehicleCircuitsPlanner);
+        this.departureConsumer = departureConsumer;
+    }
+
+    @Override
+    protected void addDeparture(TransitRoute transitRoute, VehicleType vehicleType, VehicleAllocation vehicleAllocation) {
+        departureConsumer.accept(transitRoute, MatsimSupplyFactory.departureId(vehicleAllocation.getDepartureId()),
+                vehicleAllocation.getDepartureInfo().getTime(),
+                MatsimSupplyFactory.vehicleId(vehicleAllocation.getVehicleInfo().getId()), vehicleType);
+    }
+
+}
@@ -6,4 +6,11 @@ public interface ConverterSink<T> {
 
     void save(T result) throws IOException;
 
+    /**
+     * Release the resources of a conversion which failed before its result was saved, e.g. the files of a streaming
+     * sink written while the result was built.
+     */
+    default void abort() throws IOException {
+    }
+
 }
@@ -25,9 +25,12 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -52,14 +55,54 @@ public class NetworkGraphicConverter<T> {
         log.info("Converting netzgrafik using source {}, supply builder {} and sink {}",
                 source.getClass().getSimpleName(), builder.getClass().getSimpleName(), sink.getClass().getSimpleName());
 
-        NetworkGraphic networkGraphic = new NetworkGraphicValidator(config.getValidationStrategy(),
-                config.isUseTrainNamesAsIds(), source.load()).run();
+        NetworkGraphic networkGraphic = validate(source.load());
+
+        T result;
+        try {
+            initialize(networkGraphic);
+            addStops();
+            addTrains();
+            result = builder.build();
+        } catch (RuntimeException e) {
+            // a streaming sink may already have received parts of the result
+            try {
+                sink.abort();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        sink.save(result);
+    }
+
+    private NetworkGraphic validate(NetworkGraphic networkGraphic) throws IOException {
+        NetworkGraphicValidator validator = new NetworkGraphicValidator(config.getValidationStrategy(),
+                config.isUseTrainNamesAsIds(), Math.max(1, config.getParallelism()), networkGraphic);
+
+        NetworkGraphic validated;
+        try {
+            validated = validator.run();
+        } catch (RuntimeException e) {
+            // also write the report if the validation fails, since it lists the issues to fix
+            try {
+                writeValidationReport(validator);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        writeValidationReport(validator);
 
-        initialize(networkGraphic);
-        addStops();
-        addTrains();
+        return validated;
+    }
 
-        sink.save(builder.build());
+    private void writeValidationReport(NetworkGraphicValidator validator) throws IOException {
+        if (config.getValidationReportFile() != null) {
+            log.info("Writing validation report to {}", config.getValidationReportFile());
+            validator.getReport().write(config.getValidationReportFile());
+        }
     }
 
     private void initialize(NetworkGraphic network) {
@@ -85,52 +128,63 @@ public class NetworkGraphicConverter<T> {
     private void addTrains() {
         log.info("Adding trains of network graphic");
 
-        // setup trainrun section sequence builders; order and align sections
+        // setup trainrun section sequence builders
         HashMap<Integer, SectionSequenceBuilder> sequences = new HashMap<>();
         for (TrainrunSection section : lookup.sections.values()) {
             int trainId = section.getTrainrunId();
             SectionSequenceBuilder sequence = sequences.computeIfAbsent(trainId,
-                    k -> new SectionSequenceBuilder(lookup.nodes));
+                    k -> new SectionSequenceBuilder(lookup.adjacency));
             sequence.add(section);
         }
 
-        // add a transit line with a transit route per direction for each train
-        for (Map.Entry<Integer, SectionSequenceBuilder> entry : sequences.entrySet()) {
-            Trainrun train = lookup.trains.get(entry.getKey());
-            SectionSequenceBuilder sequence = entry.getValue();
+        // order and align sections, derive stops, passes and departures for each train
+        List<ExpandedTrain> expandedTrains = expandTrains(new ArrayList<>(sequences.entrySet()));
 
-            log.debug("Adding train {}", train.getName());
-            createAndAddTransitLine(train, sequence.build());
+        // add a transit line with a transit route per direction for each train, always in the same order
+        for (ExpandedTrain expandedTrain : expandedTrains) {
+            log.debug("Adding train {}", expandedTrain.train().getName());
+            addTransitLine(expandedTrain);
         }
     }
 
-    private void createAndAddTransitLine(Trainrun train, EnumMap<RouteDirection, List<TrainrunSection>> sequence) {
+    private List<ExpandedTrain> expandTrains(List<Map.Entry<Integer, SectionSequenceBuilder>> sequences) {
+        if (config.getParallelism() <= 1) {
+            return sequences.stream().map(this::expandTrain).toList();
+        }
+
+        log.info("Expanding {} trains on {} threads", sequences.size(), config.getParallelism());
+        try (ForkJoinPool pool = new ForkJoinPool(config.getParallelism())) {
+            // the parallel stream runs on the pool it is submitted to; toList keeps the encounter order
+            return pool.submit(() -> sequences.parallelStream().map(this::expandTrain).toList()).join();
+        }
+    }
 
-        String category = lookup.categories.get(train.getCategoryId()).getShortName();
-        String lineId = createTransitLineId(train, sequence.get(RouteDirection.FORWARD), category);
-        builder.addTransitLine(lineId, category);
+    private ExpandedTrain expandTrain(Map.Entry<Integer, SectionSequenceBuilder> entry) {
+        Trainrun train = lookup.trains.get(entry.getKey());
+        EnumMap<RouteDirection, List<TrainrunSection>> sequence = entry.getValue().build();
+        TrainrunCategory category = lookup.categories.get(train.getCategoryId());
 
-        // add transit route for each direction
+        // expand transit route for each direction
+        EnumMap<RouteDirection, ExpandedRoute> routes = new EnumMap<>(RouteDirection.class);
         for (RouteDirection direction : RouteDirection.values()) {
-            createAndAddTransitRoute(lineId, train, sequence.get(direction), direction);
+            routes.put(direction, expandRoute(train, category.getFachCategory(), sequence.get(direction)));
         }
 
+        return new ExpandedTrain(train, category.getShortName(), routes);
     }
 
-    private void createAndAddTransitRoute(String lineId, Trainrun train, List<TrainrunSection> sections, RouteDirection direction) {
+    private ExpandedRoute expandRoute(Trainrun train, String fachCategory, List<TrainrunSection> sections) {
 
         // get ordered trainrun nodes
         List<Node> nodes = new ArrayList<>();
         nodes.addFirst(lookup.nodes.get(sections.getFirst().getSourceNodeId()));
         sections.forEach(section -> nodes.add(lookup.nodes.get(section.getTargetNodeId())));
 
-        // create transit route and add first route stop
-        String routeId = createTransitRouteId(lineId, direction);
+        // first route stop
         Iterator<Node> nodeIter = nodes.iterator();
         Node sourceNode = nodeIter.next();
-        String fachCategory = lookup.categories.get(train.getCategoryId()).getFachCategory();
         Duration dwellTimeAtOrigin = DwellTime.fromCategory(sourceNode, fachCategory);
-        builder.addTransitRoute(routeId, lineId, sourceNode.getBetriebspunktName(), dwellTimeAtOrigin);
+        List<ExpandedRouteElement> elements = new ArrayList<>();
 
         // iterate over nodes and sections of transit route
         Iterator<TrainrunSection> sectionIter = sections.iterator();
@@ -146,7 +200,7 @@ public class NetworkGraphicConverter<T> {
             // check if nonstop pass or stop at node
             if (isPass(targetNode, currentSection.getId())) {
                 // pass: Add route pass to transit line
-                builder.addRoutePass(routeId, targetNode.getBetriebspunktName());
+                elements.add(ExpandedRouteElement.pass(targetNode));
 
             } else {
                 // stop: Add route stop with dwell time from network graphic
@@ -156,7 +210,7 @@ public class NetworkGraphicConverter<T> {
                 DwellTime.warnOnInconsistency(dwellTime, train, targetNode, fachCategory);
 
                 // add stop and reset travel time
-                builder.addRouteStop(routeId, targetNode.getBetriebspunktName(), travelTime, dwellTime);
+                elements.add(ExpandedRouteElement.stop(targetNode, travelTime, dwellTime));
                 travelTime = Duration.ofSeconds(0);
             }
         }
@@ -165,25 +219,57 @@ public class NetworkGraphicConverter<T> {
         Node targetNode = nodeIter.next();
         Duration dwellTimeAtDestination = DwellTime.fromCategory(targetNode, fachCategory);
         travelTime = travelTime.plusMinutes(Math.round(nextSection.getTravelTime().getTime()));
-        builder.addRouteStop(routeId, targetNode.getBetriebspunktName(), travelTime, dwellTimeAtDestination);
+        elements.add(ExpandedRouteElement.stop(targetNode, travelTime, dwellTimeAtDestination));
 
-        // prepare daytime intervals
+        // prepare daytime intervals; do not modify the shared time category of the network graphic
         List<DayTimeInterval> timeIntervals = lookup.times.get(train.getTrainrunTimeCategoryId()).getDayTimeIntervals();
         if (timeIntervals.isEmpty()) {
             // add interval for full day in minutes if no interval is set
-            timeIntervals.add(DayTimeInterval.builder()
+            timeIntervals = List.of(DayTimeInterval.builder()
                     .from((int) (Math.round(config.getServiceDayStart().toSecondOfDay() / SECONDS_PER_MINUTE)))
                     .to(((int) Math.round(config.getServiceDayEnd().toSecondOfDay() / SECONDS_PER_MINUTE)))
                     .build());
         }
 
-        // derive departures in time intervals and add to supply builder
+        // derive departures in time intervals
         List<ServiceDayTime> departures = createDepartureTimes(timeIntervals, train, sections.getFirst());
-        log.debug("Adding departures to {} at: {}", routeId, departures);
-        departures.forEach(departure -> builder.addDeparture(routeId, departure));
+
+        return new ExpandedRoute(sourceNode, dwellTimeAtOrigin, elements, departures);
+    }
+
+    private void addTransitLine(ExpandedTrain expandedTrain) {
+        String lineId = createTransitLineId(expandedTrain.train(), expandedTrain.routes().get(RouteDirection.FORWARD),
+                expandedTrain.category());
+        builder.addTransitLine(lineId, expandedTrain.category());
+
+        // add transit route for each direction
+        for (RouteDirection direction : RouteDirection.values()) {
+            addTransitRoute(lineId, expandedTrain.routes().get(direction), direction);
+        }
     }
 
-    private String createTransitLineId(Trainrun train, List<TrainrunSection> sections, String category) {
+    private void addTransitRoute(String lineId, ExpandedRoute route, RouteDirection direction) {
+
+        // create transit route and add first route stop
+        String routeId = createTransitRouteId(lineId, direction);
+        builder.addTransitRoute(routeId, lineId, route.origin().getBetriebspunktName(), route.dwellTimeAtOrigin());
+
+        // add passes and stops in order of the route
+        for (ExpandedRouteElement element : route.elements()) {
+            String stopId = element.node().getBetriebspunktName();
+            if (element.pass()) {
+                builder.addRoutePass(routeId, stopId);
+            } else {
+                builder.addRouteStop(routeId, stopId, element.travelTime(), element.dwellTime());
+            }
+        }
+
+        // add departures to supply builder
+        log.debug("Adding departures to {} at: {}", routeId, route.departures());
+        route.departures().forEach(departure -> builder.addDeparture(routeId, departure));
+    }
+
+    private String createTransitLineId(Trainrun train, ExpandedRoute forwardRoute, String category) {
 
         // check if option is set to use train name; avoid name if it is empty (optional field in NGE)
         String lineId;
@@ -191,9 +277,8 @@ public class NetworkGraphicConverter<T> {
             lineId = train.getName();
         } else {
             // create id from category with origin and destination, ignore the train name from nge
-            lineId = String.format("%s_%s_%s", category,
-                    lookup.nodes.get(sections.getFirst().getSourceNodeId()).getBetriebspunktName(),
-                    lookup.nodes.get(sections.getLast().getTargetNodeId()).getBetriebspunktName());
+            lineId = String.format("%s_%s_%s", category, forwardRoute.origin().getBetriebspunktName(),
+                    forwardRoute.elements().getLast().node().getBetriebspunktName());
         }
 
         // check if line id is already existing
@@ -223,7 +308,7 @@ public class NetworkGraphicConverter<T> {
             double toTime = dti.getTo() * SECONDS_PER_MINUTE;
             double departureTime = fromTime + frequencyOffset + hourOffset;
             while (departureTime < toTime) {
-                departures.add(new ServiceDayTime((int) Math.round(departureTime)));
+                departures.add(ServiceDayTime.ofSeconds((int) Math.round(departureTime)));
                 departureTime += frequency;
             }
         }
@@ -241,26 +326,8 @@ public class NetworkGraphicConverter<T> {
      * @return true if it is a nonstop transit pass.
      */
     private boolean isPass(Node node, int trainrunSectionId) {
-        List<Transition> nodeTransitions = node.getTransitions();
-        if (nodeTransitions == null) {
-            return false;
-        }
-
-        for (Transition transition : nodeTransitions) {
-            if (!transition.isNonStopTransit()) {
-                continue;
-            }
-            Port port1 = lookup.ports.get(transition.getPort1Id());
-            if (port1 != null && port1.getTrainrunSectionId() == trainrunSectionId) {
-                return true;
-            }
-            Port port2 = lookup.ports.get(transition.getPort2Id());
-            if (port2 != null && port2.getTrainrunSectionId() == trainrunSectionId) {
-                return true;
-            }
-        }
-
-        return false;
+        Set<Integer> nodeIds = lookup.nonStopTransits.get(trainrunSectionId);
+        return nodeIds != null && nodeIds.contains(node.getId());
     }
 
     @NoArgsConstructor(access = AccessLevel.NONE)
@@ -322,6 +389,28 @@ public class NetworkGraphicConverter<T> {
 
     }
 
+    /**
+     * Transit line of a train, expanded independently of the supply builder (and of other trains).
+     */
+    private record ExpandedTrain(Trainrun train, String category, EnumMap<RouteDirection, ExpandedRoute> routes) {
+    }
+
+    private record ExpandedRoute(Node origin, Duration dwellTimeAtOrigin, List<ExpandedRouteElement> elements,
+                                 List<ServiceDayTime> departures) {
+    }
+
+    private record ExpandedRouteElement(Node node, boolean pass, Duration travelTime, Duration dwellTime) {
+
+        private static ExpandedRouteElement pass(Node node) {
+            return new ExpandedRouteElement(node, true, null, null);
+        }
+
+        private static ExpandedRouteElement stop(Node node, Duration travelTime, Duration dwellTime) {
+            return new ExpandedRouteElement(node, false, travelTime, dwellTime);
+        }
+
+    }
+
     /**
      * Keep track of the NG elements, allows lookups by ids.
      */
@@ -334,6 +423,8 @@ public class NetworkGraphicConverter<T> {
         private final Map<Integer, TrainrunCategory> categories;
         private final Map<Integer, TrainrunFrequency> frequencies;
         private final Map<Integer, TrainrunTimeCategory> times;
+        private final Map<Integer, Set<Integer>> nonStopTransits;
+        private final SectionAdjacency adjacency;
 
         Lookup(NetworkGraphic network) {
             this.nodes = listToHashMap(network.getNodes());
@@ -344,6 +435,38 @@ public class NetworkGraphicConverter<T> {
             this.categories = listToHashMap(network.getMetadata().getTrainrunCategories());
             this.frequencies = listToHashMap(network.getMetadata().getTrainrunFrequencies());
             this.times = listToHashMap(network.getMetadata().getTrainrunTimeCategories());
+            this.nonStopTransits = indexNonStopTransits(network.getNodes());
+            this.adjacency = new SectionAdjacency(network.getNodes(), ports, sections);
+        }
+
+        /**
+         * Index the nonstop transitions of all nodes by the trainrun sections attached to their ports, i.e. for each
+         * trainrun section the ids of the nodes it passes through without stopping.
+         */
+        private Map<Integer, Set<Integer>> indexNonStopTransits(List<Node> nodeList) {
+            Map<Integer, Set<Integer>> index = new HashMap<>();
+            for (Node node : nodeList) {
+                List<Transition> nodeTransitions = node.getTransitions();
+                if (nodeTransitions == null) {
+                    continue;
+                }
+
+                for (Transition transition : nodeTransitions) {
+                    if (!transition.isNonStopTransit()) {
+                        continue;
+                    }
+                    addNonStopTransit(index, ports.get(transition.getPort1Id()), node);
+                    addNonStopTransit(index, ports.get(transition.getPort2Id()), node);
+                }
+            }
+
+            return index;
+        }
+
+        private void addNonStopTransit(Map<Integer, Set<Integer>> index, Port port, Node node) {
+            if (port != null) {
+                index.computeIfAbsent(port.getTrainrunSectionId(), k -> new HashSet<>()).add(node.getId());
+            }
         }
 
         private <T extends Identifiable> Map<Integer, T> listToHashMap(List<T> list) {
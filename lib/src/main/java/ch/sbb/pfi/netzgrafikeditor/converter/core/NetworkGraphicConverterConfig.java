@@ -5,6 +5,8 @@ import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
 import lombok.Builder;
 import lombok.Value;
 
+import java.nio.file.Path;
+
 @Value
 @Builder
 public class NetworkGraphicConverterConfig {
@@ -32,6 +34,13 @@ public class NetworkGraphicConverterConfig {
     @Builder.Default
     ValidationStrategy validationStrategy = ValidationStrategy.WARN_ON_ISSUES;
 
+    /**
+     * File to write the validation report to, as CSV with one row per issue if the name ends with .csv, else as JSON
+     * with the number of issues per type. The report is also written if the validation fails. Default is null, which
+     * writes no report.
+     */
+    Path validationReportFile;
+
     /**
      * Time when the operation day starts, default is 05:00, this day.
      */
@@ -44,4 +53,14 @@ public class NetworkGraphicConverterConfig {
     @Builder.Default
     ServiceDayTime serviceDayEnd = ServiceDayTime.of(25, 0, 0);
 
+    /**
+     * Number of threads used to validate the network graphic and to expand the trainruns (order sections, derive stops
+     * and passes, generate departures).
+     * Default is 1, which expands all trainruns sequentially on the calling thread. With a higher value, the trainruns
+     * are expanded on a fork-join pool and added to the supply builder in the same order as in the sequential case, so
+     * the output does not depend on this setting.
+     */
+    @Builder.Default
+    int parallelism = 1;
+
 }
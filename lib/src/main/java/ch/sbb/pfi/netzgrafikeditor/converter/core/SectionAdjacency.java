@@ -0,0 +1,69 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Port;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Transition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Neighbouring trainrun sections, connected by a transition on the source or target node of a section.
+ * <p>
+ * Built once per network graphic and shared by the section sequence builders of all trainruns. If several transitions
+ * are attached to the port of a section, the first one in the order of the node's ports and transitions is used.
+ */
+class SectionAdjacency {
+
+    private final Map<Integer, Integer> sourceNeighbours = new HashMap<>();
+    private final Map<Integer, Integer> targetNeighbours = new HashMap<>();
+
+    SectionAdjacency(List<Node> nodes, Map<Integer, Port> ports, Map<Integer, TrainrunSection> sections) {
+        for (Node node : nodes) {
+            if (node.getTransitions() == null) {
+                continue;
+            }
+
+            // connect the ports of the node by its transitions, the first transition on a port wins
+            Map<Integer, Integer> connectedPorts = new HashMap<>();
+            for (Transition transition : node.getTransitions()) {
+                connectedPorts.putIfAbsent(transition.getPort1Id(), transition.getPort2Id());
+                connectedPorts.putIfAbsent(transition.getPort2Id(), transition.getPort1Id());
+            }
+
+            // resolve the neighbouring section on the side of the section which is attached to this node
+            for (Port port : node.getPorts()) {
+                Integer connectedPortId = connectedPorts.get(port.getId());
+                TrainrunSection section = sections.get(port.getTrainrunSectionId());
+                if (connectedPortId == null || section == null || !ports.containsKey(connectedPortId)) {
+                    continue;
+                }
+
+                int neighbourId = ports.get(connectedPortId).getTrainrunSectionId();
+                if (section.getSourceNodeId() == node.getId()) {
+                    sourceNeighbours.putIfAbsent(section.getId(), neighbourId);
+                }
+                if (section.getTargetNodeId() == node.getId()) {
+                    targetNeighbours.putIfAbsent(section.getId(), neighbourId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the id of the section connected on the source node of the section, or null if there is none.
+     */
+    Integer getSourceNeighbour(int sectionId) {
+        return sourceNeighbours.get(sectionId);
+    }
+
+    /**
+     * @return the id of the section connected on the target node of the section, or null if there is none.
+     */
+    Integer getTargetNeighbour(int sectionId) {
+        return targetNeighbours.get(sectionId);
+    }
+
+}
@@ -1,50 +1,47 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.core;
 
-import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
-import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Port;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
-import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Transition;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Set;
 import java.util.function.Consumer;
 
 /**
  * Traverse and order trainrun sections
  */
 @Slf4j
-@AllArgsConstructor
+@RequiredArgsConstructor
 class SectionSequenceBuilder {
 
-    private final Map<Integer, Node> nodes;
-    private final Map<Integer, Port> ports = new HashMap<>();
+    private final SectionAdjacency adjacency;
     private final Map<Integer, TrainrunSection> sections = new HashMap<>();
 
     void add(TrainrunSection section) {
         sections.put(section.getId(), section);
-        nodes.get(section.getSourceNodeId()).getPorts().forEach(port -> ports.put(port.getId(), port));
-        nodes.get(section.getTargetNodeId()).getPorts().forEach(port -> ports.put(port.getId(), port));
     }
 
     /**
      * Traverse the sections and build an ordered, directed section sequences.
      */
     EnumMap<RouteDirection, List<TrainrunSection>> build() {
-        List<TrainrunSection> orderedSections = new LinkedList<>(); // append to start of list
 
         // find first section of the chain
         TrainrunSection randomSection = sections.values().iterator().next();
-        AtomicReference<TrainrunSection> firstSection = new AtomicReference<>();
-        traverse(randomSection, firstSection::set);
+        TrainrunSection firstSection = traverse(randomSection, section -> {
+        });
 
-        // traverse from first section and collect sections
-        traverse(firstSection.get(), orderedSections::addFirst);
+        // traverse from first section and collect sections; the traversal ends at the start of the chain
+        List<TrainrunSection> orderedSections = new ArrayList<>(sections.size());
+        traverse(firstSection, orderedSections::add);
+        Collections.reverse(orderedSections);
 
         // align sections: e.g. A-B, C-B becomes A-B, B-C
         SectionAligner.align(orderedSections);
@@ -57,8 +54,13 @@ class SectionSequenceBuilder {
         return directedSections;
     }
 
-    private void traverse(TrainrunSection root, Consumer<TrainrunSection> action) {
-        Map<Integer, TrainrunSection> sectionsToVisit = new HashMap<>(sections);
+    /**
+     * Apply the action on each section along the chain, starting at the root.
+     *
+     * @return the last section of the traversal.
+     */
+    private TrainrunSection traverse(TrainrunSection root, Consumer<TrainrunSection> action) {
+        Set<Integer> visited = new HashSet<>(sections.size());
         TrainrunSection current = root;
         TrainrunSection next;
 
@@ -67,20 +69,20 @@ class SectionSequenceBuilder {
             // apply action on current section
             action.accept(current);
 
-            // mark as visited; remove from sections to visit
-            sectionsToVisit.remove(current.getId());
+            // mark as visited
+            visited.add(current.getId());
 
             // normal case; search on the target side
-            next = getNextSection(current, TraversalMode.TARGET, sectionsToVisit);
+            next = getSectionToVisit(adjacency.getTargetNeighbour(current.getId()), visited);
 
             // swapped case; search on source side
             if (next == null) {
-                next = getNextSection(current, TraversalMode.SOURCE, sectionsToVisit);
+                next = getSectionToVisit(adjacency.getSourceNeighbour(current.getId()), visited);
             }
 
             // nothing found; end of section sequence
             if (next == null) {
-                break;
+                return current;
             }
 
             // advance one section
@@ -88,44 +90,15 @@ class SectionSequenceBuilder {
         }
     }
 
-    private TrainrunSection getNextSection(TrainrunSection section, TraversalMode traversalMode, Map<Integer, TrainrunSection> sectionsToVisit) {
-
-        // get node to search on
-        Node node = switch (traversalMode) {
-            case SOURCE -> nodes.get(section.getSourceNodeId());
-            case TARGET -> nodes.get(section.getTargetNodeId());
-        };
-
-        // iterate over ports on selected node
-        for (Port port : node.getPorts()) {
-
-            // check if port is connecting to this trainrun section
-            if (port.getTrainrunSectionId() == section.getId()) {
-
-                // search for a transition matching this port
-                for (Transition transition : node.getTransitions()) {
-
-                    // transition connects on port 1, return next section on port 2
-                    if (transition.getPort1Id() == port.getId()) {
-                        return sectionsToVisit.get(ports.get(transition.getPort2Id()).getTrainrunSectionId());
-                    }
+    private TrainrunSection getSectionToVisit(Integer sectionId, Set<Integer> visited) {
 
-                    // transition connects on port 2, return next section on port 1
-                    if (transition.getPort2Id() == port.getId()) {
-                        return sectionsToVisit.get(ports.get(transition.getPort1Id()).getTrainrunSectionId());
-                    }
-                }
-            }
+        // no neighbour or already visited
+        if (sectionId == null || visited.contains(sectionId)) {
+            return null;
         }
 
-        // no section found
-        return null;
-
-    }
-
-    private enum TraversalMode {
-        SOURCE,
-        TARGET
+        // null if the neighbour does not belong to this trainrun
+        return sections.get(sectionId);
     }
 
     /**
@@ -124,12 +124,31 @@ public abstract class BaseSupplyBuilder<T> implements SupplyBuilder<T> {
             throw new IllegalArgumentException("Transit route not existing with id " + routeId);
         }
 
-        DepartureInfo departureInfo = new DepartureInfo(transitRouteContainer.transitRouteInfo, time);
-        vehicleCircuitsPlanner.register(departureInfo);
+        vehicleCircuitsPlanner.register(createDepartureInfo(transitRouteContainer, time));
 
         return this;
     }
 
+    private static DepartureInfo createDepartureInfo(TransitRouteContainer transitRouteContainer, ServiceDayTime time) {
+        List<RouteElement> routeElements = transitRouteContainer.routeElements;
+        RouteElement origin = routeElements.getFirst();
+        RouteElement destination = origin;
+
+        // the departure time is after the dwell time at the origin, the arrival time before the one at the destination
+        int travelTime = 0;
+        int dwellTime = 0;
+        for (RouteElement routeElement : routeElements.subList(1, routeElements.size())) {
+            if (routeElement instanceof RouteStop routeStop) {
+                travelTime += dwellTime + Math.toIntExact(routeStop.getTravelTime().getSeconds());
+                dwellTime = Math.toIntExact(routeStop.getDwellTime().getSeconds());
+                destination = routeStop;
+            }
+        }
+
+        return new DepartureInfo(transitRouteContainer.transitRouteInfo, time, origin.getStopFacilityInfo(),
+                destination.getStopFacilityInfo(), time.plusSeconds(travelTime));
+    }
+
     @Override
     public T build() {
 
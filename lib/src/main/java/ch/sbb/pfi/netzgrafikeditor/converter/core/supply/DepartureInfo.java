@@ -1,12 +1,27 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.core.supply;
 
 import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
+/**
+ * A departure of a transit route at its origin.
+ * <p>
+ * The terminal stops and the arrival time at the destination allow vehicle circuits planners to chain departures; they
+ * are null if unknown.
+ */
 @Value
+@AllArgsConstructor
 public class DepartureInfo {
 
     TransitRouteInfo transitRouteInfo;
     ServiceDayTime time;
+    StopFacilityInfo originStop;
+    StopFacilityInfo destinationStop;
+    ServiceDayTime arrivalTime;
+
+    public DepartureInfo(TransitRouteInfo transitRouteInfo, ServiceDayTime time) {
+        this(transitRouteInfo, time, null, null, null);
+    }
 
 }
@@ -0,0 +1,131 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decorates an infrastructure repository with a cache for the tracks between two stops, since the forward and reverse
+ * routes of many lines request the same tracks again and again, which can mean expensive routing in the repository.
+ * <p>
+ * The tracks are keyed on the stops with their coordinates and an optional route discriminator, and evicted in least
+ * recently used order. Stop facilities are not cached. If a cache file is configured, the cache is loaded from it on
+ * creation and written to it by {@link #persist()}, so that the next conversion starts warm.
+ */
+@Slf4j
+public class CachingInfrastructureRepository implements InfrastructureRepository {
+
+    private final InfrastructureRepository delegate;
+    private final TrackCacheConfig config;
+    private final Map<TrackKey, List<TrackSegmentInfo>> tracks;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CachingInfrastructureRepository(InfrastructureRepository delegate) {
+        this(delegate, TrackCacheConfig.builder().build());
+    }
+
+    public CachingInfrastructureRepository(InfrastructureRepository delegate, TrackCacheConfig config) {
+        if (config.getMaxSize() < 1) {
+            throw new IllegalArgumentException("Track cache size must be positive: " + config.getMaxSize());
+        }
+
+        this.delegate = delegate;
+        this.config = config;
+        this.tracks = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TrackKey, List<TrackSegmentInfo>> eldest) {
+                if (size() > config.getMaxSize()) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        load();
+    }
+
+    @Override
+    public StopFacilityInfo getStopFacility(String stopId, String stopName, double x, double y) {
+        return delegate.getStopFacility(stopId, stopName, x, y);
+    }
+
+    @Override
+    public List<TrackSegmentInfo> getTrack(StopFacilityInfo fromStop, StopFacilityInfo toStop, TransitRouteInfo transitRouteInfo) {
+        TrackKey key = new TrackKey(fromStop.getId(), fromStop.getCoordinate(), toStop.getId(),
+                toStop.getCoordinate(),
+                config.getRouteDiscriminator() == null ? null : config.getRouteDiscriminator().apply(transitRouteInfo));
+
+        synchronized (tracks) {
+            List<TrackSegmentInfo> track = tracks.get(key);
+            if (track != null) {
+                hits++;
+                return track;
+            }
+            misses++;
+        }
+
+        // request the track outside the lock, concurrent misses on the same key both ask the repository
+        List<TrackSegmentInfo> track = List.copyOf(delegate.getTrack(fromStop, toStop, transitRouteInfo));
+        synchronized (tracks) {
+            tracks.put(key, track);
+        }
+
+        return track;
+    }
+
+    public TrackCacheStatistics getStatistics() {
+        synchronized (tracks) {
+            return new TrackCacheStatistics(hits, misses, evictions, tracks.size());
+        }
+    }
+
+    /**
+     * Write the cached tracks to the cache file, if one is configured.
+     */
+    public void persist() throws IOException {
+        log.info("Track cache: {}", getStatistics());
+        if (config.getCacheFile() == null) {
+            return;
+        }
+
+        synchronized (tracks) {
+            int count = TrackCacheFile.write(config.getCacheFile(), tracks);
+            log.info("Persisted {} tracks to {}", count, config.getCacheFile().toAbsolutePath());
+        }
+    }
+
+    private void load() {
+        if (config.getCacheFile() == null || !Files.exists(config.getCacheFile())) {
+            return;
+        }
+
+        // a cache file which cannot be read only means a cold start
+        try {
+            TrackCacheFile.read(config.getCacheFile(), tracks::put);
+            evictions = 0;
+            log.info("Loaded {} tracks from {}", tracks.size(), config.getCacheFile().toAbsolutePath());
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Could not load track cache from {}, starting with an empty cache: {}",
+                    config.getCacheFile().toAbsolutePath(), e.getMessage());
+            tracks.clear();
+        }
+    }
+
+    record TrackKey(String fromStopId, Coordinate fromCoordinate, String toStopId, Coordinate toCoordinate,
+                    String routeDiscriminator) {
+    }
+
+}
@@ -0,0 +1,31 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import lombok.Builder;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.function.Function;
+
+@Value
+@Builder
+public class TrackCacheConfig {
+
+    /**
+     * Maximum number of cached tracks; the least recently used track is evicted when the cache is full.
+     */
+    @Builder.Default
+    int maxSize = 100_000;
+
+    /**
+     * Distinguishes the tracks between the same stops by route, e.g. by transport mode if the repository routes trains
+     * and buses on different networks. Null if the track only depends on the stops.
+     */
+    Function<TransitRouteInfo, String> routeDiscriminator;
+
+    /**
+     * File to load the cache from on creation and to persist it to, or null to keep the cache in memory only.
+     */
+    Path cacheFile;
+
+}
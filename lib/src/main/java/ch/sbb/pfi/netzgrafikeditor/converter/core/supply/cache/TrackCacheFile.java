@@ -0,0 +1,208 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache.CachingInfrastructureRepository.TrackKey;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Binary file of cached tracks, in least recently used order.
+ * <p>
+ * Link attributes are stored for strings, booleans and boxed numbers (int, long, double); tracks with attributes of
+ * other types are not persisted.
+ */
+@Slf4j
+final class TrackCacheFile {
+
+    private static final int MAGIC = 0x4e47544b; // "NGTK"
+    private static final int VERSION = 1;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private static final byte STRING = 'S';
+    private static final byte BOOLEAN = 'B';
+    private static final byte INTEGER = 'I';
+    private static final byte LONG = 'L';
+    private static final byte DOUBLE = 'D';
+
+    private TrackCacheFile() {
+    }
+
+    /**
+     * Write the tracks to a temporary file, which replaces the cache file when complete.
+     *
+     * @return the number of persisted tracks.
+     */
+    static int write(Path filePath, Map<TrackKey, List<TrackSegmentInfo>> tracks) throws IOException {
+        Path absolutePath = filePath.toAbsolutePath();
+        Files.createDirectories(absolutePath.getParent());
+        Path tempFile = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(),
+                TEMP_FILE_SUFFIX);
+
+        int count = 0;
+        try {
+            List<Map.Entry<TrackKey, List<TrackSegmentInfo>>> persistable = new ArrayList<>();
+            for (Map.Entry<TrackKey, List<TrackSegmentInfo>> entry : tracks.entrySet()) {
+                if (entry.getValue().stream().allMatch(TrackCacheFile::isPersistable)) {
+                    persistable.add(entry);
+                } else {
+                    log.debug("Track {} has link attributes of unsupported types, not persisted", entry.getKey());
+                }
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(persistable.size());
+                for (Map.Entry<TrackKey, List<TrackSegmentInfo>> entry : persistable) {
+                    writeKey(out, entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (TrackSegmentInfo segment : entry.getValue()) {
+                        writeSegment(out, segment);
+                    }
+                    count++;
+                }
+            }
+
+            Files.move(tempFile, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        return count;
+    }
+
+    static void read(Path filePath, BiConsumer<TrackKey, List<TrackSegmentInfo>> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(filePath)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Not a track cache file: " + filePath);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported track cache file version " + version);
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                TrackKey key = readKey(in);
+                int segmentCount = in.readInt();
+                List<TrackSegmentInfo> segments = new ArrayList<>(segmentCount);
+                for (int j = 0; j < segmentCount; j++) {
+                    segments.add(readSegment(in));
+                }
+                consumer.accept(key, List.copyOf(segments));
+            }
+        }
+    }
+
+    private static boolean isPersistable(TrackSegmentInfo segment) {
+        return segment.getLinkAttributes()
+                .values()
+                .stream()
+                .allMatch(value -> value instanceof String || value instanceof Boolean || value instanceof Integer ||
+                        value instanceof Long || value instanceof Double);
+    }
+
+    private static void writeKey(DataOutputStream out, TrackKey key) throws IOException {
+        out.writeUTF(key.fromStopId());
+        writeCoordinate(out, key.fromCoordinate());
+        out.writeUTF(key.toStopId());
+        writeCoordinate(out, key.toCoordinate());
+        out.writeBoolean(key.routeDiscriminator() != null);
+        if (key.routeDiscriminator() != null) {
+            out.writeUTF(key.routeDiscriminator());
+        }
+    }
+
+    private static TrackKey readKey(DataInputStream in) throws IOException {
+        String fromStopId = in.readUTF();
+        Coordinate fromCoordinate = readCoordinate(in);
+        String toStopId = in.readUTF();
+        Coordinate toCoordinate = readCoordinate(in);
+        String routeDiscriminator = in.readBoolean() ? in.readUTF() : null;
+
+        return new TrackKey(fromStopId, fromCoordinate, toStopId, toCoordinate, routeDiscriminator);
+    }
+
+    private static void writeSegment(DataOutputStream out, TrackSegmentInfo segment) throws IOException {
+        out.writeUTF(segment.getSegmentId());
+        writeCoordinate(out, segment.getFromCoordinate());
+        writeCoordinate(out, segment.getToCoordinate());
+        out.writeDouble(segment.getLength());
+
+        out.writeInt(segment.getLinkAttributes().size());
+        for (Map.Entry<String, Object> attribute : segment.getLinkAttributes().entrySet()) {
+            out.writeUTF(attribute.getKey());
+            switch (attribute.getValue()) {
+                case String value -> {
+                    out.writeByte(STRING);
+                    out.writeUTF(value);
+                }
+                case Boolean value -> {
+                    out.writeByte(BOOLEAN);
+                    out.writeBoolean(value);
+                }
+                case Integer value -> {
+                    out.writeByte(INTEGER);
+                    out.writeInt(value);
+                }
+                case Long value -> {
+                    out.writeByte(LONG);
+                    out.writeLong(value);
+                }
+                case Double value -> {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble(value);
+                }
+                default -> throw new IllegalStateException(
+                        "Unsupported link attribute type: " + attribute.getValue().getClass());
+            }
+        }
+    }
+
+    private static TrackSegmentInfo readSegment(DataInputStream in) throws IOException {
+        TrackSegmentInfo segment = new TrackSegmentInfo(in.readUTF(), readCoordinate(in), readCoordinate(in),
+                in.readDouble());
+
+        int attributeCount = in.readInt();
+        for (int i = 0; i < attributeCount; i++) {
+            String name = in.readUTF();
+            byte type = in.readByte();
+            Object value = switch (type) {
+                case STRING -> in.readUTF();
+                case BOOLEAN -> in.readBoolean();
+                case INTEGER -> in.readInt();
+                case LONG -> in.readLong();
+                case DOUBLE -> in.readDouble();
+                default -> throw new IllegalStateException("Unknown link attribute type: " + (char) type);
+            };
+            segment.getLinkAttributes().put(name, value);
+        }
+
+        return segment;
+    }
+
+    private static void writeCoordinate(DataOutputStream out, Coordinate coordinate) throws IOException {
+        out.writeDouble(coordinate.getLatitude());
+        out.writeDouble(coordinate.getLongitude());
+    }
+
+    private static Coordinate readCoordinate(DataInputStream in) throws IOException {
+        return new Coordinate(in.readDouble(), in.readDouble());
+    }
+
+}
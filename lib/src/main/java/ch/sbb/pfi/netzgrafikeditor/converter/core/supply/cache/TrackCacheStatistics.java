@@ -0,0 +1,24 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache;
+
+import lombok.Value;
+
+@Value
+public class TrackCacheStatistics {
+
+    long hits;
+    long misses;
+    long evictions;
+    int size;
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (hit rate %.1f%%), %d evictions, %d cached tracks", hits, misses,
+                100 * getHitRate(), evictions, size);
+    }
+
+}
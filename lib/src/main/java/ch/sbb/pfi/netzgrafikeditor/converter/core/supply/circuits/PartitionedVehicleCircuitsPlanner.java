@@ -0,0 +1,121 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.circuits;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.DepartureInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Plans the vehicle circuits of each vehicle type independently and in parallel.
+ * <p>
+ * The departures are partitioned by the vehicle type of their category; each partition is registered with its own
+ * planner from the factory, and the partitions are planned on a fixed pool of worker threads. The allocations are merged
+ * in order of departure time, ties ordered by vehicle type id, so that the result does not depend on thread scheduling.
+ * <p>
+ * Since the vehicles of different types never share a circuit, partitioning does not change the circuits of planners
+ * which chain departures per vehicle type, such as the {@link TurnaroundVehicleCircuitsPlanner}.
+ */
+@Slf4j
+public class PartitionedVehicleCircuitsPlanner implements VehicleCircuitsPlanner {
+
+    private final RollingStockRepository rollingStockRepository;
+    private final Supplier<VehicleCircuitsPlanner> plannerFactory;
+    private final int parallelism;
+
+    private final Map<String, VehicleTypeInfo> vehicleTypeInfos = new HashMap<>();
+    private final Map<String, VehicleCircuitsPlanner> partitions = new TreeMap<>();
+
+    public PartitionedVehicleCircuitsPlanner(RollingStockRepository rollingStockRepository, Supplier<VehicleCircuitsPlanner> plannerFactory) {
+        this(rollingStockRepository, plannerFactory, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param plannerFactory creates the planner of a partition, which only sees departures of one vehicle type.
+     * @param parallelism    maximum number of partitions planned concurrently.
+     */
+    public PartitionedVehicleCircuitsPlanner(RollingStockRepository rollingStockRepository, Supplier<VehicleCircuitsPlanner> plannerFactory, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.rollingStockRepository = rollingStockRepository;
+        this.plannerFactory = plannerFactory;
+        this.parallelism = parallelism;
+    }
+
+    private static List<VehicleAllocation> await(Future<List<VehicleAllocation>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for vehicle circuits planning", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void register(DepartureInfo departureInfo) {
+        String category = departureInfo.getTransitRouteInfo().getTransitLineInfo().getCategory();
+        VehicleTypeInfo vehicleTypeInfo = vehicleTypeInfos.computeIfAbsent(category,
+                rollingStockRepository::getVehicleType);
+
+        partitions.computeIfAbsent(vehicleTypeInfo.getId(), vehicleTypeId -> plannerFactory.get())
+                .register(departureInfo);
+    }
+
+    @Override
+    public List<VehicleAllocation> plan() {
+        long start = System.nanoTime();
+        List<List<VehicleAllocation>> results = new ArrayList<>(partitions.size());
+
+        if (partitions.size() <= 1 || parallelism == 1) {
+            for (VehicleCircuitsPlanner planner : partitions.values()) {
+                results.add(planner.plan());
+            }
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, partitions.size()));
+            try {
+                List<Future<List<VehicleAllocation>>> futures = new ArrayList<>(partitions.size());
+                for (VehicleCircuitsPlanner planner : partitions.values()) {
+                    futures.add(executor.submit(planner::plan));
+                }
+                for (Future<List<VehicleAllocation>> future : futures) {
+                    results.add(await(future));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        // the results are sorted runs in vehicle type order, which the stable sort merges
+        List<VehicleAllocation> vehicleAllocations = new ArrayList<>(
+                results.stream().mapToInt(List::size).sum());
+        results.forEach(vehicleAllocations::addAll);
+        vehicleAllocations.sort(Comparator.comparing(allocation -> allocation.getDepartureInfo().getTime()));
+
+        log.info("Planned vehicle circuits of {} vehicle types in {} ms", partitions.size(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        return vehicleAllocations;
+    }
+}
@@ -0,0 +1,212 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.circuits;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.DepartureInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Chains the departures into vehicle circuits per vehicle type, turning the vehicles around at the terminal stops.
+ * <p>
+ * The departures are swept in order of their departure time. A vehicle arriving at the destination of a departure is
+ * available for the next departure from that stop after the minimum layover; arriving vehicles wait in a priority queue
+ * ordered by the time they become available. A departure takes the longest available vehicle of its type at its
+ * origin, or a new vehicle if there is none. Since the vehicles of a type are interchangeable, this greedy assignment
+ * needs the minimal fleet, in O(n log n) for n departures.
+ * <p>
+ * Departures without terminal stops or arrival time are not chained and get a vehicle of their own.
+ */
+@Slf4j
+public class TurnaroundVehicleCircuitsPlanner implements VehicleCircuitsPlanner {
+
+    public static final Duration DEFAULT_MIN_LAYOVER = Duration.ofMinutes(5);
+
+    private final RollingStockRepository rollingStockRepository;
+    private final int minLayoverSeconds;
+
+    private final Map<String, VehicleTypeInfo> vehicleTypeInfos = new HashMap<>();
+    private final List<DepartureInfo> departureInfos = new ArrayList<>();
+    private final Map<String, Integer> fleetSizes = new TreeMap<>();
+
+    public TurnaroundVehicleCircuitsPlanner(RollingStockRepository rollingStockRepository) {
+        this(rollingStockRepository, DEFAULT_MIN_LAYOVER);
+    }
+
+    public TurnaroundVehicleCircuitsPlanner(RollingStockRepository rollingStockRepository, Duration minLayover) {
+        if (minLayover.isNegative()) {
+            throw new IllegalArgumentException("Minimum layover cannot be negative");
+        }
+
+        this.rollingStockRepository = rollingStockRepository;
+        this.minLayoverSeconds = Math.toIntExact(minLayover.toSeconds());
+    }
+
+    @Override
+    public void register(DepartureInfo departureInfo) {
+        departureInfos.add(departureInfo);
+    }
+
+    @Override
+    public List<VehicleAllocation> plan() {
+        fleetSizes.clear();
+
+        // sort by departure time and then registration order, packed into primitives to sort without comparators
+        long[] order = new long[departureInfos.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (long) departureInfos.get(i).getTime().toSecondOfDay() << Integer.SIZE | i;
+        }
+        Arrays.sort(order);
+
+        List<Vehicle> vehicles = new ArrayList<>();
+        ArrivalQueue arrivingVehicles = new ArrivalQueue();
+        Map<Terminal, ArrayDeque<Vehicle>> availableVehicles = new HashMap<>();
+        Map<String, Integer> departureCounts = new HashMap<>();
+        List<VehicleAllocation> vehicleAllocations = new ArrayList<>(order.length);
+
+        for (long entry : order) {
+            DepartureInfo departureInfo = departureInfos.get((int) entry);
+            int departureTime = (int) (entry >>> Integer.SIZE);
+
+            // vehicles which have completed their layover wait at their terminal
+            while (!arrivingVehicles.isEmpty() && arrivingVehicles.peekTime() <= departureTime) {
+                Vehicle vehicle = vehicles.get(arrivingVehicles.poll());
+                availableVehicles.computeIfAbsent(vehicle.terminal, terminal -> new ArrayDeque<>()).addLast(vehicle);
+            }
+
+            VehicleTypeInfo vehicleTypeInfo = getVehicleType(departureInfo);
+            Vehicle vehicle = null;
+            if (departureInfo.getOriginStop() != null) {
+                ArrayDeque<Vehicle> waitingVehicles = availableVehicles.get(
+                        new Terminal(vehicleTypeInfo.getId(), departureInfo.getOriginStop().getId()));
+                vehicle = waitingVehicles == null ? null : waitingVehicles.pollFirst();
+            }
+
+            if (vehicle == null) {
+                int vehicleCount = fleetSizes.merge(vehicleTypeInfo.getId(), 1, Integer::sum);
+                vehicle = new Vehicle(vehicles.size(),
+                        new VehicleInfo(vehicleTypeInfo.getId() + "_" + vehicleCount, vehicleTypeInfo));
+                vehicles.add(vehicle);
+            }
+
+            if (departureInfo.getDestinationStop() != null && departureInfo.getArrivalTime() != null) {
+                vehicle.terminal = new Terminal(vehicleTypeInfo.getId(), departureInfo.getDestinationStop().getId());
+                arrivingVehicles.push(departureInfo.getArrivalTime().toSecondOfDay() + minLayoverSeconds,
+                        vehicle.index);
+            }
+
+            String routeId = departureInfo.getTransitRouteInfo().getId();
+            int departureCount = departureCounts.merge(routeId, 1, Integer::sum);
+            vehicleAllocations.add(
+                    new VehicleAllocation(routeId + "_" + departureCount, departureInfo, vehicle.vehicleInfo));
+        }
+
+        log.info("Planned vehicle circuits for {} departures with a fleet of {} vehicles: {}",
+                vehicleAllocations.size(), getFleetSize(), fleetSizes);
+
+        return vehicleAllocations;
+    }
+
+    /**
+     * @return the number of vehicles per vehicle type id of the last plan.
+     */
+    public Map<String, Integer> getFleetSizes() {
+        return Collections.unmodifiableMap(fleetSizes);
+    }
+
+    /**
+     * @return the number of vehicles of the last plan.
+     */
+    public int getFleetSize() {
+        return fleetSizes.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // get vehicle type based on category (product)
+    private VehicleTypeInfo getVehicleType(DepartureInfo departureInfo) {
+        String category = departureInfo.getTransitRouteInfo().getTransitLineInfo().getCategory();
+
+        return vehicleTypeInfos.computeIfAbsent(category, rollingStockRepository::getVehicleType);
+    }
+
+    private record Terminal(String vehicleTypeId, String stopId) {
+    }
+
+    private static final class Vehicle {
+
+        private final int index;
+        private final VehicleInfo vehicleInfo;
+        private Terminal terminal;
+
+        private Vehicle(int index, VehicleInfo vehicleInfo) {
+            this.index = index;
+            this.vehicleInfo = vehicleInfo;
+        }
+    }
+
+    // binary min heap of the vehicles in layover, packed as time and index into longs
+    private static final class ArrivalQueue {
+
+        private long[] entries = new long[64];
+        private int size;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int peekTime() {
+            return (int) (entries[0] >>> Integer.SIZE);
+        }
+
+        private void push(int time, int vehicleIndex) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+
+            long entry = (long) time << Integer.SIZE | vehicleIndex;
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (entries[parent] <= entry) {
+                    break;
+                }
+                entries[i] = entries[parent];
+                i = parent;
+            }
+            entries[i] = entry;
+        }
+
+        private int poll() {
+            int top = (int) entries[0];
+            long entry = entries[--size];
+
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && entries[child + 1] < entries[child]) {
+                    child++;
+                }
+                if (entry <= entries[child]) {
+                    break;
+                }
+                entries[i] = entries[child];
+                i = child;
+            }
+            entries[i] = entry;
+
+            return top;
+        }
+    }
+}
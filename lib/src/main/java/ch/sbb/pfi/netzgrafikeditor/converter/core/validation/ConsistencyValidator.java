@@ -0,0 +1,226 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Identifiable;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Metadata;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Port;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Trainrun;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunCategory;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunCategoryHaltezeit;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Transition;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the references between the entities of a network graphic, which the converter resolves without further checks:
+ * sections to nodes and trainruns, ports to sections, transitions to the ports of their node, trainruns to categories,
+ * frequencies and time categories, and the dwell times of the trainrun category at the nodes its sections stop at.
+ * <p>
+ * The ids of each entity type are collected in bit sets, then each reference is checked once, in time linear in the
+ * size of the network graphic.
+ */
+final class ConsistencyValidator {
+
+    private static final String UNCATEGORIZED = "HaltezeitUncategorized";
+
+    private final NetworkGraphic networkGraphic;
+    private final List<ValidationIssue> issues = new ArrayList<>();
+    private int checkedEntities;
+
+    ConsistencyValidator(NetworkGraphic networkGraphic) {
+        this.networkGraphic = networkGraphic;
+    }
+
+    // null lists are treated as empty, references into them are reported
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+
+    /**
+     * @return the inconsistencies, in order of the entities; empty if all references are resolved.
+     */
+    List<ValidationIssue> validate() {
+        Metadata metadata = networkGraphic.getMetadata();
+        List<TrainrunCategory> categories = metadata == null ? List.of() : orEmpty(metadata.getTrainrunCategories());
+        IdSet categoryIds = collect(categories, IssueTarget.TRAINRUN_CATEGORY);
+        IdSet frequencyIds = collect(metadata == null ? List.of() : orEmpty(metadata.getTrainrunFrequencies()),
+                IssueTarget.TRAINRUN_FREQUENCY);
+        IdSet timeCategoryIds = collect(metadata == null ? List.of() : orEmpty(metadata.getTrainrunTimeCategories()),
+                IssueTarget.TRAINRUN_TIME_CATEGORY);
+
+        List<Node> nodes = orEmpty(networkGraphic.getNodes());
+        IdSet nodeIds = collect(nodes, IssueTarget.NODE);
+        IdSet portIds = new IdSet();
+        for (Node node : nodes) {
+            for (Port port : orEmpty(node.getPorts())) {
+                add(portIds, port, IssueTarget.PORT);
+            }
+        }
+
+        // trainruns to metadata
+        Map<Integer, String> fachCategories = new HashMap<>();
+        for (TrainrunCategory category : categories) {
+            fachCategories.putIfAbsent(category.getId(), category.getFachCategory());
+        }
+        List<Trainrun> trainruns = orEmpty(networkGraphic.getTrainruns());
+        IdSet trainrunIds = collect(trainruns, IssueTarget.TRAINRUN);
+        for (Trainrun trainrun : trainruns) {
+            check(categoryIds, trainrun.getCategoryId(), "categoryId", IssueTarget.TRAINRUN, trainrun);
+            check(frequencyIds, trainrun.getFrequencyId(), "frequencyId", IssueTarget.TRAINRUN, trainrun);
+            check(timeCategoryIds, trainrun.getTrainrunTimeCategoryId(), "trainrunTimeCategoryId",
+                    IssueTarget.TRAINRUN, trainrun);
+        }
+
+        // sections to nodes and trainruns, dwell times of the trainrun category at both nodes
+        Map<Integer, Node> nodesById = new HashMap<>();
+        for (Node node : nodes) {
+            nodesById.putIfAbsent(node.getId(), node);
+        }
+        Map<Integer, String> trainrunFachCategories = new HashMap<>();
+        for (Trainrun trainrun : trainruns) {
+            String fachCategory = fachCategories.get(trainrun.getCategoryId());
+            if (fachCategory != null) {
+                trainrunFachCategories.putIfAbsent(trainrun.getId(), fachCategory);
+            }
+        }
+        Map<Integer, Set<Integer>> passes = indexPasses(nodes);
+        Map<String, BitSet> checkedDwellTimes = new HashMap<>();
+        List<TrainrunSection> sections = orEmpty(networkGraphic.getTrainrunSections());
+        IdSet sectionIds = collect(sections, IssueTarget.TRAINRUN_SECTION);
+        for (TrainrunSection section : sections) {
+            check(nodeIds, section.getSourceNodeId(), "sourceNodeId", IssueTarget.TRAINRUN_SECTION, section);
+            check(nodeIds, section.getTargetNodeId(), "targetNodeId", IssueTarget.TRAINRUN_SECTION, section);
+            check(trainrunIds, section.getTrainrunId(), "trainrunId", IssueTarget.TRAINRUN_SECTION, section);
+
+            String fachCategory = trainrunFachCategories.get(section.getTrainrunId());
+            if (fachCategory != null && !fachCategory.equals(UNCATEGORIZED)) {
+                // the converter only needs the dwell time at the nodes where the trainrun stops, not where it passes
+                BitSet checkedNodes = checkedDwellTimes.computeIfAbsent(fachCategory, k -> new BitSet());
+                Set<Integer> passedNodes = passes.getOrDefault(section.getId(), Set.of());
+                if (!passedNodes.contains(section.getSourceNodeId())) {
+                    checkDwellTime(nodesById.get(section.getSourceNodeId()), fachCategory, checkedNodes);
+                }
+                if (!passedNodes.contains(section.getTargetNodeId())) {
+                    checkDwellTime(nodesById.get(section.getTargetNodeId()), fachCategory, checkedNodes);
+                }
+            }
+        }
+
+        // ports to sections, transitions to the ports of their node
+        for (Node node : nodes) {
+            IdSet nodePortIds = new IdSet();
+            for (Port port : orEmpty(node.getPorts())) {
+                nodePortIds.add(port.getId());
+                check(sectionIds, port.getTrainrunSectionId(), "trainrunSectionId", IssueTarget.PORT, port);
+            }
+            for (Transition transition : orEmpty(node.getTransitions())) {
+                checkedEntities++;
+                check(nodePortIds, transition.getPort1Id(), "port1Id", IssueTarget.TRANSITION, transition);
+                check(nodePortIds, transition.getPort2Id(), "port2Id", IssueTarget.TRANSITION, transition);
+            }
+        }
+
+        return issues;
+    }
+
+    // for each section the nodes it passes without stopping, resolved through the ports of the node as the converter does
+    private static Map<Integer, Set<Integer>> indexPasses(List<Node> nodes) {
+        Map<Integer, Set<Integer>> passes = new HashMap<>();
+        for (Node node : nodes) {
+            Map<Integer, Port> ports = new HashMap<>();
+            for (Port port : orEmpty(node.getPorts())) {
+                ports.putIfAbsent(port.getId(), port);
+            }
+            for (Transition transition : orEmpty(node.getTransitions())) {
+                if (transition.isNonStopTransit()) {
+                    addPass(passes, ports.get(transition.getPort1Id()), node);
+                    addPass(passes, ports.get(transition.getPort2Id()), node);
+                }
+            }
+        }
+
+        return passes;
+    }
+
+    private static void addPass(Map<Integer, Set<Integer>> passes, Port port, Node node) {
+        if (port != null) {
+            passes.computeIfAbsent(port.getTrainrunSectionId(), k -> new HashSet<>()).add(node.getId());
+        }
+    }
+
+    /**
+     * @return the number of entities checked by the last validation.
+     */
+    int getCheckedEntities() {
+        return checkedEntities;
+    }
+
+    private <T extends Identifiable> IdSet collect(List<T> entities, IssueTarget target) {
+        IdSet ids = new IdSet();
+        for (T entity : entities) {
+            add(ids, entity, target);
+        }
+
+        return ids;
+    }
+
+    private void add(IdSet ids, Identifiable entity, IssueTarget target) {
+        checkedEntities++;
+        if (!ids.add(entity.getId())) {
+            issues.add(new ValidationIssue(target, IssueType.DUPLICATE_ID, String.valueOf(entity.getId()),
+                    entity.getId()));
+        }
+    }
+
+    private void check(IdSet ids, int id, String reference, IssueTarget target, Identifiable entity) {
+        if (!ids.contains(id)) {
+            issues.add(new ValidationIssue(target, IssueType.UNKNOWN_REFERENCE, reference + "=" + id,
+                    entity.getId()));
+        }
+    }
+
+    // each node is checked once per fach category
+    private void checkDwellTime(Node node, String fachCategory, BitSet checkedNodes) {
+        if (node == null || node.getId() < 0 || checkedNodes.get(node.getId())) {
+            return;
+        }
+        checkedNodes.set(node.getId());
+
+        Map<String, TrainrunCategoryHaltezeit> haltezeiten = node.getTrainrunCategoryHaltezeiten();
+        if (haltezeiten == null || !haltezeiten.containsKey(fachCategory)) {
+            issues.add(new ValidationIssue(IssueTarget.NODE, IssueType.MISSING_DWELL_TIME, fachCategory,
+                    node.getId()));
+        }
+    }
+
+    // set of ids, negative ids are not expected in network graphics and kept apart from the bit set
+    private static final class IdSet {
+
+        private final BitSet ids = new BitSet();
+        private final Set<Integer> negativeIds = new HashSet<>();
+
+        private boolean add(int id) {
+            if (id < 0) {
+                return negativeIds.add(id);
+            }
+            if (ids.get(id)) {
+                return false;
+            }
+            ids.set(id);
+
+            return true;
+        }
+
+        private boolean contains(int id) {
+            return id < 0 ? negativeIds.contains(id) : ids.get(id);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+/**
+ * Entity of the network graphic which has an issue.
+ */
+public enum IssueTarget {
+    NODE,
+    TRAINRUN,
+    TRAINRUN_SECTION,
+    PORT,
+    TRANSITION,
+    TRAINRUN_CATEGORY,
+    TRAINRUN_FREQUENCY,
+    TRAINRUN_TIME_CATEGORY
+}
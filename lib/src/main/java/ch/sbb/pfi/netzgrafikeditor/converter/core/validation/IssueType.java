@@ -0,0 +1,15 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+/**
+ * Issue found by the validation; an identifier is reported with its first issue only.
+ */
+public enum IssueType {
+    MISSING,
+    SPECIAL_CHARACTER,
+    WHITESPACE,
+    LEADING_OR_TRAILING_WHITESPACE,
+    // inconsistencies of the network graphic structure
+    DUPLICATE_ID,
+    UNKNOWN_REFERENCE,
+    MISSING_DWELL_TIME
+}
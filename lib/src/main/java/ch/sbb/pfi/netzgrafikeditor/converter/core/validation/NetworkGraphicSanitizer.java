@@ -18,12 +18,42 @@ public class NetworkGraphicSanitizer {
     private final boolean considerTrainruns;
     private final Function<String, String> idProcessor;
 
+    /**
+     * Only the nodes and trainruns whose id changes are copied; if no id changes, the original is returned.
+     */
     public NetworkGraphic run() {
+        List<Node> fixedNodes = fixNodes();
+        List<Trainrun> fixedTrainruns = considerTrainruns ? fixTrainruns() : original.getTrainruns();
 
-        List<Node> fixedNodes = new ArrayList<>();
-        for (Node node : original.getNodes()) {
+        if (fixedNodes == original.getNodes() && fixedTrainruns == original.getTrainruns()) {
+            return original;
+        }
+
+        return NetworkGraphic.builder()
+                .nodes(fixedNodes)
+                .trainrunSections(original.getTrainrunSections())
+                .trainruns(fixedTrainruns)
+                .metadata(original.getMetadata())
+                .build();
+    }
+
+    private List<Node> fixNodes() {
+        List<Node> nodes = original.getNodes();
+        List<Node> fixedNodes = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
             String fixedBetriebspunktName = process(node.getBetriebspunktName());
-            Node fixedNode = Node.builder()
+            if (fixedBetriebspunktName.equals(node.getBetriebspunktName())) {
+                if (fixedNodes != null) {
+                    fixedNodes.add(node);
+                }
+                continue;
+            }
+
+            if (fixedNodes == null) {
+                fixedNodes = new ArrayList<>(nodes.subList(0, i));
+            }
+            fixedNodes.add(Node.builder()
                     .id(node.getId())
                     .betriebspunktName(fixedBetriebspunktName)
                     .fullName(node.getFullName())
@@ -34,32 +64,38 @@ public class NetworkGraphicSanitizer {
                     .ports(node.getPorts())
                     .transitions(node.getTransitions())
                     .trainrunCategoryHaltezeiten(node.getTrainrunCategoryHaltezeiten())
-                    .build();
-            fixedNodes.add(fixedNode);
+                    .build());
         }
 
-        List<Trainrun> fixedTrainruns = original.getTrainruns();
-        if (considerTrainruns) {
-            fixedTrainruns = new ArrayList<>();
-            for (Trainrun trainrun : original.getTrainruns()) {
-                String fixedName = process(trainrun.getName());
-                Trainrun fixedTrainrun = Trainrun.builder()
-                        .id(trainrun.getId())
-                        .name(fixedName)
-                        .categoryId(trainrun.getCategoryId())
-                        .frequencyId(trainrun.getFrequencyId())
-                        .trainrunTimeCategoryId(trainrun.getTrainrunTimeCategoryId())
-                        .build();
-                fixedTrainruns.add(fixedTrainrun);
+        return fixedNodes == null ? nodes : fixedNodes;
+    }
+
+    private List<Trainrun> fixTrainruns() {
+        List<Trainrun> trainruns = original.getTrainruns();
+        List<Trainrun> fixedTrainruns = null;
+        for (int i = 0; i < trainruns.size(); i++) {
+            Trainrun trainrun = trainruns.get(i);
+            String fixedName = process(trainrun.getName());
+            if (fixedName.equals(trainrun.getName())) {
+                if (fixedTrainruns != null) {
+                    fixedTrainruns.add(trainrun);
+                }
+                continue;
             }
+
+            if (fixedTrainruns == null) {
+                fixedTrainruns = new ArrayList<>(trainruns.subList(0, i));
+            }
+            fixedTrainruns.add(Trainrun.builder()
+                    .id(trainrun.getId())
+                    .name(fixedName)
+                    .categoryId(trainrun.getCategoryId())
+                    .frequencyId(trainrun.getFrequencyId())
+                    .trainrunTimeCategoryId(trainrun.getTrainrunTimeCategoryId())
+                    .build());
         }
 
-        return NetworkGraphic.builder()
-                .nodes(fixedNodes)
-                .trainrunSections(original.getTrainrunSections())
-                .trainruns(fixedTrainruns)
-                .metadata(original.getMetadata())
-                .build();
+        return fixedTrainruns == null ? trainruns : fixedTrainruns;
     }
 
     private String process(String id) {
@@ -0,0 +1,13 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+/**
+ * Thrown if a network graphic is inconsistent or has issues which the validation strategy does not accept; the
+ * conversion fails because of its input, not because of the converter or its environment.
+ */
+public class NetworkGraphicValidationException extends IllegalStateException {
+
+    public NetworkGraphicValidationException(String message) {
+        super(message);
+    }
+
+}
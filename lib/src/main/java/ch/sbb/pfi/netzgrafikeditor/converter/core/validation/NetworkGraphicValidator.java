@@ -1,69 +1,154 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
 
-import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Identifiable;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
-import lombok.AllArgsConstructor;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Trainrun;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
-import static ch.sbb.pfi.netzgrafikeditor.converter.core.validation.ValidationUtils.*;
-
-@AllArgsConstructor
 @Slf4j
 public class NetworkGraphicValidator {
 
-    private final List<Issue<Identifiable>> issues = new ArrayList<>();
+    // below this number of entities per worker, the validation is faster on the calling thread
+    private static final int MIN_PARTITION_SIZE = 4096;
+    private static final int MAX_LOGGED_ISSUES = 100;
 
     private final ValidationStrategy strategy;
     private final boolean considerTrainruns;
+    private final int parallelism;
     private NetworkGraphic networkGraphic;
 
+    private List<ValidationIssue> issues = List.of();
+    private int checkedEntities;
+
+    public NetworkGraphicValidator(ValidationStrategy strategy, boolean considerTrainruns, NetworkGraphic networkGraphic) {
+        this(strategy, considerTrainruns, 1, networkGraphic);
+    }
+
+    /**
+     * @param parallelism maximum number of threads to validate the ids on; the nodes and trainruns are partitioned into
+     *                    contiguous ranges, whose issues are merged in order, so the result does not depend on it.
+     */
+    public NetworkGraphicValidator(ValidationStrategy strategy, boolean considerTrainruns, int parallelism, NetworkGraphic networkGraphic) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+
+        this.strategy = strategy;
+        this.considerTrainruns = considerTrainruns;
+        this.parallelism = parallelism;
+        this.networkGraphic = networkGraphic;
+    }
+
     public NetworkGraphic run() {
+        if (strategy.checksConsistency()) {
+            checkConsistency();
+        }
+
         log.info("Apply validation strategy: {}", strategy);
 
         if (!strategy.apply(this)) {
-            throw new IllegalStateException(
+            throw new NetworkGraphicValidationException(
                     "Found issues during network graphic validation and option fail on issue is set.");
         }
 
         return networkGraphic;
     }
 
-    boolean isValid() {
-        networkGraphic.getNodes().forEach(node -> validateId(node.getBetriebspunktName(), IssueTarget.NODE, node));
+    /**
+     * @return the report of the last run, also available if the run failed on issues.
+     */
+    public ValidationReport getReport() {
+        return ValidationReport.of(strategy, checkedEntities, issues);
+    }
 
-        if (considerTrainruns) {
-            networkGraphic.getTrainruns()
-                    .forEach(trainrun -> validateId(trainrun.getName(), IssueTarget.TRAINRUN, trainrun));
+    private void checkConsistency() {
+        long start = System.nanoTime();
+        ConsistencyValidator consistencyValidator = new ConsistencyValidator(networkGraphic);
+        List<ValidationIssue> inconsistencies = consistencyValidator.validate();
+        log.info("Checked references of {} entities in {} ms", consistencyValidator.getCheckedEntities(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        if (!inconsistencies.isEmpty()) {
+            issues = inconsistencies;
+            checkedEntities = consistencyValidator.getCheckedEntities();
+            for (int i = 0; i < Math.min(issues.size(), MAX_LOGGED_ISSUES); i++) {
+                ValidationIssue issue = issues.get(i);
+                log.error("Inconsistent network graphic: target={}, entity={}, type={}, value={}", issue.getTarget(),
+                        issue.getEntityId(), issue.getType(), issue.getId());
+            }
+
+            throw new NetworkGraphicValidationException(
+                    String.format("Found %d inconsistencies in the structure of the network graphic: %s",
+                            issues.size(), getReport().getIssueCounts()));
         }
+    }
 
-        for (Issue<Identifiable> issue : issues) {
-            log.warn("Invalid identifier: target={}, type={}, id={}", issue.target, issue.type, issue.id);
+    boolean isValid() {
+        List<Node> nodes = networkGraphic.getNodes();
+        List<Trainrun> trainruns = considerTrainruns ? networkGraphic.getTrainruns() : List.of();
+        int count = nodes.size() + trainruns.size();
+        int partitions = Math.min(parallelism, Math.max(1, count / MIN_PARTITION_SIZE));
+
+        if (partitions == 1) {
+            issues = validate(nodes, trainruns, 0, count);
+        } else {
+            int partitionSize = (count + partitions - 1) / partitions;
+            log.info("Validating {} nodes and trainruns on {} threads", count, partitions);
+            try (ForkJoinPool pool = new ForkJoinPool(partitions)) {
+                // each partition collects its issues in its own list; toList keeps the encounter order
+                issues = pool.submit(() -> IntStream.range(0, partitions)
+                        .parallel()
+                        .mapToObj(partition -> validate(nodes, trainruns, partition * partitionSize,
+                                Math.min(count, (partition + 1) * partitionSize)))
+                        .flatMap(List::stream)
+                        .toList()).join();
+            }
         }
+        checkedEntities = count;
+
+        logIssues();
 
         return issues.isEmpty();
     }
 
-    private void validateId(String id, IssueTarget target, Identifiable object) {
-        if (id == null || id.isEmpty()) {
-            issues.add(new Issue<>(target, IssueType.MISSING, id, object));
-            return;
+    // validate the entities in the range, indexed as the nodes followed by the trainruns
+    private static List<ValidationIssue> validate(List<Node> nodes, List<Trainrun> trainruns, int from, int to) {
+        List<ValidationIssue> partitionIssues = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            if (i < nodes.size()) {
+                Node node = nodes.get(i);
+                validateId(node.getBetriebspunktName(), IssueTarget.NODE, node.getId(), partitionIssues);
+            } else {
+                Trainrun trainrun = trainruns.get(i - nodes.size());
+                validateId(trainrun.getName(), IssueTarget.TRAINRUN, trainrun.getId(), partitionIssues);
+            }
         }
 
-        if (containsSpecialCharacter(id)) {
-            issues.add(new Issue<>(target, IssueType.SPECIAL_CHARACTER, id, object));
-            return;
+        return partitionIssues;
+    }
+
+    private static void validateId(String id, IssueTarget target, int entityId, List<ValidationIssue> issues) {
+        IssueType type = ValidationUtils.classify(id);
+        if (type != null) {
+            issues.add(new ValidationIssue(target, type, id, entityId));
         }
+    }
 
-        if (containsTrailingWhitespace(id)) {
-            issues.add(new Issue<>(target, IssueType.LEADING_OR_TRAILING_WHITESPACE, id, object));
-            return;
+    private void logIssues() {
+        for (int i = 0; i < Math.min(issues.size(), MAX_LOGGED_ISSUES); i++) {
+            ValidationIssue issue = issues.get(i);
+            log.warn("Invalid identifier: target={}, type={}, id={}", issue.getTarget(), issue.getType(),
+                    issue.getId());
         }
 
-        if (containsWhitespace(id)) {
-            issues.add(new Issue<>(target, IssueType.WHITESPACE, id, object));
+        if (!issues.isEmpty()) {
+            log.warn("Found {} invalid identifiers in {} nodes and trainruns: {}", issues.size(), checkedEntities,
+                    getReport().getIssueCounts());
         }
     }
 
@@ -82,22 +167,7 @@ public class NetworkGraphicValidator {
     void removeSpecialCharacters() {
         log.info("Remove special characters in invalid IDs of network graphic");
         networkGraphic = new NetworkGraphicSanitizer(networkGraphic, considerTrainruns,
-                s -> ValidationUtils.replaceWhitespace(ValidationUtils.removeSpecialCharacters(s))).run();
-    }
-
-    private enum IssueTarget {
-        NODE,
-        TRAINRUN
-    }
-
-    private enum IssueType {
-        MISSING,
-        SPECIAL_CHARACTER,
-        WHITESPACE,
-        LEADING_OR_TRAILING_WHITESPACE
-    }
-
-    private record Issue<T>(IssueTarget target, IssueType type, String id, T object) {
+                ValidationUtils::removeSpecialCharactersReplaceWhitespace).run();
     }
 
 }
@@ -0,0 +1,23 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+import lombok.Value;
+
+@Value
+public class ValidationIssue {
+
+    IssueTarget target;
+
+    IssueType type;
+
+    /**
+     * The invalid identifier, i.e. the node betriebspunktName or the trainrun name. For inconsistencies of the
+     * structure, the duplicate id, the unresolved reference (e.g. trainrunId=12) or the missing fach category.
+     */
+    String id;
+
+    /**
+     * The internal id of the entity in the network graphic.
+     */
+    int entityId;
+
+}
@@ -0,0 +1,112 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Machine-readable result of a network graphic validation, with the number of issues per type and the issues in order
+ * of the entities.
+ */
+@Value
+public class ValidationReport {
+
+    private static final String CSV_EXTENSION = ".csv";
+    private static final String CSV_HEADER = "target,type,id,entity_id";
+
+    ValidationStrategy strategy;
+
+    /**
+     * Number of validated entities: the nodes and trainruns, or all entities if the structure is inconsistent; zero if
+     * the validation was skipped.
+     */
+    int checkedEntities;
+
+    /**
+     * Number of issues for each issue type, including the types without issues.
+     */
+    Map<IssueType, Integer> issueCounts;
+
+    List<ValidationIssue> issues;
+
+    static ValidationReport of(ValidationStrategy strategy, int checkedEntities, List<ValidationIssue> issues) {
+        Map<IssueType, Integer> issueCounts = new EnumMap<>(IssueType.class);
+        for (IssueType type : IssueType.values()) {
+            issueCounts.put(type, 0);
+        }
+        for (ValidationIssue issue : issues) {
+            issueCounts.merge(issue.getType(), 1, Integer::sum);
+        }
+
+        return new ValidationReport(strategy, checkedEntities, issueCounts, issues);
+    }
+
+    private static void appendQuoted(String value, StringBuilder buffer) {
+        buffer.append('"');
+        if (value != null) {
+            // escape double quotes by doubling them
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    buffer.append('"');
+                }
+                buffer.append(c);
+            }
+        }
+        buffer.append('"');
+    }
+
+    public boolean isValid() {
+        return issues.isEmpty();
+    }
+
+    /**
+     * Write the report as CSV file with one row per issue if the file name ends with .csv, else as JSON file.
+     */
+    public void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(CSV_EXTENSION)) {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeCsv(writer);
+            }
+        } else {
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(outputStream, this);
+            }
+        }
+    }
+
+    void writeCsv(Writer writer) throws IOException {
+        BufferedWriter bufferedWriter = writer instanceof BufferedWriter buffered ? buffered : new BufferedWriter(
+                writer);
+        bufferedWriter.write(CSV_HEADER);
+        bufferedWriter.newLine();
+
+        // the id is always quoted, since invalid ids can contain delimiters, quotes or line breaks
+        StringBuilder line = new StringBuilder();
+        for (ValidationIssue issue : issues) {
+            line.setLength(0);
+            line.append(issue.getTarget()).append(',').append(issue.getType()).append(',');
+            appendQuoted(issue.getId(), line);
+            line.append(',').append(issue.getEntityId());
+            bufferedWriter.append(line);
+            bufferedWriter.newLine();
+        }
+        bufferedWriter.flush();
+    }
+}
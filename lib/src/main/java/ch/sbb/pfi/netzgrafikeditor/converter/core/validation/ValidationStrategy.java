@@ -10,6 +10,11 @@ public enum ValidationStrategy {
         public boolean apply(NetworkGraphicValidator validator) {
             return true;
         }
+
+        @Override
+        public boolean checksConsistency() {
+            return false;
+        }
     },
 
     WARN_ON_ISSUES {
@@ -64,4 +69,12 @@ public enum ValidationStrategy {
     };
 
     public abstract boolean apply(NetworkGraphicValidator validator);
+
+    /**
+     * @return true if the references between the entities are checked before the strategy is applied; an inconsistent
+     * network graphic is rejected with any such strategy, since it cannot be converted.
+     */
+    public boolean checksConsistency() {
+        return true;
+    }
 }
@@ -1,39 +1,155 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
 
-import java.util.regex.Pattern;
-
+/**
+ * Classifies and fixes identifiers in a single pass over their characters, without regular expressions.
+ * <p>
+ * Valid characters are ASCII letters, digits, underscores and hyphens; whitespace are the ASCII whitespace characters
+ * (space, tab, line feed, vertical tab, form feed and carriage return). Any other character is special. The fixes
+ * return the input instance if nothing has to be changed.
+ */
 class ValidationUtils {
 
-    private static final Pattern SPECIAL_CHAR_PATTERN = Pattern.compile("[^a-zA-Z0-9_\\-\\s]");
-    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
-    private static final Pattern DOT_PATTERN = Pattern.compile("\\.");
-
-    private static final String SPECIAL_CHAR_REPLACEMENT = "";
-    private static final String WHITESPACE_REPLACEMENT = "_";
-    private static final String DOT_REPLACEMENT = "";
+    private static final char WHITESPACE_REPLACEMENT = '_';
+    private static final char DOT = '.';
 
-    static boolean containsSpecialCharacter(String input) {
-        return SPECIAL_CHAR_PATTERN.matcher(input).find();
+    private ValidationUtils() {
     }
 
-    static boolean containsWhitespace(String input) {
-        return WHITESPACE_PATTERN.matcher(input).find();
-    }
+    /**
+     * @return the first issue of the id, in order of precedence: special character, leading or trailing whitespace,
+     * whitespace; or null if the id is valid.
+     */
+    static IssueType classify(String input) {
+        if (input == null || input.isEmpty()) {
+            return IssueType.MISSING;
+        }
+
+        boolean whitespace = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (isWhitespace(c)) {
+                whitespace = true;
+            } else if (!isValidCharacter(c)) {
+                return IssueType.SPECIAL_CHARACTER;
+            }
+        }
+
+        if (!whitespace) {
+            return null;
+        }
 
-    static boolean containsTrailingWhitespace(String input) {
-        return !input.equals(input.strip());
+        if (isWhitespace(input.charAt(0)) || isWhitespace(input.charAt(input.length() - 1))) {
+            return IssueType.LEADING_OR_TRAILING_WHITESPACE;
+        }
+
+        return IssueType.WHITESPACE;
     }
 
+    /**
+     * Remove dots and replace each run of whitespace by an underscore; runs separated only by dots are one run.
+     */
     static String removeDotsReplaceWhitespace(String input) {
-        return WHITESPACE_PATTERN.matcher(DOT_PATTERN.matcher(input).replaceAll(DOT_REPLACEMENT))
-                .replaceAll(WHITESPACE_REPLACEMENT);
+        StringBuilder result = null;
+        boolean inWhitespace = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == DOT) {
+                result = copyOnChange(result, input, i);
+            } else if (isWhitespace(c)) {
+                if (!inWhitespace) {
+                    result = copyOnChange(result, input, i);
+                    result.append(WHITESPACE_REPLACEMENT);
+                }
+                inWhitespace = true;
+            } else {
+                if (result != null) {
+                    result.append(c);
+                }
+                inWhitespace = false;
+            }
+        }
+
+        return result == null ? input : result.toString();
     }
 
-    static String removeSpecialCharacters(String input) {
-        return SPECIAL_CHAR_PATTERN.matcher(input).replaceAll(SPECIAL_CHAR_REPLACEMENT);
+    /**
+     * Remove special characters, strip leading and trailing whitespace and replace each remaining run of whitespace by
+     * an underscore.
+     */
+    static String removeSpecialCharactersReplaceWhitespace(String input) {
+        StringBuilder result = null;
+        boolean content = false;
+        boolean pendingWhitespace = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (isValidCharacter(c)) {
+                if (pendingWhitespace) {
+                    result.append(WHITESPACE_REPLACEMENT);
+                    pendingWhitespace = false;
+                }
+                if (result != null) {
+                    result.append(c);
+                }
+                content = true;
+            } else {
+                // whitespace is only written when followed by content, which strips trailing whitespace
+                result = copyOnChange(result, input, i);
+                pendingWhitespace |= content && isWhitespace(c);
+            }
+        }
+
+        return result == null ? input : result.toString();
     }
 
+    /**
+     * Strip leading and trailing whitespace and replace each run of whitespace by an underscore.
+     */
     static String replaceWhitespace(String input) {
-        return WHITESPACE_PATTERN.matcher(input.strip()).replaceAll(WHITESPACE_REPLACEMENT);
+        int start = 0;
+        int end = input.length();
+        while (start < end && Character.isWhitespace(input.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+
+        StringBuilder result = start > 0 || end < input.length() ? new StringBuilder(end - start) : null;
+        boolean inWhitespace = false;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (isWhitespace(c)) {
+                if (!inWhitespace) {
+                    result = copyOnChange(result, input, i);
+                    result.append(WHITESPACE_REPLACEMENT);
+                }
+                inWhitespace = true;
+            } else {
+                if (result != null) {
+                    result.append(c);
+                }
+                inWhitespace = false;
+            }
+        }
+
+        return result == null ? input : result.toString();
+    }
+
+    // on the first change, copy the unchanged characters before the current position
+    private static StringBuilder copyOnChange(StringBuilder result, String input, int position) {
+        if (result != null) {
+            return result;
+        }
+
+        return new StringBuilder(input.length()).append(input, 0, position);
+    }
+
+    // ASCII whitespace, same as the regular expression class \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static boolean isValidCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
     }
 }
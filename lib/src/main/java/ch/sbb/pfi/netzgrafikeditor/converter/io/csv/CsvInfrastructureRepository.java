@@ -7,21 +7,49 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
 import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
 import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.HaversineDistance;
 
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.List;
 
 public class CsvInfrastructureRepository extends CsvRepository<StopFacilityInfo> implements InfrastructureRepository {
 
+    private static final CsvSnapshot.Codec<StopFacilityInfo> SNAPSHOT_CODEC = new CsvSnapshot.Codec<>() {
+        @Override
+        public void write(DataOutput out, StopFacilityInfo stopFacility) throws IOException {
+            CsvSnapshot.writeString(out, stopFacility.getName());
+            out.writeDouble(stopFacility.getCoordinate().getLatitude());
+            out.writeDouble(stopFacility.getCoordinate().getLongitude());
+        }
+
+        @Override
+        public StopFacilityInfo read(ByteBuffer buffer, String stopId) {
+            String stopName = CsvSnapshot.readString(buffer);
+            double stopLat = buffer.getDouble();
+            double stopLon = buffer.getDouble();
+
+            return new StopFacilityInfo(stopId, stopName, new Coordinate(stopLat, stopLon));
+        }
+    };
+
     public CsvInfrastructureRepository(Path filePath) throws IOException {
-        super(filePath, record -> {
+        this(filePath, null);
+    }
+
+    /**
+     * @param snapshotFilePath binary snapshot of the CSV file, written if missing or outdated; null to always parse
+     *                         the CSV file.
+     */
+    public CsvInfrastructureRepository(Path filePath, Path snapshotFilePath) throws IOException {
+        super(filePath, snapshotFilePath, record -> {
             String stopId = record.get("stop_id");
             String stopName = record.get("stop_name");
             double stopLat = Double.parseDouble(record.get("stop_lat"));
             double stopLon = Double.parseDouble(record.get("stop_lon"));
 
             return new Entry<>(stopId, new StopFacilityInfo(stopId, stopName, new Coordinate(stopLat, stopLon)));
-        });
+        }, SNAPSHOT_CODEC);
     }
 
     @Override
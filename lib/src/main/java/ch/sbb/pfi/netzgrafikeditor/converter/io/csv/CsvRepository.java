@@ -11,17 +11,62 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
+/**
+ * Repository of the entities in a CSV file, keyed by one of its columns.
+ * <p>
+ * If a snapshot file is given, the entities are read from a memory-mapped binary snapshot of the CSV file instead of
+ * parsing it. The snapshot is written after parsing if it does not exist or the CSV file changed since.
+ */
 @Slf4j
 public abstract class CsvRepository<T> {
 
     protected final Map<String, T> entities = new HashMap<>();
+    private final CsvSnapshot<T> snapshot;
 
     public CsvRepository(Path filePath, Function<CSVRecord, Entry<T>> entityMapper) throws IOException {
+        this(filePath, null, entityMapper, null);
+    }
+
+    CsvRepository(Path filePath, Path snapshotFilePath, Function<CSVRecord, Entry<T>> entityMapper, CsvSnapshot.Codec<T> codec) throws IOException {
+        this.snapshot = snapshotFilePath == null ? null : loadSnapshot(snapshotFilePath, filePath, codec);
+        if (snapshot != null) {
+            return;
+        }
+
+        readRecords(filePath, record -> {
+            Entry<T> entry = entityMapper.apply(record);
+            entities.put(entry.key, entry.value);
+        });
+
+        if (snapshotFilePath != null) {
+            CsvSnapshot.write(snapshotFilePath, filePath, entities, codec);
+            log.info("Wrote CSV snapshot to {}", snapshotFilePath.toAbsolutePath());
+        }
+    }
+
+    private static <T> CsvSnapshot<T> loadSnapshot(Path snapshotFilePath, Path filePath, CsvSnapshot.Codec<T> codec) throws IOException {
+        if (!Files.exists(snapshotFilePath)) {
+            return null;
+        }
+
+        try {
+            CsvSnapshot<T> snapshot = CsvSnapshot.load(snapshotFilePath, filePath, codec);
+            log.info("Mapped CSV snapshot with {} entries from {}", snapshot.size(), snapshotFilePath.toAbsolutePath());
+            return snapshot;
+        } catch (IllegalStateException e) {
+            log.warn("Could not use CSV snapshot, reading the CSV file: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    protected static void readRecords(Path filePath, Consumer<CSVRecord> recordConsumer) throws IOException {
         log.info("Reading CSV file: {}", filePath);
 
         try (FileInputStream fileInputStream = new FileInputStream(
@@ -34,15 +79,14 @@ public abstract class CsvRepository<T> {
 
             try (CSVParser csvParser = new CSVParser(reader, format)) {
                 for (CSVRecord record : csvParser) {
-                    Entry<T> entry = entityMapper.apply(record);
-                    entities.put(entry.key, entry.value);
+                    recordConsumer.accept(record);
                 }
             }
         }
     }
 
     protected T getEntity(String key) {
-        T entity = entities.get(key);
+        T entity = snapshot == null ? entities.get(key) : snapshot.get(key);
         if (entity == null) {
             throw new IllegalArgumentException("No entry found in CSV for " + key);
         }
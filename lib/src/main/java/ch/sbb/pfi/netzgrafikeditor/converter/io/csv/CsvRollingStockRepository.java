@@ -5,7 +5,9 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransportMode;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.util.HashMap;
 
@@ -14,8 +16,41 @@ public class CsvRollingStockRepository extends CsvRepository<VehicleTypeInfo> im
 
     private static final double KMH_TO_MS = 3.6;
 
+    private static final CsvSnapshot.Codec<VehicleTypeInfo> SNAPSHOT_CODEC = new CsvSnapshot.Codec<>() {
+        @Override
+        public void write(DataOutput out, VehicleTypeInfo vehicleType) throws IOException {
+            CsvSnapshot.writeString(out, vehicleType.getId());
+            CsvSnapshot.writeString(out, vehicleType.getTransportMode().name());
+            out.writeInt(vehicleType.getSeats());
+            out.writeInt(vehicleType.getStandingRoom());
+            out.writeDouble(vehicleType.getLength());
+            out.writeDouble(vehicleType.getMaxVelocity());
+        }
+
+        @Override
+        public VehicleTypeInfo read(ByteBuffer buffer, String category) {
+            String vehicleTypeId = CsvSnapshot.readString(buffer);
+            TransportMode transportMode = TransportMode.valueOf(CsvSnapshot.readString(buffer));
+            int seats = buffer.getInt();
+            int standingRoom = buffer.getInt();
+            double length = buffer.getDouble();
+            double maxVelocity = buffer.getDouble();
+
+            return new VehicleTypeInfo(vehicleTypeId, transportMode, seats, standingRoom, length, maxVelocity,
+                    new HashMap<>());
+        }
+    };
+
     public CsvRollingStockRepository(Path filePath) throws IOException {
-        super(filePath, record -> {
+        this(filePath, null);
+    }
+
+    /**
+     * @param snapshotFilePath binary snapshot of the CSV file, written if missing or outdated; null to always parse
+     *                         the CSV file.
+     */
+    public CsvRollingStockRepository(Path filePath, Path snapshotFilePath) throws IOException {
+        super(filePath, snapshotFilePath, record -> {
             String category = record.get("category");
             TransportMode transportMode = TransportMode.valueOf(record.get("transport_mode").toUpperCase());
             String vehicleTypeId = record.get("vehicle_type_id");
@@ -27,7 +62,7 @@ public class CsvRollingStockRepository extends CsvRepository<VehicleTypeInfo> im
             return new Entry<>(category,
                     new VehicleTypeInfo(vehicleTypeId, transportMode, seats, standingRoom, length, maxVelocity,
                             new HashMap<>()));
-        });
+        }, SNAPSHOT_CODEC);
     }
 
     @Override
@@ -0,0 +1,208 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.csv;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary snapshot of the entities of a CSV file, which is mapped into memory instead of parsing the CSV file again.
+ * <p>
+ * The entries are sorted by the UTF-8 bytes of their keys and looked up by binary search over an offset index; an
+ * entity is only decoded when it is requested. The header records the size and modification time of the CSV file, so
+ * that a snapshot is not used after the CSV file changed.
+ */
+final class CsvSnapshot<T> {
+
+    private static final int MAGIC = 0x4e475353; // "NGSS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + 2 * Long.BYTES;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final ByteBuffer buffer;
+    private final Codec<T> codec;
+    private final int count;
+    private final int dataStart;
+    private final Map<String, T> decoded = new ConcurrentHashMap<>();
+
+    private CsvSnapshot(ByteBuffer buffer, Codec<T> codec, int count) {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.count = count;
+        this.dataStart = HEADER_BYTES + (count + 1) * Integer.BYTES;
+    }
+
+    /**
+     * Map a snapshot file into memory.
+     *
+     * @throws IllegalStateException if the file is not a snapshot or does not match the CSV file.
+     */
+    static <T> CsvSnapshot<T> load(Path snapshotFilePath, Path csvFilePath, Codec<T> codec) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshotFilePath, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a CSV snapshot file: " + snapshotFilePath);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported CSV snapshot file version " + version);
+        }
+        if (buffer.getLong(8) != Files.size(csvFilePath) || buffer.getLong(16) != Files.getLastModifiedTime(
+                csvFilePath).toMillis()) {
+            throw new IllegalStateException("CSV snapshot file " + snapshotFilePath + " is outdated");
+        }
+
+        int count = buffer.getInt(24);
+        long indexEnd = HEADER_BYTES + (count + 1L) * Integer.BYTES;
+        if (count < 0 || buffer.limit() < indexEnd || buffer.limit() != indexEnd + buffer.getInt((int) indexEnd - 4)) {
+            throw new IllegalStateException("CSV snapshot file " + snapshotFilePath + " has an unexpected size");
+        }
+
+        return new CsvSnapshot<>(buffer, codec, count);
+    }
+
+    /**
+     * Write the entities to a temporary file, which replaces the snapshot file when complete.
+     */
+    static <T> void write(Path snapshotFilePath, Path csvFilePath, Map<String, T> entities, Codec<T> codec) throws IOException {
+        // sort by key bytes, the order of the binary search
+        byte[][] keys = entities.keySet()
+                .stream()
+                .map(key -> key.getBytes(StandardCharsets.UTF_8))
+                .sorted(Arrays::compareUnsigned)
+                .toArray(byte[][]::new);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(data);
+        int[] offsets = new int[keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            offsets[i] = dataOut.size();
+            dataOut.writeInt(keys[i].length);
+            dataOut.write(keys[i]);
+            codec.write(dataOut, entities.get(new String(keys[i], StandardCharsets.UTF_8)));
+        }
+        offsets[keys.length] = dataOut.size();
+
+        Path absolutePath = snapshotFilePath.toAbsolutePath();
+        Files.createDirectories(absolutePath.getParent());
+        Path tempFile = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(),
+                TEMP_FILE_SUFFIX);
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Files.size(csvFilePath));
+                out.writeLong(Files.getLastModifiedTime(csvFilePath).toMillis());
+                out.writeInt(keys.length);
+                for (int offset : offsets) {
+                    out.writeInt(offset);
+                }
+                data.writeTo(out);
+            }
+
+            Files.move(tempFile, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return the entity of the key, or null if there is none.
+     */
+    T get(String key) {
+        T entity = decoded.get(key);
+        if (entity != null) {
+            return entity;
+        }
+
+        int offset = find(key.getBytes(StandardCharsets.UTF_8));
+        if (offset == -1) {
+            return null;
+        }
+
+        ByteBuffer record = buffer.duplicate().position(offset);
+        record.position(offset + Integer.BYTES + record.getInt(offset));
+
+        return decoded.computeIfAbsent(key, k -> codec.read(record, k));
+    }
+
+    // binary search over the sorted keys, returns the absolute offset of the entry or -1
+    private int find(byte[] key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = dataStart + buffer.getInt(HEADER_BYTES + middle * Integer.BYTES);
+            int comparison = compareKey(offset, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    private int compareKey(int offset, byte[] key) {
+        int length = buffer.getInt(offset);
+        int start = offset + Integer.BYTES;
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int comparison = Byte.compareUnsigned(buffer.get(start + i), key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return Integer.compare(length, key.length);
+    }
+
+    /**
+     * Binary encoding of the entities in a snapshot; the key is stored by the snapshot itself.
+     */
+    interface Codec<T> {
+
+        void write(DataOutput out, T entity) throws IOException;
+
+        T read(ByteBuffer buffer, String key);
+
+    }
+}
@@ -0,0 +1,213 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.csv;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.graph.ContractionHierarchy;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.graph.ContractionHierarchySearch;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.graph.PathSearch;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.graph.ShortestPathSearch;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.graph.TrackGraph;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.HaversineDistance;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Infrastructure repository which routes the tracks between stops on a track graph.
+ * <p>
+ * The track nodes ({@code node_id, node_lat, node_lon}) and directed track segments ({@code segment_id, from_node_id,
+ * to_node_id, length}) are read from CSV files; a segment without length is as long as the distance between its
+ * nodes. Each stop is snapped to its nearest track node, and the track between two stops is the shortest path between
+ * their nodes, cached per stop pair. If a stop is too far away from the track graph or there is no path, the track
+ * falls back to the straight line of the {@link CsvInfrastructureRepository}.
+ * <p>
+ * The shortest paths are searched with A*, or on a contraction hierarchy if a hierarchy file is given. The hierarchy is
+ * built and written to the file if it does not exist or belongs to another graph; later runs map the file into memory
+ * and skip the preprocessing.
+ * <p>
+ * A search keeps per-node state of the graph, so the searches are pooled: a route lookup takes an idle search or
+ * creates one and returns it afterward. The number of searches is therefore the peak number of concurrent lookups,
+ * e.g. bounded by the conversion slots of a server, instead of one per thread that ever looked up a route.
+ */
+@Slf4j
+public class CsvTrackGraphInfrastructureRepository extends CsvInfrastructureRepository {
+
+    public static final double DEFAULT_MAX_SNAPPING_DISTANCE = 1000;
+
+    private static final int NOT_SNAPPED = -1;
+
+    private final TrackGraph graph;
+    private final double maxSnappingDistance;
+    private final Supplier<PathSearch> searchFactory;
+    private final Queue<PathSearch> idleSearches = new ConcurrentLinkedQueue<>();
+    private final Map<String, Integer> snappedNodes = new ConcurrentHashMap<>();
+    private final Map<StopPair, List<TrackSegmentInfo>> tracks = new ConcurrentHashMap<>();
+
+    public CsvTrackGraphInfrastructureRepository(Path stopFacilityFilePath, Path trackNodeFilePath, Path trackSegmentFilePath) throws IOException {
+        this(stopFacilityFilePath, trackNodeFilePath, trackSegmentFilePath, DEFAULT_MAX_SNAPPING_DISTANCE);
+    }
+
+    public CsvTrackGraphInfrastructureRepository(Path stopFacilityFilePath, Path trackNodeFilePath, Path trackSegmentFilePath, double maxSnappingDistance) throws IOException {
+        this(stopFacilityFilePath, trackNodeFilePath, trackSegmentFilePath, maxSnappingDistance, null);
+    }
+
+    public CsvTrackGraphInfrastructureRepository(Path stopFacilityFilePath, Path trackNodeFilePath, Path trackSegmentFilePath, Path hierarchyFilePath) throws IOException {
+        this(stopFacilityFilePath, trackNodeFilePath, trackSegmentFilePath, DEFAULT_MAX_SNAPPING_DISTANCE,
+                hierarchyFilePath);
+    }
+
+    public CsvTrackGraphInfrastructureRepository(Path stopFacilityFilePath, Path trackNodeFilePath, Path trackSegmentFilePath, double maxSnappingDistance, Path hierarchyFilePath) throws IOException {
+        this(stopFacilityFilePath, null, trackNodeFilePath, trackSegmentFilePath, maxSnappingDistance,
+                hierarchyFilePath);
+    }
+
+    public CsvTrackGraphInfrastructureRepository(Path stopFacilityFilePath, Path stopFacilitySnapshotFilePath, Path trackNodeFilePath, Path trackSegmentFilePath, double maxSnappingDistance, Path hierarchyFilePath) throws IOException {
+        super(stopFacilityFilePath, stopFacilitySnapshotFilePath);
+        this.graph = readTrackGraph(trackNodeFilePath, trackSegmentFilePath);
+        this.maxSnappingDistance = maxSnappingDistance;
+
+        log.info("Loaded track graph with {} nodes and {} segments", graph.getNodeCount(), graph.getEdgeCount());
+
+        if (hierarchyFilePath == null) {
+            this.searchFactory = () -> new ShortestPathSearch(graph);
+        } else {
+            ContractionHierarchy hierarchy = loadOrBuildHierarchy(graph, hierarchyFilePath);
+            this.searchFactory = () -> new ContractionHierarchySearch(hierarchy);
+        }
+    }
+
+    private static ContractionHierarchy loadOrBuildHierarchy(TrackGraph graph, Path hierarchyFilePath) throws IOException {
+        if (Files.exists(hierarchyFilePath)) {
+            try {
+                ContractionHierarchy hierarchy = ContractionHierarchy.load(hierarchyFilePath, graph);
+                log.info("Mapped contraction hierarchy with {} shortcuts from {}", hierarchy.getShortcutCount(),
+                        hierarchyFilePath.toAbsolutePath());
+                return hierarchy;
+            } catch (IllegalStateException e) {
+                log.warn("Could not use contraction hierarchy, building a new one: {}", e.getMessage());
+            }
+        }
+
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+        hierarchy.write(hierarchyFilePath);
+        log.info("Wrote contraction hierarchy to {}", hierarchyFilePath.toAbsolutePath());
+
+        return hierarchy;
+    }
+
+    private static TrackGraph readTrackGraph(Path trackNodeFilePath, Path trackSegmentFilePath) throws IOException {
+        TrackGraph.Builder builder = TrackGraph.builder();
+
+        readRecords(trackNodeFilePath,
+                record -> builder.addNode(record.get("node_id"), Double.parseDouble(record.get("node_lat")),
+                        Double.parseDouble(record.get("node_lon"))));
+
+        readRecords(trackSegmentFilePath, record -> {
+            String segmentId = record.get("segment_id");
+            String fromNodeId = record.get("from_node_id");
+            String toNodeId = record.get("to_node_id");
+
+            double length;
+            if (record.isSet("length") && !record.get("length").isEmpty()) {
+                length = Double.parseDouble(record.get("length"));
+            } else {
+                length = HaversineDistance.calculate(builder.getLatitude(fromNodeId), builder.getLongitude(fromNodeId),
+                        builder.getLatitude(toNodeId), builder.getLongitude(toNodeId));
+            }
+
+            builder.addEdge(segmentId, fromNodeId, toNodeId, length);
+        });
+
+        return builder.build();
+    }
+
+    @Override
+    public List<TrackSegmentInfo> getTrack(StopFacilityInfo fromStop, StopFacilityInfo toStop, TransitRouteInfo transitRouteInfo) {
+        StopPair stopPair = new StopPair(fromStop.getId(), toStop.getId());
+        List<TrackSegmentInfo> track = tracks.get(stopPair);
+        if (track != null) {
+            return track;
+        }
+
+        // search outside the map, which would block other writers to the bin; concurrent misses may search twice
+        track = route(fromStop, toStop, transitRouteInfo);
+        List<TrackSegmentInfo> previous = tracks.putIfAbsent(stopPair, track);
+
+        return previous == null ? track : previous;
+    }
+
+    private List<TrackSegmentInfo> route(StopFacilityInfo fromStop, StopFacilityInfo toStop, TransitRouteInfo transitRouteInfo) {
+        int fromNode = snap(fromStop.getId());
+        int toNode = snap(toStop.getId());
+
+        if (fromNode == NOT_SNAPPED || toNode == NOT_SNAPPED) {
+            return super.getTrack(fromStop, toStop, transitRouteInfo);
+        }
+
+        int[] path = findPath(fromNode, toNode);
+        if (path == null) {
+            log.warn("No track found from stop {} to {}, using a straight line", fromStop.getId(), toStop.getId());
+            return super.getTrack(fromStop, toStop, transitRouteInfo);
+        }
+
+        // both stops are snapped to the same track node
+        if (path.length == 0) {
+            return super.getTrack(fromStop, toStop, transitRouteInfo);
+        }
+
+        List<TrackSegmentInfo> segments = new ArrayList<>(path.length);
+        for (int edge : path) {
+            segments.add(new TrackSegmentInfo(graph.getEdgeId(edge), graph.getCoordinate(graph.getEdgeSource(edge)),
+                    graph.getCoordinate(graph.getEdgeTarget(edge)), graph.getEdgeLength(edge)));
+        }
+
+        return List.copyOf(segments);
+    }
+
+    private int[] findPath(int fromNode, int toNode) {
+        PathSearch search = idleSearches.poll();
+        if (search == null) {
+            search = searchFactory.get();
+        }
+
+        try {
+            return search.findPath(fromNode, toNode);
+        } finally {
+            idleSearches.offer(search);
+        }
+    }
+
+    private int snap(String stopId) {
+        return snappedNodes.computeIfAbsent(stopId, id -> {
+            Coordinate coordinate = getEntity(id).getCoordinate();
+            int node = graph.findNearestNode(coordinate.getLatitude(), coordinate.getLongitude());
+            if (node == NOT_SNAPPED) {
+                return NOT_SNAPPED;
+            }
+
+            double distance = HaversineDistance.calculate(coordinate, graph.getCoordinate(node));
+            if (distance > maxSnappingDistance) {
+                log.warn("Stop {} is {} m away from the nearest track node {}, not snapped", id, Math.round(distance),
+                        graph.getNodeId(node));
+                return NOT_SNAPPED;
+            }
+
+            log.debug("Snapped stop {} to track node {} at {} m", id, graph.getNodeId(node), Math.round(distance));
+            return node;
+        });
+    }
+
+    private record StopPair(String fromStopId, String toStopId) {
+    }
+}
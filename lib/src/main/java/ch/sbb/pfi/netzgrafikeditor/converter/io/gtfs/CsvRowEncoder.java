@@ -0,0 +1,235 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Calendar;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.RouteType;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import lombok.Getter;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Encodes instances of a GTFS model class as CSV rows.
+ * <p>
+ * The columns are the private instance fields of the class in declaration order, with the field names converted to
+ * snake case as header. The values are read through the (Lombok) getters, which are bound once per class to functional
+ * interfaces using the {@link LambdaMetafactory}, and appended directly to the row buffer. The encoder is immutable
+ * and can be shared between threads.
+ */
+final class CsvRowEncoder<T> {
+
+    static final char DELIMITER = ',';
+    private static final char QUOTE = '"';
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Getter
+    private final Class<T> type;
+    @Getter
+    private final String header;
+    private final List<FieldEncoder<T>> fieldEncoders;
+
+    private CsvRowEncoder(Class<T> type, String header, List<FieldEncoder<T>> fieldEncoders) {
+        this.type = type;
+        this.header = header;
+        this.fieldEncoders = fieldEncoders;
+    }
+
+    static <T> CsvRowEncoder<T> of(Class<T> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        StringBuilder header = new StringBuilder();
+        List<FieldEncoder<T>> fieldEncoders = new ArrayList<>();
+
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (!Modifier.isPrivate(modifiers) || (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers))) {
+                continue;
+            }
+
+            if (!header.isEmpty()) {
+                header.append(DELIMITER);
+            }
+            appendSnakeCase(field.getName(), header);
+
+            try {
+                fieldEncoders.add(createFieldEncoder(lookup, type, field));
+            } catch (Throwable e) {
+                throw new IllegalStateException(
+                        String.format("Cannot create CSV encoder for field %s of %s", field.getName(),
+                                type.getSimpleName()), e);
+            }
+        }
+
+        return new CsvRowEncoder<>(type, header.toString(), List.copyOf(fieldEncoders));
+    }
+
+    /**
+     * Append the encoded row (without line separator) to the buffer.
+     */
+    void encode(T item, StringBuilder buffer) {
+        for (int i = 0; i < fieldEncoders.size(); i++) {
+            if (i > 0) {
+                buffer.append(DELIMITER);
+            }
+            fieldEncoders.get(i).append(item, buffer);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> FieldEncoder<T> createFieldEncoder(MethodHandles.Lookup lookup, Class<T> type,
+                                                          Field field) throws Throwable {
+        Class<?> fieldType = field.getType();
+        MethodHandle getter = lookup.findVirtual(type, getterName(field), MethodType.methodType(fieldType));
+
+        // primitives without boxing
+        if (fieldType == int.class) {
+            ToIntFunction<T> function = (ToIntFunction<T>) bind(lookup, getter, ToIntFunction.class, "applyAsInt",
+                    MethodType.methodType(int.class, Object.class));
+            return (item, buffer) -> buffer.append(function.applyAsInt(item));
+        }
+        if (fieldType == double.class) {
+            ToDoubleFunction<T> function = (ToDoubleFunction<T>) bind(lookup, getter, ToDoubleFunction.class,
+                    "applyAsDouble", MethodType.methodType(double.class, Object.class));
+            return (item, buffer) -> buffer.append(function.applyAsDouble(item));
+        }
+
+        Function<T, Object> function = (Function<T, Object>) bind(lookup, getter, Function.class, "apply",
+                MethodType.methodType(Object.class, Object.class));
+
+        // types with a GTFS specific representation, which never contains characters to escape
+        if (fieldType == ServiceDayTime.class) {
+            return (item, buffer) -> {
+                Object value = function.apply(item);
+                if (value != null) {
+                    ((ServiceDayTime) value).appendTo(buffer);
+                }
+            };
+        }
+        if (fieldType == LocalDate.class) {
+            return (item, buffer) -> {
+                Object value = function.apply(item);
+                if (value != null) {
+                    DATE_FORMATTER.formatTo((LocalDate) value, buffer);
+                }
+            };
+        }
+        if (fieldType == Calendar.Type.class) {
+            return (item, buffer) -> {
+                Object value = function.apply(item);
+                if (value != null) {
+                    buffer.append(value == Calendar.Type.AVAILABLE ? '1' : '0');
+                }
+            };
+        }
+        if (fieldType == RouteType.class) {
+            return (item, buffer) -> {
+                Object value = function.apply(item);
+                if (value != null) {
+                    buffer.append(((RouteType) value).getValue());
+                }
+            };
+        }
+
+        // any other type is written as escaped string representation
+        return (item, buffer) -> {
+            Object value = function.apply(item);
+            if (value != null) {
+                appendEscaped(value.toString(), buffer);
+            }
+        };
+    }
+
+    private static Object bind(MethodHandles.Lookup lookup, MethodHandle getter, Class<?> interfaceType,
+                               String methodName, MethodType methodType) throws Throwable {
+        // box the return value of the getter only if the interface method returns an object
+        MethodType instantiatedMethodType = methodType.returnType().isPrimitive() ? getter.type() : getter.type().wrap();
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(interfaceType),
+                methodType, getter, instantiatedMethodType);
+
+        return callSite.getTarget().invoke();
+    }
+
+    private static String getterName(Field field) {
+        String name = field.getName();
+
+        // Lombok naming: boolean fields starting with "is" keep their name as getter name
+        if (field.getType() == boolean.class) {
+            if (name.length() > 2 && name.startsWith("is") && Character.isUpperCase(name.charAt(2))) {
+                return name;
+            }
+            return "is" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        return "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static void appendSnakeCase(String camelCase, StringBuilder buffer) {
+        for (int i = 0; i < camelCase.length(); i++) {
+            char c = camelCase.charAt(i);
+            if (Character.isUpperCase(c)) {
+                buffer.append('_').append(Character.toLowerCase(c));
+            } else {
+                buffer.append(c);
+            }
+        }
+    }
+
+    /**
+     * Append the value without line breaks, enclosed in double quotes if it contains a delimiter or double quotes.
+     */
+    static void appendEscaped(String value, StringBuilder buffer) {
+        boolean quote = false;
+        boolean lineBreak = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == DELIMITER || c == QUOTE) {
+                quote = true;
+            } else if (c == '\n' || c == '\r') {
+                lineBreak = true;
+            }
+        }
+
+        // nothing to escape, most common case
+        if (!quote && !lineBreak) {
+            buffer.append(value);
+            return;
+        }
+
+        if (quote) {
+            buffer.append(QUOTE);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r') {
+                continue;
+            }
+            // escape double quotes by doubling them
+            if (c == QUOTE) {
+                buffer.append(QUOTE);
+            }
+            buffer.append(c);
+        }
+        if (quote) {
+            buffer.append(QUOTE);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FieldEncoder<T> {
+
+        void append(T item, StringBuilder buffer);
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+/**
+ * Writes the rows of a GTFS file, reusing the line buffers for all rows.
+ * <p>
+ * The writer is only flushed and never closed, since closing would also close the underlying output stream, which has
+ * to stay open in the case of a zip file.
+ */
+final class CsvRowWriter<T> {
+
+    private static final int INITIAL_LINE_CAPACITY = 256;
+
+    private final CsvRowEncoder<T> encoder;
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(INITIAL_LINE_CAPACITY);
+    private char[] chars = new char[INITIAL_LINE_CAPACITY];
+
+    CsvRowWriter(CsvRowEncoder<T> encoder, OutputStream outputStream) {
+        this.encoder = encoder;
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream));
+    }
+
+    void writeHeader() throws IOException {
+        writer.write(encoder.getHeader());
+        writer.newLine();
+    }
+
+    void write(T item) throws IOException {
+        line.setLength(0);
+        encoder.encode(item, line);
+
+        if (chars.length < line.length()) {
+            chars = new char[Math.max(line.length(), 2 * chars.length)];
+        }
+        line.getChars(0, line.length(), chars, 0);
+        writer.write(chars, 0, line.length());
+        writer.newLine();
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+}
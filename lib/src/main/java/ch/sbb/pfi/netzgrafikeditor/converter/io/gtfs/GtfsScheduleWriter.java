@@ -3,37 +3,27 @@ package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Agency;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Calendar;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.FeedInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Frequency;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Route;
-import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.RouteType;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Stop;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Trip;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.ConverterSink;
-import lombok.AccessLevel;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipConfig;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipWriter;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-@RequiredArgsConstructor
 @Slf4j
 public class GtfsScheduleWriter implements ConverterSink<GtfsSchedule> {
 
@@ -41,32 +31,43 @@ public class GtfsScheduleWriter implements ConverterSink<GtfsSchedule> {
     public static final String DELIMITER = ",";
     public static final String NA_VALUE = "";
 
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
-
     private final Path directory;
     private final boolean zip;
+    private final ParallelZipConfig parallelZipConfig;
+
+    public GtfsScheduleWriter(Path directory, boolean zip) {
+        this(directory, zip, null);
+    }
 
-    private static <T> void writeList(List<T> list, Class<?> clazz, OutputStream os) throws IOException {
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(os));
-        Field[] fields = clazz.getDeclaredFields();
+    /**
+     * Writes a zip file, with the GTFS files serialized and compressed in parallel.
+     */
+    public GtfsScheduleWriter(Path directory, ParallelZipConfig parallelZipConfig) {
+        this(directory, true, parallelZipConfig);
+    }
+
+    private GtfsScheduleWriter(Path directory, boolean zip, ParallelZipConfig parallelZipConfig) {
+        this.directory = directory;
+        this.zip = zip;
+        this.parallelZipConfig = parallelZipConfig;
+    }
+
+    static <T> void writeList(List<T> list, CsvRowEncoder<T> encoder, OutputStream os) throws IOException {
+        CsvRowWriter<T> writer = new CsvRowWriter<>(encoder, os);
 
         try {
             // write header
-            String header = generateHeader(fields);
-            writer.write(header);
-            writer.newLine();
+            writer.writeHeader();
 
             // check for empty list
             if (list == null || list.isEmpty()) {
-                log.warn("Writing empty CSV file: {}", clazz.getSimpleName());
+                log.warn("Writing empty CSV file: {}", encoder.getType().getSimpleName());
                 return;
             }
 
             // write data
             for (T item : list) {
-                String data = generateDataLine(item, fields);
-                writer.write(data);
-                writer.newLine();
+                writer.write(item);
             }
 
         } finally {
@@ -76,76 +77,25 @@ public class GtfsScheduleWriter implements ConverterSink<GtfsSchedule> {
         }
     }
 
-    private static String generateHeader(Field[] fields) {
-        return filterInstanceFields(fields).map(Field::getName)
-                .map(GtfsScheduleWriter::camelToSnakeCase)
-                .collect(Collectors.joining(DELIMITER));
-    }
-
-    private static <T> String generateDataLine(T item, Field[] fields) {
-        return filterInstanceFields(fields).map(field -> {
-            field.setAccessible(true);
-
-            try {
-                Object value = field.get(item);
-                if (value instanceof LocalDate casted) {
-                    return casted.format(DATE_FORMATTER);
-                } else if (value instanceof Calendar.Type casted) {
-                    return casted == Calendar.Type.AVAILABLE ? "1" : "0";
-                } else if (value instanceof RouteType casted) {
-                    return String.valueOf(casted.getValue());
-                } else if (value != null) {
-                    return escapeCsv(value.toString());
-                } else {
-                    return NA_VALUE;
-                }
-            } catch (IllegalAccessException e) {
-                log.error("Error accessing field value", e);
-                return NA_VALUE;
-            }
-
-        }).collect(Collectors.joining(DELIMITER));
-    }
-
-    private static String escapeCsv(String value) {
-        value = value.replace("\n", "").replace("\r", "");
-
-        if (value.contains(DELIMITER) || value.contains("\"")) {
-            // escape double quotes by doubling them
-            value = value.replace("\"", "\"\"");
-
-            // enclose the entire field in double quotes
-            return "\"" + value + "\"";
-        }
-
-        return value;
-    }
-
-    private static Stream<Field> filterInstanceFields(Field[] fields) {
-        return Arrays.stream(fields)
-                .filter(field -> Modifier.isPrivate(field.getModifiers()) && !(Modifier.isStatic(
-                        field.getModifiers()) && Modifier.isFinal(field.getModifiers())));
-    }
-
-    private static String camelToSnakeCase(String camelCase) {
-        StringBuilder result = new StringBuilder();
-
-        for (char c : camelCase.toCharArray()) {
-            if (Character.isUpperCase(c)) {
-                result.append('_').append(Character.toLowerCase(c));
-            } else {
-                result.append(c);
-            }
-        }
-
-        return result.toString();
-    }
-
     @Override
     public void save(GtfsSchedule result) throws IOException {
         Files.createDirectories(directory);
 
-        if (zip) {
+        if (zip && parallelZipConfig != null) {
+            try (ParallelZipWriter zipWriter = new ParallelZipWriter(
+                    Files.newOutputStream(directory.resolve(GTFS_ZIP)), parallelZipConfig)) {
+                addToZip(List.of(result.getFeedInfo()), zipWriter, GtfsFile.FEED_INFO);
+                addToZip(result.getAgencies(), zipWriter, GtfsFile.AGENCY);
+                addToZip(result.getStops(), zipWriter, GtfsFile.STOPS);
+                addToZip(result.getRoutes(), zipWriter, GtfsFile.ROUTES);
+                addToZip(result.getTrips(), zipWriter, GtfsFile.TRIPS);
+                addToZip(result.getStopTimes(), zipWriter, GtfsFile.STOP_TIMES);
+                addToZip(result.getCalendars(), zipWriter, GtfsFile.CALENDAR);
+                if (hasFrequencies(result)) {
+                    addToZip(result.getFrequencies(), zipWriter, GtfsFile.FREQUENCIES);
+                }
+            }
+        } else if (zip) {
             Path zipFilePath = directory.resolve(GTFS_ZIP);
             try (ZipOutputStream zipOutputStream = new ZipOutputStream(
                     Files.newOutputStream(zipFilePath, StandardOpenOption.CREATE))) {
@@ -156,6 +106,9 @@ public class GtfsScheduleWriter implements ConverterSink<GtfsSchedule> {
                 writeToZip(result.getTrips(), zipOutputStream, GtfsFile.TRIPS);
                 writeToZip(result.getStopTimes(), zipOutputStream, GtfsFile.STOP_TIMES);
                 writeToZip(result.getCalendars(), zipOutputStream, GtfsFile.CALENDAR);
+                if (hasFrequencies(result)) {
+                    writeToZip(result.getFrequencies(), zipOutputStream, GtfsFile.FREQUENCIES);
+                }
             }
         } else {
             writeToFile(List.of(result.getFeedInfo()), GtfsFile.FEED_INFO);
@@ -165,27 +118,40 @@ public class GtfsScheduleWriter implements ConverterSink<GtfsSchedule> {
             writeToFile(result.getTrips(), GtfsFile.TRIPS);
             writeToFile(result.getStopTimes(), GtfsFile.STOP_TIMES);
             writeToFile(result.getCalendars(), GtfsFile.CALENDAR);
+            if (hasFrequencies(result)) {
+                writeToFile(result.getFrequencies(), GtfsFile.FREQUENCIES);
+            }
         }
     }
 
+    /**
+     * Frequencies are optional in GTFS, the file is only written if the schedule contains any.
+     */
+    static boolean hasFrequencies(GtfsSchedule result) {
+        return result.getFrequencies() != null && !result.getFrequencies().isEmpty();
+    }
+
     private <T> void writeToZip(List<T> list, ZipOutputStream zipOutputStream, GtfsFile gtfsFile) throws IOException {
         ZipEntry zipEntry = new ZipEntry(gtfsFile.fileName);
         zipOutputStream.putNextEntry(zipEntry);
 
-        writeList(list, gtfsFile.clazz, zipOutputStream);
+        writeList(list, gtfsFile.getEncoder(), zipOutputStream);
 
         zipOutputStream.closeEntry();
     }
 
-    private <T> void writeToFile(List<T> list, GtfsFile gtfsFile) throws IOException {
+    private <T> void addToZip(List<T> list, ParallelZipWriter zipWriter, GtfsFile gtfsFile) {
+        zipWriter.addEntry(gtfsFile.fileName, outputStream -> writeList(list, gtfsFile.getEncoder(), outputStream));
+    }
+
+    <T> void writeToFile(List<T> list, GtfsFile gtfsFile) throws IOException {
         Path filePath = directory.resolve(gtfsFile.fileName);
 
         try (OutputStream writer = Files.newOutputStream(filePath, StandardOpenOption.CREATE)) {
-            writeList(list, gtfsFile.clazz, writer);
+            writeList(list, gtfsFile.getEncoder(), writer);
         }
     }
 
-    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     @Getter
     enum GtfsFile {
         AGENCY("agency.txt", Agency.class),
@@ -194,9 +160,28 @@ public class GtfsScheduleWriter implements ConverterSink<GtfsSchedule> {
         TRIPS("trips.txt", Trip.class),
         STOP_TIMES("stop_times.txt", StopTime.class),
         CALENDAR("calendar.txt", Calendar.class),
-        FEED_INFO("feed_info.txt", FeedInfo.class);
+        FEED_INFO("feed_info.txt", FeedInfo.class),
+        FREQUENCIES("frequencies.txt", Frequency.class, true);
 
         private final String fileName;
         private final Class<?> clazz;
+        private final boolean optional;
+        private final CsvRowEncoder<?> encoder;
+
+        GtfsFile(String fileName, Class<?> clazz) {
+            this(fileName, clazz, false);
+        }
+
+        GtfsFile(String fileName, Class<?> clazz, boolean optional) {
+            this.fileName = fileName;
+            this.clazz = clazz;
+            this.optional = optional;
+            this.encoder = CsvRowEncoder.of(clazz);
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> CsvRowEncoder<T> getEncoder() {
+            return (CsvRowEncoder<T>) encoder;
+        }
     }
 }
@@ -0,0 +1,243 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.GtfsTripConsumer;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Trip;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.ConverterSink;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.GtfsScheduleWriter.GtfsFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes a GTFS schedule while it is built: trips and stop times are written as they are received from the streaming
+ * GTFS supply builder, the remaining files are written when the schedule is saved.
+ * <p>
+ * In zip mode, the stop times are streamed directly into the first zip entry, while the trips are buffered in a
+ * temporary file in the output directory and added to the zip file on save.
+ * <p>
+ * If the conversion or the saving fails, the streams are closed, the temporary file is deleted and so are the
+ * incomplete zip file or, in directory mode, the incomplete trips and stop times files, which would otherwise look like
+ * a valid feed together with the remaining files of an earlier run.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StreamingGtfsScheduleWriter implements ConverterSink<GtfsSchedule>, GtfsTripConsumer {
+
+    private static final String TRIPS_TEMP_FILE_PREFIX = "trips";
+    private static final String TRIPS_TEMP_FILE_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final boolean zip;
+
+    private ZipOutputStream zipOutputStream;
+    private OutputStream stopTimesOutputStream;
+    private OutputStream tripsOutputStream;
+    private Path tripsTempFile;
+    private CsvRowWriter<Trip> tripWriter;
+    private CsvRowWriter<StopTime> stopTimeWriter;
+    private long tripCount;
+    private long stopTimeCount;
+
+    private static <T> void writeToZip(List<T> list, ZipOutputStream zipOutputStream,
+                                       GtfsFile gtfsFile) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(gtfsFile.getFileName()));
+        GtfsScheduleWriter.writeList(list, gtfsFile.getEncoder(), zipOutputStream);
+        zipOutputStream.closeEntry();
+    }
+
+    private static IOException close(OutputStream stream, IOException exception) {
+        if (stream == null) {
+            return exception;
+        }
+
+        try {
+            stream.close();
+        } catch (IOException e) {
+            if (exception == null) {
+                return e;
+            }
+            exception.addSuppressed(e);
+        }
+
+        return exception;
+    }
+
+    @Override
+    public void accept(Trip trip, List<StopTime> stopTimes) {
+        try {
+            open();
+
+            tripWriter.write(trip);
+            tripCount++;
+            for (StopTime stopTime : stopTimes) {
+                stopTimeWriter.write(stopTime);
+            }
+            stopTimeCount += stopTimes.size();
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write trip " + trip.getTripId(), e);
+        }
+    }
+
+    @Override
+    public void save(GtfsSchedule result) throws IOException {
+        try {
+            open();
+
+            // trips and stop times contained in the schedule itself, e.g. from a non-streaming supply builder
+            if (result.getTrips() != null) {
+                for (Trip trip : result.getTrips()) {
+                    tripWriter.write(trip);
+                }
+                tripCount += result.getTrips().size();
+            }
+            if (result.getStopTimes() != null) {
+                for (StopTime stopTime : result.getStopTimes()) {
+                    stopTimeWriter.write(stopTime);
+                }
+                stopTimeCount += result.getStopTimes().size();
+            }
+
+            stopTimeWriter.flush();
+            tripWriter.flush();
+            tripsOutputStream.close();
+
+            if (zip) {
+                // the stop times entry is still open
+                zipOutputStream.closeEntry();
+
+                writeToZip(List.of(result.getFeedInfo()), zipOutputStream, GtfsFile.FEED_INFO);
+                writeToZip(result.getAgencies(), zipOutputStream, GtfsFile.AGENCY);
+                writeToZip(result.getStops(), zipOutputStream, GtfsFile.STOPS);
+                writeToZip(result.getRoutes(), zipOutputStream, GtfsFile.ROUTES);
+                writeToZip(result.getCalendars(), zipOutputStream, GtfsFile.CALENDAR);
+                if (GtfsScheduleWriter.hasFrequencies(result)) {
+                    writeToZip(result.getFrequencies(), zipOutputStream, GtfsFile.FREQUENCIES);
+                }
+
+                // copy buffered trips
+                zipOutputStream.putNextEntry(new ZipEntry(GtfsFile.TRIPS.getFileName()));
+                Files.copy(tripsTempFile, zipOutputStream);
+                zipOutputStream.closeEntry();
+
+                zipOutputStream.close();
+            } else {
+                stopTimesOutputStream.close();
+
+                GtfsScheduleWriter writer = new GtfsScheduleWriter(directory, false);
+                writer.writeToFile(List.of(result.getFeedInfo()), GtfsFile.FEED_INFO);
+                writer.writeToFile(result.getAgencies(), GtfsFile.AGENCY);
+                writer.writeToFile(result.getStops(), GtfsFile.STOPS);
+                writer.writeToFile(result.getRoutes(), GtfsFile.ROUTES);
+                writer.writeToFile(result.getCalendars(), GtfsFile.CALENDAR);
+                if (GtfsScheduleWriter.hasFrequencies(result)) {
+                    writer.writeToFile(result.getFrequencies(), GtfsFile.FREQUENCIES);
+                }
+            }
+
+            log.info("Wrote GTFS schedule with {} trips and {} stop times to {}", tripCount, stopTimeCount,
+                    directory.toAbsolutePath());
+
+        } catch (IOException | RuntimeException e) {
+            try {
+                release(true);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        release(false);
+    }
+
+    @Override
+    public void abort() throws IOException {
+        release(true);
+    }
+
+    /**
+     * Close the streams and delete the temporary trips file; if failed, also delete the incomplete zip file or the
+     * incomplete trips and stop times files.
+     */
+    private void release(boolean failed) throws IOException {
+        boolean opened = stopTimesOutputStream != null;
+        IOException exception = close(tripsOutputStream, null);
+        exception = close(stopTimesOutputStream, exception);
+        exception = close(zipOutputStream, exception);
+
+        try {
+            if (tripsTempFile != null) {
+                Files.deleteIfExists(tripsTempFile);
+            }
+            if (failed && opened && zip) {
+                Files.deleteIfExists(directory.resolve(GtfsScheduleWriter.GTFS_ZIP));
+            } else if (failed && opened) {
+                Files.deleteIfExists(directory.resolve(GtfsFile.TRIPS.getFileName()));
+                Files.deleteIfExists(directory.resolve(GtfsFile.STOP_TIMES.getFileName()));
+            }
+        } catch (IOException e) {
+            if (exception == null) {
+                exception = e;
+            } else {
+                exception.addSuppressed(e);
+            }
+        } finally {
+            reset();
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Prepare for the next schedule.
+     */
+    private void reset() {
+        zipOutputStream = null;
+        stopTimesOutputStream = null;
+        tripsOutputStream = null;
+        tripsTempFile = null;
+        tripWriter = null;
+        stopTimeWriter = null;
+        tripCount = 0;
+        stopTimeCount = 0;
+    }
+
+    private void open() throws IOException {
+        if (stopTimeWriter != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+
+        if (zip) {
+            zipOutputStream = new ZipOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(directory.resolve(GtfsScheduleWriter.GTFS_ZIP))));
+            zipOutputStream.putNextEntry(new ZipEntry(GtfsFile.STOP_TIMES.getFileName()));
+            stopTimesOutputStream = zipOutputStream;
+            tripsTempFile = Files.createTempFile(directory, TRIPS_TEMP_FILE_PREFIX, TRIPS_TEMP_FILE_SUFFIX);
+            tripsOutputStream = Files.newOutputStream(tripsTempFile);
+        } else {
+            stopTimesOutputStream = Files.newOutputStream(directory.resolve(GtfsFile.STOP_TIMES.getFileName()));
+            tripsOutputStream = Files.newOutputStream(directory.resolve(GtfsFile.TRIPS.getFileName()));
+        }
+
+        tripWriter = new CsvRowWriter<>(GtfsFile.TRIPS.getEncoder(), tripsOutputStream);
+        tripWriter.writeHeader();
+        stopTimeWriter = new CsvRowWriter<>(GtfsFile.STOP_TIMES.getEncoder(), stopTimesOutputStream);
+        stopTimeWriter.writeHeader();
+    }
+
+}
@@ -0,0 +1,466 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.matsim;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim.MatsimDepartureConsumer;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.ConverterSink;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.ConfigWriter;
+import org.matsim.core.network.io.NetworkWriter;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.pt.transitSchedule.api.Departure;
+import org.matsim.pt.transitSchedule.api.TransitLine;
+import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.pt.transitSchedule.api.TransitStopFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleType;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a MATSim transit schedule and its vehicles while the departures are built, without creating departure and
+ * vehicle objects in the scenario. Produces the same files as the transit schedule XML writer (transit schedule v2,
+ * vehicle definitions v2.0).
+ * <p>
+ * The vehicles are written to a temporary file in the output directory as they are received from the streaming MATSim
+ * supply builder, since the vehicle types have to be written before them. The departures are nested in the transit
+ * routes, which are only written when the schedule is saved, and arrive interleaved over all routes; they are spooled
+ * as rendered XML to a second temporary file as well, keeping only the position of each departure record per route in
+ * memory, merged into runs while the departures of a route arrive one after the other. When a route is written, its
+ * runs are copied as bytes from the spool file into the compressed output, read in blocks which also serve the
+ * following runs they contain.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StreamingTransitScheduleXmlWriter implements ConverterSink<Scenario>, MatsimDepartureConsumer {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n";
+    private static final String TRANSIT_SCHEDULE_DOCTYPE = "<!DOCTYPE transitSchedule SYSTEM " +
+            "\"http://www.matsim.org/files/dtd/transitSchedule_v2.dtd\">\n";
+    private static final String VEHICLE_DEFINITIONS_START_TAG = "<vehicleDefinitions " +
+            "xmlns=\"http://www.matsim.org/files/dtd\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" " +
+            "xsi:schemaLocation=\"http://www.matsim.org/files/dtd " +
+            "http://www.matsim.org/files/dtd/vehicleDefinitions_v2.0.xsd\">\n";
+    private static final String VEHICLES_TEMP_FILE_PREFIX = "vehicles";
+    private static final String DEPARTURES_TEMP_FILE_PREFIX = "departures";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<TransitRoute, DepartureRecords> departures = new IdentityHashMap<>();
+    private final Set<String> vehicleIds = new HashSet<>();
+    private final StringBuilder departureXml = new StringBuilder();
+
+    private final Path directory;
+    private final String prefix;
+
+    private Path vehiclesTempFile;
+    private Writer vehiclesWriter;
+    private Path departuresTempFile;
+    private OutputStream departuresOutputStream;
+    private long departuresSize;
+    private long departureCount;
+
+    public StreamingTransitScheduleXmlWriter(Path directory) {
+        this(directory, "");
+    }
+
+    private static Writer createGzipWriter(Path filePath) throws IOException {
+        return createWriter(createGzipOutputStream(filePath));
+    }
+
+    private static OutputStream createGzipOutputStream(Path filePath) throws IOException {
+        return new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(filePath)), BUFFER_SIZE);
+    }
+
+    private static Writer createWriter(OutputStream outputStream) {
+        return new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    }
+
+    private static IOException close(Closeable closeable, IOException exception) {
+        if (closeable == null) {
+            return exception;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            if (exception == null) {
+                return e;
+            }
+            exception.addSuppressed(e);
+        }
+
+        return exception;
+    }
+
+    private static IOException delete(Path file, IOException exception) {
+        if (file == null) {
+            return exception;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            if (exception == null) {
+                return e;
+            }
+            exception.addSuppressed(e);
+        }
+
+        return exception;
+    }
+
+    private static String time(OptionalTime time) {
+        return time.isDefined() ? Time.writeTime(time.seconds()) : null;
+    }
+
+    // attributes sorted by name, values as written by the MATSim object attributes converter for the basic types
+    private static void writeAttributes(XmlAppender xml, int level, Attributes attributes) throws IOException {
+        if (attributes.isEmpty()) {
+            return;
+        }
+
+        xml.startTag(level, "attributes");
+        for (Map.Entry<String, Object> entry : new TreeMap<>(attributes.getAsMap()).entrySet()) {
+            Object value = entry.getValue();
+            String text = value instanceof Enum<?> enumValue ? enumValue.name() : value.toString();
+            xml.element(level + 1, "attribute", text, "name", entry.getKey(), "class", value.getClass().getName());
+        }
+        xml.endTag(level, "attributes");
+    }
+
+    @Override
+    public void accept(TransitRoute transitRoute, String departureId, ServiceDayTime time, String vehicleId, VehicleType vehicleType) {
+        try {
+            open();
+
+            departureXml.setLength(0);
+            new XmlAppender(departureXml).emptyTag(4, "departure", "id", departureId, "departureTime",
+                    Time.writeTime(time.toSecondOfDay()), "vehicleRefId", vehicleId);
+            byte[] record = departureXml.toString().getBytes(StandardCharsets.UTF_8);
+            departuresOutputStream.write(record);
+            departures.computeIfAbsent(transitRoute, k -> new DepartureRecords()).add(departuresSize, record.length);
+            departuresSize += record.length;
+            departureCount++;
+
+            if (vehicleIds.add(vehicleId)) {
+                new XmlAppender(vehiclesWriter).emptyTag(1, "vehicle", "id", vehicleId, "type",
+                        vehicleType.getId().toString());
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write departure " + departureId, e);
+        }
+    }
+
+    @Override
+    public void save(Scenario result) throws IOException {
+        try {
+            open();
+            vehiclesWriter.close();
+            departuresOutputStream.close();
+
+            new ConfigWriter(result.getConfig()).write(resolve(TransitScheduleXmlWriter.CONFIG_FILE).toString());
+            new NetworkWriter(result.getNetwork()).write(resolve(TransitScheduleXmlWriter.NETWORK_FILE).toString());
+
+            // the departure records are copied as bytes to the stream below the writer
+            try (OutputStream outputStream = createGzipOutputStream(
+                    resolve(TransitScheduleXmlWriter.TRANSIT_SCHEDULE_FILE));
+                 Writer writer = createWriter(outputStream);
+                 DepartureSpoolReader spool = new DepartureSpoolReader(departuresTempFile, writer, outputStream)) {
+                writeTransitSchedule(new XmlAppender(writer), result.getTransitSchedule(), spool);
+            }
+
+            try (Writer writer = createGzipWriter(resolve(TransitScheduleXmlWriter.TRANSIT_VEHICLE_FILE))) {
+                XmlAppender xml = new XmlAppender(writer);
+                xml.raw(XML_HEADER).newLine().raw(VEHICLE_DEFINITIONS_START_TAG).newLine();
+                for (VehicleType vehicleType : result.getTransitVehicles().getVehicleTypes().values()) {
+                    writeVehicleType(xml, vehicleType);
+                }
+
+                // vehicles contained in the scenario itself, then the streamed vehicles
+                for (Vehicle vehicle : result.getTransitVehicles().getVehicles().values()) {
+                    xml.emptyTag(1, "vehicle", "id", vehicle.getId().toString(), "type",
+                            vehicle.getType().getId().toString());
+                }
+                writer.flush();
+                try (Reader reader = Files.newBufferedReader(vehiclesTempFile, StandardCharsets.UTF_8)) {
+                    reader.transferTo(writer);
+                }
+
+                xml.newLine().endTag(0, "vehicleDefinitions");
+            }
+
+            log.info("Wrote MATSim transit schedule with {} departures and {} vehicles to {}", departureCount,
+                    vehicleIds.size(), directory.toAbsolutePath());
+
+        } catch (IOException | RuntimeException e) {
+            try {
+                release();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        release();
+    }
+
+    @Override
+    public void abort() throws IOException {
+        release();
+    }
+
+    private void writeTransitSchedule(XmlAppender xml, TransitSchedule schedule, DepartureSpoolReader spool) throws IOException {
+        xml.raw(XML_HEADER).raw(TRANSIT_SCHEDULE_DOCTYPE).newLine().startTag(0, "transitSchedule").newLine();
+        writeAttributes(xml, 1, schedule.getAttributes());
+
+        xml.startTag(1, "transitStops");
+        for (TransitStopFacility stop : schedule.getFacilities().values()) {
+            xml.emptyTag(2, "stopFacility", "id", stop.getId().toString(), "x",
+                    Double.toString(stop.getCoord().getX()), "y", Double.toString(stop.getCoord().getY()),
+                    "linkRefId", stop.getLinkId() == null ? null : stop.getLinkId().toString(), "name",
+                    stop.getName(), "isBlocking", Boolean.toString(stop.getIsBlockingLane()));
+        }
+        xml.endTag(1, "transitStops").newLine();
+
+        for (TransitLine transitLine : schedule.getTransitLines().values()) {
+            xml.startTag(1, "transitLine", "id", transitLine.getId().toString(), "name", transitLine.getName());
+            writeAttributes(xml, 2, transitLine.getAttributes());
+            for (TransitRoute transitRoute : transitLine.getRoutes().values()) {
+                writeTransitRoute(xml, transitRoute, spool);
+            }
+            xml.endTag(1, "transitLine").newLine();
+        }
+
+        xml.endTag(0, "transitSchedule");
+    }
+
+    private void writeTransitRoute(XmlAppender xml, TransitRoute transitRoute, DepartureSpoolReader spool) throws IOException {
+        xml.startTag(2, "transitRoute", "id", transitRoute.getId().toString());
+        writeAttributes(xml, 3, transitRoute.getAttributes());
+        if (transitRoute.getDescription() != null) {
+            xml.element(3, "description", transitRoute.getDescription());
+        }
+        xml.element(3, "transportMode", transitRoute.getTransportMode());
+
+        xml.startTag(3, "routeProfile");
+        for (TransitRouteStop stop : transitRoute.getStops()) {
+            xml.emptyTag(4, "stop", "refId", stop.getStopFacility().getId().toString(), "arrivalOffset",
+                    time(stop.getArrivalOffset()), "departureOffset", time(stop.getDepartureOffset()),
+                    "awaitDeparture", Boolean.toString(stop.isAwaitDepartureTime()));
+        }
+        xml.endTag(3, "routeProfile");
+
+        NetworkRoute route = transitRoute.getRoute();
+        if (route != null) {
+            xml.startTag(3, "route");
+            xml.emptyTag(4, "link", "refId", route.getStartLinkId().toString());
+            for (Id<Link> linkId : route.getLinkIds()) {
+                xml.emptyTag(4, "link", "refId", linkId.toString());
+            }
+            xml.emptyTag(4, "link", "refId", route.getEndLinkId().toString());
+            xml.endTag(3, "route");
+        }
+
+        xml.startTag(3, "departures");
+
+        // departures contained in the scenario itself, e.g. from a non-streaming supply builder
+        for (Departure departure : transitRoute.getDepartures().values()) {
+            xml.emptyTag(4, "departure", "id", departure.getId().toString(), "departureTime",
+                    Time.writeTime(departure.getDepartureTime()), "vehicleRefId",
+                    departure.getVehicleId() == null ? null : departure.getVehicleId().toString());
+        }
+        DepartureRecords records = departures.get(transitRoute);
+        if (records != null) {
+            spool.copy(records);
+        }
+        xml.endTag(3, "departures");
+
+        xml.endTag(2, "transitRoute");
+    }
+
+    private void writeVehicleType(XmlAppender xml, VehicleType vehicleType) throws IOException {
+        xml.startTag(1, "vehicleType", "id", vehicleType.getId().toString());
+        writeAttributes(xml, 2, vehicleType.getAttributes());
+        if (vehicleType.getDescription() != null) {
+            xml.element(2, "description", vehicleType.getDescription());
+        }
+        xml.emptyTag(2, "capacity", "seats", String.valueOf(vehicleType.getCapacity().getSeats()),
+                "standingRoomInPersons", String.valueOf(vehicleType.getCapacity().getStandingRoom()));
+        xml.emptyTag(2, "length", "meter", Double.toString(vehicleType.getLength()));
+        xml.emptyTag(2, "width", "meter", Double.toString(vehicleType.getWidth()));
+        xml.emptyTag(2, "maximumVelocity", "meterPerSecond", Double.toString(vehicleType.getMaximumVelocity()));
+        xml.emptyTag(2, "passengerCarEquivalents", "pce", Double.toString(vehicleType.getPcuEquivalents()));
+        xml.emptyTag(2, "networkMode", "networkMode", vehicleType.getNetworkMode());
+        xml.emptyTag(2, "flowEfficiencyFactor", "factor", Double.toString(vehicleType.getFlowEfficiencyFactor()));
+        xml.endTag(1, "vehicleType").newLine();
+    }
+
+    private Path resolve(String fileName) {
+        return directory.resolve(prefix + fileName);
+    }
+
+    /**
+     * Close the temporary files and delete them.
+     */
+    private void release() throws IOException {
+        IOException exception = close(vehiclesWriter, null);
+        exception = close(departuresOutputStream, exception);
+        exception = delete(vehiclesTempFile, exception);
+        exception = delete(departuresTempFile, exception);
+        reset();
+
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * Prepare for the next schedule.
+     */
+    private void reset() {
+        departures.clear();
+        vehicleIds.clear();
+        vehiclesTempFile = null;
+        vehiclesWriter = null;
+        departuresTempFile = null;
+        departuresOutputStream = null;
+        departuresSize = 0;
+        departureCount = 0;
+    }
+
+    private void open() throws IOException {
+        if (vehiclesWriter != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        vehiclesTempFile = Files.createTempFile(directory, VEHICLES_TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+        vehiclesWriter = Files.newBufferedWriter(vehiclesTempFile, StandardCharsets.UTF_8);
+        departuresTempFile = Files.createTempFile(directory, DEPARTURES_TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+        departuresOutputStream = new BufferedOutputStream(Files.newOutputStream(departuresTempFile));
+    }
+
+    /**
+     * Runs of consecutive departure records of a transit route in the spool file, in order of arrival and therefore of
+     * position.
+     */
+    private static final class DepartureRecords {
+
+        private static final int INITIAL_CAPACITY = 8;
+
+        private long[] positions = new long[INITIAL_CAPACITY];
+        private int[] lengths = new int[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(long position, int length) {
+            // extend the last run if the record follows it directly
+            if (size > 0 && positions[size - 1] + lengths[size - 1] == position &&
+                    lengths[size - 1] <= Integer.MAX_VALUE - length) {
+                lengths[size - 1] += length;
+                return;
+            }
+
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, 2 * size);
+                lengths = Arrays.copyOf(lengths, 2 * size);
+            }
+            positions[size] = position;
+            lengths[size] = length;
+            size++;
+        }
+    }
+
+    /**
+     * Copies the departure records of a route from the spool file to the output stream below the writer of the
+     * transit schedule. The file is read in blocks; the runs of a route are in order of position, so a run within the
+     * current block is copied without reading again.
+     */
+    private static final class DepartureSpoolReader implements Closeable {
+
+        private final FileChannel channel;
+        private final Writer writer;
+        private final OutputStream outputStream;
+        private final ByteBuffer block = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+        private long blockPosition;
+
+        private DepartureSpoolReader(Path file, Writer writer, OutputStream outputStream) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.writer = writer;
+            this.outputStream = outputStream;
+        }
+
+        private void copy(DepartureRecords records) throws IOException {
+            // the XML written so far has to precede the copied records
+            writer.flush();
+            for (int i = 0; i < records.size; i++) {
+                copy(records.positions[i], records.lengths[i]);
+            }
+        }
+
+        private void copy(long position, int length) throws IOException {
+            while (length > 0) {
+                if (position < blockPosition || position >= blockPosition + block.limit()) {
+                    read(position);
+                }
+                int offset = (int) (position - blockPosition);
+                int count = Math.min(length, block.limit() - offset);
+                outputStream.write(block.array(), offset, count);
+                position += count;
+                length -= count;
+            }
+        }
+
+        private void read(long position) throws IOException {
+            block.clear();
+            blockPosition = position;
+            while (block.hasRemaining()) {
+                if (channel.read(block, position + block.position()) < 0) {
+                    break;
+                }
+            }
+            block.flip();
+
+            if (!block.hasRemaining()) {
+                throw new EOFException("Departure record at " + position + " exceeds the spooled departures");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+}
@@ -1,7 +1,8 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.io.matsim;
 
 import ch.sbb.pfi.netzgrafikeditor.converter.core.ConverterSink;
-import lombok.RequiredArgsConstructor;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelGzipOutputStream;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipConfig;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.core.config.ConfigWriter;
 import org.matsim.core.network.io.NetworkWriter;
@@ -9,37 +10,124 @@ import org.matsim.pt.transitSchedule.api.TransitScheduleWriter;
 import org.matsim.vehicles.MatsimVehicleWriter;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-@RequiredArgsConstructor
+/**
+ * Writes the config, network, transit schedule and vehicles of a scenario concurrently, each file on its own virtual
+ * thread.
+ */
 public class TransitScheduleXmlWriter implements ConverterSink<Scenario> {
 
-    private static final String CONFIG_FILE = "config.xml";
-    private static final String NETWORK_FILE = "transitNetwork.xml.gz";
-    private static final String TRANSIT_SCHEDULE_FILE = "transitSchedule.xml.gz";
-    private static final String TRANSIT_VEHICLE_FILE = "transitVehicles.xml.gz";
+    static final String CONFIG_FILE = "config.xml";
+    static final String NETWORK_FILE = "transitNetwork.xml.gz";
+    static final String TRANSIT_SCHEDULE_FILE = "transitSchedule.xml.gz";
+    static final String TRANSIT_VEHICLE_FILE = "transitVehicles.xml.gz";
+
+    private static final String GZIP_EXTENSION = ".gz";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
 
     private final Path directory;
     private final String prefix;
+    private final ParallelZipConfig parallelZipConfig;
 
     public TransitScheduleXmlWriter(Path directory) {
         this(directory, "");
     }
 
+    public TransitScheduleXmlWriter(Path directory, String prefix) {
+        this(directory, prefix, null);
+    }
+
+    /**
+     * Compresses the gzip files block-parallel: the MATSim writers write the uncompressed XML to a temporary file,
+     * which is then compressed in chunks of independent gzip members on a shared pool.
+     */
+    public TransitScheduleXmlWriter(Path directory, String prefix, ParallelZipConfig parallelZipConfig) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.parallelZipConfig = parallelZipConfig;
+    }
+
+    private static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for MATSim file writing");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
     @Override
     public void save(Scenario result) throws IOException {
         Files.createDirectories(directory);
 
-        writeFile(CONFIG_FILE, new ConfigWriter(result.getConfig())::write);
-        writeFile(NETWORK_FILE, new NetworkWriter(result.getNetwork())::write);
-        writeFile(TRANSIT_SCHEDULE_FILE, new TransitScheduleWriter(result.getTransitSchedule())::writeFile);
-        writeFile(TRANSIT_VEHICLE_FILE, new MatsimVehicleWriter(result.getTransitVehicles())::writeFile);
+        ExecutorService chunkExecutor = parallelZipConfig == null ? null : Executors.newFixedThreadPool(
+                Math.max(1, parallelZipConfig.getParallelism()));
+
+        try (ExecutorService fileExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> files = new ArrayList<>();
+            files.add(submit(fileExecutor, chunkExecutor, CONFIG_FILE, new ConfigWriter(result.getConfig())::write));
+            files.add(submit(fileExecutor, chunkExecutor, NETWORK_FILE, new NetworkWriter(result.getNetwork())::write));
+            files.add(submit(fileExecutor, chunkExecutor, TRANSIT_SCHEDULE_FILE,
+                    new TransitScheduleWriter(result.getTransitSchedule())::writeFile));
+            files.add(submit(fileExecutor, chunkExecutor, TRANSIT_VEHICLE_FILE,
+                    new MatsimVehicleWriter(result.getTransitVehicles())::writeFile));
+
+            for (Future<?> file : files) {
+                await(file);
+            }
+
+        } finally {
+            if (chunkExecutor != null) {
+                chunkExecutor.shutdownNow();
+            }
+        }
     }
 
-    private void writeFile(String fileName, FileWriterAction writerAction) throws IOException {
+    private Future<?> submit(ExecutorService fileExecutor, ExecutorService chunkExecutor, String fileName, FileWriterAction writerAction) {
+        return fileExecutor.submit(() -> {
+            writeFile(fileName, writerAction, chunkExecutor);
+            return null;
+        });
+    }
+
+    private void writeFile(String fileName, FileWriterAction writerAction, ExecutorService chunkExecutor) throws IOException {
         Path filePath = directory.resolve(prefix + fileName);
-        writerAction.write(filePath.toString());
+
+        if (chunkExecutor == null || !fileName.endsWith(GZIP_EXTENSION)) {
+            writerAction.write(filePath.toString());
+            return;
+        }
+
+        // the MATSim writers only compress files with a gzip extension, the temporary file is written uncompressed
+        Path tempFile = Files.createTempFile(directory, prefix + fileName, TEMP_FILE_SUFFIX);
+        try {
+            writerAction.write(tempFile.toString());
+            try (InputStream in = Files.newInputStream(tempFile);
+                 OutputStream out = new ParallelGzipOutputStream(Files.newOutputStream(filePath), parallelZipConfig,
+                         chunkExecutor)) {
+                in.transferTo(out);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
     }
 
     @FunctionalInterface
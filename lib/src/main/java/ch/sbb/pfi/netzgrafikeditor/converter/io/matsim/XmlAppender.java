@@ -0,0 +1,91 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.matsim;
+
+import java.io.IOException;
+
+/**
+ * Appends indented XML elements in the layout of the MATSim XML writers, without building a document in memory.
+ * <p>
+ * Attributes are passed as alternating names and values; attributes with a null value are omitted.
+ */
+final class XmlAppender {
+
+    private static final char INDENT = '\t';
+
+    private final Appendable out;
+
+    XmlAppender(Appendable out) {
+        this.out = out;
+    }
+
+    private static void appendEscaped(Appendable out, String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    XmlAppender raw(String text) throws IOException {
+        out.append(text);
+        return this;
+    }
+
+    XmlAppender newLine() throws IOException {
+        out.append('\n');
+        return this;
+    }
+
+    XmlAppender startTag(int level, String name, String... attributes) throws IOException {
+        openTag(level, name, attributes);
+        out.append(">\n");
+        return this;
+    }
+
+    XmlAppender emptyTag(int level, String name, String... attributes) throws IOException {
+        openTag(level, name, attributes);
+        out.append("/>\n");
+        return this;
+    }
+
+    XmlAppender endTag(int level, String name) throws IOException {
+        indent(level);
+        out.append("</").append(name).append(">\n");
+        return this;
+    }
+
+    XmlAppender element(int level, String name, String content, String... attributes) throws IOException {
+        openTag(level, name, attributes);
+        out.append('>');
+        appendEscaped(out, content);
+        out.append("</").append(name).append(">\n");
+        return this;
+    }
+
+    private void openTag(int level, String name, String... attributes) throws IOException {
+        if (attributes.length % 2 != 0) {
+            throw new IllegalArgumentException("Attributes of element " + name + " are not name and value pairs");
+        }
+
+        indent(level);
+        out.append('<').append(name);
+        for (int i = 0; i < attributes.length; i += 2) {
+            if (attributes[i + 1] != null) {
+                out.append(' ').append(attributes[i]).append("=\"");
+                appendEscaped(out, attributes[i + 1]);
+                out.append('"');
+            }
+        }
+    }
+
+    private void indent(int level) throws IOException {
+        for (int i = 0; i < level; i++) {
+            out.append(INDENT);
+        }
+    }
+
+}
@@ -1,13 +1,13 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik;
 
 import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -29,7 +29,20 @@ public class JsonDeserializer {
     }
 
     /**
-     * Reads and deserializes a JSON file from a Path object using Files.readString.
+     * Streams and deserializes JSON from an input stream, without buffering the whole content in memory.
+     *
+     * @param inputStream the input stream with the UTF-8 encoded JSON content
+     * @return a NetworkGraphic object
+     * @throws IOException if an error occurs during reading or parsing
+     */
+    public NetworkGraphic read(InputStream inputStream) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            return objectMapper.readValue(parser, NetworkGraphic.class);
+        }
+    }
+
+    /**
+     * Reads and deserializes a JSON file from a Path object by streaming its content.
      *
      * @param path the Path to the file
      * @return a NetworkGraphic object
@@ -37,8 +50,9 @@ public class JsonDeserializer {
      */
     public NetworkGraphic read(Path path) throws IOException {
         log.info("Reading netzgrafik from file: {}", path.toAbsolutePath());
-        String fileContent = Files.readString(path, StandardCharsets.UTF_8);
-        return read(fileContent);
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            return read(inputStream);
+        }
     }
 
     /**
@@ -51,8 +65,7 @@ public class JsonDeserializer {
     public NetworkGraphic read(URL url) throws IOException {
         log.info("Reading netzgrafik from URL: {}", url.toString());
         try (InputStream inputStream = url.openStream()) {
-            String content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            return read(content);
+            return read(inputStream);
         }
     }
 }
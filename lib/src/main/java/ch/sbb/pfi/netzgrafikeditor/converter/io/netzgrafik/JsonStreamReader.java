@@ -0,0 +1,131 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.NetworkGraphicSource;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams a network graphic from a JSON file, plain or gzip compressed.
+ * <p>
+ * The file is parsed token by token without loading its content into memory first. Gzip compression is detected by
+ * the magic bytes at the start of the file, independent of the file extension.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JsonStreamReader implements NetworkGraphicSource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int GZIP_MAGIC_BYTE_1 = 0x1f;
+    private static final int GZIP_MAGIC_BYTE_2 = 0x8b;
+
+    private final Path filePath;
+    private volatile NetworkGraphic networkGraphic; // ensure visibility across threads
+    private volatile long bytesRead;
+
+    private static boolean isGzip(InputStream inputStream) throws IOException {
+        inputStream.mark(2);
+        try {
+            return inputStream.read() == GZIP_MAGIC_BYTE_1 && inputStream.read() == GZIP_MAGIC_BYTE_2;
+        } finally {
+            inputStream.reset();
+        }
+    }
+
+    @Override
+    public NetworkGraphic load() throws IOException {
+
+        // first check (without locking)
+        if (networkGraphic == null) {
+            synchronized (this) {
+                // second check (with locking)
+                if (networkGraphic == null) {
+                    networkGraphic = read();
+                }
+            }
+        }
+
+        return networkGraphic;
+    }
+
+    /**
+     * @return the number of bytes read from the file, compressed if the file is gzip compressed.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private NetworkGraphic read() throws IOException {
+        log.info("Streaming netzgrafik from file: {}", filePath.toAbsolutePath());
+
+        try (BufferedInputStream fileStream = new BufferedInputStream(Files.newInputStream(filePath), BUFFER_SIZE)) {
+            boolean gzip = isGzip(fileStream);
+
+            // count the bytes read from the file and the decompressed JSON bytes separately
+            CountingInputStream countingFileStream = new CountingInputStream(fileStream);
+            CountingInputStream countingJsonStream = new CountingInputStream(
+                    gzip ? new GZIPInputStream(countingFileStream, BUFFER_SIZE) : countingFileStream);
+
+            NetworkGraphic result = new JsonDeserializer().read(countingJsonStream);
+
+            bytesRead = countingFileStream.getCount();
+            log.info("Read {} bytes from file ({} bytes of JSON, gzip: {})", bytesRead, countingJsonStream.getCount(),
+                    gzip);
+
+            return result;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private long getCount() {
+            return count;
+        }
+
+    }
+
+}
@@ -0,0 +1,263 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Contraction hierarchy of a track graph, the index for {@link ContractionHierarchySearch}.
+ * <p>
+ * The nodes are contracted in order of their importance; a shortcut replaces the two arcs over a contracted node where
+ * no other path is as short. The arcs of the original graph and the shortcuts are split into an upward graph, for the
+ * forward search from the source, and a reversed downward graph, for the backward search from the target. Both are in
+ * compressed sparse row layout, so that the hierarchy can be written to a binary file and used directly from a memory
+ * mapping of it. Arc ids below the edge count of the graph are its edges; the others are shortcuts, which are unpacked
+ * into their two child arcs.
+ */
+public final class ContractionHierarchy {
+
+    private static final int MAGIC = 0x4e474348; // "NGCH"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 7 * Integer.BYTES + Long.BYTES;
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final long fingerprint;
+
+    // upward graph, searched forward from the source
+    private final IntBuffer forwardFirstArcs;
+    private final IntBuffer forwardTargets;
+    private final IntBuffer forwardArcIds;
+    private final DoubleBuffer forwardWeights;
+
+    // downward graph reversed, searched backward from the target
+    private final IntBuffer backwardFirstArcs;
+    private final IntBuffer backwardTargets;
+    private final IntBuffer backwardArcIds;
+    private final DoubleBuffer backwardWeights;
+
+    // child arcs of the shortcuts, indexed by arc id minus edge count
+    private final IntBuffer shortcutFirstChildren;
+    private final IntBuffer shortcutSecondChildren;
+
+    ContractionHierarchy(int nodeCount, int edgeCount, long fingerprint, IntBuffer forwardFirstArcs, IntBuffer forwardTargets, IntBuffer forwardArcIds, DoubleBuffer forwardWeights, IntBuffer backwardFirstArcs, IntBuffer backwardTargets, IntBuffer backwardArcIds, DoubleBuffer backwardWeights, IntBuffer shortcutFirstChildren, IntBuffer shortcutSecondChildren) {
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.fingerprint = fingerprint;
+        this.forwardFirstArcs = forwardFirstArcs;
+        this.forwardTargets = forwardTargets;
+        this.forwardArcIds = forwardArcIds;
+        this.forwardWeights = forwardWeights;
+        this.backwardFirstArcs = backwardFirstArcs;
+        this.backwardTargets = backwardTargets;
+        this.backwardArcIds = backwardArcIds;
+        this.backwardWeights = backwardWeights;
+        this.shortcutFirstChildren = shortcutFirstChildren;
+        this.shortcutSecondChildren = shortcutSecondChildren;
+    }
+
+    /**
+     * Preprocess the track graph, which takes a while on large graphs; the result is meant to be written to a file and
+     * loaded by later runs.
+     */
+    public static ContractionHierarchy build(TrackGraph graph) {
+        return new ContractionHierarchyBuilder(graph, fingerprint(graph)).build();
+    }
+
+    /**
+     * Map a hierarchy file into memory. The arrays are read from the mapping on demand, not copied onto the heap.
+     *
+     * @throws IllegalStateException if the file is not a contraction hierarchy of this graph.
+     */
+    public static ContractionHierarchy load(Path filePath, TrackGraph graph) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a contraction hierarchy file: " + filePath);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported contraction hierarchy file version " + version);
+        }
+
+        int nodeCount = buffer.getInt(8);
+        int edgeCount = buffer.getInt(12);
+        int forwardArcCount = buffer.getInt(16);
+        int backwardArcCount = buffer.getInt(20);
+        int shortcutCount = buffer.getInt(24);
+        long fingerprint = buffer.getLong(28);
+        if (nodeCount != graph.getNodeCount() || edgeCount != graph.getEdgeCount() || fingerprint != fingerprint(
+                graph)) {
+            throw new IllegalStateException("Contraction hierarchy file " + filePath + " belongs to another graph");
+        }
+
+        long arcCount = (long) forwardArcCount + backwardArcCount;
+        long expectedBytes = HEADER_BYTES + 2L * (nodeCount + 1) * Integer.BYTES +
+                arcCount * (2 * Integer.BYTES + Double.BYTES) + 2L * shortcutCount * Integer.BYTES;
+        if (buffer.limit() != expectedBytes) {
+            throw new IllegalStateException("Contraction hierarchy file " + filePath + " has an unexpected size");
+        }
+
+        int[] offset = {HEADER_BYTES};
+        IntBuffer forwardFirstArcs = intView(buffer, offset, nodeCount + 1);
+        IntBuffer forwardTargets = intView(buffer, offset, forwardArcCount);
+        IntBuffer forwardArcIds = intView(buffer, offset, forwardArcCount);
+        DoubleBuffer forwardWeights = doubleView(buffer, offset, forwardArcCount);
+        IntBuffer backwardFirstArcs = intView(buffer, offset, nodeCount + 1);
+        IntBuffer backwardTargets = intView(buffer, offset, backwardArcCount);
+        IntBuffer backwardArcIds = intView(buffer, offset, backwardArcCount);
+        DoubleBuffer backwardWeights = doubleView(buffer, offset, backwardArcCount);
+        IntBuffer shortcutFirstChildren = intView(buffer, offset, shortcutCount);
+        IntBuffer shortcutSecondChildren = intView(buffer, offset, shortcutCount);
+
+        return new ContractionHierarchy(nodeCount, edgeCount, fingerprint, forwardFirstArcs, forwardTargets,
+                forwardArcIds, forwardWeights, backwardFirstArcs, backwardTargets, backwardArcIds, backwardWeights,
+                shortcutFirstChildren, shortcutSecondChildren);
+    }
+
+    private static IntBuffer intView(ByteBuffer buffer, int[] offset, int length) {
+        IntBuffer view = buffer.slice(offset[0], length * Integer.BYTES).asIntBuffer();
+        offset[0] += length * Integer.BYTES;
+
+        return view;
+    }
+
+    private static DoubleBuffer doubleView(ByteBuffer buffer, int[] offset, int length) {
+        DoubleBuffer view = buffer.slice(offset[0], length * Double.BYTES).asDoubleBuffer();
+        offset[0] += length * Double.BYTES;
+
+        return view;
+    }
+
+    // identifies the graph a hierarchy was built for, so that a stale file is not used after the graph changed
+    static long fingerprint(TrackGraph graph) {
+        long hash = 0xcbf29ce484222325L;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            hash = (hash ^ graph.getNodeId(node).hashCode()) * 0x100000001b3L;
+        }
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            hash = (hash ^ graph.getEdgeId(edge).hashCode()) * 0x100000001b3L;
+            hash = (hash ^ graph.getEdgeSource(edge)) * 0x100000001b3L;
+            hash = (hash ^ graph.getEdgeTarget(edge)) * 0x100000001b3L;
+            hash = (hash ^ Double.doubleToLongBits(graph.getEdgeLength(edge))) * 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    private static void writeInts(DataOutputStream out, IntBuffer buffer) throws IOException {
+        for (int i = 0; i < buffer.limit(); i++) {
+            out.writeInt(buffer.get(i));
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, DoubleBuffer buffer) throws IOException {
+        for (int i = 0; i < buffer.limit(); i++) {
+            out.writeDouble(buffer.get(i));
+        }
+    }
+
+    /**
+     * Write the hierarchy to a temporary file, which replaces the target file when complete.
+     */
+    public void write(Path filePath) throws IOException {
+        Path absolutePath = filePath.toAbsolutePath();
+        Files.createDirectories(absolutePath.getParent());
+        Path tempFile = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(),
+                TEMP_FILE_SUFFIX);
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(nodeCount);
+                out.writeInt(edgeCount);
+                out.writeInt(forwardTargets.limit());
+                out.writeInt(backwardTargets.limit());
+                out.writeInt(shortcutFirstChildren.limit());
+                out.writeLong(fingerprint);
+                writeInts(out, forwardFirstArcs);
+                writeInts(out, forwardTargets);
+                writeInts(out, forwardArcIds);
+                writeDoubles(out, forwardWeights);
+                writeInts(out, backwardFirstArcs);
+                writeInts(out, backwardTargets);
+                writeInts(out, backwardArcIds);
+                writeDoubles(out, backwardWeights);
+                writeInts(out, shortcutFirstChildren);
+                writeInts(out, shortcutSecondChildren);
+            }
+
+            Files.move(tempFile, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getShortcutCount() {
+        return shortcutFirstChildren.limit();
+    }
+
+    int getForwardFirstArc(int node) {
+        return forwardFirstArcs.get(node);
+    }
+
+    int getForwardTarget(int arc) {
+        return forwardTargets.get(arc);
+    }
+
+    int getForwardArcId(int arc) {
+        return forwardArcIds.get(arc);
+    }
+
+    double getForwardWeight(int arc) {
+        return forwardWeights.get(arc);
+    }
+
+    int getBackwardFirstArc(int node) {
+        return backwardFirstArcs.get(node);
+    }
+
+    int getBackwardTarget(int arc) {
+        return backwardTargets.get(arc);
+    }
+
+    int getBackwardArcId(int arc) {
+        return backwardArcIds.get(arc);
+    }
+
+    double getBackwardWeight(int arc) {
+        return backwardWeights.get(arc);
+    }
+
+    boolean isShortcut(int arcId) {
+        return arcId >= edgeCount;
+    }
+
+    int getFirstChild(int arcId) {
+        return shortcutFirstChildren.get(arcId - edgeCount);
+    }
+
+    int getSecondChild(int arcId) {
+        return shortcutSecondChildren.get(arcId - edgeCount);
+    }
+}
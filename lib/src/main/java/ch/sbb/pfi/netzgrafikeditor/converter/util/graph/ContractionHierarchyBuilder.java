@@ -0,0 +1,349 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Contracts the nodes of a track graph one by one, in order of their edge difference (shortcuts added minus arcs
+ * removed), the number of already contracted neighbours and their level in the hierarchy; the latter two spread the
+ * contraction evenly over the graph and keep the hierarchy flat. The priorities are updated lazily: a polled node is
+ * only contracted if its recomputed priority is still the lowest.
+ * <p>
+ * The witness search, which looks for a path that makes a shortcut unnecessary, is limited in the number of settled
+ * nodes. If it gives up, a shortcut is added that might not be needed; the hierarchy stays correct but gets larger.
+ */
+@Slf4j
+final class ContractionHierarchyBuilder {
+
+    private static final int WITNESS_SETTLED_LIMIT = 500;
+    private static final int INITIAL_DEGREE_CAPACITY = 4;
+
+    private final TrackGraph graph;
+    private final long fingerprint;
+    private final int nodeCount;
+
+    // arcs, the first ones are the edges of the graph, followed by the shortcuts
+    private int[] arcSources;
+    private int[] arcTargets;
+    private double[] arcWeights;
+    private int[] arcFirstChildren;
+    private int[] arcSecondChildren;
+    private int arcCount;
+
+    // incoming and outgoing arcs per node, including arcs to contracted nodes which are skipped
+    private final int[][] incomingArcs;
+    private final int[] incomingCounts;
+    private final int[][] outgoingArcs;
+    private final int[] outgoingCounts;
+
+    private final boolean[] contracted;
+    private final int[] contractedNeighbours;
+    private final int[] levels;
+    private final int[] ranks;
+
+    // witness search state, valid if the stamp equals the current search
+    private final MinHeap witnessHeap = new MinHeap();
+    private final int[] witnessStamps;
+    private final double[] witnessDistances;
+    private int witnessSearch;
+
+    ContractionHierarchyBuilder(TrackGraph graph, long fingerprint) {
+        this.graph = graph;
+        this.fingerprint = fingerprint;
+        this.nodeCount = graph.getNodeCount();
+
+        int capacity = Math.max(16, graph.getEdgeCount() * 2);
+        arcSources = new int[capacity];
+        arcTargets = new int[capacity];
+        arcWeights = new double[capacity];
+        arcFirstChildren = new int[capacity];
+        arcSecondChildren = new int[capacity];
+
+        incomingArcs = new int[nodeCount][];
+        incomingCounts = new int[nodeCount];
+        outgoingArcs = new int[nodeCount][];
+        outgoingCounts = new int[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            incomingArcs[node] = new int[INITIAL_DEGREE_CAPACITY];
+            outgoingArcs[node] = new int[INITIAL_DEGREE_CAPACITY];
+        }
+
+        contracted = new boolean[nodeCount];
+        contractedNeighbours = new int[nodeCount];
+        levels = new int[nodeCount];
+        ranks = new int[nodeCount];
+        witnessStamps = new int[nodeCount];
+        witnessDistances = new double[nodeCount];
+    }
+
+    ContractionHierarchy build() {
+        long start = System.currentTimeMillis();
+
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            addArc(graph.getEdgeSource(edge), graph.getEdgeTarget(edge), graph.getEdgeLength(edge), -1, -1);
+        }
+
+        MinHeap queue = new MinHeap();
+        for (int node = 0; node < nodeCount; node++) {
+            queue.push(node, priority(node));
+        }
+
+        int rank = 0;
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            if (contracted[node]) {
+                continue;
+            }
+
+            // lazy update, contract only if the node is still the least important one
+            double priority = priority(node);
+            if (!queue.isEmpty() && priority > queue.peekPriority()) {
+                queue.push(node, priority);
+                continue;
+            }
+
+            contract(node, true);
+            contracted[node] = true;
+            ranks[node] = rank++;
+        }
+
+        ContractionHierarchy hierarchy = assemble();
+        log.info("Built contraction hierarchy with {} shortcuts for {} nodes and {} edges in {} ms",
+                arcCount - graph.getEdgeCount(), nodeCount, graph.getEdgeCount(),
+                System.currentTimeMillis() - start);
+
+        return hierarchy;
+    }
+
+    private double priority(int node) {
+        int shortcuts = contract(node, false);
+        int removedArcs = 0;
+        for (int i = 0; i < incomingCounts[node]; i++) {
+            if (!contracted[arcSources[incomingArcs[node][i]]]) {
+                removedArcs++;
+            }
+        }
+        for (int i = 0; i < outgoingCounts[node]; i++) {
+            if (!contracted[arcTargets[outgoingArcs[node][i]]]) {
+                removedArcs++;
+            }
+        }
+
+        return 2 * (shortcuts - removedArcs) + contractedNeighbours[node] + levels[node];
+    }
+
+    // returns the number of shortcuts needed to contract the node, which are only added if requested
+    private int contract(int node, boolean addShortcuts) {
+        int shortcuts = 0;
+
+        for (int i = 0; i < incomingCounts[node]; i++) {
+            int incomingArc = incomingArcs[node][i];
+            int source = arcSources[incomingArc];
+            if (contracted[source] || source == node) {
+                continue;
+            }
+
+            double maxWeight = -1;
+            for (int j = 0; j < outgoingCounts[node]; j++) {
+                int target = arcTargets[outgoingArcs[node][j]];
+                if (!contracted[target] && target != source && target != node) {
+                    maxWeight = Math.max(maxWeight, arcWeights[incomingArc] + arcWeights[outgoingArcs[node][j]]);
+                }
+            }
+            if (maxWeight < 0) {
+                continue;
+            }
+
+            searchWitnesses(source, node, maxWeight);
+
+            for (int j = 0; j < outgoingCounts[node]; j++) {
+                int outgoingArc = outgoingArcs[node][j];
+                int target = arcTargets[outgoingArc];
+                if (contracted[target] || target == source || target == node) {
+                    continue;
+                }
+
+                double weight = arcWeights[incomingArc] + arcWeights[outgoingArc];
+                if (witnessStamps[target] == witnessSearch && witnessDistances[target] <= weight) {
+                    continue;
+                }
+
+                shortcuts++;
+                if (addShortcuts) {
+                    addShortcut(source, target, weight, incomingArc, outgoingArc);
+                }
+            }
+        }
+
+        if (addShortcuts) {
+            for (int i = 0; i < incomingCounts[node]; i++) {
+                updateNeighbour(arcSources[incomingArcs[node][i]], node);
+            }
+            for (int i = 0; i < outgoingCounts[node]; i++) {
+                updateNeighbour(arcTargets[outgoingArcs[node][i]], node);
+            }
+        }
+
+        return shortcuts;
+    }
+
+    private void updateNeighbour(int neighbour, int contractedNode) {
+        contractedNeighbours[neighbour]++;
+        levels[neighbour] = Math.max(levels[neighbour], levels[contractedNode] + 1);
+    }
+
+    // replaces a longer shortcut between the same nodes instead of adding a parallel one
+    private void addShortcut(int source, int target, double weight, int firstChild, int secondChild) {
+        int edgeCount = graph.getEdgeCount();
+        for (int i = 0; i < outgoingCounts[source]; i++) {
+            int arc = outgoingArcs[source][i];
+            if (arc >= edgeCount && arcTargets[arc] == target) {
+                if (weight < arcWeights[arc]) {
+                    arcWeights[arc] = weight;
+                    arcFirstChildren[arc] = firstChild;
+                    arcSecondChildren[arc] = secondChild;
+                }
+                return;
+            }
+        }
+
+        addArc(source, target, weight, firstChild, secondChild);
+    }
+
+    // Dijkstra from the source on the remaining graph without the contracted node, up to the max weight
+    private void searchWitnesses(int source, int excludedNode, double maxWeight) {
+        witnessHeap.clear();
+        witnessSearch++;
+        if (witnessSearch == 0) {
+            Arrays.fill(witnessStamps, 0);
+            witnessSearch = 1;
+        }
+
+        witnessStamps[source] = witnessSearch;
+        witnessDistances[source] = 0;
+        witnessHeap.push(source, 0);
+
+        int settled = 0;
+        while (!witnessHeap.isEmpty() && settled < WITNESS_SETTLED_LIMIT) {
+            double distance = witnessHeap.peekPriority();
+            int node = witnessHeap.poll();
+            if (distance > witnessDistances[node]) {
+                continue;
+            }
+            if (distance > maxWeight) {
+                break;
+            }
+            settled++;
+
+            for (int i = 0; i < outgoingCounts[node]; i++) {
+                int arc = outgoingArcs[node][i];
+                int next = arcTargets[arc];
+                if (contracted[next] || next == excludedNode) {
+                    continue;
+                }
+
+                double nextDistance = distance + arcWeights[arc];
+                if (witnessStamps[next] != witnessSearch || nextDistance < witnessDistances[next]) {
+                    witnessStamps[next] = witnessSearch;
+                    witnessDistances[next] = nextDistance;
+                    witnessHeap.push(next, nextDistance);
+                }
+            }
+        }
+    }
+
+    private void addArc(int source, int target, double weight, int firstChild, int secondChild) {
+        if (arcCount == arcSources.length) {
+            int capacity = arcCount * 2;
+            arcSources = Arrays.copyOf(arcSources, capacity);
+            arcTargets = Arrays.copyOf(arcTargets, capacity);
+            arcWeights = Arrays.copyOf(arcWeights, capacity);
+            arcFirstChildren = Arrays.copyOf(arcFirstChildren, capacity);
+            arcSecondChildren = Arrays.copyOf(arcSecondChildren, capacity);
+        }
+
+        int arc = arcCount++;
+        arcSources[arc] = source;
+        arcTargets[arc] = target;
+        arcWeights[arc] = weight;
+        arcFirstChildren[arc] = firstChild;
+        arcSecondChildren[arc] = secondChild;
+
+        // loops are never part of a shortest path
+        if (source != target) {
+            outgoingArcs[source] = append(outgoingArcs[source], outgoingCounts[source]++, arc);
+            incomingArcs[target] = append(incomingArcs[target], incomingCounts[target]++, arc);
+        }
+    }
+
+    private int[] append(int[] array, int index, int value) {
+        int[] result = index == array.length ? Arrays.copyOf(array, index * 2) : array;
+        result[index] = value;
+
+        return result;
+    }
+
+    // splits all arcs into the upward graph grouped by source and the reversed downward graph grouped by target
+    private ContractionHierarchy assemble() {
+        int[] forwardFirstArcs = new int[nodeCount + 1];
+        int[] backwardFirstArcs = new int[nodeCount + 1];
+        for (int arc = 0; arc < arcCount; arc++) {
+            int source = arcSources[arc];
+            int target = arcTargets[arc];
+            if (source == target) {
+                continue;
+            }
+            if (ranks[source] < ranks[target]) {
+                forwardFirstArcs[source + 1]++;
+            } else {
+                backwardFirstArcs[target + 1]++;
+            }
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            forwardFirstArcs[node + 1] += forwardFirstArcs[node];
+            backwardFirstArcs[node + 1] += backwardFirstArcs[node];
+        }
+
+        int forwardArcCount = forwardFirstArcs[nodeCount];
+        int backwardArcCount = backwardFirstArcs[nodeCount];
+        int[] forwardTargets = new int[forwardArcCount];
+        int[] forwardArcIds = new int[forwardArcCount];
+        double[] forwardWeights = new double[forwardArcCount];
+        int[] backwardTargets = new int[backwardArcCount];
+        int[] backwardArcIds = new int[backwardArcCount];
+        double[] backwardWeights = new double[backwardArcCount];
+
+        int[] nextForward = Arrays.copyOf(forwardFirstArcs, nodeCount);
+        int[] nextBackward = Arrays.copyOf(backwardFirstArcs, nodeCount);
+        for (int arc = 0; arc < arcCount; arc++) {
+            int source = arcSources[arc];
+            int target = arcTargets[arc];
+            if (source == target) {
+                continue;
+            }
+            if (ranks[source] < ranks[target]) {
+                int index = nextForward[source]++;
+                forwardTargets[index] = target;
+                forwardArcIds[index] = arc;
+                forwardWeights[index] = arcWeights[arc];
+            } else {
+                int index = nextBackward[target]++;
+                backwardTargets[index] = source;
+                backwardArcIds[index] = arc;
+                backwardWeights[index] = arcWeights[arc];
+            }
+        }
+
+        int edgeCount = graph.getEdgeCount();
+
+        return new ContractionHierarchy(nodeCount, edgeCount, fingerprint, IntBuffer.wrap(forwardFirstArcs),
+                IntBuffer.wrap(forwardTargets), IntBuffer.wrap(forwardArcIds), DoubleBuffer.wrap(forwardWeights),
+                IntBuffer.wrap(backwardFirstArcs), IntBuffer.wrap(backwardTargets), IntBuffer.wrap(backwardArcIds),
+                DoubleBuffer.wrap(backwardWeights),
+                IntBuffer.wrap(Arrays.copyOfRange(arcFirstChildren, edgeCount, arcCount)),
+                IntBuffer.wrap(Arrays.copyOfRange(arcSecondChildren, edgeCount, arcCount)));
+    }
+}
@@ -0,0 +1,191 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import java.util.Arrays;
+
+/**
+ * Bidirectional Dijkstra search on a contraction hierarchy: the forward search from the source only follows arcs up
+ * the hierarchy, the backward search from the target only arcs coming down. Both settle a few nodes each, and the
+ * shortest path meets at its most important node. The shortcuts on the path are then unpacked into graph edges.
+ * <p>
+ * Like {@link ShortestPathSearch}, the search state is reused between queries and an instance is not thread-safe.
+ */
+public final class ContractionHierarchySearch implements PathSearch {
+
+    private final ContractionHierarchy hierarchy;
+    private final Direction forward;
+    private final Direction backward;
+    private int query;
+
+    // unpacking stack and result buffer, grown on demand
+    private int[] stack = new int[64];
+    private int[] edges = new int[64];
+
+    public ContractionHierarchySearch(ContractionHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        this.forward = new Direction(hierarchy.getNodeCount());
+        this.backward = new Direction(hierarchy.getNodeCount());
+    }
+
+    @Override
+    public int[] findPath(int source, int target) {
+        if (source == target) {
+            return EMPTY_PATH;
+        }
+
+        nextQuery();
+        forward.start(source, query);
+        backward.start(target, query);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meetingNode = -1;
+
+        // alternate between the directions, each stops once it cannot improve the best path
+        while (true) {
+            boolean forwardDone = forward.heap.isEmpty() || forward.heap.peekPriority() >= best;
+            boolean backwardDone = backward.heap.isEmpty() || backward.heap.peekPriority() >= best;
+            if (forwardDone && backwardDone) {
+                break;
+            }
+
+            if (!forwardDone) {
+                int node = forward.settleNext(query, hierarchy, true);
+                if (node != -1 && backward.stamps[node] == query) {
+                    double distance = forward.distances[node] + backward.distances[node];
+                    if (distance < best) {
+                        best = distance;
+                        meetingNode = node;
+                    }
+                }
+            }
+
+            if (!backwardDone) {
+                int node = backward.settleNext(query, hierarchy, false);
+                if (node != -1 && forward.stamps[node] == query) {
+                    double distance = forward.distances[node] + backward.distances[node];
+                    if (distance < best) {
+                        best = distance;
+                        meetingNode = node;
+                    }
+                }
+            }
+        }
+
+        if (meetingNode == -1) {
+            return null;
+        }
+
+        return unpackPath(meetingNode);
+    }
+
+    private int[] unpackPath(int meetingNode) {
+        int edgeCount = 0;
+
+        // arcs from the source up to the meeting node, collected backwards and pushed in reverse
+        int top = 0;
+        for (int node = meetingNode; forward.predecessorArcs[node] != -1; node = forward.predecessorNodes[node]) {
+            stack = ensureCapacity(stack, top + 1);
+            stack[top++] = forward.predecessorArcs[node];
+        }
+        int[] upwardArcs = Arrays.copyOf(stack, top);
+        for (int i = upwardArcs.length - 1; i >= 0; i--) {
+            edgeCount = unpack(upwardArcs[i], edgeCount);
+        }
+
+        // arcs from the meeting node down to the target, in travel order
+        for (int node = meetingNode; backward.predecessorArcs[node] != -1; node = backward.predecessorNodes[node]) {
+            edgeCount = unpack(backward.predecessorArcs[node], edgeCount);
+        }
+
+        return Arrays.copyOf(edges, edgeCount);
+    }
+
+    // appends the graph edges of an arc in travel order
+    private int unpack(int arcId, int edgeCount) {
+        int top = 0;
+        stack = ensureCapacity(stack, 1);
+        stack[top++] = arcId;
+
+        while (top > 0) {
+            int arc = stack[--top];
+            if (hierarchy.isShortcut(arc)) {
+                stack = ensureCapacity(stack, top + 2);
+                stack[top++] = hierarchy.getSecondChild(arc);
+                stack[top++] = hierarchy.getFirstChild(arc);
+            } else {
+                edges = ensureCapacity(edges, edgeCount + 1);
+                edges[edgeCount++] = arc;
+            }
+        }
+
+        return edgeCount;
+    }
+
+    private static int[] ensureCapacity(int[] array, int capacity) {
+        return capacity > array.length ? Arrays.copyOf(array, Math.max(capacity, array.length * 2)) : array;
+    }
+
+    private void nextQuery() {
+        query++;
+
+        // stamps overflowed, invalidate all nodes explicitly
+        if (query == 0) {
+            Arrays.fill(forward.stamps, 0);
+            Arrays.fill(backward.stamps, 0);
+            query = 1;
+        }
+    }
+
+    private static final class Direction {
+
+        private final MinHeap heap = new MinHeap();
+        private final int[] stamps;
+        private final double[] distances;
+        private final int[] predecessorArcs;
+        private final int[] predecessorNodes;
+
+        private Direction(int nodeCount) {
+            stamps = new int[nodeCount];
+            distances = new double[nodeCount];
+            predecessorArcs = new int[nodeCount];
+            predecessorNodes = new int[nodeCount];
+        }
+
+        private void start(int node, int query) {
+            heap.clear();
+            visit(node, query, 0, -1, -1);
+            heap.push(node, 0);
+        }
+
+        private void visit(int node, int query, double distance, int predecessorArc, int predecessorNode) {
+            stamps[node] = query;
+            distances[node] = distance;
+            predecessorArcs[node] = predecessorArc;
+            predecessorNodes[node] = predecessorNode;
+        }
+
+        // settles the next node and relaxes its arcs, returns -1 if the polled entry was stale
+        private int settleNext(int query, ContractionHierarchy hierarchy, boolean upward) {
+            double distance = heap.peekPriority();
+            int node = heap.poll();
+            if (distance > distances[node]) {
+                return -1;
+            }
+
+            int firstArc = upward ? hierarchy.getForwardFirstArc(node) : hierarchy.getBackwardFirstArc(node);
+            int lastArc = upward ? hierarchy.getForwardFirstArc(node + 1) : hierarchy.getBackwardFirstArc(node + 1);
+            for (int arc = firstArc; arc < lastArc; arc++) {
+                int next = upward ? hierarchy.getForwardTarget(arc) : hierarchy.getBackwardTarget(arc);
+                double nextDistance = distance + (upward ? hierarchy.getForwardWeight(
+                        arc) : hierarchy.getBackwardWeight(arc));
+
+                if (stamps[next] != query || nextDistance < distances[next]) {
+                    visit(next, query, nextDistance,
+                            upward ? hierarchy.getForwardArcId(arc) : hierarchy.getBackwardArcId(arc), node);
+                    heap.push(next, nextDistance);
+                }
+            }
+
+            return node;
+        }
+    }
+}
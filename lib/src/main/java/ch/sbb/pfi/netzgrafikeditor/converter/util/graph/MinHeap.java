@@ -0,0 +1,77 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of nodes with their priorities in primitive arrays.
+ * <p>
+ * There is no decrease-key operation: a node is pushed again with its lower priority, and the searches skip the stale
+ * entries when they are polled.
+ */
+final class MinHeap {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] nodes = new int[INITIAL_CAPACITY];
+    private double[] priorities = new double[INITIAL_CAPACITY];
+    private int size;
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    double peekPriority() {
+        return priorities[0];
+    }
+
+    void push(int node, double priority) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            priorities = Arrays.copyOf(priorities, size * 2);
+        }
+
+        // sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            priorities[i] = priorities[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        priorities[i] = priority;
+    }
+
+    int poll() {
+        int top = nodes[0];
+        int node = nodes[--size];
+        double priority = priorities[size];
+
+        // sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+            if (priority <= priorities[child]) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            priorities[i] = priorities[child];
+            i = child;
+        }
+        nodes[i] = node;
+        priorities[i] = priority;
+
+        return top;
+    }
+}
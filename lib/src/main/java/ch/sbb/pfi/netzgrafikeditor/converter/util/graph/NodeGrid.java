@@ -0,0 +1,153 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+/**
+ * Uniform grid over the bounding box of the nodes, for nearest node queries.
+ * <p>
+ * The grid has about {@value #NODES_PER_CELL} nodes per cell, the node indices of each cell are stored in compressed
+ * sparse row layout. A query visits the cells in rings around the cell of the coordinate, until the distance to the
+ * nearest node found is not larger than the distance to the cells not visited yet.
+ */
+final class NodeGrid {
+
+    private static final int NODES_PER_CELL = 2;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    private final double minLatitude;
+    private final double minLongitude;
+    private final double cellHeight;
+    private final double cellWidth;
+    private final int rows;
+    private final int cols;
+    private final int[] firstNodes;
+    private final int[] cellNodes;
+
+    NodeGrid(double[] latitudes, double[] longitudes) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        int nodeCount = latitudes.length;
+
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < nodeCount; i++) {
+            minLat = Math.min(minLat, latitudes[i]);
+            maxLat = Math.max(maxLat, latitudes[i]);
+            minLon = Math.min(minLon, longitudes[i]);
+            maxLon = Math.max(maxLon, longitudes[i]);
+        }
+
+        // square cells in degrees, a zero extent in one direction gives a single row or column
+        double height = nodeCount == 0 ? 0 : maxLat - minLat;
+        double width = nodeCount == 0 ? 0 : maxLon - minLon;
+        int cells = Math.max(1, nodeCount / NODES_PER_CELL);
+        double cellSize = height > 0 && width > 0 ? Math.sqrt(height * width / cells) : Math.max(height, width) / cells;
+        if (cellSize > 0) {
+            rows = (int) Math.min(cells, Math.floor(height / cellSize) + 1);
+            cols = (int) Math.min(cells, Math.floor(width / cellSize) + 1);
+        } else {
+            rows = 1;
+            cols = 1;
+        }
+        minLatitude = nodeCount == 0 ? 0 : minLat;
+        minLongitude = nodeCount == 0 ? 0 : minLon;
+        cellHeight = height > 0 ? height / rows : 1;
+        cellWidth = width > 0 ? width / cols : 1;
+
+        // counting sort of the nodes by their cell
+        firstNodes = new int[rows * cols + 1];
+        int[] nodeCells = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodeCells[i] = cell(row(latitudes[i]), col(longitudes[i]));
+            firstNodes[nodeCells[i] + 1]++;
+        }
+        for (int i = 0; i < rows * cols; i++) {
+            firstNodes[i + 1] += firstNodes[i];
+        }
+        cellNodes = new int[nodeCount];
+        int[] next = new int[rows * cols];
+        System.arraycopy(firstNodes, 0, next, 0, rows * cols);
+        for (int i = 0; i < nodeCount; i++) {
+            cellNodes[next[nodeCells[i]]++] = i;
+        }
+    }
+
+    /**
+     * Find the node closest to a coordinate, comparing equirectangular distances; ties are resolved to the lowest node
+     * index.
+     *
+     * @return the index of the nearest node, or -1 if there are no nodes.
+     */
+    int findNearestNode(double latitude, double longitude) {
+        if (cellNodes.length == 0) {
+            return -1;
+        }
+
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        int row = row(latitude);
+        int col = col(longitude);
+
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ; ring++) {
+            int minRow = row - ring;
+            int maxRow = row + ring;
+            int minCol = col - ring;
+            int maxCol = col + ring;
+
+            // visit the cells on the ring
+            for (int r = Math.max(0, minRow); r <= Math.min(rows - 1, maxRow); r++) {
+                boolean edgeRow = r == minRow || r == maxRow;
+                for (int c = Math.max(0, minCol); c <= Math.min(cols - 1, maxCol); c++) {
+                    if (!edgeRow && c != minCol && c != maxCol) {
+                        continue;
+                    }
+                    int cell = cell(r, c);
+                    for (int i = firstNodes[cell]; i < firstNodes[cell + 1]; i++) {
+                        int node = cellNodes[i];
+                        double dLat = latitudes[node] - latitude;
+                        double dLon = (longitudes[node] - longitude) * cosLatitude;
+                        double distance = dLat * dLat + dLon * dLon;
+                        if (distance < nearestDistance || (distance == nearestDistance && node < nearest)) {
+                            nearest = node;
+                            nearestDistance = distance;
+                        }
+                    }
+                }
+            }
+
+            // lower bound of the distance to the cells outside the rings visited so far
+            double bound = Double.POSITIVE_INFINITY;
+            if (minRow > 0) {
+                bound = Math.min(bound, latitude - (minLatitude + minRow * cellHeight));
+            }
+            if (maxRow < rows - 1) {
+                bound = Math.min(bound, minLatitude + (maxRow + 1) * cellHeight - latitude);
+            }
+            if (minCol > 0) {
+                bound = Math.min(bound, (longitude - (minLongitude + minCol * cellWidth)) * cosLatitude);
+            }
+            if (maxCol < cols - 1) {
+                bound = Math.min(bound, (minLongitude + (maxCol + 1) * cellWidth - longitude) * cosLatitude);
+            }
+
+            if (bound == Double.POSITIVE_INFINITY || bound * bound > nearestDistance) {
+                return nearest;
+            }
+        }
+    }
+
+    private int row(double latitude) {
+        return Math.clamp((long) Math.floor((latitude - minLatitude) / cellHeight), 0, rows - 1);
+    }
+
+    private int col(double longitude) {
+        return Math.clamp((long) Math.floor((longitude - minLongitude) / cellWidth), 0, cols - 1);
+    }
+
+    private int cell(int row, int col) {
+        return row * cols + col;
+    }
+}
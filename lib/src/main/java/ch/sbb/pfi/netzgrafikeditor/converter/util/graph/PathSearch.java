@@ -0,0 +1,19 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+/**
+ * Shortest path search between two nodes of a track graph. Implementations reuse their search state between queries
+ * and are not thread-safe.
+ */
+public interface PathSearch {
+
+    int[] EMPTY_PATH = new int[0];
+
+    /**
+     * Find the shortest path between two nodes.
+     *
+     * @return the edges of the path in travel order, empty if source and target are the same node, or null if the
+     * target is not reachable.
+     */
+    int[] findPath(int source, int target);
+
+}
@@ -0,0 +1,117 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.HaversineDistance;
+
+import java.util.Arrays;
+
+/**
+ * A* search on a track graph, guided by the Haversine distance to the target node.
+ * <p>
+ * The heuristic is consistent as long as no edge is shorter than the great-circle distance between its nodes, which
+ * holds for lengths measured along the track; the returned paths are then shortest paths. The search state is kept in
+ * primitive arrays that are reused between queries and reset lazily per query, so an instance is not thread-safe.
+ */
+public final class ShortestPathSearch implements PathSearch {
+
+    private final TrackGraph graph;
+    private final MinHeap heap = new MinHeap();
+
+    // per node state, valid if the stamp equals the current query
+    private final int[] stamps;
+    private final double[] distances;
+    private final int[] predecessorEdges;
+    private final boolean[] settled;
+    private int query;
+
+    public ShortestPathSearch(TrackGraph graph) {
+        this.graph = graph;
+
+        int nodeCount = graph.getNodeCount();
+        stamps = new int[nodeCount];
+        distances = new double[nodeCount];
+        predecessorEdges = new int[nodeCount];
+        settled = new boolean[nodeCount];
+    }
+
+    @Override
+    public int[] findPath(int source, int target) {
+        if (source == target) {
+            return EMPTY_PATH;
+        }
+
+        nextQuery();
+        double targetLatitude = graph.getLatitude(target);
+        double targetLongitude = graph.getLongitude(target);
+
+        visit(source, 0, -1);
+        heap.push(source, heuristic(source, targetLatitude, targetLongitude));
+
+        while (!heap.isEmpty()) {
+            int node = heap.poll();
+            if (settled[node]) {
+                continue;
+            }
+            settled[node] = true;
+
+            if (node == target) {
+                return tracePath(target);
+            }
+
+            double distance = distances[node];
+            for (int edge = graph.getFirstEdge(node); edge < graph.getFirstEdge(node + 1); edge++) {
+                int next = graph.getEdgeTarget(edge);
+                double nextDistance = distance + graph.getEdgeLength(edge);
+
+                if (stamps[next] != query) {
+                    visit(next, nextDistance, edge);
+                } else if (settled[next] || nextDistance >= distances[next]) {
+                    continue;
+                } else {
+                    distances[next] = nextDistance;
+                    predecessorEdges[next] = edge;
+                }
+
+                heap.push(next, nextDistance + heuristic(next, targetLatitude, targetLongitude));
+            }
+        }
+
+        return null;
+    }
+
+    private double heuristic(int node, double targetLatitude, double targetLongitude) {
+        return HaversineDistance.calculate(graph.getLatitude(node), graph.getLongitude(node), targetLatitude,
+                targetLongitude);
+    }
+
+    private int[] tracePath(int target) {
+        int length = 0;
+        for (int node = target; predecessorEdges[node] != -1; node = graph.getEdgeSource(predecessorEdges[node])) {
+            length++;
+        }
+
+        int[] path = new int[length];
+        for (int node = target; predecessorEdges[node] != -1; node = graph.getEdgeSource(predecessorEdges[node])) {
+            path[--length] = predecessorEdges[node];
+        }
+
+        return path;
+    }
+
+    private void nextQuery() {
+        heap.clear();
+        query++;
+
+        // stamps overflowed, invalidate all nodes explicitly
+        if (query == 0) {
+            Arrays.fill(stamps, 0);
+            query = 1;
+        }
+    }
+
+    private void visit(int node, double distance, int predecessorEdge) {
+        stamps[node] = query;
+        distances[node] = distance;
+        predecessorEdges[node] = predecessorEdge;
+        settled[node] = false;
+    }
+}
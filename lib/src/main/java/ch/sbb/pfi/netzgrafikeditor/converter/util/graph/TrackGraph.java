@@ -0,0 +1,221 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable directed graph of track nodes and segments in compressed sparse row layout.
+ * <p>
+ * Nodes and edges are addressed by their index; the outgoing edges of node {@code n} are the indices from
+ * {@link #getFirstEdge(int) getFirstEdge(n)} (inclusive) to {@link #getFirstEdge(int) getFirstEdge(n + 1)}
+ * (exclusive). All attributes are stored in primitive arrays, so that a search touches no objects besides the graph.
+ */
+public final class TrackGraph {
+
+    private final String[] nodeIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final Map<String, Integer> nodeIndices;
+    private final NodeGrid nodeGrid;
+
+    private final int[] firstEdges;
+    private final int[] edgeSources;
+    private final int[] edgeTargets;
+    private final double[] edgeLengths;
+    private final String[] edgeIds;
+
+    private TrackGraph(Builder builder) {
+        int nodeCount = builder.nodeCount;
+        int edgeCount = builder.edgeCount;
+
+        nodeIds = Arrays.copyOf(builder.nodeIds, nodeCount);
+        latitudes = Arrays.copyOf(builder.latitudes, nodeCount);
+        longitudes = Arrays.copyOf(builder.longitudes, nodeCount);
+        nodeIndices = Map.copyOf(builder.nodeIndices);
+        nodeGrid = new NodeGrid(latitudes, longitudes);
+
+        // counting sort of the edges by their source node
+        firstEdges = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            firstEdges[builder.edgeSources[i] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            firstEdges[i + 1] += firstEdges[i];
+        }
+
+        edgeSources = new int[edgeCount];
+        edgeTargets = new int[edgeCount];
+        edgeLengths = new double[edgeCount];
+        edgeIds = new String[edgeCount];
+        int[] next = Arrays.copyOf(firstEdges, nodeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int edge = next[builder.edgeSources[i]]++;
+            edgeSources[edge] = builder.edgeSources[i];
+            edgeTargets[edge] = builder.edgeTargets[i];
+            edgeLengths[edge] = builder.edgeLengths[i];
+            edgeIds[edge] = builder.edgeIds[i];
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getNodeCount() {
+        return nodeIds.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeIds.length;
+    }
+
+    /**
+     * @return the index of the node, or -1 if there is no node with this id.
+     */
+    public int getNodeIndex(String nodeId) {
+        return nodeIndices.getOrDefault(nodeId, -1);
+    }
+
+    public String getNodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public double getLatitude(int node) {
+        return latitudes[node];
+    }
+
+    public double getLongitude(int node) {
+        return longitudes[node];
+    }
+
+    public Coordinate getCoordinate(int node) {
+        return new Coordinate(latitudes[node], longitudes[node]);
+    }
+
+    public int getFirstEdge(int node) {
+        return firstEdges[node];
+    }
+
+    public int getEdgeSource(int edge) {
+        return edgeSources[edge];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public double getEdgeLength(int edge) {
+        return edgeLengths[edge];
+    }
+
+    public String getEdgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    /**
+     * Find the node closest to a coordinate on a uniform grid index of the nodes, comparing equirectangular distances;
+     * ties are resolved to the lowest node index.
+     *
+     * @return the index of the nearest node, or -1 if the graph is empty.
+     */
+    public int findNearestNode(double latitude, double longitude) {
+        return nodeGrid.findNearestNode(latitude, longitude);
+    }
+
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final Map<String, Integer> nodeIndices = new HashMap<>();
+        private final Map<String, Integer> edgeIndices = new HashMap<>();
+
+        private String[] nodeIds = new String[INITIAL_CAPACITY];
+        private double[] latitudes = new double[INITIAL_CAPACITY];
+        private double[] longitudes = new double[INITIAL_CAPACITY];
+        private int nodeCount;
+
+        private int[] edgeSources = new int[INITIAL_CAPACITY];
+        private int[] edgeTargets = new int[INITIAL_CAPACITY];
+        private double[] edgeLengths = new double[INITIAL_CAPACITY];
+        private String[] edgeIds = new String[INITIAL_CAPACITY];
+        private int edgeCount;
+
+        private Builder() {
+        }
+
+        public Builder addNode(String nodeId, double latitude, double longitude) {
+            if (nodeIndices.putIfAbsent(nodeId, nodeCount) != null) {
+                throw new IllegalArgumentException("Duplicate track node " + nodeId);
+            }
+
+            if (nodeCount == nodeIds.length) {
+                int capacity = nodeCount * 2;
+                nodeIds = Arrays.copyOf(nodeIds, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+
+            nodeIds[nodeCount] = nodeId;
+            latitudes[nodeCount] = latitude;
+            longitudes[nodeCount] = longitude;
+            nodeCount++;
+
+            return this;
+        }
+
+        /**
+         * Add a directed edge between two nodes, which must have been added before.
+         */
+        public Builder addEdge(String edgeId, String fromNodeId, String toNodeId, double length) {
+            int source = requireNode(fromNodeId, edgeId);
+            int target = requireNode(toNodeId, edgeId);
+            if (length < 0 || Double.isNaN(length)) {
+                throw new IllegalArgumentException("Invalid length " + length + " of track segment " + edgeId);
+            }
+            if (edgeIndices.putIfAbsent(edgeId, edgeCount) != null) {
+                throw new IllegalArgumentException("Duplicate track segment " + edgeId);
+            }
+
+            if (edgeCount == edgeIds.length) {
+                int capacity = edgeCount * 2;
+                edgeSources = Arrays.copyOf(edgeSources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeLengths = Arrays.copyOf(edgeLengths, capacity);
+                edgeIds = Arrays.copyOf(edgeIds, capacity);
+            }
+
+            edgeSources[edgeCount] = source;
+            edgeTargets[edgeCount] = target;
+            edgeLengths[edgeCount] = length;
+            edgeIds[edgeCount] = edgeId;
+            edgeCount++;
+
+            return this;
+        }
+
+        public double getLatitude(String nodeId) {
+            return latitudes[requireNode(nodeId, null)];
+        }
+
+        public double getLongitude(String nodeId) {
+            return longitudes[requireNode(nodeId, null)];
+        }
+
+        public TrackGraph build() {
+            return new TrackGraph(this);
+        }
+
+        private int requireNode(String nodeId, String edgeId) {
+            Integer index = nodeIndices.get(nodeId);
+            if (index == null) {
+                throw new IllegalArgumentException(edgeId == null ? "Unknown track node " + nodeId : String.format(
+                        "Unknown track node %s of track segment %s", nodeId, edgeId));
+            }
+
+            return index;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ch.sbb.pfi.netzgrafikeditor.converter.util.time;
 import lombok.EqualsAndHashCode;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.Temporal;
@@ -40,6 +41,11 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
     static final int HOURS_IN_DAY = 24;
     static final int SECONDS_IN_HOUR = SECONDS_IN_MINUTE * MINUTES_IN_HOUR;
     static final int SECONDS_IN_DAY = HOURS_IN_DAY * SECONDS_IN_HOUR;
+    // canonical instances of the whole minutes in two days, which cover the times of a typical timetable
+    static final int CACHED_MINUTES = 2 * HOURS_IN_DAY * MINUTES_IN_HOUR;
+    private static final ServiceDayTime[] CACHE = createCache();
+    // tens and ones digits of the numbers 0 to 99, to format the time without division by ten per digit
+    private static final char[] TWO_DIGITS = createTwoDigits();
     public static final ServiceDayTime NOON = MIDNIGHT.plus(12, ChronoUnit.HOURS);
     private final int totalSeconds;
 
@@ -50,6 +56,42 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
         this.totalSeconds = seconds;
     }
 
+    private static ServiceDayTime[] createCache() {
+        ServiceDayTime[] cache = new ServiceDayTime[CACHED_MINUTES];
+        cache[0] = MIN;
+        for (int minute = 1; minute < CACHED_MINUTES; minute++) {
+            cache[minute] = new ServiceDayTime(minute * SECONDS_IN_MINUTE);
+        }
+
+        return cache;
+    }
+
+    private static char[] createTwoDigits() {
+        char[] digits = new char[200];
+        for (int i = 0; i < 100; i++) {
+            digits[2 * i] = (char) ('0' + i / 10);
+            digits[2 * i + 1] = (char) ('0' + i % 10);
+        }
+
+        return digits;
+    }
+
+    private static void appendTwoDigits(int value, StringBuilder buffer) {
+        buffer.append(TWO_DIGITS[2 * value]).append(TWO_DIGITS[2 * value + 1]);
+    }
+
+    /**
+     * Get the time at the seconds since the start of the service day; whole minutes are canonical instances and do not
+     * allocate.
+     */
+    public static ServiceDayTime ofSeconds(int seconds) {
+        if (seconds >= 0 && seconds % SECONDS_IN_MINUTE == 0 && seconds < CACHED_MINUTES * SECONDS_IN_MINUTE) {
+            return CACHE[seconds / SECONDS_IN_MINUTE];
+        }
+
+        return new ServiceDayTime(seconds);
+    }
+
     public static ServiceDayTime of(int hours, int minutes, int seconds) {
         if (hours < 0) {
             throw new IllegalArgumentException("Hours cannot be negative");
@@ -64,11 +106,11 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
         // cast to long to avoid potential int overflow
         long total = (long) hours * SECONDS_IN_HOUR + (long) minutes * SECONDS_IN_MINUTE + seconds;
 
-        return new ServiceDayTime(Math.toIntExact(total));
+        return ofSeconds(Math.toIntExact(total));
     }
 
     public static ServiceDayTime from(Temporal temporal) {
-        return new ServiceDayTime(temporal.get(ChronoField.SECOND_OF_DAY));
+        return ofSeconds(temporal.get(ChronoField.SECOND_OF_DAY));
     }
 
     @Override
@@ -84,8 +126,21 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
         };
     }
 
+    public ServiceDayTime plusSeconds(int seconds) {
+        return ofSeconds(Math.addExact(totalSeconds, seconds));
+    }
+
+    public ServiceDayTime minusSeconds(int seconds) {
+        return ofSeconds(Math.subtractExact(totalSeconds, seconds));
+    }
+
     @Override
     public ServiceDayTime plus(TemporalAmount amount) {
+        // durations of whole seconds without the dispatch through Duration.addTo
+        if (amount instanceof Duration duration && duration.getNano() == 0) {
+            return plusSeconds(Math.toIntExact(duration.getSeconds()));
+        }
+
         return (ServiceDayTime) amount.addTo(this);
     }
 
@@ -99,11 +154,15 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
             case null, default -> throw new UnsupportedTemporalTypeException("Unit not supported: " + unit);
         };
 
-        return new ServiceDayTime(Math.toIntExact((totalSeconds + addedSeconds)));
+        return ofSeconds(Math.toIntExact((totalSeconds + addedSeconds)));
     }
 
     @Override
     public ServiceDayTime minus(TemporalAmount amount) {
+        if (amount instanceof Duration duration && duration.getNano() == 0) {
+            return minusSeconds(Math.toIntExact(duration.getSeconds()));
+        }
+
         return (ServiceDayTime) amount.subtractFrom(this);
     }
 
@@ -146,8 +205,8 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
             case ChronoField.MINUTE_OF_HOUR -> ServiceDayTime.of(hours, safeValue, seconds);
             case ChronoField.SECOND_OF_MINUTE -> ServiceDayTime.of(hours, minutes, safeValue);
             case ChronoField.MINUTE_OF_DAY ->
-                    new ServiceDayTime(Math.toIntExact(newValue * SECONDS_IN_MINUTE + seconds));
-            case ChronoField.SECOND_OF_DAY -> new ServiceDayTime(safeValue);
+                    ofSeconds(Math.toIntExact(newValue * SECONDS_IN_MINUTE + seconds));
+            case ChronoField.SECOND_OF_DAY -> ofSeconds(safeValue);
             case null, default -> throw new UnsupportedTemporalTypeException("Field not supported: " + field);
         };
     }
@@ -169,10 +228,31 @@ public class ServiceDayTime implements Temporal, Comparable<ServiceDayTime>, Ser
         };
     }
 
+    /**
+     * Append the time in the HH:MM:SS format of {@link #toString()}, without creating intermediate strings. Hours beyond
+     * 99 are written with as many digits as needed.
+     */
+    public StringBuilder appendTo(StringBuilder buffer) {
+        int hours = totalSeconds / SECONDS_IN_HOUR;
+        int minutes = (totalSeconds % SECONDS_IN_HOUR) / SECONDS_IN_MINUTE;
+        int seconds = totalSeconds % SECONDS_IN_MINUTE;
+
+        if (hours < 100) {
+            appendTwoDigits(hours, buffer);
+        } else {
+            buffer.append(hours);
+        }
+        buffer.append(':');
+        appendTwoDigits(minutes, buffer);
+        buffer.append(':');
+        appendTwoDigits(seconds, buffer);
+
+        return buffer;
+    }
+
     @Override
     public String toString() {
-        return String.format("%02d:%02d:%02d", getLong(ChronoField.HOUR_OF_DAY), getLong(ChronoField.MINUTE_OF_HOUR),
-                getLong(ChronoField.SECOND_OF_MINUTE));
+        return appendTo(new StringBuilder(8)).toString();
     }
 
     public int toSecondOfDay() {
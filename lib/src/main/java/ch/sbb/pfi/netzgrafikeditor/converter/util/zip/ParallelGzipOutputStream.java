@@ -0,0 +1,193 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.zip;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a gzip file whose content is compressed in parallel.
+ * <p>
+ * The content is split into fixed-size chunks, and each chunk is compressed into a complete gzip member (header,
+ * deflate stream, CRC and size) on a pool. The members are written in order; their concatenation is a valid gzip file
+ * (RFC 1952), which is read as one stream by {@link java.util.zip.GZIPInputStream} and the standard gzip tools.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private static final byte[] MEMBER_HEADER = {
+            0x1f, (byte) 0x8b, // magic number
+            Deflater.DEFLATED, // compression method
+            0, // flags
+            0, 0, 0, 0, // modification time (not available)
+            0, // extra flags
+            (byte) 0xff // operating system (unknown)
+    };
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final ParallelZipConfig config;
+    private final OutputStream out;
+    private final ExecutorService executor;
+    private final boolean sharedExecutor;
+    private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final int maxPending;
+
+    private byte[] buffer;
+    private int count;
+    private boolean empty = true;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, ParallelZipConfig config) {
+        this(out, config, Executors.newFixedThreadPool(Math.max(1, config.getParallelism())), false);
+    }
+
+    /**
+     * Compresses the chunks on a shared executor, e.g. when several files are written concurrently. The executor is
+     * not shut down on close.
+     */
+    public ParallelGzipOutputStream(OutputStream out, ParallelZipConfig config, ExecutorService executor) {
+        this(out, config, executor, true);
+    }
+
+    private ParallelGzipOutputStream(OutputStream out, ParallelZipConfig config, ExecutorService executor, boolean sharedExecutor) {
+        this.config = config;
+        this.out = new BufferedOutputStream(out, DEFLATE_BUFFER_SIZE);
+        this.executor = executor;
+        this.sharedExecutor = sharedExecutor;
+        this.maxPending = 2 * Math.max(1, config.getParallelism());
+        this.buffer = new byte[config.getChunkSize()];
+    }
+
+    private static <V> V await(Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for gzip member compression");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, long value) {
+        out.write((int) (value & 0xff));
+        out.write((int) ((value >>> 8) & 0xff));
+        out.write((int) ((value >>> 16) & 0xff));
+        out.write((int) ((value >>> 24) & 0xff));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            submitChunk();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (count == buffer.length) {
+                submitChunk();
+            }
+            int n = Math.min(len, buffer.length - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Compress the last chunk, wait for all members to be written and close the output stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            // an empty file still needs one member
+            if (count > 0 || empty) {
+                submitChunk();
+            }
+            while (!pending.isEmpty()) {
+                out.write(await(pending.poll()));
+            }
+        } finally {
+            if (!sharedExecutor) {
+                executor.shutdownNow();
+            }
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Gzip stream is already closed");
+        }
+    }
+
+    private void submitChunk() throws IOException {
+        byte[] chunk = buffer;
+        int length = count;
+        pending.add(executor.submit(() -> compress(chunk, length)));
+        empty = false;
+
+        // back pressure: write the oldest member if too many are in flight
+        while (pending.size() > maxPending || (!pending.isEmpty() && pending.peek().isDone())) {
+            out.write(await(pending.poll()));
+        }
+
+        // the submitted buffer is owned by the member now
+        buffer = new byte[config.getChunkSize()];
+        count = 0;
+    }
+
+    private byte[] compress(byte[] chunk, int length) {
+        int level = config.isStored() ? Deflater.NO_COMPRESSION : config.getCompressionLevel();
+        Deflater deflater = new Deflater(level, true);
+        try {
+            ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + 64);
+            member.writeBytes(MEMBER_HEADER);
+
+            deflater.setInput(chunk, 0, length);
+            deflater.finish();
+            byte[] deflated = new byte[DEFLATE_BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(deflated);
+                member.write(deflated, 0, n);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(chunk, 0, length);
+            writeInt(member, crc.getValue());
+            writeInt(member, length);
+
+            return member.toByteArray();
+
+        } finally {
+            deflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.zip;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.zip.Deflater;
+
+@Value
+@Builder
+public class ParallelZipConfig {
+
+    /**
+     * Deflate compression level from 0 to 9, or -1 for the default level of the deflater.
+     */
+    @Builder.Default
+    int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
+    /**
+     * Store the entries without compression (STORED method), e.g. for fast local iterations. Overrules the compression
+     * level.
+     */
+    @Builder.Default
+    boolean stored = false;
+
+    /**
+     * Number of threads used to compress the chunks of all entries.
+     */
+    @Builder.Default
+    int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Size of the uncompressed chunks in bytes, which are deflated independently. Smaller chunks distribute a single
+     * large entry on more threads, but slightly reduce the compression ratio.
+     */
+    @Builder.Default
+    int chunkSize = 1024 * 1024;
+
+}
@@ -0,0 +1,353 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.zip;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip file whose entries are serialized and compressed in parallel.
+ * <p>
+ * Each entry is written on its own virtual thread into fixed-size chunks, which are deflated independently on a shared
+ * pool. All chunks except the last one of an entry end with a sync flush, so that their concatenation is a single valid
+ * deflate stream. The compressed entries are kept in memory and written in the order they were added, with CRC and
+ * sizes known upfront. ZIP64 is not supported, entries and the archive are limited to 4 GB.
+ */
+@Slf4j
+public class ParallelZipWriter implements Closeable {
+
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int UTF8_FLAG = 1 << 11;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final ParallelZipConfig config;
+    private final OutputStream out;
+    private final ExecutorService entryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService chunkExecutor;
+    private final List<Future<CompressedEntry>> entries = new ArrayList<>();
+    private final int dosTime;
+    private final int dosDate;
+
+    private long offset;
+    private boolean closed;
+
+    public ParallelZipWriter(OutputStream out, ParallelZipConfig config) {
+        this.config = config;
+        this.out = new BufferedOutputStream(out, DEFLATE_BUFFER_SIZE);
+        this.chunkExecutor = Executors.newFixedThreadPool(Math.max(1, config.getParallelism()));
+
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() / 2;
+        this.dosDate = (now.getYear() - 1980) << 9 | now.getMonthValue() << 5 | now.getDayOfMonth();
+    }
+
+    private static <V> V await(Future<V> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for zip entry compression");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static void checkSize(long size, String name) {
+        if (size > MAX_SIZE) {
+            throw new IllegalStateException(
+                    String.format("Zip entry %s exceeds 4 GB, which requires ZIP64 (not supported)", name));
+        }
+    }
+
+    /**
+     * Add an entry to the zip file. The content is written asynchronously; the entries are placed in the zip file in
+     * the order they are added.
+     *
+     * @param name   the name of the entry.
+     * @param writer writes the content of the entry to the provided output stream, which must not be closed.
+     */
+    public void addEntry(String name, EntryWriter writer) {
+        if (closed) {
+            throw new IllegalStateException("Zip writer is already closed");
+        }
+        if (entries.size() == MAX_ENTRIES) {
+            throw new IllegalStateException("Maximum number of zip entries reached, ZIP64 is not supported");
+        }
+
+        entries.add(entryExecutor.submit(() -> compress(name, writer)));
+    }
+
+    /**
+     * Wait for all entries to be compressed, then write them and the central directory. Closes the output stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            List<CompressedEntry> written = new ArrayList<>(entries.size());
+            List<Long> localHeaderOffsets = new ArrayList<>(entries.size());
+
+            // local file headers and data, in order of addition
+            for (Future<CompressedEntry> future : entries) {
+                CompressedEntry entry = await(future);
+                checkSize(offset, entry.name);
+                localHeaderOffsets.add(offset);
+                writeLocalFileHeader(entry);
+                for (byte[] chunk : entry.chunks) {
+                    out.write(chunk);
+                }
+                offset += entry.compressedSize;
+                written.add(entry);
+                log.debug("Wrote zip entry {} ({} bytes, {} compressed)", entry.name, entry.uncompressedSize,
+                        entry.compressedSize);
+            }
+
+            // central directory
+            long centralDirectoryOffset = offset;
+            checkSize(centralDirectoryOffset, "central directory");
+            for (int i = 0; i < written.size(); i++) {
+                writeCentralDirectoryHeader(written.get(i), localHeaderOffsets.get(i));
+            }
+            writeEndOfCentralDirectory(written.size(), offset - centralDirectoryOffset, centralDirectoryOffset);
+
+            out.flush();
+
+        } finally {
+            entryExecutor.shutdownNow();
+            chunkExecutor.shutdownNow();
+            out.close();
+        }
+    }
+
+    private CompressedEntry compress(String name, EntryWriter writer) throws IOException {
+        ChunkOutputStream chunkOutputStream = new ChunkOutputStream();
+        writer.write(chunkOutputStream);
+        chunkOutputStream.finish();
+
+        checkSize(chunkOutputStream.uncompressedSize, name);
+        checkSize(chunkOutputStream.compressedSize, name);
+
+        return new CompressedEntry(name, config.isStored() ? METHOD_STORED : METHOD_DEFLATED,
+                chunkOutputStream.crc.getValue(), chunkOutputStream.uncompressedSize, chunkOutputStream.compressedSize,
+                chunkOutputStream.chunks);
+    }
+
+    private byte[] deflate(byte[] chunk, int length, boolean last) {
+        Deflater deflater = new Deflater(config.getCompressionLevel(), true);
+        try {
+            deflater.setInput(chunk, 0, length);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+            byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+
+            if (last) {
+                // end the deflate stream of the entry
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    compressed.write(buffer, 0, n);
+                }
+            } else {
+                // sync flush: align to a byte boundary without ending the deflate stream, the next chunk continues
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    compressed.write(buffer, 0, n);
+                } while (n == buffer.length || !deflater.needsInput());
+            }
+
+            return compressed.toByteArray();
+
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeLocalFileHeader(CompressedEntry entry) throws IOException {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        writeInt(LOCAL_FILE_HEADER_SIGNATURE);
+        writeShort(VERSION);
+        writeShort(UTF8_FLAG);
+        writeShort(entry.method);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        writeInt(entry.crc);
+        writeInt(entry.compressedSize);
+        writeInt(entry.uncompressedSize);
+        writeShort(name.length);
+        writeShort(0); // extra field length
+        writeBytes(name);
+    }
+
+    private void writeCentralDirectoryHeader(CompressedEntry entry, long localHeaderOffset) throws IOException {
+        byte[] name = entry.name.getBytes(StandardCharsets.UTF_8);
+        writeInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+        writeShort(VERSION); // version made by
+        writeShort(VERSION); // version needed to extract
+        writeShort(UTF8_FLAG);
+        writeShort(entry.method);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        writeInt(entry.crc);
+        writeInt(entry.compressedSize);
+        writeInt(entry.uncompressedSize);
+        writeShort(name.length);
+        writeShort(0); // extra field length
+        writeShort(0); // comment length
+        writeShort(0); // disk number start
+        writeShort(0); // internal file attributes
+        writeInt(0); // external file attributes
+        writeInt(localHeaderOffset);
+        writeBytes(name);
+    }
+
+    private void writeEndOfCentralDirectory(int entryCount, long size, long centralDirectoryOffset) throws IOException {
+        writeInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+        writeShort(0); // number of this disk
+        writeShort(0); // disk with the central directory
+        writeShort(entryCount); // entries on this disk
+        writeShort(entryCount); // total entries
+        writeInt(size);
+        writeInt(centralDirectoryOffset);
+        writeShort(0); // comment length
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xff);
+        out.write((value >>> 8) & 0xff);
+        offset += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        out.write((int) (value & 0xff));
+        out.write((int) ((value >>> 8) & 0xff));
+        out.write((int) ((value >>> 16) & 0xff));
+        out.write((int) ((value >>> 24) & 0xff));
+        offset += 4;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    @FunctionalInterface
+    public interface EntryWriter {
+
+        void write(OutputStream outputStream) throws IOException;
+
+    }
+
+    private record CompressedEntry(String name, int method, long crc, long uncompressedSize, long compressedSize,
+                                   List<byte[]> chunks) {
+    }
+
+    /**
+     * Splits the content of an entry into chunks and hands them to the chunk executor, while computing the CRC in
+     * order. Limits the number of chunks in flight per entry, so that a fast writer does not buffer the whole content.
+     */
+    private class ChunkOutputStream extends OutputStream {
+
+        private final CRC32 crc = new CRC32();
+        private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        private final List<byte[]> chunks = new ArrayList<>();
+        private final int maxPending = 2 * Math.max(1, config.getParallelism());
+
+        private byte[] buffer = new byte[config.getChunkSize()];
+        private int count;
+        private long uncompressedSize;
+        private long compressedSize;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                submitChunk(false);
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    submitChunk(false);
+                }
+                int n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void finish() throws IOException {
+            submitChunk(true);
+            while (!pending.isEmpty()) {
+                addChunk(await(pending.poll()));
+            }
+        }
+
+        private void submitChunk(boolean last) throws IOException {
+            crc.update(buffer, 0, count);
+            uncompressedSize += count;
+
+            if (config.isStored()) {
+                addChunk(count == buffer.length ? buffer : Arrays.copyOf(buffer, count));
+            } else {
+                byte[] chunk = buffer;
+                int length = count;
+                pending.add(chunkExecutor.submit(() -> deflate(chunk, length, last)));
+
+                // back pressure: wait for the oldest chunk if too many are in flight
+                while (pending.size() > maxPending) {
+                    addChunk(await(pending.poll()));
+                }
+            }
+
+            // the submitted buffer is owned by the chunk now
+            buffer = last ? null : new byte[config.getChunkSize()];
+            count = 0;
+        }
+
+        private void addChunk(byte[] chunk) {
+            chunks.add(chunk);
+            compressedSize += chunk.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Frequency;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.DepartureInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitLineInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransportMode;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FrequencyGtfsSupplyBuilderTest {
+
+    // run with a headway of 30 minutes, a duplicated departure and a departure after the run
+    private static final List<ServiceDayTime> DEPARTURES = List.of(ServiceDayTime.of(6, 0, 0),
+            ServiceDayTime.of(6, 30, 0), ServiceDayTime.of(7, 0, 0), ServiceDayTime.of(7, 0, 0),
+            ServiceDayTime.of(7, 30, 0), ServiceDayTime.of(8, 15, 0));
+
+    @Mock
+    private InfrastructureRepository infrastructureRepository;
+
+    @Mock
+    private RollingStockRepository rollingStockRepository;
+
+    @Mock
+    private VehicleCircuitsPlanner vehicleCircuitsPlanner;
+
+    @InjectMocks
+    private FrequencyGtfsSupplyBuilder gtfsSupplyBuilder;
+
+    @BeforeEach
+    void setUp() {
+        when(infrastructureRepository.getStopFacility(eq("a"), any(String.class), any(Double.class),
+                any(Double.class))).thenReturn(new StopFacilityInfo("a", "Stop A", new Coordinate(1, 1)));
+        when(infrastructureRepository.getStopFacility(eq("b"), any(String.class), any(Double.class),
+                any(Double.class))).thenReturn(new StopFacilityInfo("b", "Stop B", new Coordinate(2, 2)));
+
+        TransitLineInfo transitLineInfo = new TransitLineInfo("lineId", null, TransportMode.RAIL);
+        TransitRouteInfo transitRouteInfo = new TransitRouteInfo("routeId", transitLineInfo);
+        VehicleTypeInfo vehicleTypeInfo = new VehicleTypeInfo("train", TransportMode.RAIL, 100, 150, 200, 90 * 3.6,
+                Map.of());
+        List<VehicleAllocation> vehicleAllocations = DEPARTURES.stream()
+                .map(time -> new VehicleAllocation(null, new DepartureInfo(transitRouteInfo, time),
+                        new VehicleInfo("train1", vehicleTypeInfo)))
+                .toList();
+
+        when(vehicleCircuitsPlanner.plan()).thenReturn(vehicleAllocations);
+        when(rollingStockRepository.getVehicleType(any())).thenReturn(vehicleTypeInfo);
+    }
+
+    @Test
+    void testBuild() {
+        gtfsSupplyBuilder.addStopFacility("a", "Stop A", 0, 0)
+                .addStopFacility("b", "Stop B", 1, 0)
+                .addTransitLine("lineId", "rail")
+                .addTransitRoute("routeId", "lineId", "a", Duration.of(5, ChronoUnit.MINUTES))
+                .addRouteStop("routeId", "b", Duration.of(10, ChronoUnit.MINUTES), Duration.of(5, ChronoUnit.MINUTES));
+        DEPARTURES.forEach(time -> gtfsSupplyBuilder.addDeparture("routeId", time));
+
+        GtfsSchedule schedule = gtfsSupplyBuilder.build();
+
+        // template trip, duplicated departure and departure after the run
+        assertEquals(3, schedule.getTrips().size());
+        assertEquals(6, schedule.getStopTimes().size());
+
+        assertEquals(1, schedule.getFrequencies().size());
+        Frequency frequency = schedule.getFrequencies().getFirst();
+        assertEquals(schedule.getTrips().getFirst().getTripId(), frequency.getTripId());
+        assertEquals(ServiceDayTime.of(6, 0, 0), frequency.getStartTime());
+        assertEquals(ServiceDayTime.of(8, 0, 0), frequency.getEndTime());
+        assertEquals(30 * 60, frequency.getHeadwaySecs());
+        assertEquals(Frequency.EXACT_TIMES, frequency.getExactTimes());
+        assertEquals(ServiceDayTime.of(6, 0, 0), schedule.getStopTimes().getFirst().getDepartureTime());
+    }
+
+}
@@ -151,7 +151,8 @@ class MatsimSupplyBuilderTest {
         // assert
         Network network = scenario.getNetwork();
         assertNotNull(network);
-        assertEquals(16, network.getNodes().size(), "Expected 16 nodes in the network");
+        // 4 stop nodes and 5 track nodes, consecutive segments share their nodes
+        assertEquals(9, network.getNodes().size(), "Expected 9 nodes in the network");
         assertEquals(16, network.getLinks().size(), "Expected 16 links in the network");
 
         TransitSchedule schedule = scenario.getTransitSchedule();
@@ -0,0 +1,89 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.GtfsSupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.SupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoVehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.validation.ValidationStrategy;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.csv.CsvInfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.csv.CsvRollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonDeserializer;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonFileReader;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.generator.GeneratedScenario;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.generator.NetworkGraphicGenerator;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.generator.NetworkGraphicGeneratorConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class GeneratedNetworkGraphicIT {
+
+    private static final NetworkGraphicGeneratorConfig CONFIG = NetworkGraphicGeneratorConfig.builder()
+            .nodes(200)
+            .trainruns(80)
+            .timeCategories(3)
+            .build();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void generate_deterministic() throws IOException {
+        GeneratedScenario first = new NetworkGraphicGenerator(CONFIG).generate(tempDir.resolve("first"));
+        GeneratedScenario second = new NetworkGraphicGenerator(CONFIG).generate(tempDir.resolve("second"));
+
+        assertArrayEquals(Files.readAllBytes(first.getNetworkGraphicFilePath()),
+                Files.readAllBytes(second.getNetworkGraphicFilePath()));
+        assertArrayEquals(Files.readAllBytes(first.getStopFacilityInfoCsvFilePath()),
+                Files.readAllBytes(second.getStopFacilityInfoCsvFilePath()));
+    }
+
+    @Test
+    void generate_read() throws IOException {
+        GeneratedScenario scenario = new NetworkGraphicGenerator(CONFIG).generate(tempDir);
+        NetworkGraphic networkGraphic = new JsonDeserializer().read(scenario.getNetworkGraphicFilePath());
+
+        assertEquals(CONFIG.getNodes(), networkGraphic.getNodes().size());
+        assertEquals(CONFIG.getTrainruns(), networkGraphic.getTrainruns().size());
+        assertEquals(CONFIG.getFrequencies().size(), networkGraphic.getMetadata().getTrainrunFrequencies().size());
+        assertEquals(CONFIG.getTimeCategories(), networkGraphic.getMetadata().getTrainrunTimeCategories().size());
+        assertFalse(networkGraphic.getTrainrunSections().isEmpty());
+    }
+
+    @Test
+    void generate_convert() throws IOException {
+        GeneratedScenario scenario = new NetworkGraphicGenerator(CONFIG).generate(tempDir);
+
+        // the generated ids are valid and all nodes and categories are covered by the CSV repositories
+        NetworkGraphicConverterConfig config = NetworkGraphicConverterConfig.builder()
+                .validationStrategy(ValidationStrategy.FAIL_ON_ISSUES)
+                .useTrainNamesAsIds(true)
+                .build();
+        RollingStockRepository rollingStockRepository = new CsvRollingStockRepository(
+                scenario.getRollingStockInfoCsvFilePath());
+        SupplyBuilder<GtfsSchedule> builder = new GtfsSupplyBuilder(
+                new CsvInfrastructureRepository(scenario.getStopFacilityInfoCsvFilePath()), rollingStockRepository,
+                new NoVehicleCircuitsPlanner(rollingStockRepository));
+        AtomicReference<GtfsSchedule> schedule = new AtomicReference<>();
+
+        new NetworkGraphicConverter<>(config, new JsonFileReader(scenario.getNetworkGraphicFilePath()), builder,
+                schedule::set).run();
+
+        assertNotNull(schedule.get());
+        assertEquals(CONFIG.getNodes(), schedule.get().getStops().size());
+        assertEquals(CONFIG.getTrainruns(), schedule.get().getRoutes().size());
+        assertFalse(schedule.get().getTrips().isEmpty());
+    }
+
+}
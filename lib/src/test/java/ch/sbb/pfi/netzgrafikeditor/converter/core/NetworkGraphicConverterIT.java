@@ -1,21 +1,26 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.core;
 
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.GtfsSupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.StreamingGtfsSupplyBuilder;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim.MatsimSupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.matsim.StreamingMatsimSupplyBuilder;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.SupplyBuilder;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoInfrastructureRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoRollingStockRepository;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoVehicleCircuitsPlanner;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.GtfsScheduleWriter;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs.StreamingGtfsScheduleWriter;
+import ch.sbb.pfi.netzgrafikeditor.converter.io.matsim.StreamingTransitScheduleXmlWriter;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.matsim.TransitScheduleXmlWriter;
 import ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik.JsonFileReader;
 import ch.sbb.pfi.netzgrafikeditor.converter.test.OutputDir;
 import ch.sbb.pfi.netzgrafikeditor.converter.test.TestCase;
 import ch.sbb.pfi.netzgrafikeditor.converter.test.TestDirectoryExtension;
 import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -23,12 +28,26 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.pt.transitSchedule.api.Departure;
 import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitRoute;
+import org.matsim.pt.transitSchedule.api.TransitScheduleReader;
+import org.matsim.vehicles.MatsimVehicleReader;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -37,6 +56,9 @@ public class NetworkGraphicConverterIT {
 
     public static final String CASE_SEPARATOR = ".";
     public static final String DELIMITER = "-";
+    public static final int PARALLELISM = 4;
+    public static final String STREAMING = "streaming";
+    public static final String PARALLEL_GZIP = "parallel-gzip";
 
     private Path outputDir;
 
@@ -50,6 +72,13 @@ public class NetworkGraphicConverterIT {
         private Scenario scenario;
         private NetworkGraphicConverter<Scenario> converter;
 
+        private static List<String> readGzip(Path file) throws IOException {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+                return reader.lines().toList();
+            }
+        }
+
         @ParameterizedTest
         @EnumSource(TestScenario.class)
         void run(TestScenario testScenario) throws IOException {
@@ -66,6 +95,109 @@ public class NetworkGraphicConverterIT {
             validate(testCase);
         }
 
+        @ParameterizedTest
+        @EnumSource(TestScenario.class)
+        void run_streaming(TestScenario testScenario) throws IOException {
+            Path path = testScenario.getNetworkGraphicFilePath();
+
+            configure(path, testScenario.name());
+            converter.run();
+
+            // convert again, streaming departures and vehicles to the writer
+            Path streamingOutputDir = outputDir.resolve(STREAMING);
+            StreamingTransitScheduleXmlWriter writer = new StreamingTransitScheduleXmlWriter(streamingOutputDir);
+            RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+            SupplyBuilder<Scenario> builder = new StreamingMatsimSupplyBuilder(new NoInfrastructureRepository(),
+                    rollingStockRepository, new NoVehicleCircuitsPlanner(rollingStockRepository), writer);
+            new NetworkGraphicConverter<>(createConfig(), new JsonFileReader(path), builder, writer).run();
+
+            // read written files, they must contain the same schedule and vehicles as the scenario
+            Scenario streamed = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+            new TransitScheduleReader(streamed).readFile(
+                    streamingOutputDir.resolve("transitSchedule.xml.gz").toString());
+            new MatsimVehicleReader(streamed.getTransitVehicles()).readFile(
+                    streamingOutputDir.resolve("transitVehicles.xml.gz").toString());
+
+            assertEquals(scenario.getTransitSchedule().getFacilities().keySet(),
+                    streamed.getTransitSchedule().getFacilities().keySet());
+            assertEquals(scenario.getTransitSchedule().getTransitLines().keySet(),
+                    streamed.getTransitSchedule().getTransitLines().keySet());
+            for (TransitLine transitLine : scenario.getTransitSchedule().getTransitLines().values()) {
+                TransitLine streamedLine = streamed.getTransitSchedule().getTransitLines().get(transitLine.getId());
+                assertEquals(transitLine.getRoutes().keySet(), streamedLine.getRoutes().keySet());
+                for (TransitRoute transitRoute : transitLine.getRoutes().values()) {
+                    TransitRoute streamedRoute = streamedLine.getRoutes().get(transitRoute.getId());
+                    assertEquals(transitRoute.getStops().size(), streamedRoute.getStops().size());
+                    assertEquals(transitRoute.getRoute().getLinkIds(), streamedRoute.getRoute().getLinkIds());
+                    assertEquals(departures(transitRoute), departures(streamedRoute));
+                }
+            }
+            assertEquals(scenario.getTransitVehicles().getVehicleTypes().keySet(),
+                    streamed.getTransitVehicles().getVehicleTypes().keySet());
+            assertEquals(scenario.getTransitVehicles().getVehicles().keySet(),
+                    streamed.getTransitVehicles().getVehicles().keySet());
+        }
+
+        @ParameterizedTest
+        @EnumSource(TestScenario.class)
+        void run_streaming_sameFiles(TestScenario testScenario) throws IOException {
+            Path path = testScenario.getNetworkGraphicFilePath();
+            String prefix = testScenario.name().toLowerCase() + CASE_SEPARATOR;
+
+            configure(path, testScenario.name());
+            converter.run();
+
+            Path streamingOutputDir = outputDir.resolve(STREAMING);
+            StreamingTransitScheduleXmlWriter writer = new StreamingTransitScheduleXmlWriter(streamingOutputDir);
+            RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+            SupplyBuilder<Scenario> builder = new StreamingMatsimSupplyBuilder(new NoInfrastructureRepository(),
+                    rollingStockRepository, new NoVehicleCircuitsPlanner(rollingStockRepository), writer);
+            new NetworkGraphicConverter<>(createConfig(), new JsonFileReader(path), builder, writer).run();
+
+            // the streamed files are line by line the files of the transit schedule XML writer
+            assertEquals(readGzip(outputDir.resolve(prefix + "transitSchedule.xml.gz")),
+                    readGzip(streamingOutputDir.resolve("transitSchedule.xml.gz")));
+            assertEquals(readGzip(outputDir.resolve(prefix + "transitVehicles.xml.gz")),
+                    readGzip(streamingOutputDir.resolve("transitVehicles.xml.gz")));
+
+            // the spooled departures and vehicles are deleted
+            try (Stream<Path> files = Files.list(streamingOutputDir)) {
+                assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(TestScenario.class)
+        void run_parallelGzip(TestScenario testScenario) throws IOException {
+            configure(testScenario.getNetworkGraphicFilePath(), testScenario.name());
+            converter.run();
+
+            // write again with block-parallel gzip, small chunks to get many members
+            Path parallelOutputDir = outputDir.resolve(PARALLEL_GZIP);
+            ParallelZipConfig parallelZipConfig = ParallelZipConfig.builder().chunkSize(4096).build();
+            new TransitScheduleXmlWriter(parallelOutputDir, "", parallelZipConfig).save(scenario);
+
+            // the concatenated gzip members are read by the MATSim readers
+            Scenario parallel = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+            new TransitScheduleReader(parallel).readFile(
+                    parallelOutputDir.resolve("transitSchedule.xml.gz").toString());
+            new MatsimVehicleReader(parallel.getTransitVehicles()).readFile(
+                    parallelOutputDir.resolve("transitVehicles.xml.gz").toString());
+
+            assertEquals(scenario.getTransitSchedule().getTransitLines().keySet(),
+                    parallel.getTransitSchedule().getTransitLines().keySet());
+            assertEquals(scenario.getTransitVehicles().getVehicles().keySet(),
+                    parallel.getTransitVehicles().getVehicles().keySet());
+        }
+
+        private Map<Id<Departure>, String> departures(TransitRoute transitRoute) {
+            return transitRoute.getDepartures()
+                    .values()
+                    .stream()
+                    .collect(Collectors.toMap(Departure::getId,
+                            d -> d.getDepartureTime() + DELIMITER + d.getVehicleId()));
+        }
+
         private void validate(TestCase testCase) {
 
             // check scenario
@@ -99,10 +231,12 @@ public class NetworkGraphicConverterIT {
             assertEquals(expectedStopSequenceForward, actualStopSequence);
         }
 
+        private NetworkGraphicConverterConfig createConfig() {
+            return NetworkGraphicConverterConfig.builder().useTrainNamesAsIds(true).build();
+        }
+
         private void configure(Path path, String prefix) {
-            NetworkGraphicConverterConfig config = NetworkGraphicConverterConfig.builder()
-                    .useTrainNamesAsIds(true)
-                    .build();
+            NetworkGraphicConverterConfig config = createConfig();
 
             NetworkGraphicSource source = new JsonFileReader(path);
             RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
@@ -147,6 +281,77 @@ public class NetworkGraphicConverterIT {
             validate(testCase);
         }
 
+        @ParameterizedTest
+        @EnumSource(TestScenario.class)
+        void run_parallel(TestScenario testScenario) throws IOException {
+            Path path = testScenario.getNetworkGraphicFilePath();
+
+            configure(path);
+            converter.run();
+            GtfsSchedule sequential = schedule;
+
+            configure(path, PARALLELISM);
+            converter.run();
+
+            assertEquals(sequential.getStops(), schedule.getStops());
+            assertEquals(sequential.getRoutes(), schedule.getRoutes());
+            assertEquals(sequential.getTrips(), schedule.getTrips());
+            assertEquals(sequential.getStopTimes(), schedule.getStopTimes());
+        }
+
+        @ParameterizedTest
+        @EnumSource(TestScenario.class)
+        void run_streaming(TestScenario testScenario) throws IOException {
+            Path path = testScenario.getNetworkGraphicFilePath();
+
+            configure(path);
+            converter.run();
+
+            // convert again, streaming trips and stop times to the writer
+            Path streamingOutputDir = outputDir.resolve(STREAMING);
+            StreamingGtfsScheduleWriter writer = new StreamingGtfsScheduleWriter(streamingOutputDir, false);
+            RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+            SupplyBuilder<GtfsSchedule> builder = new StreamingGtfsSupplyBuilder(new NoInfrastructureRepository(),
+                    rollingStockRepository, new NoVehicleCircuitsPlanner(rollingStockRepository), writer);
+            new NetworkGraphicConverter<>(createConfig(1), new JsonFileReader(path), builder, writer).run();
+
+            for (String file : List.of("stops.txt", "routes.txt", "trips.txt", "stop_times.txt")) {
+                assertEquals(Files.readAllLines(outputDir.resolve(file)),
+                        Files.readAllLines(streamingOutputDir.resolve(file)));
+            }
+        }
+
+        @ParameterizedTest
+        @EnumSource(TestScenario.class)
+        void run_streamingZip(TestScenario testScenario) throws IOException {
+            Path path = testScenario.getNetworkGraphicFilePath();
+
+            configure(path);
+            converter.run();
+
+            // convert again, streaming stop times into the zip file and buffering trips in a temporary file
+            Path streamingOutputDir = outputDir.resolve(STREAMING);
+            StreamingGtfsScheduleWriter writer = new StreamingGtfsScheduleWriter(streamingOutputDir, true);
+            RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+            SupplyBuilder<GtfsSchedule> builder = new StreamingGtfsSupplyBuilder(new NoInfrastructureRepository(),
+                    rollingStockRepository, new NoVehicleCircuitsPlanner(rollingStockRepository), writer);
+            new NetworkGraphicConverter<>(createConfig(1), new JsonFileReader(path), builder, writer).run();
+
+            // only the zip file remains, the temporary trips file is deleted
+            try (Stream<Path> files = Files.list(streamingOutputDir)) {
+                assertEquals(List.of(streamingOutputDir.resolve(GtfsScheduleWriter.GTFS_ZIP)), files.toList());
+            }
+            try (ZipFile zipFile = new ZipFile(streamingOutputDir.resolve(GtfsScheduleWriter.GTFS_ZIP).toFile())) {
+                for (String file : List.of("stops.txt", "routes.txt", "trips.txt", "stop_times.txt")) {
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(zipFile.getInputStream(zipFile.getEntry(file)),
+                                    StandardCharsets.UTF_8))) {
+                        assertEquals(Files.readAllLines(outputDir.resolve(file)), reader.lines().toList());
+                    }
+                }
+            }
+        }
+
         private void validate(TestCase testCase) {
             assertNotNull(schedule);
             assertEquals(1, schedule.getAgencies().size());
@@ -185,9 +390,15 @@ public class NetworkGraphicConverterIT {
         }
 
         private void configure(Path path) {
-            NetworkGraphicConverterConfig config = NetworkGraphicConverterConfig.builder()
-                    .useTrainNamesAsIds(true)
-                    .build();
+            configure(path, 1);
+        }
+
+        private NetworkGraphicConverterConfig createConfig(int parallelism) {
+            return NetworkGraphicConverterConfig.builder().useTrainNamesAsIds(true).parallelism(parallelism).build();
+        }
+
+        private void configure(Path path, int parallelism) {
+            NetworkGraphicConverterConfig config = createConfig(parallelism);
 
             NetworkGraphicSource source = new JsonFileReader(path);
             RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
@@ -0,0 +1,53 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.GtfsSupplyBuilder;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.RollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoInfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoRollingStockRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.fallback.NoVehicleCircuitsPlanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NetworkGraphicConverterReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void run_reportWriteFailureDoesNotHideValidationFailure() throws IOException {
+        // the section references a node which does not exist
+        NetworkGraphic networkGraphic = NetworkGraphic.builder()
+                .nodes(List.of())
+                .trainruns(List.of())
+                .trainrunSections(List.of(TrainrunSection.builder().id(1).sourceNodeId(1).targetNodeId(2).build()))
+                .build();
+
+        // the report cannot be written, since its parent directory is a file
+        Path blocker = Files.createFile(tempDir.resolve("blocker"));
+        NetworkGraphicConverterConfig config = NetworkGraphicConverterConfig.builder()
+                .validationReportFile(blocker.resolve("report.csv"))
+                .build();
+
+        RollingStockRepository rollingStockRepository = new NoRollingStockRepository();
+        NetworkGraphicConverter<GtfsSchedule> converter = new NetworkGraphicConverter<>(config, () -> networkGraphic,
+                new GtfsSupplyBuilder(new NoInfrastructureRepository(), rollingStockRepository,
+                        new NoVehicleCircuitsPlanner(rollingStockRepository)), result -> {
+        });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, converter::run);
+        assertEquals(1, e.getSuppressed().length);
+        assertInstanceOf(IOException.class, e.getSuppressed()[0]);
+    }
+}
@@ -0,0 +1,141 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.cache;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.InfrastructureRepository;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitLineInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransportMode;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingInfrastructureRepositoryTest {
+
+    private static final StopFacilityInfo STOP_A = new StopFacilityInfo("a", "Stop A", new Coordinate(1, 1));
+    private static final StopFacilityInfo STOP_B = new StopFacilityInfo("b", "Stop B", new Coordinate(2, 2));
+    private static final StopFacilityInfo STOP_C = new StopFacilityInfo("c", "Stop C", new Coordinate(3, 3));
+    private static final TransitRouteInfo RAIL_ROUTE = new TransitRouteInfo("rail",
+            new TransitLineInfo("rail", "IC", TransportMode.RAIL));
+    private static final TransitRouteInfo BUS_ROUTE = new TransitRouteInfo("bus",
+            new TransitLineInfo("bus", "B", TransportMode.BUS));
+
+    @Mock
+    private InfrastructureRepository delegate;
+
+    @TempDir
+    private Path tempDir;
+
+    private static List<TrackSegmentInfo> track(StopFacilityInfo fromStop, StopFacilityInfo toStop) {
+        TrackSegmentInfo segment = new TrackSegmentInfo(fromStop.getId() + "-" + toStop.getId(),
+                fromStop.getCoordinate(), toStop.getCoordinate(), 100);
+        segment.getLinkAttributes().put("name", "track");
+        segment.getLinkAttributes().put("tracks", 2);
+        segment.getLinkAttributes().put("electrified", true);
+
+        return List.of(segment);
+    }
+
+    private void stubTracks() {
+        when(delegate.getTrack(any(), any(), any())).thenAnswer(
+                invocation -> track(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    @Test
+    void getTrack() {
+        stubTracks();
+        CachingInfrastructureRepository repository = new CachingInfrastructureRepository(delegate);
+
+        List<TrackSegmentInfo> track = repository.getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        assertSame(track, repository.getTrack(STOP_A, STOP_B, BUS_ROUTE));
+        repository.getTrack(STOP_B, STOP_A, RAIL_ROUTE);
+
+        verify(delegate, times(1)).getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        verify(delegate, never()).getTrack(STOP_A, STOP_B, BUS_ROUTE);
+        verify(delegate, times(1)).getTrack(STOP_B, STOP_A, RAIL_ROUTE);
+        assertEquals(new TrackCacheStatistics(1, 2, 0, 2), repository.getStatistics());
+    }
+
+    @Test
+    void getTrack_routeDiscriminator() {
+        stubTracks();
+        CachingInfrastructureRepository repository = new CachingInfrastructureRepository(delegate,
+                TrackCacheConfig.builder()
+                        .routeDiscriminator(route -> route.getTransitLineInfo().getTransportMode().name())
+                        .build());
+
+        repository.getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        repository.getTrack(STOP_A, STOP_B, BUS_ROUTE);
+        repository.getTrack(STOP_A, STOP_B, BUS_ROUTE);
+
+        verify(delegate, times(1)).getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        verify(delegate, times(1)).getTrack(STOP_A, STOP_B, BUS_ROUTE);
+        assertEquals(new TrackCacheStatistics(1, 2, 0, 2), repository.getStatistics());
+    }
+
+    @Test
+    void getTrack_evictLeastRecentlyUsed() {
+        stubTracks();
+        CachingInfrastructureRepository repository = new CachingInfrastructureRepository(delegate,
+                TrackCacheConfig.builder().maxSize(2).build());
+
+        repository.getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        repository.getTrack(STOP_B, STOP_C, RAIL_ROUTE);
+        repository.getTrack(STOP_A, STOP_B, RAIL_ROUTE); // hit, B-C is now least recently used
+        repository.getTrack(STOP_C, STOP_A, RAIL_ROUTE); // evicts B-C
+        repository.getTrack(STOP_A, STOP_B, RAIL_ROUTE); // hit
+        repository.getTrack(STOP_B, STOP_C, RAIL_ROUTE); // miss, evicts C-A
+
+        verify(delegate, times(1)).getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        verify(delegate, times(2)).getTrack(STOP_B, STOP_C, RAIL_ROUTE);
+        assertEquals(new TrackCacheStatistics(2, 4, 2, 2), repository.getStatistics());
+    }
+
+    @Test
+    void persist() throws IOException {
+        stubTracks();
+        Path cacheFile = tempDir.resolve("cache").resolve("tracks.bin");
+        TrackCacheConfig config = TrackCacheConfig.builder().cacheFile(cacheFile).build();
+
+        CachingInfrastructureRepository repository = new CachingInfrastructureRepository(delegate, config);
+        repository.getTrack(STOP_A, STOP_B, RAIL_ROUTE);
+        repository.getTrack(STOP_B, STOP_C, RAIL_ROUTE);
+        repository.persist();
+
+        // next conversion starts warm
+        CachingInfrastructureRepository warm = new CachingInfrastructureRepository(delegate, config);
+        assertEquals(track(STOP_A, STOP_B), warm.getTrack(STOP_A, STOP_B, RAIL_ROUTE));
+        assertEquals(track(STOP_B, STOP_C), warm.getTrack(STOP_B, STOP_C, RAIL_ROUTE));
+        assertEquals(new TrackCacheStatistics(2, 0, 0, 2), warm.getStatistics());
+        verify(delegate, times(2)).getTrack(any(), any(), any());
+    }
+
+    @Test
+    void persist_invalidFile() throws IOException {
+        Path cacheFile = tempDir.resolve("tracks.bin");
+        Files.writeString(cacheFile, "not a track cache");
+
+        CachingInfrastructureRepository repository = new CachingInfrastructureRepository(delegate,
+                TrackCacheConfig.builder().cacheFile(cacheFile).build());
+
+        assertEquals(new TrackCacheStatistics(0, 0, 0, 0), repository.getStatistics());
+    }
+
+}
@@ -0,0 +1,124 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.circuits;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.DepartureInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitLineInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransportMode;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleCircuitsPlanner;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PartitionedVehicleCircuitsPlannerTest {
+
+    private static final Map<String, VehicleTypeInfo> VEHICLE_TYPES = Map.of("IC",
+            new VehicleTypeInfo("train", TransportMode.RAIL, 600, 100, 200, 55.56, Map.of()), "IR",
+            new VehicleTypeInfo("train", TransportMode.RAIL, 600, 100, 200, 55.56, Map.of()), "B",
+            new VehicleTypeInfo("bus", TransportMode.BUS, 40, 60, 12, 22.22, Map.of()), "T",
+            new VehicleTypeInfo("tram", TransportMode.TRAM, 80, 120, 30, 16.67, Map.of()));
+
+    // random departures of lines between a few stops, in random registration order
+    private static List<DepartureInfo> createDepartures() {
+        Random random = new Random(7);
+        List<StopFacilityInfo> stops = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            stops.add(new StopFacilityInfo("stop" + i, "Stop " + i, new Coordinate(46, 7)));
+        }
+
+        List<String> categories = List.of("IC", "IR", "B", "T");
+        List<DepartureInfo> departures = new ArrayList<>();
+        for (int line = 0; line < 20; line++) {
+            String category = categories.get(line % categories.size());
+            TransitLineInfo transitLineInfo = new TransitLineInfo("line" + line, category,
+                    VEHICLE_TYPES.get(category).getTransportMode());
+            TransitRouteInfo route = new TransitRouteInfo("route" + line, transitLineInfo);
+            StopFacilityInfo origin = stops.get(random.nextInt(stops.size()));
+            StopFacilityInfo destination = stops.get(random.nextInt(stops.size()));
+            Duration travelTime = Duration.ofMinutes(10 + random.nextInt(50));
+
+            for (int minutes = 6 * 60; minutes < 22 * 60; minutes += 15 + random.nextInt(30)) {
+                ServiceDayTime time = ServiceDayTime.of(minutes / 60, minutes % 60, 0);
+                departures.add(new DepartureInfo(route, time, origin, destination, time.plus(travelTime)));
+            }
+        }
+
+        Collections.shuffle(departures, random);
+
+        return departures;
+    }
+
+    private static List<VehicleAllocation> plan(VehicleCircuitsPlanner planner, List<DepartureInfo> departures) {
+        departures.forEach(planner::register);
+
+        return planner.plan();
+    }
+
+    @Test
+    void plan() {
+        List<DepartureInfo> departures = createDepartures();
+
+        List<VehicleAllocation> expected = plan(new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get),
+                departures);
+        List<VehicleAllocation> actual = plan(new PartitionedVehicleCircuitsPlanner(VEHICLE_TYPES::get,
+                () -> new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get), 4), departures);
+
+        // same circuits, merged in order of departure time
+        assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+        for (int i = 1; i < actual.size(); i++) {
+            ServiceDayTime previous = actual.get(i - 1).getDepartureInfo().getTime();
+            ServiceDayTime current = actual.get(i).getDepartureInfo().getTime();
+            assertTrue(previous.compareTo(current) <= 0, "Allocations are not ordered by departure time");
+        }
+    }
+
+    @Test
+    void plan_deterministic() {
+        List<DepartureInfo> departures = createDepartures();
+
+        List<VehicleAllocation> sequential = plan(new PartitionedVehicleCircuitsPlanner(VEHICLE_TYPES::get,
+                () -> new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get), 1), departures);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(sequential, plan(new PartitionedVehicleCircuitsPlanner(VEHICLE_TYPES::get,
+                    () -> new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get), 4), departures));
+        }
+    }
+
+    @Test
+    void plan_failingPartition() {
+        PartitionedVehicleCircuitsPlanner planner = new PartitionedVehicleCircuitsPlanner(VEHICLE_TYPES::get,
+                () -> new VehicleCircuitsPlanner() {
+                    @Override
+                    public void register(DepartureInfo departureInfo) {
+                    }
+
+                    @Override
+                    public List<VehicleAllocation> plan() {
+                        throw new IllegalStateException("Planning failed");
+                    }
+                }, 4);
+        createDepartures().forEach(planner::register);
+
+        assertThrows(IllegalStateException.class, planner::plan);
+    }
+
+    @Test
+    void constructor_invalidParallelism() {
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedVehicleCircuitsPlanner(VEHICLE_TYPES::get,
+                () -> new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get), 0));
+    }
+}
@@ -0,0 +1,125 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.supply.circuits;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.DepartureInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitLineInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransitRouteInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TransportMode;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleAllocation;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TurnaroundVehicleCircuitsPlannerTest {
+
+    private static final StopFacilityInfo STOP_A = new StopFacilityInfo("A", "Stop A", new Coordinate(46.948, 7.447));
+    private static final StopFacilityInfo STOP_B = new StopFacilityInfo("B", "Stop B", new Coordinate(47.378, 8.540));
+
+    private static final Map<String, VehicleTypeInfo> VEHICLE_TYPES = Map.of("IC",
+            new VehicleTypeInfo("train", TransportMode.RAIL, 600, 100, 200, 55.56, Map.of()), "B",
+            new VehicleTypeInfo("bus", TransportMode.BUS, 40, 60, 12, 22.22, Map.of()));
+
+    private static final TransitRouteInfo TRAIN_AB = route("train_AB", "IC");
+    private static final TransitRouteInfo TRAIN_BA = route("train_BA", "IC");
+    private static final TransitRouteInfo BUS_AB = route("bus_AB", "B");
+
+    private TurnaroundVehicleCircuitsPlanner planner;
+
+    private static TransitRouteInfo route(String id, String category) {
+        return new TransitRouteInfo(id,
+                new TransitLineInfo(id, category, VEHICLE_TYPES.get(category).getTransportMode()));
+    }
+
+    private static DepartureInfo departure(TransitRouteInfo route, StopFacilityInfo origin, StopFacilityInfo destination, ServiceDayTime time, Duration travelTime) {
+        return new DepartureInfo(route, time, origin, destination, time.plus(travelTime));
+    }
+
+    @BeforeEach
+    void setUp() {
+        planner = new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void plan_turnaround() {
+        Duration travelTime = Duration.ofMinutes(30);
+        planner.register(departure(TRAIN_BA, STOP_B, STOP_A, ServiceDayTime.of(8, 40, 0), travelTime));
+        planner.register(departure(TRAIN_AB, STOP_A, STOP_B, ServiceDayTime.of(8, 0, 0), travelTime));
+        planner.register(departure(TRAIN_AB, STOP_A, STOP_B, ServiceDayTime.of(9, 15, 0), travelTime));
+
+        List<VehicleAllocation> allocations = planner.plan();
+
+        assertEquals(List.of("train_AB_1", "train_BA_1", "train_AB_2"),
+                allocations.stream().map(VehicleAllocation::getDepartureId).toList());
+        assertEquals(List.of("train_1", "train_1", "train_1"),
+                allocations.stream().map(allocation -> allocation.getVehicleInfo().getId()).toList());
+        assertEquals(1, planner.getFleetSize());
+    }
+
+    @Test
+    void plan_layoverTooShort() {
+        Duration travelTime = Duration.ofMinutes(30);
+        planner.register(departure(TRAIN_AB, STOP_A, STOP_B, ServiceDayTime.of(8, 0, 0), travelTime));
+        planner.register(departure(TRAIN_BA, STOP_B, STOP_A, ServiceDayTime.of(8, 34, 0), travelTime));
+        planner.register(departure(TRAIN_BA, STOP_B, STOP_A, ServiceDayTime.of(8, 35, 0), travelTime));
+
+        List<VehicleAllocation> allocations = planner.plan();
+
+        assertEquals(List.of("train_1", "train_2", "train_1"),
+                allocations.stream().map(allocation -> allocation.getVehicleInfo().getId()).toList());
+        assertEquals(2, planner.getFleetSize());
+    }
+
+    @Test
+    void plan_perVehicleType() {
+        Duration travelTime = Duration.ofMinutes(30);
+        planner.register(departure(TRAIN_AB, STOP_A, STOP_B, ServiceDayTime.of(8, 0, 0), travelTime));
+        planner.register(departure(BUS_AB, STOP_B, STOP_A, ServiceDayTime.of(9, 0, 0), travelTime));
+
+        List<VehicleAllocation> allocations = planner.plan();
+
+        assertNotEquals(allocations.get(0).getVehicleInfo(), allocations.get(1).getVehicleInfo());
+        assertEquals(Map.of("bus", 1, "train", 1), planner.getFleetSizes());
+    }
+
+    @Test
+    void plan_withoutTerminals() {
+        planner.register(new DepartureInfo(TRAIN_AB, ServiceDayTime.of(8, 0, 0)));
+        planner.register(new DepartureInfo(TRAIN_AB, ServiceDayTime.of(12, 0, 0)));
+
+        planner.plan();
+
+        assertEquals(2, planner.getFleetSize());
+    }
+
+    @Test
+    void plan_minimalFleet() {
+        // hourly cycle with 10 minute headway: 2 * (25 min travel time + 5 min layover) / 10 min headway
+        Duration travelTime = Duration.ofMinutes(25);
+        for (int minutes = 5 * 60; minutes < 24 * 60; minutes += 10) {
+            ServiceDayTime time = ServiceDayTime.of(minutes / 60, minutes % 60, 0);
+            planner.register(departure(TRAIN_AB, STOP_A, STOP_B, time, travelTime));
+            planner.register(departure(TRAIN_BA, STOP_B, STOP_A, time, travelTime));
+        }
+
+        List<VehicleAllocation> allocations = planner.plan();
+
+        assertEquals(2 * 19 * 6, allocations.size());
+        assertEquals(6, planner.getFleetSize());
+    }
+
+    @Test
+    void constructor_negativeLayover() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TurnaroundVehicleCircuitsPlanner(VEHICLE_TYPES::get, Duration.ofMinutes(-1)));
+    }
+}
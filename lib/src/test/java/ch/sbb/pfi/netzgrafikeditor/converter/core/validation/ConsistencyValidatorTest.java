@@ -0,0 +1,165 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Port;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Trainrun;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunCategoryHaltezeit;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunSection;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Transition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistencyValidatorTest {
+
+    private static final Map<String, TrainrunCategoryHaltezeit> HALTEZEITEN = Map.of("HaltezeitA",
+            TrainrunCategoryHaltezeit.builder().haltezeit(2).build());
+
+    private static Node node(int id, List<Port> ports, List<Transition> transitions) {
+        return Node.builder()
+                .id(id)
+                .betriebspunktName("N" + id)
+                .ports(ports)
+                .transitions(transitions)
+                .trainrunCategoryHaltezeiten(HALTEZEITEN)
+                .build();
+    }
+
+    private static TrainrunSection section(int id, int sourceNodeId, int targetNodeId, int trainrunId) {
+        return TrainrunSection.builder()
+                .id(id)
+                .sourceNodeId(sourceNodeId)
+                .targetNodeId(targetNodeId)
+                .trainrunId(trainrunId)
+                .build();
+    }
+
+    private static Port port(int id, int trainrunSectionId) {
+        return Port.builder().id(id).trainrunSectionId(trainrunSectionId).build();
+    }
+
+    private static Transition transition(int id, int port1Id, int port2Id) {
+        return Transition.builder().id(id).port1Id(port1Id).port2Id(port2Id).build();
+    }
+
+    private static NetworkGraphic createNetworkGraphic(List<Node> nodes, List<TrainrunSection> sections, List<Trainrun> trainruns) {
+        return NetworkGraphic.builder()
+                .nodes(nodes)
+                .trainrunSections(sections)
+                .trainruns(trainruns)
+                .metadata(NetworkGraphicValidatorTest.createMetadata())
+                .build();
+    }
+
+    // 1 -(10)- 2 -(11)- 3, passing 2 by transition 100
+    private static List<Node> nodes() {
+        return List.of(node(1, List.of(port(20, 10)), List.of()),
+                node(2, List.of(port(21, 10), port(22, 11)), List.of(transition(100, 21, 22))),
+                node(3, List.of(port(23, 11)), List.of()));
+    }
+
+    private static List<TrainrunSection> sections() {
+        return List.of(section(10, 1, 2, 5), section(11, 2, 3, 5));
+    }
+
+    private static List<Trainrun> trainruns() {
+        return List.of(Trainrun.builder().id(5).name("T5").build());
+    }
+
+    @Test
+    void validate_consistent() {
+        ConsistencyValidator validator = new ConsistencyValidator(
+                createNetworkGraphic(nodes(), sections(), trainruns()));
+
+        assertTrue(validator.validate().isEmpty());
+        assertEquals(14, validator.getCheckedEntities());
+    }
+
+    @Test
+    void validate_unknownReferences() {
+        List<Node> nodes = List.of(node(1, List.of(port(20, 10)), List.of()),
+                node(2, List.of(port(21, 10), port(22, 12)), List.of(transition(100, 21, 24))));
+        List<TrainrunSection> sections = List.of(section(10, 1, 2, 5), section(11, 2, 3, 6));
+        List<Trainrun> trainruns = List.of(Trainrun.builder().id(5).name("T5").frequencyId(7).build());
+
+        List<ValidationIssue> issues = new ConsistencyValidator(
+                createNetworkGraphic(nodes, sections, trainruns)).validate();
+
+        assertEquals(List.of(
+                new ValidationIssue(IssueTarget.TRAINRUN, IssueType.UNKNOWN_REFERENCE, "frequencyId=7", 5),
+                new ValidationIssue(IssueTarget.TRAINRUN_SECTION, IssueType.UNKNOWN_REFERENCE, "targetNodeId=3", 11),
+                new ValidationIssue(IssueTarget.TRAINRUN_SECTION, IssueType.UNKNOWN_REFERENCE, "trainrunId=6", 11),
+                new ValidationIssue(IssueTarget.PORT, IssueType.UNKNOWN_REFERENCE, "trainrunSectionId=12", 22),
+                new ValidationIssue(IssueTarget.TRANSITION, IssueType.UNKNOWN_REFERENCE, "port2Id=24", 100)),
+                issues);
+    }
+
+    @Test
+    void validate_duplicateIdsAndDwellTimes() {
+        Node nodeWithoutDwellTimes = Node.builder().id(3).ports(List.of(port(23, 11))).build();
+        List<Node> nodes = List.of(nodes().get(0), nodes().get(1), nodeWithoutDwellTimes);
+        List<TrainrunSection> sections = List.of(section(10, 1, 2, 5), section(11, 2, 3, 5), section(11, 3, 2, 5));
+
+        List<ValidationIssue> issues = new ConsistencyValidator(
+                createNetworkGraphic(nodes, sections, trainruns())).validate();
+
+        assertEquals(List.of(new ValidationIssue(IssueTarget.TRAINRUN_SECTION, IssueType.DUPLICATE_ID, "11", 11),
+                new ValidationIssue(IssueTarget.NODE, IssueType.MISSING_DWELL_TIME, "HaltezeitA", 3)), issues);
+    }
+
+    @Test
+    void validate_dwellTimesOnlyAtStops() {
+        Node passedNode = Node.builder()
+                .id(2)
+                .ports(List.of(port(21, 10), port(22, 11)))
+                .transitions(List.of(Transition.builder().id(100).port1Id(21).port2Id(22).isNonStopTransit(true).build()))
+                .build();
+        Node stoppedNode = Node.builder()
+                .id(2)
+                .ports(List.of(port(21, 10), port(22, 11)))
+                .transitions(List.of(transition(100, 21, 22)))
+                .build();
+
+        assertTrue(new ConsistencyValidator(
+                createNetworkGraphic(List.of(nodes().get(0), passedNode, nodes().get(2)), sections(),
+                        trainruns())).validate().isEmpty());
+        assertEquals(List.of(new ValidationIssue(IssueTarget.NODE, IssueType.MISSING_DWELL_TIME, "HaltezeitA", 2)),
+                new ConsistencyValidator(
+                        createNetworkGraphic(List.of(nodes().get(0), stoppedNode, nodes().get(2)), sections(),
+                                trainruns())).validate());
+    }
+
+    @Test
+    void validate_transitionToPortOfOtherNode() {
+        // port 20 exists, but belongs to node 1
+        List<Node> nodes = List.of(nodes().get(0),
+                node(2, List.of(port(21, 10), port(22, 11)), List.of(transition(100, 20, 22))), nodes().get(2));
+
+        List<ValidationIssue> issues = new ConsistencyValidator(
+                createNetworkGraphic(nodes, sections(), trainruns())).validate();
+
+        assertEquals(
+                List.of(new ValidationIssue(IssueTarget.TRANSITION, IssueType.UNKNOWN_REFERENCE, "port1Id=20", 100)),
+                issues);
+    }
+
+    @Test
+    void run_rejectsInconsistentNetworkGraphic() {
+        NetworkGraphic networkGraphic = createNetworkGraphic(nodes(), List.of(section(10, 1, 4, 5)), trainruns());
+
+        NetworkGraphicValidator validator = new NetworkGraphicValidator(ValidationStrategy.WARN_ON_ISSUES, false,
+                networkGraphic);
+
+        assertThrows(IllegalStateException.class, validator::run);
+        assertEquals(IssueType.UNKNOWN_REFERENCE, validator.getReport().getIssues().getFirst().getType());
+        assertSame(networkGraphic,
+                new NetworkGraphicValidator(ValidationStrategy.SKIP_VALIDATION, false, networkGraphic).run());
+    }
+}
@@ -1,15 +1,26 @@
 package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
 
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Metadata;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Node;
 import ch.sbb.pfi.netzgrafikeditor.converter.core.model.Trainrun;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunCategory;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunFrequency;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.TrainrunTimeCategory;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class NetworkGraphicValidatorTest {
@@ -24,21 +35,31 @@ class NetworkGraphicValidatorTest {
         return networkGraphic.getTrainruns().stream().map(Trainrun::getName).toList();
     }
 
+    // one category, frequency and time category with id 0, which the trainruns of the tests reference
+    static Metadata createMetadata() {
+        return Metadata.builder()
+                .trainrunCategories(List.of(TrainrunCategory.builder().id(0).fachCategory("HaltezeitA").build()))
+                .trainrunFrequencies(List.of(TrainrunFrequency.builder().id(0).frequency(60).build()))
+                .trainrunTimeCategories(
+                        List.of(TrainrunTimeCategory.builder().id(0).dayTimeIntervals(List.of()).build()))
+                .build();
+    }
+
     @BeforeEach
     void setUp() {
-        List<Node> nodes = List.of(Node.builder().betriebspunktName("validNode").build(),
-                Node.builder().betriebspunktName("in validNode").build(),
-                Node.builder().betriebspunktName(" invalidNode").build(),
-                Node.builder().betriebspunktName("invalidNode ").build(),
-                Node.builder().betriebspunktName("inVälid.Nöde").build());
-
-        List<Trainrun> trainruns = List.of(Trainrun.builder().name("validTrainrun").build(),
-                Trainrun.builder().name("in validTrainrun").build(),
-                Trainrun.builder().name(" invalidTrainrun").build(),
-                Trainrun.builder().name("invalidTrainrun ").build(),
-                Trainrun.builder().name("inVälid.Träinrün").build());
-
-        original = NetworkGraphic.builder().nodes(nodes).trainruns(trainruns).build();
+        List<Node> nodes = List.of(Node.builder().id(0).betriebspunktName("validNode").build(),
+                Node.builder().id(1).betriebspunktName("in validNode").build(),
+                Node.builder().id(2).betriebspunktName(" invalidNode").build(),
+                Node.builder().id(3).betriebspunktName("invalidNode ").build(),
+                Node.builder().id(4).betriebspunktName("inVälid.Nöde").build());
+
+        List<Trainrun> trainruns = List.of(Trainrun.builder().id(0).name("validTrainrun").build(),
+                Trainrun.builder().id(1).name("in validTrainrun").build(),
+                Trainrun.builder().id(2).name(" invalidTrainrun").build(),
+                Trainrun.builder().id(3).name("invalidTrainrun ").build(),
+                Trainrun.builder().id(4).name("inVälid.Träinrün").build());
+
+        original = NetworkGraphic.builder().nodes(nodes).trainruns(trainruns).metadata(createMetadata()).build();
     }
 
     @ParameterizedTest
@@ -75,4 +96,84 @@ class NetworkGraphicValidatorTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void run_copiesOnlyChangedEntities() {
+        NetworkGraphic validated = new NetworkGraphicValidator(ValidationStrategy.REPLACE_WHITESPACE, false,
+                original).run();
+
+        assertSame(original.getNodes().getFirst(), validated.getNodes().getFirst());
+        assertNotSame(original.getNodes().get(1), validated.getNodes().get(1));
+        assertSame(original.getNodes().get(4), validated.getNodes().get(4));
+        assertSame(original.getTrainruns(), validated.getTrainruns());
+    }
+
+    @Test
+    void run_unchanged() {
+        NetworkGraphic valid = NetworkGraphic.builder()
+                .nodes(List.of(Node.builder().betriebspunktName("validNode").build()))
+                .trainruns(List.of(Trainrun.builder().name("validTrainrun").build()))
+                .build();
+
+        NetworkGraphicSanitizer sanitizer = new NetworkGraphicSanitizer(valid, true,
+                ValidationUtils::replaceWhitespace);
+
+        assertSame(valid, sanitizer.run());
+    }
+
+    @Test
+    void getReport() {
+        NetworkGraphicValidator validator = new NetworkGraphicValidator(ValidationStrategy.FAIL_ON_ISSUES, true,
+                original);
+
+        assertThrows(IllegalStateException.class, validator::run);
+        ValidationReport report = validator.getReport();
+
+        assertFalse(report.isValid());
+        assertEquals(10, report.getCheckedEntities());
+        assertEquals(2, report.getIssueCounts().get(IssueType.SPECIAL_CHARACTER));
+        assertEquals(2, report.getIssueCounts().get(IssueType.WHITESPACE));
+        assertEquals(4, report.getIssueCounts().get(IssueType.LEADING_OR_TRAILING_WHITESPACE));
+        assertEquals(0, report.getIssueCounts().get(IssueType.MISSING));
+        assertEquals(new ValidationIssue(IssueTarget.NODE, IssueType.WHITESPACE, "in validNode", 1),
+                report.getIssues().getFirst());
+        assertEquals(IssueTarget.TRAINRUN, report.getIssues().getLast().getTarget());
+    }
+
+    @Test
+    void getReport_parallel() {
+        List<Node> nodes = new ArrayList<>();
+        List<Trainrun> trainruns = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            nodes.add(Node.builder().id(i).betriebspunktName(i % 7 == 0 ? "node " + i : "node" + i).build());
+            trainruns.add(Trainrun.builder().id(i).name(i % 5 == 0 ? "train." + i : "train" + i).build());
+        }
+        NetworkGraphic large = NetworkGraphic.builder()
+                .nodes(nodes)
+                .trainruns(trainruns)
+                .metadata(createMetadata())
+                .build();
+
+        NetworkGraphicValidator sequential = new NetworkGraphicValidator(ValidationStrategy.WARN_ON_ISSUES, true,
+                large);
+        NetworkGraphicValidator parallel = new NetworkGraphicValidator(ValidationStrategy.WARN_ON_ISSUES, true, 4,
+                large);
+        sequential.run();
+        parallel.run();
+
+        assertEquals(sequential.getReport(), parallel.getReport());
+        assertEquals(2858 + 4000, parallel.getReport().getIssues().size());
+    }
+
+    @Test
+    void writeCsv() throws IOException {
+        ValidationReport report = ValidationReport.of(ValidationStrategy.WARN_ON_ISSUES, 2,
+                List.of(new ValidationIssue(IssueTarget.NODE, IssueType.SPECIAL_CHARACTER, "a,\"b\"", 3)));
+        StringWriter writer = new StringWriter();
+
+        report.writeCsv(writer);
+
+        assertEquals(String.join(System.lineSeparator(), "target,type,id,entity_id",
+                "NODE,SPECIAL_CHARACTER,\"a,\"\"b\"\"\",3", ""), writer.toString());
+    }
+}
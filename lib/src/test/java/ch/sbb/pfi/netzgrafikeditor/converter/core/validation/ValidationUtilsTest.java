@@ -0,0 +1,81 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.core.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ValidationUtilsTest {
+
+    // reference implementation with regular expressions
+    private static final Pattern SPECIAL_CHAR_PATTERN = Pattern.compile("[^a-zA-Z0-9_\\-\\s]");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+    private static final String CHARACTERS = "aZ09_-. \t\n.,äö\u2003";
+
+    private static IssueType classifyWithRegex(String input) {
+        if (input == null || input.isEmpty()) {
+            return IssueType.MISSING;
+        } else if (SPECIAL_CHAR_PATTERN.matcher(input).find()) {
+            return IssueType.SPECIAL_CHARACTER;
+        } else if (!input.equals(input.strip())) {
+            return IssueType.LEADING_OR_TRAILING_WHITESPACE;
+        } else if (WHITESPACE_PATTERN.matcher(input).find()) {
+            return IssueType.WHITESPACE;
+        }
+
+        return null;
+    }
+
+    private static String replaceWhitespaceWithRegex(String input) {
+        return WHITESPACE_PATTERN.matcher(input.strip()).replaceAll("_");
+    }
+
+    @Test
+    void classify() {
+        assertEquals(IssueType.MISSING, ValidationUtils.classify(null));
+        assertEquals(IssueType.MISSING, ValidationUtils.classify(""));
+        assertNull(ValidationUtils.classify("valid_Id-1"));
+        assertEquals(IssueType.SPECIAL_CHARACTER, ValidationUtils.classify(" in.valid"));
+        assertEquals(IssueType.LEADING_OR_TRAILING_WHITESPACE, ValidationUtils.classify("invalid\t"));
+        assertEquals(IssueType.WHITESPACE, ValidationUtils.classify("in valid"));
+    }
+
+    @Test
+    void fixes() {
+        assertEquals("in_valid", ValidationUtils.replaceWhitespace(" in \t valid "));
+        assertEquals("inVlid_Nde", ValidationUtils.removeSpecialCharactersReplaceWhitespace(" inVälid .Nöde. "));
+        assertEquals("_inVälid_Nöde_", ValidationUtils.removeDotsReplaceWhitespace(" inVälid . Nöde. "));
+    }
+
+    @Test
+    void fixes_unchanged() {
+        String id = "valid_Id-1";
+
+        assertSame(id, ValidationUtils.replaceWhitespace(id));
+        assertSame(id, ValidationUtils.removeSpecialCharactersReplaceWhitespace(id));
+        assertSame(id, ValidationUtils.removeDotsReplaceWhitespace(id));
+    }
+
+    @Test
+    void sameAsRegularExpressions() {
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            for (int j = random.nextInt(8); j > 0; j--) {
+                builder.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+            }
+            String id = builder.toString();
+
+            assertEquals(classifyWithRegex(id), ValidationUtils.classify(id), id);
+            assertEquals(replaceWhitespaceWithRegex(id), ValidationUtils.replaceWhitespace(id), id);
+            assertEquals(replaceWhitespaceWithRegex(SPECIAL_CHAR_PATTERN.matcher(id).replaceAll("")),
+                    ValidationUtils.removeSpecialCharactersReplaceWhitespace(id), id);
+            assertEquals(WHITESPACE_PATTERN.matcher(id.replace(".", "")).replaceAll("_"),
+                    ValidationUtils.removeDotsReplaceWhitespace(id), id);
+        }
+    }
+}
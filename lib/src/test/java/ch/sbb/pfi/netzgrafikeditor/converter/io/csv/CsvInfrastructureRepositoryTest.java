@@ -5,14 +5,22 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
 import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CsvInfrastructureRepositoryTest {
 
+    @TempDir
+    private Path tempDir;
+
     private CsvInfrastructureRepository repo;
 
     @BeforeEach
@@ -35,4 +43,18 @@ class CsvInfrastructureRepositoryTest {
         assertEquals(1, trackSegmentInfos.size());
         assertEquals(655.3, trackSegmentInfos.getFirst().getLength(), 0.1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getStopFacility_snapshot() throws IOException {
+        Path snapshotFile = tempDir.resolve("stop-facility-info.snapshot");
+        new CsvInfrastructureRepository(TestScenario.ALL_TEST_CASES.getStopFacilityInfoCsvFilePath(), snapshotFile);
+        assertTrue(Files.exists(snapshotFile));
+
+        CsvInfrastructureRepository snapshotRepo = new CsvInfrastructureRepository(
+                TestScenario.ALL_TEST_CASES.getStopFacilityInfoCsvFilePath(), snapshotFile);
+
+        assertEquals(repo.getStopFacility("A", "Stop A", 0., 0.), snapshotRepo.getStopFacility("A", "Stop A", 0., 0.));
+        assertEquals(repo.getStopFacility("B", "Stop B", 0., 0.), snapshotRepo.getStopFacility("B", "Stop B", 0., 0.));
+        assertThrows(IllegalArgumentException.class, () -> snapshotRepo.getStopFacility("unknown", "", 0., 0.));
+    }
+}
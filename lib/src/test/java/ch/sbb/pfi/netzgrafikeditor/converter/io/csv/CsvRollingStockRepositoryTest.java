@@ -4,13 +4,18 @@ import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.VehicleTypeInfo;
 import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class CsvRollingStockRepositoryTest {
 
+    @TempDir
+    private Path tempDir;
+
     private CsvRollingStockRepository repo;
 
     @BeforeEach
@@ -25,4 +30,15 @@ class CsvRollingStockRepositoryTest {
         assertEquals(600, vehicleTypeInfo.getSeats());
         assertEquals(55.56, vehicleTypeInfo.getMaxVelocity(), 0.01);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getVehicleType_snapshot() throws IOException {
+        Path snapshotFile = tempDir.resolve("rolling-stock-info.snapshot");
+        new CsvRollingStockRepository(TestScenario.REALISTIC_SCENARIO.getRollingStockInfoCsvFilePath(), snapshotFile);
+
+        CsvRollingStockRepository snapshotRepo = new CsvRollingStockRepository(
+                TestScenario.REALISTIC_SCENARIO.getRollingStockInfoCsvFilePath(), snapshotFile);
+
+        assertEquals(repo.getVehicleType("IC"), snapshotRepo.getVehicleType("IC"));
+    }
+}
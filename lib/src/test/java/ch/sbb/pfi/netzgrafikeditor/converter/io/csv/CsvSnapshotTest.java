@@ -0,0 +1,95 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.csv;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvSnapshotTest {
+
+    private static final CsvSnapshot.Codec<String> CODEC = new CsvSnapshot.Codec<>() {
+        @Override
+        public void write(DataOutput out, String entity) throws IOException {
+            CsvSnapshot.writeString(out, entity);
+        }
+
+        @Override
+        public String read(ByteBuffer buffer, String key) {
+            return key + "=" + CsvSnapshot.readString(buffer);
+        }
+    };
+
+    @TempDir
+    private Path tempDir;
+
+    private Path csvFile;
+    private Path snapshotFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        csvFile = Files.writeString(tempDir.resolve("entities.csv"), "key,value\n");
+        snapshotFile = tempDir.resolve("entities.csv.snapshot");
+    }
+
+    @Test
+    void writeAndLoad() throws IOException {
+        Map<String, String> entities = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            entities.put("key" + i, "value" + i);
+        }
+        entities.put("Zürich HB", "ü");
+        entities.put("", "empty");
+        CsvSnapshot.write(snapshotFile, csvFile, entities, CODEC);
+
+        CsvSnapshot<String> snapshot = CsvSnapshot.load(snapshotFile, csvFile, CODEC);
+
+        assertEquals(1002, snapshot.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("key" + i + "=value" + i, snapshot.get("key" + i));
+        }
+        assertEquals("Zürich HB=ü", snapshot.get("Zürich HB"));
+        assertEquals("=empty", snapshot.get(""));
+        assertSame(snapshot.get("key1"), snapshot.get("key1"));
+        assertNull(snapshot.get("key1000"));
+        assertNull(snapshot.get("Zürich"));
+    }
+
+    @Test
+    void load_empty() throws IOException {
+        CsvSnapshot.write(snapshotFile, csvFile, Map.of(), CODEC);
+
+        CsvSnapshot<String> snapshot = CsvSnapshot.load(snapshotFile, csvFile, CODEC);
+
+        assertEquals(0, snapshot.size());
+        assertNull(snapshot.get("key"));
+    }
+
+    @Test
+    void load_outdated() throws IOException {
+        CsvSnapshot.write(snapshotFile, csvFile, Map.of("key", "value"), CODEC);
+        Files.setLastModifiedTime(csvFile,
+                FileTime.fromMillis(Files.getLastModifiedTime(csvFile).toMillis() + 1000));
+
+        assertThrows(IllegalStateException.class, () -> CsvSnapshot.load(snapshotFile, csvFile, CODEC));
+    }
+
+    @Test
+    void load_invalidFile() throws IOException {
+        Files.writeString(snapshotFile, "not a snapshot");
+
+        assertThrows(IllegalStateException.class, () -> CsvSnapshot.load(snapshotFile, csvFile, CODEC));
+    }
+}
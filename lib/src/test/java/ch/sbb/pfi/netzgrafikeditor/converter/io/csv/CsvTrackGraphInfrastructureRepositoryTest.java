@@ -0,0 +1,82 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.csv;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.StopFacilityInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.core.supply.TrackSegmentInfo;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.Coordinate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CsvTrackGraphInfrastructureRepositoryTest {
+
+    private CsvTrackGraphInfrastructureRepository repo;
+
+    private static List<String> segmentIds(List<TrackSegmentInfo> track) {
+        return track.stream().map(TrackSegmentInfo::getSegmentId).toList();
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        TestScenario scenario = TestScenario.ALL_TEST_CASES;
+        repo = new CsvTrackGraphInfrastructureRepository(scenario.getStopFacilityInfoCsvFilePath(),
+                scenario.getTrackNodeInfoCsvFilePath(), scenario.getTrackSegmentInfoCsvFilePath());
+    }
+
+    @Test
+    void getStopFacility() {
+        StopFacilityInfo stopFacilityInfo = repo.getStopFacility("A", "Stop A", 0., 0.);
+        assertEquals("A", stopFacilityInfo.getId());
+        assertEquals(46.948, stopFacilityInfo.getCoordinate().getLatitude());
+        assertEquals(7.4474, stopFacilityInfo.getCoordinate().getLongitude());
+    }
+
+    @Test
+    void getTrack() {
+        List<TrackSegmentInfo> track = repo.getTrack(repo.getStopFacility("A", "Stop A", 0, 0),
+                repo.getStopFacility("D", "Stop D", 0, 0), null);
+
+        // the direct segment A-B is longer than the detour over M
+        assertEquals(List.of("A-M", "M-B", "B-C", "C-D"), segmentIds(track));
+        assertEquals(new Coordinate(46.9481, 7.4474), track.getFirst().getFromCoordinate());
+        assertEquals(new Coordinate(46.9628, 7.4381), track.getLast().getToCoordinate());
+        for (int i = 1; i < track.size(); i++) {
+            assertEquals(track.get(i - 1).getToCoordinate(), track.get(i).getFromCoordinate());
+        }
+        assertEquals(1805.4, track.stream().mapToDouble(TrackSegmentInfo::getLength).sum(), 0.1);
+    }
+
+    @Test
+    void getTrack_reverse() {
+        List<TrackSegmentInfo> track = repo.getTrack(repo.getStopFacility("D", "Stop D", 0, 0),
+                repo.getStopFacility("A", "Stop A", 0, 0), null);
+
+        assertEquals(List.of("D-C", "C-B", "B-M", "M-A"), segmentIds(track));
+    }
+
+    @Test
+    void getTrack_cached() {
+        StopFacilityInfo fromStop = repo.getStopFacility("B", "Stop B", 0, 0);
+        StopFacilityInfo toStop = repo.getStopFacility("G", "Stop G", 0, 0);
+
+        List<TrackSegmentInfo> track = repo.getTrack(fromStop, toStop, null);
+
+        assertEquals(List.of("B-C", "C-D", "D-E", "E-F", "F-G"), segmentIds(track));
+        assertSame(track, repo.getTrack(fromStop, toStop, null));
+    }
+
+    @Test
+    void getTrack_notConnected() {
+        List<TrackSegmentInfo> track = repo.getTrack(repo.getStopFacility("G", "Stop G", 0, 0),
+                repo.getStopFacility("H", "Stop H", 0, 0), null);
+
+        // falls back to the straight line between the stops
+        assertEquals(List.of("G-H"), segmentIds(track));
+        assertEquals(592.5, track.getFirst().getLength(), 0.1);
+    }
+}
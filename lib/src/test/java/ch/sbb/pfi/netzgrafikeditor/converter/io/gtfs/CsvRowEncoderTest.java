@@ -0,0 +1,68 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Calendar;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Route;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.RouteType;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Stop;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvRowEncoderTest {
+
+    private static <T> String encode(Class<T> type, T item) {
+        StringBuilder buffer = new StringBuilder();
+        CsvRowEncoder.of(type).encode(item, buffer);
+        return buffer.toString();
+    }
+
+    @Test
+    void header() {
+        assertEquals("trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                CsvRowEncoder.of(StopTime.class).getHeader());
+    }
+
+    @Test
+    void encode_stopTime() {
+        StopTime stopTime = StopTime.builder()
+                .tripId("trip")
+                .arrivalTime(ServiceDayTime.of(25, 1, 2))
+                .departureTime(ServiceDayTime.of(104, 0, 0))
+                .stopId("A")
+                .stopSequence(3)
+                .build();
+
+        assertEquals("trip,25:01:02,104:00:00,A,3", encode(StopTime.class, stopTime));
+    }
+
+    @Test
+    void encode_stop() {
+        Stop stop = Stop.builder().stopId("A").stopName("Stop A").stopLat(46.5).stopLon(7.25).build();
+
+        assertEquals("A,Stop A,46.5,7.25", encode(Stop.class, stop));
+    }
+
+    @Test
+    void encode_specificTypes() {
+        assertEquals("always,1,1,1,1,1,1,1,19700101,20991231", encode(Calendar.class, Calendar.builder().build()));
+        assertEquals(",,,,2", encode(Route.class, Route.builder().routeType(RouteType.RAIL).build()));
+    }
+
+    @Test
+    void appendEscaped() {
+        assertEquals("plain", escape("plain"));
+        assertEquals("\"a,b\"", escape("a,b"));
+        assertEquals("\"say \"\"hi\"\"\"", escape("say \"hi\""));
+        assertEquals("linebreak", escape("line\nbreak"));
+        assertEquals("\"a,b\"", escape("a,\r\nb"));
+    }
+
+    private static String escape(String value) {
+        StringBuilder buffer = new StringBuilder();
+        CsvRowEncoder.appendEscaped(value, buffer);
+        return buffer.toString();
+    }
+
+}
@@ -2,11 +2,13 @@ package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
 
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Agency;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Calendar;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Frequency;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Route;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Stop;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
 import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Trip;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.zip.ParallelZipConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -15,7 +17,9 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.zip.ZipFile;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GtfsScheduleWriterTest {
@@ -27,6 +31,7 @@ class GtfsScheduleWriterTest {
             .trips(List.of(Trip.builder().build()))
             .stopTimes(List.of(StopTime.builder().build()))
             .calendars(List.of(Calendar.builder().build()))
+            .frequencies(List.of(Frequency.builder().build()))
             .build();
 
     private static final GtfsSchedule SCHEDULE_EMPTY = GtfsSchedule.builder().build();
@@ -46,18 +51,19 @@ class GtfsScheduleWriterTest {
         @Test
         void save() throws IOException {
             writer.save(SCHEDULE);
-            ensureFiles();
+            ensureFiles(true);
         }
 
         @Test
         void save_empty() throws IOException {
             writer.save(SCHEDULE_EMPTY);
-            ensureFiles();
+            ensureFiles(false);
         }
 
-        private void ensureFiles() {
+        private void ensureFiles(boolean withOptional) {
             for (GtfsScheduleWriter.GtfsFile file : GtfsScheduleWriter.GtfsFile.values()) {
-                assertTrue(outputDir.resolve(file.getFileName()).toFile().exists());
+                assertEquals(withOptional || !file.isOptional(),
+                        outputDir.resolve(file.getFileName()).toFile().exists());
             }
         }
     }
@@ -87,4 +93,34 @@ class GtfsScheduleWriterTest {
             assertTrue(outputDir.resolve(GtfsScheduleWriter.GTFS_ZIP).toFile().exists());
         }
     }
+
+    @Nested
+    class ParallelZip {
+
+        @BeforeEach
+        void setUp(@TempDir Path tempDir) {
+            outputDir = tempDir;
+            writer = new GtfsScheduleWriter(outputDir, ParallelZipConfig.builder().chunkSize(64).build());
+        }
+
+        @Test
+        void save() throws IOException {
+            writer.save(SCHEDULE);
+            ensureZipEntries(true);
+        }
+
+        @Test
+        void save_empty() throws IOException {
+            writer.save(SCHEDULE_EMPTY);
+            ensureZipEntries(false);
+        }
+
+        private void ensureZipEntries(boolean withOptional) throws IOException {
+            try (ZipFile zipFile = new ZipFile(outputDir.resolve(GtfsScheduleWriter.GTFS_ZIP).toFile())) {
+                for (GtfsScheduleWriter.GtfsFile file : GtfsScheduleWriter.GtfsFile.values()) {
+                    assertEquals(withOptional || !file.isOptional(), zipFile.getEntry(file.getFileName()) != null);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.gtfs;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.GtfsSchedule;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Route;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Stop;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.StopTime;
+import ch.sbb.pfi.netzgrafikeditor.converter.adapter.gtfs.model.Trip;
+import ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingGtfsScheduleWriterTest {
+
+    private static final Trip TRIP = Trip.builder().tripId("trip").build();
+    private static final List<StopTime> STOP_TIMES = List.of(
+            StopTime.builder().tripId("trip").stopId("A").arrivalTime(ServiceDayTime.of(8, 0, 0))
+                    .departureTime(ServiceDayTime.of(8, 0, 0)).stopSequence(1).build());
+    private static final GtfsSchedule SCHEDULE = GtfsSchedule.builder()
+            .stops(List.of(Stop.builder().build()))
+            .routes(List.of(Route.builder().build()))
+            .build();
+
+    @TempDir
+    Path outputDir;
+
+    private StreamingGtfsScheduleWriter writer;
+
+    private static List<String> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        writer = new StreamingGtfsScheduleWriter(outputDir, true);
+    }
+
+    @Test
+    void save_zip() throws IOException {
+        writer.accept(TRIP, STOP_TIMES);
+        writer.save(SCHEDULE);
+
+        assertEquals(List.of(GtfsScheduleWriter.GTFS_ZIP), list(outputDir));
+        try (ZipFile zipFile = new ZipFile(outputDir.resolve(GtfsScheduleWriter.GTFS_ZIP).toFile())) {
+            for (String file : List.of("feed_info.txt", "agency.txt", "stops.txt", "routes.txt", "trips.txt",
+                    "stop_times.txt", "calendar.txt")) {
+                assertNotNull(zipFile.getEntry(file), file);
+            }
+            assertTrue(new String(zipFile.getInputStream(zipFile.getEntry("stop_times.txt")).readAllBytes()).contains(
+                    "trip,08:00:00,08:00:00,A,1"));
+        }
+    }
+
+    @Test
+    void save_failure() throws IOException {
+        writer.accept(TRIP, STOP_TIMES);
+
+        GtfsSchedule invalid = GtfsSchedule.builder().feedInfo(null).build();
+        assertThrows(NullPointerException.class, () -> writer.save(invalid));
+
+        // the incomplete zip file and the trips temporary file are deleted
+        assertEquals(List.of(), list(outputDir));
+    }
+
+    @Test
+    void abort() throws IOException {
+        writer.accept(TRIP, STOP_TIMES);
+        assertEquals(2, list(outputDir).size());
+
+        writer.abort();
+
+        assertEquals(List.of(), list(outputDir));
+
+        // the writer can be reused after an abort
+        writer.accept(TRIP, STOP_TIMES);
+        writer.save(SCHEDULE);
+        assertEquals(List.of(GtfsScheduleWriter.GTFS_ZIP), list(outputDir));
+    }
+
+    @Test
+    void save_failure_directory() throws IOException {
+        Files.writeString(outputDir.resolve("stops.txt"), "stops of an earlier run");
+        writer = new StreamingGtfsScheduleWriter(outputDir, false);
+        writer.accept(TRIP, STOP_TIMES);
+        assertEquals(List.of("stop_times.txt", "stops.txt", "trips.txt"), list(outputDir));
+
+        GtfsSchedule invalid = GtfsSchedule.builder().feedInfo(null).build();
+        assertThrows(NullPointerException.class, () -> writer.save(invalid));
+
+        // the incomplete streamed files are deleted, so the remaining files do not look like a feed
+        assertEquals(List.of("stops.txt"), list(outputDir));
+    }
+
+    @Test
+    void abort_directory() throws IOException {
+        writer = new StreamingGtfsScheduleWriter(outputDir, false);
+        writer.accept(TRIP, STOP_TIMES);
+
+        writer.abort();
+
+        assertEquals(List.of(), list(outputDir));
+    }
+}
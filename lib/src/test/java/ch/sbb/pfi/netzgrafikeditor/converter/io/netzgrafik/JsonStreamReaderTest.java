@@ -0,0 +1,49 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.io.netzgrafik;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.core.model.NetworkGraphic;
+import ch.sbb.pfi.netzgrafikeditor.converter.test.TestScenario;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class JsonStreamReaderTest {
+
+    private static final Path FILE_PATH = TestScenario.REALISTIC_SCENARIO.getNetworkGraphicFilePath();
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void load_plain() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(FILE_PATH);
+
+        NetworkGraphic networkGraphic = reader.load();
+
+        assertEquals(new JsonDeserializer().read(FILE_PATH), networkGraphic);
+        assertEquals(Files.size(FILE_PATH), reader.getBytesRead());
+        assertSame(networkGraphic, reader.load());
+    }
+
+    @Test
+    void load_gzip() throws IOException {
+        Path gzipPath = tempDir.resolve("network-graphic.json.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(gzipPath))) {
+            Files.copy(FILE_PATH, outputStream);
+        }
+        JsonStreamReader reader = new JsonStreamReader(gzipPath);
+
+        NetworkGraphic networkGraphic = reader.load();
+
+        assertEquals(new JsonDeserializer().read(FILE_PATH), networkGraphic);
+        assertEquals(Files.size(gzipPath), reader.getBytesRead());
+    }
+
+}
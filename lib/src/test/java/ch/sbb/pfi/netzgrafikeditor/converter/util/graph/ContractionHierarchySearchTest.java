@@ -0,0 +1,131 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.HaversineDistance;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContractionHierarchySearchTest {
+
+    private static final int NODE_COUNT = 400;
+    private static final int QUERY_COUNT = 500;
+
+    @TempDir
+    private Path tempDir;
+
+    // random nodes, each connected to a few of the following ones, partly in one direction only
+    private static TrackGraph createGraph(long seed) {
+        Random random = new Random(seed);
+        TrackGraph.Builder builder = TrackGraph.builder();
+        for (int i = 0; i < NODE_COUNT; i++) {
+            builder.addNode("n" + i, 46 + random.nextDouble() * 0.1, 7 + random.nextDouble() * 0.1);
+        }
+
+        for (int i = 0; i < NODE_COUNT; i++) {
+            int neighbours = 1 + random.nextInt(3);
+            for (int j = 0; j < neighbours; j++) {
+                int other = (i + 1 + random.nextInt(10)) % NODE_COUNT;
+                String from = "n" + i;
+                String to = "n" + other;
+                double distance = HaversineDistance.calculate(builder.getLatitude(from), builder.getLongitude(from),
+                        builder.getLatitude(to), builder.getLongitude(to));
+                builder.addEdge(from + "-" + to + "-" + j, from, to, distance * (1 + random.nextDouble()));
+                if (random.nextInt(4) > 0) {
+                    builder.addEdge(to + "-" + from + "-" + j, to, from, distance * (1 + random.nextDouble()));
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static double pathLength(TrackGraph graph, int source, int target, int[] path) {
+        double length = 0;
+        int node = source;
+        for (int edge : path) {
+            assertEquals(node, graph.getEdgeSource(edge), "Path is not connected");
+            length += graph.getEdgeLength(edge);
+            node = graph.getEdgeTarget(edge);
+        }
+        assertEquals(target, node, "Path does not end at the target");
+
+        return length;
+    }
+
+    private static void assertSameDistances(TrackGraph graph, PathSearch expected, PathSearch actual) {
+        Random random = new Random(3);
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            int source = random.nextInt(graph.getNodeCount());
+            int target = random.nextInt(graph.getNodeCount());
+
+            int[] expectedPath = expected.findPath(source, target);
+            int[] actualPath = actual.findPath(source, target);
+            if (expectedPath == null) {
+                assertNull(actualPath);
+            } else {
+                assertEquals(pathLength(graph, source, target, expectedPath),
+                        pathLength(graph, source, target, actualPath), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void findPath() {
+        TrackGraph graph = createGraph(11);
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+
+        assertSameDistances(graph, new ShortestPathSearch(graph), new ContractionHierarchySearch(hierarchy));
+    }
+
+    @Test
+    void findPath_directed() {
+        TrackGraph graph = TrackGraph.builder()
+                .addNode("a", 46.0, 7.0)
+                .addNode("b", 46.0, 7.01)
+                .addNode("c", 46.0, 7.02)
+                .addEdge("a-b", "a", "b", 1000)
+                .addEdge("b-c", "b", "c", 1000)
+                .build();
+        ContractionHierarchySearch search = new ContractionHierarchySearch(ContractionHierarchy.build(graph));
+
+        assertArrayEquals(new int[]{0, 1}, search.findPath(0, 2));
+        assertNull(search.findPath(2, 0));
+        assertArrayEquals(new int[0], search.findPath(1, 1));
+    }
+
+    @Test
+    void writeAndLoad() throws IOException {
+        TrackGraph graph = createGraph(5);
+        Path hierarchyFile = tempDir.resolve("hierarchy.bin");
+        ContractionHierarchy.build(graph).write(hierarchyFile);
+
+        ContractionHierarchy loaded = ContractionHierarchy.load(hierarchyFile, graph);
+
+        assertSameDistances(graph, new ShortestPathSearch(graph), new ContractionHierarchySearch(loaded));
+    }
+
+    @Test
+    void load_otherGraph() throws IOException {
+        Path hierarchyFile = tempDir.resolve("hierarchy.bin");
+        ContractionHierarchy.build(createGraph(5)).write(hierarchyFile);
+
+        assertThrows(IllegalStateException.class, () -> ContractionHierarchy.load(hierarchyFile, createGraph(6)));
+    }
+
+    @Test
+    void load_invalidFile() throws IOException {
+        Path hierarchyFile = tempDir.resolve("hierarchy.bin");
+        Files.writeString(hierarchyFile, "not a contraction hierarchy");
+
+        assertThrows(IllegalStateException.class, () -> ContractionHierarchy.load(hierarchyFile, createGraph(5)));
+    }
+}
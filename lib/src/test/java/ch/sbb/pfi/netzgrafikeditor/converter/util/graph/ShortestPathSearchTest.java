@@ -0,0 +1,200 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.graph;
+
+import ch.sbb.pfi.netzgrafikeditor.converter.util.spatial.HaversineDistance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShortestPathSearchTest {
+
+    private static final int GRID_SIZE = 20;
+    private static final double GRID_SPACING = 0.001;
+
+    // grid of nodes with edges to the right and up neighbours in both directions, detour factors between 1 and 2
+    private static TrackGraph createGrid(long seed) {
+        Random random = new Random(seed);
+        TrackGraph.Builder builder = TrackGraph.builder();
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                builder.addNode(row + "_" + col, 46 + row * GRID_SPACING, 7 + col * GRID_SPACING);
+            }
+        }
+
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                if (col + 1 < GRID_SIZE) {
+                    addEdges(builder, random, row + "_" + col, row + "_" + (col + 1));
+                }
+                if (row + 1 < GRID_SIZE) {
+                    addEdges(builder, random, row + "_" + col, (row + 1) + "_" + col);
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static void addEdges(TrackGraph.Builder builder, Random random, String fromNodeId, String toNodeId) {
+        double distance = HaversineDistance.calculate(builder.getLatitude(fromNodeId),
+                builder.getLongitude(fromNodeId), builder.getLatitude(toNodeId), builder.getLongitude(toNodeId));
+        builder.addEdge(fromNodeId + "-" + toNodeId, fromNodeId, toNodeId, distance * (1 + random.nextDouble()));
+        builder.addEdge(toNodeId + "-" + fromNodeId, toNodeId, fromNodeId, distance * (1 + random.nextDouble()));
+    }
+
+    // plain Dijkstra without heuristic as reference
+    private static double referenceDistance(TrackGraph graph, int source, int target) {
+        double[] distances = new double[graph.getNodeCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[1], b[1]));
+        queue.add(new double[]{source, 0});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int node = (int) entry[0];
+            if (entry[1] > distances[node]) {
+                continue;
+            }
+            for (int edge = graph.getFirstEdge(node); edge < graph.getFirstEdge(node + 1); edge++) {
+                int next = graph.getEdgeTarget(edge);
+                double distance = distances[node] + graph.getEdgeLength(edge);
+                if (distance < distances[next]) {
+                    distances[next] = distance;
+                    queue.add(new double[]{next, distance});
+                }
+            }
+        }
+
+        return distances[target];
+    }
+
+    private static double pathLength(TrackGraph graph, int source, int target, int[] path) {
+        double length = 0;
+        int node = source;
+        for (int edge : path) {
+            assertEquals(node, graph.getEdgeSource(edge), "Path is not connected");
+            length += graph.getEdgeLength(edge);
+            node = graph.getEdgeTarget(edge);
+        }
+        assertEquals(target, node, "Path does not end at the target");
+
+        return length;
+    }
+
+    @Test
+    void findPath() {
+        TrackGraph graph = TrackGraph.builder()
+                .addNode("a", 46.0, 7.0)
+                .addNode("b", 46.0, 7.01)
+                .addNode("c", 46.01, 7.0)
+                .addNode("d", 46.01, 7.01)
+                .addEdge("a-b", "a", "b", 5000)
+                .addEdge("a-c", "a", "c", 1200)
+                .addEdge("c-d", "c", "d", 800)
+                .addEdge("d-b", "d", "b", 1200)
+                .build();
+        ShortestPathSearch search = new ShortestPathSearch(graph);
+
+        int[] path = search.findPath(graph.getNodeIndex("a"), graph.getNodeIndex("b"));
+
+        // three edges over c and d are shorter than the direct edge
+        assertEquals(3, path.length);
+        assertEquals("a-c", graph.getEdgeId(path[0]));
+        assertEquals("c-d", graph.getEdgeId(path[1]));
+        assertEquals("d-b", graph.getEdgeId(path[2]));
+    }
+
+    @Test
+    void findPath_directed() {
+        TrackGraph graph = TrackGraph.builder()
+                .addNode("a", 46.0, 7.0)
+                .addNode("b", 46.0, 7.01)
+                .addEdge("a-b", "a", "b", 1000)
+                .build();
+        ShortestPathSearch search = new ShortestPathSearch(graph);
+
+        assertEquals(1, search.findPath(0, 1).length);
+        assertNull(search.findPath(1, 0));
+        assertArrayEquals(new int[0], search.findPath(1, 1));
+    }
+
+    @Test
+    void findPath_matchesDijkstra() {
+        TrackGraph graph = createGrid(42);
+        ShortestPathSearch search = new ShortestPathSearch(graph);
+        Random random = new Random(7);
+
+        // reuse the search for many queries, its state must not leak between them
+        for (int i = 0; i < 200; i++) {
+            int source = random.nextInt(graph.getNodeCount());
+            int target = random.nextInt(graph.getNodeCount());
+
+            double length = pathLength(graph, source, target, search.findPath(source, target));
+            assertEquals(referenceDistance(graph, source, target), length, 1e-6);
+        }
+    }
+
+    @Test
+    void build_invalid() {
+        TrackGraph.Builder builder = TrackGraph.builder().addNode("a", 46.0, 7.0);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.addNode("a", 46.0, 7.0));
+        assertThrows(IllegalArgumentException.class, () -> builder.addEdge("a-b", "a", "b", 100));
+        assertThrows(IllegalArgumentException.class, () -> builder.addEdge("a-a", "a", "a", -1));
+    }
+
+    @Test
+    void findNearestNode() {
+        TrackGraph graph = createGrid(1);
+
+        assertEquals(graph.getNodeIndex("3_4"), graph.findNearestNode(46.0031, 7.0039));
+        assertEquals(graph.getNodeIndex("0_0"), graph.findNearestNode(45, 6));
+    }
+
+    @Test
+    void findNearestNode_matchesLinearScan() {
+        Random random = new Random(42);
+        TrackGraph.Builder builder = TrackGraph.builder();
+        for (int i = 0; i < 2000; i++) {
+            // clustered nodes and duplicates, as on national track graphs with dense stations
+            double latitude = i % 10 == 0 ? 46.5 : 45.8 + random.nextDouble() * (i % 3 == 0 ? 0.01 : 1.0);
+            double longitude = i % 10 == 0 ? 7.5 : 6.0 + random.nextDouble() * (i % 3 == 0 ? 0.01 : 4.0);
+            builder.addNode("n" + i, latitude, longitude);
+        }
+        TrackGraph graph = builder.build();
+
+        for (int i = 0; i < 1000; i++) {
+            // also query outside the bounding box of the nodes
+            double latitude = 45.5 + random.nextDouble() * 1.6;
+            double longitude = 5.5 + random.nextDouble() * 5.0;
+            assertEquals(linearScan(graph, latitude, longitude), graph.findNearestNode(latitude, longitude));
+        }
+        assertEquals(graph.getNodeIndex("n0"), graph.findNearestNode(46.5, 7.5));
+        assertEquals(-1, TrackGraph.builder().build().findNearestNode(46, 7));
+        assertEquals(0, TrackGraph.builder().addNode("a", 46, 7).build().findNearestNode(47, 8));
+    }
+
+    private static int linearScan(TrackGraph graph, double latitude, double longitude) {
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+        int nearest = -1;
+        double nearestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < graph.getNodeCount(); i++) {
+            double dLat = graph.getLatitude(i) - latitude;
+            double dLon = (graph.getLongitude(i) - longitude) * cosLatitude;
+            double distance = dLat * dLat + dLon * dLon;
+            if (distance < nearestDistance) {
+                nearest = i;
+                nearestDistance = distance;
+            }
+        }
+
+        return nearest;
+    }
+}
@@ -6,9 +6,11 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
+import java.time.Duration;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.Temporal;
+import java.time.temporal.UnsupportedTemporalTypeException;
 import java.time.temporal.ValueRange;
 
 import static ch.sbb.pfi.netzgrafikeditor.converter.util.time.ServiceDayTime.*;
@@ -68,6 +70,38 @@ class ServiceDayTimeTest {
             assertThrows(IllegalArgumentException.class, () -> new ServiceDayTime(-1));
         }
 
+        @Test
+        void shouldCreate_canonicalWholeMinutes() {
+            assertSame(MIDNIGHT, ServiceDayTime.ofSeconds(0));
+            assertSame(ServiceDayTime.ofSeconds(8 * SECONDS_IN_HOUR), ServiceDayTime.of(8, 0, 0));
+            assertSame(ServiceDayTime.of(47, 59, 0), ServiceDayTime.ofSeconds(48 * SECONDS_IN_HOUR - 60));
+            assertEquals(noonNextDay, ServiceDayTime.ofSeconds(36 * SECONDS_IN_HOUR));
+        }
+
+        @Test
+        void shouldCreate_uncachedTimes() {
+            assertEquals(endOfDay, ServiceDayTime.ofSeconds(SECONDS_IN_DAY - 1));
+            assertNotSame(ServiceDayTime.ofSeconds(61), ServiceDayTime.ofSeconds(61));
+            assertEquals("48:00:00", ServiceDayTime.ofSeconds(2 * SECONDS_IN_DAY).toString());
+            assertThrows(IllegalArgumentException.class, () -> ServiceDayTime.ofSeconds(-60));
+        }
+
+        @Test
+        void shouldFormat_hoursBeyondTwoDigits() {
+            assertEquals("25:35:00", ServiceDayTime.of(25, 35, 0).toString());
+            assertEquals("99:59:59", ServiceDayTime.of(99, 59, 59).toString());
+            assertEquals("100:00:01", ServiceDayTime.of(100, 0, 1).toString());
+            assertEquals("596523:14:07", MAX.toString());
+        }
+
+        @Test
+        void shouldAppend_toBuffer() {
+            StringBuilder buffer = new StringBuilder("time=");
+
+            assertSame(buffer, ServiceDayTime.of(7, 5, 9).appendTo(buffer));
+            assertEquals("time=07:05:09", buffer.toString());
+        }
+
         @Test
         void shouldThrow_invalidHours() {
             assertThrows(IllegalArgumentException.class, () -> ServiceDayTime.of(-1, 0, 0));
@@ -247,6 +281,20 @@ class ServiceDayTimeTest {
                 assertEquals(86400, result.getLong(ChronoField.SECOND_OF_DAY));
                 assertEquals("24:00:00", result.toString());
             }
+
+            @Test
+            void shouldAdd_secondsPrimitive() {
+                assertSame(midnightNextDay, endOfDay.plusSeconds(1));
+                assertEquals(noon, midnight.plusSeconds(SECONDS_IN_DAY / 2));
+                assertThrows(IllegalArgumentException.class, () -> midnight.plusSeconds(-1));
+            }
+
+            @Test
+            void shouldAdd_duration() {
+                assertEquals(endOfDay.plus(90, ChronoUnit.SECONDS), endOfDay.plus(Duration.ofSeconds(90)));
+                assertEquals(noonNextDay, noon.plus(Duration.ofDays(1)));
+                assertThrows(UnsupportedTemporalTypeException.class, () -> noon.plus(Duration.ofMillis(1500)));
+            }
         }
 
         @Nested
@@ -271,6 +319,20 @@ class ServiceDayTimeTest {
                 assertEquals(86399, result.getLong(ChronoField.SECOND_OF_DAY));
                 assertEquals("23:59:59", result.toString());
             }
+
+            @Test
+            void shouldSubtract_secondsPrimitive() {
+                assertEquals(endOfDay, midnightNextDay.minusSeconds(1));
+                assertSame(noon, noonNextDay.minusSeconds(SECONDS_IN_DAY));
+                assertThrows(IllegalArgumentException.class, () -> midnight.minusSeconds(1));
+            }
+
+            @Test
+            void shouldSubtract_duration() {
+                assertEquals(midnightNextDay.minus(90, ChronoUnit.SECONDS),
+                        midnightNextDay.minus(Duration.ofSeconds(90)));
+                assertThrows(UnsupportedTemporalTypeException.class, () -> noon.minus(Duration.ofMillis(1500)));
+            }
         }
 
         @Nested
@@ -0,0 +1,59 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.zip;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ParallelGzipOutputStreamTest {
+
+    private static final int CHUNK_SIZE = 4096 + 17;
+
+    @TempDir
+    private Path tempDir;
+
+    private static byte[] createContent(int rows) {
+        Random random = new Random(rows);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            sb.append("<departure id=\"").append(i).append("\" time=\"").append(random.nextInt(86400)).append("\"/>\n");
+        }
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, false", "10, false", "50000, false", "50000, true"})
+    void write(int rows, boolean stored) throws IOException {
+        byte[] content = createContent(rows);
+        Path gzipFile = tempDir.resolve("test.xml.gz");
+
+        ParallelZipConfig config = ParallelZipConfig.builder()
+                .stored(stored)
+                .chunkSize(CHUNK_SIZE)
+                .parallelism(3)
+                .build();
+        try (OutputStream out = new ParallelGzipOutputStream(Files.newOutputStream(gzipFile), config)) {
+            // write in small pieces which do not align with the chunks
+            for (int offset = 0; offset < content.length; offset += 1000) {
+                out.write(content, offset, Math.min(1000, content.length - offset));
+            }
+        }
+
+        // the concatenated members are read as one stream
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipFile))) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.util.zip;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelZipWriterTest {
+
+    private static final int CHUNK_SIZE = 4096 + 17;
+    private static final List<String> NAMES = List.of("empty.txt", "small.txt", "large.txt", "äöü.txt");
+
+    @TempDir
+    private Path tempDir;
+
+    private static byte[] createContent(int rows) {
+        Random random = new Random(rows);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            sb.append("row_").append(i).append(',').append(random.nextInt(1000)).append('\n');
+        }
+
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void write(boolean stored) throws IOException {
+        List<byte[]> contents = List.of(createContent(0), createContent(10), createContent(50_000),
+                createContent(100));
+        Path zipFile = tempDir.resolve("test.zip");
+
+        ParallelZipConfig config = ParallelZipConfig.builder()
+                .stored(stored)
+                .chunkSize(CHUNK_SIZE)
+                .parallelism(3)
+                .build();
+        try (ParallelZipWriter writer = new ParallelZipWriter(Files.newOutputStream(zipFile), config)) {
+            for (int i = 0; i < NAMES.size(); i++) {
+                byte[] content = contents.get(i);
+                // write in small pieces which do not align with the chunks
+                writer.addEntry(NAMES.get(i), outputStream -> {
+                    for (int offset = 0; offset < content.length; offset += 1000) {
+                        outputStream.write(content, offset, Math.min(1000, content.length - offset));
+                    }
+                });
+            }
+        }
+
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            List<? extends ZipEntry> entries = Collections.list(zip.entries());
+            assertEquals(NAMES, entries.stream().map(ZipEntry::getName).toList());
+            for (int i = 0; i < entries.size(); i++) {
+                ZipEntry entry = entries.get(i);
+                assertEquals(stored ? ZipEntry.STORED : ZipEntry.DEFLATED, entry.getMethod());
+                assertArrayEquals(contents.get(i), zip.getInputStream(entry).readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void close_rethrowsEntryFailure() {
+        IOException ioException = new IOException("entry");
+        OutOfMemoryError error = new OutOfMemoryError("entry");
+
+        ParallelZipWriter ioWriter = new ParallelZipWriter(OutputStream.nullOutputStream(),
+                ParallelZipConfig.builder().build());
+        ioWriter.addEntry("io.txt", outputStream -> {
+            throw ioException;
+        });
+        assertSame(ioException, assertThrows(IOException.class, ioWriter::close));
+
+        // an error on a compression thread is not disguised as an I/O failure
+        ParallelZipWriter errorWriter = new ParallelZipWriter(OutputStream.nullOutputStream(),
+                ParallelZipConfig.builder().build());
+        errorWriter.addEntry("error.txt", outputStream -> {
+            throw error;
+        });
+        assertSame(error, assertThrows(OutOfMemoryError.class, errorWriter::close));
+    }
+}
@@ -12,11 +12,15 @@ public enum TestScenario {
     private final TestFile networkGraphicFile;
     private final TestFile stopFacilityInfoCsvFile;
     private final TestFile rollingStockInfoCsvFile;
+    private final TestFile trackNodeInfoCsvFile;
+    private final TestFile trackSegmentInfoCsvFile;
 
     TestScenario(String name) {
         this.networkGraphicFile = new TestFile(FOLDER, String.format("%s.json", name));
         this.stopFacilityInfoCsvFile = new TestFile(FOLDER, String.format("%s-stop-facility-info.csv", name));
         this.rollingStockInfoCsvFile = new TestFile(FOLDER, String.format("%s-rolling-stock-info.csv", name));
+        this.trackNodeInfoCsvFile = new TestFile(FOLDER, String.format("%s-track-node-info.csv", name));
+        this.trackSegmentInfoCsvFile = new TestFile(FOLDER, String.format("%s-track-segment-info.csv", name));
     }
 
     public Path getNetworkGraphicFilePath() {
@@ -30,4 +34,12 @@ public enum TestScenario {
     public Path getRollingStockInfoCsvFilePath() {
         return rollingStockInfoCsvFile.getPath();
     }
+
+    public Path getTrackNodeInfoCsvFilePath() {
+        return trackNodeInfoCsvFile.getPath();
+    }
+
+    public Path getTrackSegmentInfoCsvFilePath() {
+        return trackSegmentInfoCsvFile.getPath();
+    }
 }
@@ -0,0 +1,17 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.test.generator;
+
+import lombok.Value;
+
+import java.nio.file.Path;
+
+/**
+ * Files of a generated network graphic, analogous to a test scenario.
+ */
+@Value
+public class GeneratedScenario {
+
+    Path networkGraphicFilePath;
+    Path stopFacilityInfoCsvFilePath;
+    Path rollingStockInfoCsvFilePath;
+
+}
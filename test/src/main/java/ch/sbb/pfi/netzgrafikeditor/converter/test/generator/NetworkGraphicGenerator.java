@@ -0,0 +1,435 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.test.generator;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic network graphics of configurable size, together with matching stop facility and rolling stock
+ * CSV files, for scale and performance testing.
+ * <p>
+ * The nodes are placed on a square grid and each trainrun is a self-avoiding random walk on the grid, which starts and
+ * ends on nodes where trains can stop. Section times are consistent with the dwell times of the trainrun categories.
+ * Since the library depends on this module, the network graphic is written in the JSON format of the Netzgrafik-Editor
+ * and read with the deserializer of the library.
+ */
+@RequiredArgsConstructor
+public class NetworkGraphicGenerator {
+
+    public static final String NETWORK_GRAPHIC_FILE = "network-graphic.json";
+    public static final String STOP_FACILITY_INFO_FILE = "stop-facility-info.csv";
+    public static final String ROLLING_STOCK_INFO_FILE = "rolling-stock-info.csv";
+
+    private static final List<Category> CATEGORIES = List.of(
+            new Category("EC", "International", "HaltezeitIPV", 3, "FV-EC", 500, 100, 400, 230),
+            new Category("IC", "InterCity", "HaltezeitA", 2, "FV-Dosto", 600, 0, 200, 200),
+            new Category("IR", "InterRegio", "HaltezeitB", 2, "IR-Dosto", 350, 550, 100, 160),
+            new Category("RE", "RegioExpress", "HaltezeitC", 1, "RV-Flirt", 300, 400, 150, 160),
+            new Category("S", "RegioUndSBahnverkehr", "HaltezeitD", 1, "RV-Dosto", 400, 600, 150, 140));
+    private static final String UNCATEGORIZED = "HaltezeitUncategorized";
+    private static final int MAX_WALK_ATTEMPTS = 100;
+    private static final int MIN_TRAVEL_TIME = 2;
+    private static final int MAX_TRAVEL_TIME = 20;
+    private static final int GRID_SPACING = 128;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int SERVICE_DAY_START = 5 * MINUTES_PER_HOUR;
+    private static final int SERVICE_DAY_END = 24 * MINUTES_PER_HOUR;
+    private static final int MIN_INTERVAL = MINUTES_PER_HOUR;
+    private static final int MAX_INTERVAL = 4 * MINUTES_PER_HOUR;
+
+    // bounding box of the stop facility coordinates (WGS84)
+    private static final double MAX_LATITUDE = 47.8;
+    private static final double MIN_LONGITUDE = 5.9;
+    private static final double LATITUDE_SPAN = 2.0;
+    private static final double LONGITUDE_SPAN = 4.6;
+
+    private final NetworkGraphicGeneratorConfig config;
+
+    private static String nodeName(int nodeId) {
+        return String.format("N%d", nodeId);
+    }
+
+    /**
+     * Generate the network graphic and write it with the stop facility and rolling stock CSV files to the directory.
+     */
+    public GeneratedScenario generate(Path directory) throws IOException {
+        if (config.getNodes() < 2) {
+            throw new IllegalArgumentException("At least two nodes are required: " + config.getNodes());
+        }
+        if (config.getSectionsPerTrainrun() < 1) {
+            throw new IllegalArgumentException(
+                    "At least one section per trainrun is required: " + config.getSectionsPerTrainrun());
+        }
+        if (config.getFrequencies().isEmpty() || config.getTimeCategories() < 1) {
+            throw new IllegalArgumentException("At least one frequency and one time category are required");
+        }
+
+        Network network = new NetworkBuilder(new Random(config.getSeed())).build();
+
+        Files.createDirectories(directory);
+        GeneratedScenario scenario = new GeneratedScenario(directory.resolve(NETWORK_GRAPHIC_FILE),
+                directory.resolve(STOP_FACILITY_INFO_FILE), directory.resolve(ROLLING_STOCK_INFO_FILE));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(scenario.getNetworkGraphicFilePath())) {
+            new JsonWriter(writer).write(network);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(scenario.getStopFacilityInfoCsvFilePath())) {
+            writeStopFacilityInfo(writer, network);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(scenario.getRollingStockInfoCsvFilePath())) {
+            writeRollingStockInfo(writer);
+        }
+
+        return scenario;
+    }
+
+    private void writeStopFacilityInfo(Writer writer, Network network) throws IOException {
+        writer.write("stop_id,stop_name,stop_lat,stop_lon\n");
+        int columns = network.columns();
+        double step = 1. / Math.max(1, columns - 1);
+        for (GeneratedNode node : network.nodes()) {
+            double latitude = MAX_LATITUDE - LATITUDE_SPAN * step * (node.id() / columns);
+            double longitude = MIN_LONGITUDE + LONGITUDE_SPAN * step * (node.id() % columns);
+            writer.write(String.format("%s,%s,%s,%s\n", nodeName(node.id()), node.fullName(), latitude, longitude));
+        }
+    }
+
+    private void writeRollingStockInfo(Writer writer) throws IOException {
+        writer.write("category,transport_mode,vehicle_type_id,seats,standing_room,length,max_velocity\n");
+        for (Category category : CATEGORIES) {
+            writer.write(String.format("%s,rail,%s,%d,%d,%d,%d\n", category.shortName(), category.vehicleTypeId(),
+                    category.seats(), category.standingRoom(), category.length(), category.maxVelocity()));
+        }
+    }
+
+    private record Category(String shortName, String name, String fachCategory, int haltezeit, String vehicleTypeId,
+                            int seats, int standingRoom, int length, int maxVelocity) {
+    }
+
+    private record GeneratedNode(int id, String fullName, boolean stop, List<GeneratedPort> ports,
+                                 List<GeneratedTransition> transitions) {
+    }
+
+    private record GeneratedPort(int id, int sectionId) {
+    }
+
+    private record GeneratedTransition(int id, int port1Id, int port2Id, boolean nonStop) {
+    }
+
+    private record GeneratedSection(int id, int sourceNodeId, int targetNodeId, int trainrunId, int sourceDeparture,
+                                    int travelTime) {
+
+        private int targetArrival() {
+            return sourceDeparture + travelTime;
+        }
+
+    }
+
+    private record GeneratedTrainrun(int id, String name, int categoryId, int frequencyId, int timeCategoryId) {
+    }
+
+    private record TimeCategory(int id, int from, int to) {
+
+        private boolean fullDay() {
+            return from == to;
+        }
+
+    }
+
+    private record Network(int columns, List<GeneratedNode> nodes, List<GeneratedSection> sections,
+                           List<GeneratedTrainrun> trainruns, List<TimeCategory> timeCategories) {
+    }
+
+    /**
+     * Builds the network in memory, drawing all random numbers in a fixed order.
+     */
+    @RequiredArgsConstructor
+    private class NetworkBuilder {
+
+        private final Random random;
+        private final List<GeneratedNode> nodes = new ArrayList<>();
+        private final List<GeneratedSection> sections = new ArrayList<>();
+        private final List<GeneratedTrainrun> trainruns = new ArrayList<>();
+        private final List<TimeCategory> timeCategories = new ArrayList<>();
+        private final List<Integer> stopNodeIds = new ArrayList<>();
+
+        private int columns;
+        private int portCounter;
+        private int transitionCounter;
+
+        private Network build() {
+            columns = (int) Math.ceil(Math.sqrt(config.getNodes()));
+
+            // nodes; the first one always allows stops
+            for (int id = 0; id < config.getNodes(); id++) {
+                boolean stop = id == 0 || random.nextDouble() < config.getStopRatio();
+                nodes.add(new GeneratedNode(id, String.format("Node %d", id), stop, new ArrayList<>(),
+                        new ArrayList<>()));
+                if (stop) {
+                    stopNodeIds.add(id);
+                }
+            }
+
+            // time categories; the first one is operated the full service day
+            timeCategories.add(new TimeCategory(0, 0, 0));
+            for (int id = 1; id < config.getTimeCategories(); id++) {
+                int from = SERVICE_DAY_START + random.nextInt(SERVICE_DAY_END - SERVICE_DAY_START - MAX_INTERVAL);
+                int to = from + MIN_INTERVAL + random.nextInt(MAX_INTERVAL - MIN_INTERVAL + 1);
+                timeCategories.add(new TimeCategory(id, from, to));
+            }
+
+            for (int id = 0; id < config.getTrainruns(); id++) {
+                addTrainrun(id);
+            }
+
+            return new Network(columns, nodes, sections, trainruns, timeCategories);
+        }
+
+        private void addTrainrun(int trainrunId) {
+            int categoryId = random.nextInt(CATEGORIES.size());
+            Category category = CATEGORIES.get(categoryId);
+            trainruns.add(new GeneratedTrainrun(trainrunId, String.format("%s%d", category.shortName(), trainrunId),
+                    categoryId, random.nextInt(config.getFrequencies().size()),
+                    random.nextInt(config.getTimeCategories())));
+
+            List<Integer> path = walk();
+            int time = random.nextInt(MINUTES_PER_HOUR);
+            int previousTargetPortId = -1;
+            for (int i = 0; i < path.size() - 1; i++) {
+                GeneratedNode source = nodes.get(path.get(i));
+                GeneratedNode target = nodes.get(path.get(i + 1));
+
+                // stop or pass on intermediate nodes; the section departs after the dwell time of the category
+                boolean intermediate = i > 0;
+                boolean pass = intermediate && (!source.stop() || random.nextDouble() < config.getPassRatio());
+                if (intermediate && !pass) {
+                    time += category.haltezeit();
+                }
+
+                GeneratedSection section = new GeneratedSection(sections.size(), source.id(), target.id(), trainrunId,
+                        time, MIN_TRAVEL_TIME + random.nextInt(MAX_TRAVEL_TIME - MIN_TRAVEL_TIME + 1));
+                sections.add(section);
+
+                // ports on both nodes, connected to the previous section by a transition on the source node
+                int sourcePortId = portCounter++;
+                int targetPortId = portCounter++;
+                source.ports().add(new GeneratedPort(sourcePortId, section.id()));
+                target.ports().add(new GeneratedPort(targetPortId, section.id()));
+                if (intermediate) {
+                    source.transitions()
+                            .add(new GeneratedTransition(transitionCounter++, previousTargetPortId, sourcePortId,
+                                    pass));
+                }
+
+                time = section.targetArrival();
+                previousTargetPortId = targetPortId;
+            }
+        }
+
+        /**
+         * Self-avoiding random walk on the grid, starting and ending on a node with stops.
+         */
+        private List<Integer> walk() {
+            for (int attempt = 0; attempt < MAX_WALK_ATTEMPTS; attempt++) {
+                int start = stopNodeIds.get(random.nextInt(stopNodeIds.size()));
+                List<Integer> path = new ArrayList<>();
+                Set<Integer> visited = new HashSet<>();
+                path.add(start);
+                visited.add(start);
+
+                while (path.size() <= config.getSectionsPerTrainrun()) {
+                    List<Integer> candidates = neighbours(path.getLast()).stream()
+                            .filter(id -> !visited.contains(id))
+                            .toList();
+                    if (candidates.isEmpty()) {
+                        break;
+                    }
+                    int next = candidates.get(random.nextInt(candidates.size()));
+                    path.add(next);
+                    visited.add(next);
+                }
+
+                // trainruns end on a node with stops
+                while (path.size() > 1 && !nodes.get(path.getLast()).stop()) {
+                    path.removeLast();
+                }
+
+                if (path.size() > 1) {
+                    return path;
+                }
+            }
+
+            throw new IllegalStateException(
+                    String.format("Unable to find a trainrun path in %d attempts, increase the stop ratio",
+                            MAX_WALK_ATTEMPTS));
+        }
+
+        private List<Integer> neighbours(int id) {
+            int row = id / columns;
+            int column = id % columns;
+            List<Integer> neighbours = new ArrayList<>(4);
+            if (column > 0) {
+                neighbours.add(id - 1);
+            }
+            if (column < columns - 1 && id + 1 < nodes.size()) {
+                neighbours.add(id + 1);
+            }
+            if (row > 0) {
+                neighbours.add(id - columns);
+            }
+            if (id + columns < nodes.size()) {
+                neighbours.add(id + columns);
+            }
+
+            return neighbours;
+        }
+
+    }
+
+    /**
+     * Writes the network in the JSON format of the Netzgrafik-Editor, restricted to the attributes read by the
+     * converter.
+     */
+    @RequiredArgsConstructor
+    private class JsonWriter {
+
+        private final Writer writer;
+
+        private static int minute(int time) {
+            return Math.floorMod(time, MINUTES_PER_HOUR);
+        }
+
+        private static int symmetric(int time) {
+            return Math.floorMod(MINUTES_PER_HOUR - minute(time), MINUTES_PER_HOUR);
+        }
+
+        private void write(Network network) throws IOException {
+            writer.write("{\"nodes\":[");
+            for (int i = 0; i < network.nodes().size(); i++) {
+                separate(i);
+                writeNode(network.nodes().get(i), network.columns());
+            }
+
+            writer.write("],\"trainrunSections\":[");
+            for (int i = 0; i < network.sections().size(); i++) {
+                separate(i);
+                writeSection(network.sections().get(i));
+            }
+
+            writer.write("],\"trainruns\":[");
+            for (int i = 0; i < network.trainruns().size(); i++) {
+                GeneratedTrainrun trainrun = network.trainruns().get(i);
+                separate(i);
+                writer.write(String.format("{\"id\":%d,\"name\":\"%s\",\"categoryId\":%d,\"frequencyId\":%d,",
+                        trainrun.id(), trainrun.name(), trainrun.categoryId(), trainrun.frequencyId()));
+                writer.write(String.format("\"trainrunTimeCategoryId\":%d}", trainrun.timeCategoryId()));
+            }
+
+            writer.write("],\"metadata\":{");
+            writeMetadata(network.timeCategories());
+            writer.write("}}");
+        }
+
+        private void writeNode(GeneratedNode node, int columns) throws IOException {
+            writer.write(String.format(
+                    "{\"id\":%d,\"betriebspunktName\":\"%s\",\"fullName\":\"%s\",\"positionX\":%d,\"positionY\":%d,",
+                    node.id(), nodeName(node.id()), node.fullName(), (node.id() % columns) * GRID_SPACING,
+                    (node.id() / columns) * GRID_SPACING));
+            writer.write("\"perronkanten\":5,\"connectionTime\":3,\"ports\":[");
+            for (int i = 0; i < node.ports().size(); i++) {
+                GeneratedPort port = node.ports().get(i);
+                separate(i);
+                writer.write(String.format("{\"id\":%d,\"trainrunSectionId\":%d}", port.id(), port.sectionId()));
+            }
+
+            writer.write("],\"transitions\":[");
+            for (int i = 0; i < node.transitions().size(); i++) {
+                GeneratedTransition transition = node.transitions().get(i);
+                separate(i);
+                writer.write(String.format("{\"id\":%d,\"port1Id\":%d,\"port2Id\":%d,\"isNonStopTransit\":%b}",
+                        transition.id(), transition.port1Id(), transition.port2Id(), transition.nonStop()));
+            }
+
+            writer.write("],\"trainrunCategoryHaltezeiten\":{");
+            for (Category category : CATEGORIES) {
+                writer.write(String.format("\"%s\":{\"no_halt\":false,\"haltezeit\":%d},", category.fachCategory(),
+                        category.haltezeit()));
+            }
+            writer.write(String.format("\"%s\":{\"no_halt\":true,\"haltezeit\":0}}}", UNCATEGORIZED));
+        }
+
+        private void writeSection(GeneratedSection section) throws IOException {
+            int departure = section.sourceDeparture();
+            int arrival = section.targetArrival();
+            writer.write(String.format("{\"id\":%d,\"sourceNodeId\":%d,\"targetNodeId\":%d,\"trainrunId\":%d,",
+                    section.id(), section.sourceNodeId(), section.targetNodeId(), section.trainrunId()));
+            writeTime("travelTime", section.travelTime(), section.travelTime());
+            writer.write(',');
+            writeTime("sourceDeparture", minute(departure), departure);
+            writer.write(',');
+            writeTime("targetArrival", minute(arrival), arrival);
+            writer.write(',');
+            writeTime("sourceArrival", symmetric(departure), symmetric(departure));
+            writer.write(',');
+            writeTime("targetDeparture", symmetric(arrival), symmetric(arrival));
+            writer.write('}');
+        }
+
+        private void writeTime(String name, int time, int consecutiveTime) throws IOException {
+            writer.write(String.format("\"%s\":{\"time\":%d,\"consecutiveTime\":%d,\"lock\":false}", name, time,
+                    consecutiveTime));
+        }
+
+        private void writeMetadata(List<TimeCategory> timeCategories) throws IOException {
+            writer.write("\"trainrunCategories\":[");
+            for (int i = 0; i < CATEGORIES.size(); i++) {
+                Category category = CATEGORIES.get(i);
+                separate(i);
+                writer.write(String.format("{\"id\":%d,\"name\":\"%s\",\"shortName\":\"%s\",", i, category.name(),
+                        category.shortName()));
+                writer.write(String.format("\"fachCategory\":\"%s\"}", category.fachCategory()));
+            }
+
+            writer.write("],\"trainrunFrequencies\":[");
+            for (int i = 0; i < config.getFrequencies().size(); i++) {
+                int frequency = config.getFrequencies().get(i);
+                separate(i);
+                writer.write(String.format("{\"id\":%d,\"name\":\"verkehrt alle %d Minuten\",\"shortName\":\"%d\",", i,
+                        frequency, frequency));
+                writer.write(String.format("\"offset\":0,\"frequency\":%d}", frequency));
+            }
+
+            writer.write("],\"trainrunTimeCategories\":[");
+            for (int i = 0; i < timeCategories.size(); i++) {
+                TimeCategory timeCategory = timeCategories.get(i);
+                separate(i);
+                writer.write(String.format("{\"id\":%d,\"name\":\"Zeitkategorie %d\",\"shortName\":\"TC%d\",",
+                        timeCategory.id(), timeCategory.id(), timeCategory.id()));
+                if (timeCategory.fullDay()) {
+                    writer.write("\"dayTimeInterval\":[]}");
+                } else {
+                    writer.write(String.format("\"dayTimeInterval\":[{\"from\":%d,\"to\":%d}]}", timeCategory.from(),
+                            timeCategory.to()));
+                }
+            }
+            writer.write(']');
+        }
+
+        private void separate(int index) throws IOException {
+            if (index > 0) {
+                writer.write(',');
+            }
+        }
+
+    }
+
+}
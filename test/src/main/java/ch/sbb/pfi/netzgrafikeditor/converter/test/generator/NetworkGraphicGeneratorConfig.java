@@ -0,0 +1,63 @@
+package ch.sbb.pfi.netzgrafikeditor.converter.test.generator;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder
+public class NetworkGraphicGeneratorConfig {
+
+    /**
+     * Seed of the random generator; the same configuration always generates the same network graphic.
+     */
+    @Builder.Default
+    long seed = 42;
+
+    /**
+     * Number of nodes, placed on a square grid.
+     */
+    @Builder.Default
+    int nodes = 100;
+
+    /**
+     * Number of trainruns.
+     */
+    @Builder.Default
+    int trainruns = 50;
+
+    /**
+     * Maximum number of sections per trainrun. A trainrun can be shorter if its random walk on the grid gets stuck or
+     * ends on a node without stops.
+     */
+    @Builder.Default
+    int sectionsPerTrainrun = 8;
+
+    /**
+     * Share of the nodes where trains can stop. All trains pass the other nodes without stopping; trainruns never start
+     * or end on them.
+     */
+    @Builder.Default
+    double stopRatio = 0.8;
+
+    /**
+     * Probability that a trainrun passes an intermediate node without stopping, even if trains can stop there.
+     */
+    @Builder.Default
+    double passRatio = 0.2;
+
+    /**
+     * Trainrun frequencies in minutes.
+     */
+    @Builder.Default
+    List<Integer> frequencies = List.of(15, 30, 60, 120);
+
+    /**
+     * Number of time categories. The first one operates the full service day, each further one operates during a random
+     * interval of the day.
+     */
+    @Builder.Default
+    int timeCategories = 2;
+
+}